@@ -0,0 +1,119 @@
+package demo.benchmark;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oimo.collision.broadphase.BroadPhase;
+import oimo.collision.broadphase.Proxy;
+import oimo.collision.broadphase.ProxyPair;
+import oimo.collision.broadphase.bruteforce.BruteForceBroadPhase;
+import oimo.collision.broadphase.bvh.BvhBroadPhase;
+import oimo.collision.broadphase.sap.SapBroadPhase;
+import oimo.collision.geometry.Aabb;
+import oimo.common.Vec3;
+
+/**
+ * Measures `BroadPhase.collectPairs` on boxes moving in a closed room. One operation
+ * is moving all the proxies then collecting the overlapping pairs. A part of the boxes
+ * can be made static, in which case they never move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadPhaseBenchmark {
+	static final int NUM_PROXIES = 2000;
+	static final double ROOM_SIZE = 40;
+
+	@Param({ "bvh", "sap", "bruteforce" })
+	String type;
+	@Param({ "0", "0.9" })
+	double staticRatio;
+
+	int numStaticProxies;
+	BroadPhase broadPhase;
+	Proxy[] proxies;
+	Vec3[] positions;
+	Vec3[] velocities;
+	Vec3[] halfExtents;
+	Aabb aabb;
+	Vec3 displacement;
+
+	// --- public ---
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (type) {
+		case "bruteforce":
+			broadPhase = new BruteForceBroadPhase();
+			break;
+		case "sap":
+			broadPhase = new SapBroadPhase();
+			break;
+		default:
+			broadPhase = new BvhBroadPhase();
+		}
+		numStaticProxies = (int) (NUM_PROXIES * staticRatio);
+		proxies = new Proxy[NUM_PROXIES];
+		positions = new Vec3[NUM_PROXIES];
+		velocities = new Vec3[NUM_PROXIES];
+		halfExtents = new Vec3[NUM_PROXIES];
+		aabb = new Aabb();
+		displacement = new Vec3();
+
+		// fixed seed so every run measures the same motion
+		Random random = new Random(1234);
+		for (int i = 0; i < NUM_PROXIES; i++) {
+			positions[i] = new Vec3(random.nextDouble(), random.nextDouble(), random.nextDouble()).scaleEq(ROOM_SIZE);
+			velocities[i] = new Vec3(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5).scaleEq(0.2);
+			halfExtents[i] = new Vec3(random.nextDouble(), random.nextDouble(), random.nextDouble()).scaleEq(0.5).add3Eq(0.25, 0.25, 0.25);
+			proxies[i] = broadPhase.createProxy(null, computeAabb(i));
+			broadPhase.setProxyStatic(proxies[i], i < numStaticProxies);
+		}
+		broadPhase.collectPairs();
+	}
+
+	@Benchmark
+	public int collectPairs() {
+		for (int i = numStaticProxies; i < NUM_PROXIES; i++) {
+			Vec3 p = positions[i];
+			Vec3 v = velocities[i];
+			p.addEq(v);
+			if (p.x < 0 || p.x > ROOM_SIZE) v.x = -v.x;
+			if (p.y < 0 || p.y > ROOM_SIZE) v.y = -v.y;
+			if (p.z < 0 || p.z > ROOM_SIZE) v.z = -v.z;
+			broadPhase.moveProxy(proxies[i], computeAabb(i), displacement.copyFrom(v));
+		}
+		broadPhase.collectPairs();
+
+		int numPairs = 0;
+		for (ProxyPair pp = broadPhase.getProxyPairList(); pp != null; pp = pp._next) {
+			numPairs++;
+		}
+		return numPairs;
+	}
+
+	// --- private ---
+
+	Aabb computeAabb(int i) {
+		Vec3 p = positions[i];
+		Vec3 h = halfExtents[i];
+		aabb._min.set(p.x - h.x, p.y - h.y, p.z - h.z);
+		aabb._max.set(p.x + h.x, p.y + h.y, p.z + h.z);
+		return aabb;
+	}
+}
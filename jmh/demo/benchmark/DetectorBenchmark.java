@@ -0,0 +1,121 @@
+package demo.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oimo.collision.geometry.BoxGeometry;
+import oimo.collision.geometry.CapsuleGeometry;
+import oimo.collision.geometry.ConeGeometry;
+import oimo.collision.geometry.ConvexGeometry;
+import oimo.collision.geometry.ConvexHullGeometry;
+import oimo.collision.geometry.CylinderGeometry;
+import oimo.collision.geometry.GeometryType;
+import oimo.collision.geometry.SphereGeometry;
+import oimo.collision.narrowphase.CollisionMatrix;
+import oimo.collision.narrowphase.DetectorResult;
+import oimo.collision.narrowphase.detector.CachedDetectorData;
+import oimo.collision.narrowphase.detector.Detector;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * Measures the detector of `CollisionMatrix` for a pair of geometry types. The two
+ * geometries slightly penetrate each other and are kept in place, as in a resting
+ * contact. One operation is one `Detector.detect` call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectorBenchmark {
+	static final String[] GEOMETRY_NAMES = { "sphere", "box", "cylinder", "cone", "capsule", "convexhull" };
+
+	@Param({ "sphere", "box", "cylinder", "cone", "capsule", "convexhull" })
+	String geometry1;
+	@Param({ "sphere", "box", "cylinder", "cone", "capsule", "convexhull" })
+	String geometry2;
+
+	Detector detector;
+	ConvexGeometry geom1;
+	ConvexGeometry geom2;
+	Transform tf1;
+	Transform tf2;
+	DetectorResult result;
+	CachedDetectorData cachedData;
+	GjkEpa gjkEpa;
+
+	// --- public ---
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		int type1 = typeOf(geometry1);
+		int type2 = typeOf(geometry2);
+		detector = new CollisionMatrix().getDetector(type1, type2);
+		geom1 = createGeometry(type1);
+		geom2 = createGeometry(type2);
+		tf1 = new Transform();
+		tf2 = new Transform();
+		tf1.setRotationXyz(new Vec3(0.1, 0.2, 0.3));
+		tf2.setPosition(new Vec3(0.3, 0.9, 0.2));
+		tf2.setRotationXyz(new Vec3(-0.4, 0.5, 0.1));
+		result = new DetectorResult();
+		cachedData = new CachedDetectorData();
+		gjkEpa = GjkEpa.getInstance();
+	}
+
+	@Benchmark
+	public int detect() {
+		detector.detect(result, geom1, geom2, tf1, tf2, cachedData, gjkEpa);
+		return result.numPoints;
+	}
+
+	// --- private ---
+
+	static int typeOf(String name) {
+		for (int i = 0; i < GEOMETRY_NAMES.length; i++) {
+			if (GEOMETRY_NAMES[i].equals(name)) return GeometryType._CONVEX_MIN + i;
+		}
+		throw new IllegalArgumentException("unknown geometry: " + name);
+	}
+
+	/**
+	 * Returns a geometry of `type` about one unit in size.
+	 */
+	static ConvexGeometry createGeometry(int type) {
+		switch (type) {
+		case GeometryType.SPHERE:
+			return new SphereGeometry(0.5);
+		case GeometryType.BOX:
+			return new BoxGeometry(new Vec3(0.5, 0.5, 0.5));
+		case GeometryType.CYLINDER:
+			return new CylinderGeometry(0.5, 0.5);
+		case GeometryType.CONE:
+			return new ConeGeometry(0.5, 0.5);
+		case GeometryType.CAPSULE:
+			return new CapsuleGeometry(0.3, 0.3);
+		default:
+			// an irregular hull of 24 vertices on a sphere of radius 0.5
+			Vec3[] vertices = new Vec3[24];
+			for (int i = 0; i < vertices.length; i++) {
+				double theta = Math.acos(1 - 2 * (i + 0.5) / vertices.length);
+				double phi = i * 2.399963229728653;
+				vertices[i] = new Vec3(Math.sin(theta) * Math.cos(phi), Math.cos(theta), Math.sin(theta) * Math.sin(phi)).scaleEq(0.5);
+			}
+			return new ConvexHullGeometry(vertices);
+		}
+	}
+}
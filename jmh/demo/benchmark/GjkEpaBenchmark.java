@@ -0,0 +1,65 @@
+package demo.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oimo.collision.geometry.ConvexGeometry;
+import oimo.collision.geometry.GeometryType;
+import oimo.collision.narrowphase.detector.CachedDetectorData;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * Measures `GjkEpa.computeClosestPointsImpl` between two convex hulls, either
+ * separated (GJK only) or penetrating (GJK then EPA). One operation is one call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GjkEpaBenchmark {
+	@Param({ "false", "true" })
+	boolean penetrating;
+
+	ConvexGeometry c1;
+	ConvexGeometry c2;
+	Transform tf1;
+	Transform tf2;
+	CachedDetectorData cache;
+	GjkEpa gjkEpa;
+
+	// --- public ---
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		c1 = DetectorBenchmark.createGeometry(GeometryType.CONVEX_HULL);
+		c2 = DetectorBenchmark.createGeometry(GeometryType.CONVEX_HULL);
+		tf1 = new Transform();
+		tf2 = new Transform();
+		tf1.setRotationXyz(new Vec3(0.1, 0.2, 0.3));
+		tf2.setPosition(penetrating ? new Vec3(0.2, 0.8, 0.1) : new Vec3(0.4, 1.3, 0.2));
+		tf2.setRotationXyz(new Vec3(-0.4, 0.5, 0.1));
+		cache = new CachedDetectorData();
+		gjkEpa = GjkEpa.getInstance();
+	}
+
+	@Benchmark
+	public double computeClosestPoints() {
+		gjkEpa.computeClosestPointsImpl(c1, c2, tf1, tf2, cache, true);
+		return gjkEpa.distance;
+	}
+}
@@ -0,0 +1,78 @@
+package demo.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import demo.common.Utils;
+import oimo.common.Setting;
+import oimo.common.Vec3;
+import oimo.dynamics.World;
+import oimo.dynamics.constraint.solver.ConstraintSolverType;
+import oimo.dynamics.rigidbody.RigidBody;
+
+/**
+ * Measures a joint constraint solver on a scene of ragdolls lying on the ground and
+ * long hanging chains. All the joints of the scene use the solver of the given
+ * `ConstraintSolverType`. One operation is one step of the world, which is rebuilt
+ * before each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JointSolverBenchmark {
+	static final int NUM_RAGDOLLS = 16;
+	static final int NUM_CHAINS = 4;
+	static final int CHAIN_LENGTH = 24;
+
+	@Param({ "pgs", "direct" })
+	String solver;
+
+	World world;
+
+	// --- public ---
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		// joints take their solver type from the setting when created
+		int defaultSolverType = Setting.defaultJointConstraintSolverType;
+		Setting.defaultJointConstraintSolverType = solver.equals("direct") ? ConstraintSolverType.DIRECT : ConstraintSolverType.ITERATIVE;
+
+		world = new World(2, new Vec3(0, -9.80665, 0));
+		Utils.addBox(world, new Vec3(0, -0.2, 0), new Vec3(20, 0.2, 20), true);
+		for (int i = 0; i < NUM_RAGDOLLS; i++) {
+			Utils.addRagdoll(world, new Vec3((i % 4) * 2.5 - 4, 2 + (i / 4) * 0.5, (i / 4) * 2.5 - 4));
+		}
+		for (int i = 0; i < NUM_CHAINS; i++) {
+			double x = i * 3 - 4.5;
+			RigidBody prev = Utils.addSphere(world, new Vec3(x, 16, 8), 0.1, true);
+			for (int j = 0; j < CHAIN_LENGTH; j++) {
+				// the chain starts horizontal so it swings
+				RigidBody link = Utils.addBox(world, new Vec3(x, 16, 8 - (j + 1) * 0.5), new Vec3(0.1, 0.1, 0.2), false);
+				Utils.addSphericalJoint(world, prev, link, new Vec3(x, 16, 8 - j * 0.5 - 0.25));
+				prev = link;
+			}
+		}
+
+		Setting.defaultJointConstraintSolverType = defaultSolverType;
+	}
+
+	@Benchmark
+	public int step() {
+		world.step(1 / 60.0);
+		return world.getNumIslands();
+	}
+}
@@ -0,0 +1,68 @@
+package demo.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import demo.common.Utils;
+import oimo.common.Vec3;
+import oimo.dynamics.World;
+import oimo.dynamics.rigidbody.RigidBody;
+
+/**
+ * Measures `World.step` on a few awake rigid bodies among many sleeping and static ones.
+ * The awake spheres spin in zero gravity so they never fall asleep, and the props neither
+ * move nor touch anything. One operation is one step of the world, whose cost should not
+ * depend on the number of props.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SleepingBodiesBenchmark {
+	static final int NUM_AWAKE_BODIES = 500;
+
+	@Param({ "0", "10000", "50000" })
+	int numProps;
+
+	World world;
+
+	// --- public ---
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		world = new World(2, new Vec3());
+
+		// half of the props are static, the other half are put to sleep
+		int w = (int) Math.ceil(Math.sqrt(numProps));
+		for (int i = 0; i < numProps; i++) {
+			Vec3 center = new Vec3((i % w) * 2, 0, (i / w) * 2 + 100);
+			RigidBody rb = Utils.addBox(world, center, new Vec3(0.5, 0.5, 0.5), (i & 1) == 0);
+			rb.sleep();
+		}
+
+		for (int i = 0; i < NUM_AWAKE_BODIES; i++) {
+			RigidBody rb = Utils.addSphere(world, new Vec3((i % 25) * 2, 0, (i / 25) * 2), 0.5, false);
+			rb.setAngularDamping(0);
+			rb.setAngularVelocity(new Vec3(0, 5, 0));
+		}
+	}
+
+	@Benchmark
+	public int step() {
+		world.step(1 / 60.0);
+		return world.getNumIslands();
+	}
+}
@@ -0,0 +1,85 @@
+package demo.benchmark;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import demo.common.DemoBase;
+import demo.demoes.BroadPhaseStressDemo;
+import demo.demoes.ConvexHullDemo;
+import demo.demoes.HeightfieldDemo;
+import demo.demoes.PlaneDemo;
+import demo.demoes.RagdollDemo;
+import demo.demoes.TriangleMeshDemo;
+import demo.demoes.VerticalStackingDemo;
+import oimo.common.Vec3;
+import oimo.dynamics.World;
+
+/**
+ * Measures `World.step` on a demo scene. One operation is one step of the world
+ * followed by the update of the demo. The scene is rebuilt before each iteration, so
+ * every iteration measures the same part of the simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepBenchmark {
+	@Param({ "stacking", "ragdolls", "convexhulls", "broadphasestress", "trianglemesh", "heightfield", "plane" })
+	String scene;
+
+	World world;
+	DemoBase demo;
+
+	// --- private ---
+
+	static Supplier<DemoBase> factoryOf(String scene) {
+		switch (scene) {
+		case "stacking":
+			return VerticalStackingDemo::new;
+		case "ragdolls":
+			return RagdollDemo::new;
+		case "convexhulls":
+			return ConvexHullDemo::new;
+		case "broadphasestress":
+			return BroadPhaseStressDemo::new;
+		case "trianglemesh":
+			return TriangleMeshDemo::new;
+		case "heightfield":
+			return HeightfieldDemo::new;
+		case "plane":
+			return PlaneDemo::new;
+		default:
+			throw new IllegalArgumentException("unknown scene: " + scene);
+		}
+	}
+
+	// --- public ---
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		world = new World(2, new Vec3(0, -9.80665, 0));
+		demo = factoryOf(scene).get();
+		demo.initHeadless(world);
+	}
+
+	@Benchmark
+	public int step() {
+		world.step(demo.dt);
+		demo.update();
+		return world.getContactManager().getNumContacts();
+	}
+}
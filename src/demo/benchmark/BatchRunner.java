@@ -0,0 +1,196 @@
+package demo.benchmark;
+import java.util.Locale;
+
+import demo.common.DemoBase;
+import demo.common.Utils;
+import oimo.collision.broadphase.BroadPhaseType;
+import oimo.common.Mat3;
+import oimo.common.Vec3;
+import oimo.dynamics.World;
+import oimo.dynamics.rigidbody.RigidBody;
+
+/**
+ * Steps a demo scene headlessly and reports its throughput and final state. Used as
+ * a throughput and determinism check on machines without OpenGL.
+ *
+ * Usage: `BatchRunner <demo> [options]`, where `demo` is the name of a class of
+ * `demo.demoes` or a fully qualified class name. Options:
+ *
+ * - `-steps <n>` the number of steps, `1000` by default
+ * - `-dt <seconds>` the fixed time step, the one of the demo by default
+ * - `-seed <n>` the seed of `Utils.rand` used to build the scene, `0` by default
+ * - `-threads <n>` the number of threads of the world, `1` by default
+ * - `-broadphase <type>` the `BroadPhaseType` of the world, `2` (BVH) by default
+ * - `-expect <checksum>` fails if the final checksum differs
+ * - `-minsps <steps/sec>` fails if the throughput is lower
+ * - `-checkthreads <n>` runs the scene again with `n` threads and fails if the final
+ *   checksum differs
+ *
+ * Exits with `1` if a check fails, `2` if the arguments are invalid.
+ */
+public class BatchRunner {
+	public static void main(String[] args) {
+		if (args.length == 0) usage("no demo given");
+		String demoName = args[0];
+		int numSteps = 1000;
+		double dt = 0;
+		long seed = 0;
+		int numThreads = 1;
+		int broadPhaseType = BroadPhaseType.BVH;
+		String expected = null;
+		double minStepsPerSecond = 0;
+		int numCheckThreads = 0;
+		for (int i = 1; i < args.length; i += 2) {
+			if (i + 1 == args.length) usage("no value for " + args[i]);
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "-steps":
+				numSteps = Integer.parseInt(value);
+				break;
+			case "-dt":
+				dt = Double.parseDouble(value);
+				break;
+			case "-seed":
+				seed = Long.parseLong(value);
+				break;
+			case "-threads":
+				numThreads = Integer.parseInt(value);
+				break;
+			case "-broadphase":
+				broadPhaseType = Integer.parseInt(value);
+				break;
+			case "-expect":
+				expected = value;
+				break;
+			case "-minsps":
+				minStepsPerSecond = Double.parseDouble(value);
+				break;
+			case "-checkthreads":
+				numCheckThreads = Integer.parseInt(value);
+				break;
+			default:
+				usage("unknown option " + args[i]);
+			}
+		}
+
+		// build the scene
+		DemoBase demo = createDemo(demoName);
+		World world = createWorld(demo, seed, broadPhaseType, numThreads);
+		if (dt == 0) dt = demo.dt;
+
+		// run
+		long numBodies = 0;
+		long numContacts = 0;
+		long numIslands = 0;
+		int maxBodies = 0;
+		int maxContacts = 0;
+		int maxIslands = 0;
+		long time = 0;
+		for (int i = 0; i < numSteps; i++) {
+			long begin = System.nanoTime();
+			world.step(dt);
+			time += System.nanoTime() - begin;
+			demo.update();
+
+			int bodies = world.getNumRigidBodies();
+			int contacts = world.getContactManager().getNumContacts();
+			int islands = world.getNumIslands();
+			numBodies += bodies;
+			numContacts += contacts;
+			numIslands += islands;
+			if (bodies > maxBodies) maxBodies = bodies;
+			if (contacts > maxContacts) maxContacts = contacts;
+			if (islands > maxIslands) maxIslands = islands;
+		}
+		world.setNumThreads(1);
+
+		double stepsPerSecond = numSteps * 1e9 / time;
+		String checksum = checksum(world);
+		System.out.println("demo: " + demo.demoName + ", steps: " + numSteps + ", dt: " + dt + ", seed: " + seed + ", threads: " + numThreads + ", broad-phase: " + broadPhaseType);
+		System.out.println(String.format(Locale.ROOT, "throughput: %.1f steps/sec, %.3f ms/step", stepsPerSecond, time / 1e6 / numSteps));
+		System.out.println(String.format(Locale.ROOT, "bodies per step: avg %.1f, max %d", (double) numBodies / numSteps, maxBodies));
+		System.out.println(String.format(Locale.ROOT, "contacts per step: avg %.1f, max %d", (double) numContacts / numSteps, maxContacts));
+		System.out.println(String.format(Locale.ROOT, "islands per step: avg %.1f, max %d", (double) numIslands / numSteps, maxIslands));
+		System.out.println("checksum: " + checksum);
+
+		boolean failed = false;
+		if (expected != null && !expected.equalsIgnoreCase(checksum)) {
+			System.out.println("FAILED: checksum " + checksum + " differs from the expected " + expected);
+			failed = true;
+		}
+		if (stepsPerSecond < minStepsPerSecond) {
+			System.out.println("FAILED: throughput is below " + minStepsPerSecond + " steps/sec");
+			failed = true;
+		}
+		if (numCheckThreads > 0) {
+			// rebuild the same scene and step it again with the other number of threads
+			DemoBase checkDemo = createDemo(demoName);
+			World checkWorld = createWorld(checkDemo, seed, broadPhaseType, numCheckThreads);
+			for (int i = 0; i < numSteps; i++) {
+				checkWorld.step(dt);
+				checkDemo.update();
+			}
+			checkWorld.setNumThreads(1);
+			String checkChecksum = checksum(checkWorld);
+			System.out.println("checksum with " + numCheckThreads + " threads: " + checkChecksum);
+			if (!checkChecksum.equals(checksum)) {
+				System.out.println("FAILED: checksum with " + numCheckThreads + " threads differs from the one with " + numThreads);
+				failed = true;
+			}
+		}
+		System.exit(failed ? 1 : 0);
+	}
+
+	/**
+	 * Returns the hash of the exact transforms and velocities of the rigid bodies of
+	 * `world`, in hexadecimal. Any difference in a bit of the state changes it.
+	 */
+	public static String checksum(World world) {
+		long hash = 0xcbf29ce484222325L;
+		for (RigidBody rb = world.getRigidBodyList(); rb != null; rb = rb._next) {
+			Vec3 p = rb._transform._position;
+			Mat3 r = rb._transform._rotation;
+			hash = hash(hash, p.x, p.y, p.z);
+			hash = hash(hash, r.e00, r.e01, r.e02);
+			hash = hash(hash, r.e10, r.e11, r.e12);
+			hash = hash(hash, r.e20, r.e21, r.e22);
+			hash = hash(hash, rb._vel.x, rb._vel.y, rb._vel.z);
+			hash = hash(hash, rb._angVel.x, rb._angVel.y, rb._angVel.z);
+		}
+		return String.format("%016x", hash);
+	}
+
+	// --- private ---
+
+	static long hash(long hash, double x, double y, double z) {
+		// FNV-1a on whole words
+		hash = (hash ^ Double.doubleToLongBits(x)) * 0x100000001b3L;
+		hash = (hash ^ Double.doubleToLongBits(y)) * 0x100000001b3L;
+		hash = (hash ^ Double.doubleToLongBits(z)) * 0x100000001b3L;
+		return hash;
+	}
+
+	static DemoBase createDemo(String name) {
+		String className = name.indexOf('.') == -1 ? "demo.demoes." + name : name;
+		try {
+			return (DemoBase) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			usage("cannot create the demo " + className + ": " + e);
+			return null;
+		}
+	}
+
+	static World createWorld(DemoBase demo, long seed, int broadPhaseType, int numThreads) {
+		World world = new World(broadPhaseType, new Vec3(0, -10, 0));
+		Utils.setSeed(seed);
+		demo.initHeadless(world);
+		world.setNumThreads(numThreads);
+		return world;
+	}
+
+	static void usage(String error) {
+		System.err.println("error: " + error);
+		System.err.println("usage: BatchRunner <demo> [-steps n] [-dt seconds] [-seed n] [-threads n] [-broadphase type] [-expect checksum] [-minsps steps/sec] [-checkthreads n]");
+		System.exit(2);
+	}
+}
@@ -0,0 +1,71 @@
+package demo.benchmark;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import demo.common.DemoBase;
+import demo.demoes.VerticalStackingDemo;
+import oimo.common.Vec3;
+import oimo.dynamics.World;
+
+/**
+ * Measures the garbage produced by stepping vertical stacking scenes, without rendering.
+ *
+ * Usage: `GcBenchmark [numWorlds] [numSteps]`. Prints the bytes allocated per step by
+ * the stepping thread and the number and time of garbage collections during the run.
+ */
+public class GcBenchmark {
+	public static void main(String[] args) {
+		int numWorlds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int numSteps = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		World[] worlds = new World[numWorlds];
+		DemoBase[] demos = new DemoBase[numWorlds];
+		for (int i = 0; i < numWorlds; i++) {
+			worlds[i] = new World(2, new Vec3(0, -9.80665, 0));
+			demos[i] = new VerticalStackingDemo();
+			demos[i].initHeadless(worlds[i]);
+		}
+
+		// let the stacks settle and the JIT warm up
+		step(worlds, demos, numSteps / 4);
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long gcCount = 0;
+		long gcTime = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount -= gc.getCollectionCount();
+			gcTime -= gc.getCollectionTime();
+		}
+		long bytes = -threads.getThreadAllocatedBytes(threadId);
+		long time = -System.nanoTime();
+
+		step(worlds, demos, numSteps);
+
+		time += System.nanoTime();
+		bytes += threads.getThreadAllocatedBytes(threadId);
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount += gc.getCollectionCount();
+			gcTime += gc.getCollectionTime();
+		}
+
+		int numBodies = 0;
+		for (int i = 0; i < numWorlds; i++) {
+			numBodies += worlds[i].getNumRigidBodies();
+		}
+		long numWorldSteps = (long) numWorlds * numSteps;
+		System.out.println("worlds: " + numWorlds + ", rigid bodies: " + numBodies + ", steps: " + numSteps);
+		System.out.println("allocated: " + bytes / numWorldSteps + " bytes/step, " + bytes / (numWorldSteps * numBodies) + " bytes/body/step");
+		System.out.println("gc: " + gcCount + " collections, " + gcTime + " ms");
+		System.out.println("time: " + time / numWorldSteps / 1000 + " us/step");
+	}
+
+	static void step(World[] worlds, DemoBase[] demos, int numSteps) {
+		for (int n = 0; n < numSteps; n++) {
+			for (int i = 0; i < worlds.length; i++) {
+				worlds[i].step(demos[i].dt);
+				demos[i].update();
+			}
+		}
+	}
+}
@@ -3,7 +3,6 @@ import oimo.collision.geometry.*;
 import oimo.common.DebugDraw;
 import oimo.common.Mat3;
 import oimo.common.Mat4;
-import oimo.common.MathUtil;
 import oimo.common.Quat;
 import oimo.common.Vec3;
 import oimo.dynamics.*;
@@ -45,6 +44,13 @@ public class DemoBase {
 		dt = 1 / 60.0;
 	}
 
+	/**
+	 * Initializes the demo with `world` for running without rendering and user input.
+	 */
+	public void initHeadless(World world) {
+		init(world, new DemoRenderer(world, new HeadlessGraphics()), new UserInput(), new ViewInfo());
+	}
+
 	public void initControls(Control[] controls) {
 	}
 
@@ -56,8 +62,8 @@ public class DemoBase {
 			rb.getPositionTo(pos);
 			if (pos.y < thresholdY) {
 				pos.y = toY;
-				pos.x = MathUtil.randIn(-1, 1) * rangeX;
-				pos.z = MathUtil.randIn(-1, 1) * rangeZ;
+				pos.x = Utils.randIn(-1, 1) * rangeX;
+				pos.z = Utils.randIn(-1, 1) * rangeZ;
 				rb.setPosition(pos);
 				rb.setLinearVelocity(zero);
 			}
@@ -12,11 +12,14 @@ import demo.demoes.ConvexHullDemo;
 import demo.demoes.FallingRagdollDemo;
 import demo.demoes.FrictionsAndRestitutions;
 import demo.demoes.GearsDemo;
+import demo.demoes.HeightfieldDemo;
 import demo.demoes.JointsDemo;
 import demo.demoes.LimitRotationDemo;
+import demo.demoes.PlaneDemo;
 import demo.demoes.RagdollDemo;
 import demo.demoes.RayCastingDemo;
 import demo.demoes.SpringsDemo;
+import demo.demoes.TriangleMeshDemo;
 import demo.demoes.VariableTimeStepDemo;
 import demo.demoes.VerticalStackingDemo;
 import oimo.common.DebugDraw;
@@ -121,6 +124,9 @@ public class DemoMain {
 			//new JointsDemo(),
 			new CollisionFilteringDemo(),
 			new ConvexHullDemo(),
+			new TriangleMeshDemo(),
+			new HeightfieldDemo(),
+			new PlaneDemo(),
 			new VerticalStackingDemo(),
 			new LimitRotationDemo(),
 			new BroadPhaseStressDemo(),
@@ -149,6 +155,7 @@ public class DemoMain {
 
 	void initDemo() {
 		world = new World(2,new Vec3(0,-10,0));
+		world.setProfilingEnabled(true);
 		performance=world.performance;
 		renderer.setWorld(world);
 		renderer.getGraphics().getDebugDraw().style = new DebugDrawStyle(); // reset style
@@ -482,6 +489,11 @@ public class DemoMain {
 		
 	}
 	
+	// nanoseconds to a millisecond string
+	private String ms(long nanoTime) {
+		return String.format("%.2f ms", nanoTime / 1e6);
+	}
+
 	public String getDemoInfo() {
 		text ="<h2>"+currentDemo.demoName+ (pause ? " [Paused]" : " [Running]")+"</h2>"+
 				"<h3>Profile</h3>"+
@@ -491,10 +503,10 @@ public class DemoMain {
 				"  Shapes        : "+world.getNumShapes()+"\n" +
 				"  Pairs         : "+world.getContactManager().getNumContacts()+"" +
 				"<h3>Performance</h3>" +
-				"  Broad Phase  : "+Math.round(performance.broadPhaseCollisionTime)+"\n" +
-				"  Narrow Phase : "+Math.round(performance.narrowPhaseCollisionTime)+"\n" +
-				"  Dynamics     : "+Math.round(performance.dynamicsTime)+"\n" +
-				"  Physics Total: "+Math.round(performance.totalTime)+"" +
+				"  Broad Phase  : "+ms(performance.getPhaseTime(Performance.BROAD_PHASE) + performance.getPhaseTime(Performance.PAIR_CREATION) + performance.getPhaseTime(Performance.CONTACT_DESTRUCTION))+"\n" +
+				"  Narrow Phase : "+ms(performance.getPhaseTime(Performance.NARROW_PHASE))+"\n" +
+				"  Dynamics     : "+ms(performance.getPhaseTime(Performance.STEP) - performance.getPhaseTime(Performance.BROAD_PHASE) - performance.getPhaseTime(Performance.PAIR_CREATION) - performance.getPhaseTime(Performance.CONTACT_DESTRUCTION) - performance.getPhaseTime(Performance.NARROW_PHASE))+"\n" +
+				"  Physics Total: "+ms(performance.getPhaseTime(Performance.STEP))+" (p99 "+ms(performance.getHistogram(Performance.STEP).getPercentile(99))+")" +
 				//"  Rendering    : "+Math.round(drawTime)+"\n" +
 				//"  Actual FPS   : "+fps+"\n" +
 				"<h3>Control</h3>" ;
@@ -0,0 +1,50 @@
+package demo.common;
+import oimo.common.DebugDraw;
+import oimo.common.Mat4;
+import oimo.common.Vec3;
+
+/**
+ * IDemoGraphics that draws nothing. Used to run demos without OpenGL.
+ */
+public class HeadlessGraphics implements IDemoGraphics {
+	DebugDraw debugDraw;
+
+	public HeadlessGraphics() {
+		debugDraw = new DebugDraw() {
+			@Override
+			public void point(Vec3 v, Vec3 color) {
+			}
+
+			@Override
+			public void triangle(Vec3 v1, Vec3 v2, Vec3 v3, Vec3 n1, Vec3 n2, Vec3 n3, Vec3 color) {
+			}
+
+			@Override
+			public void line(Vec3 v1, Vec3 v2, Vec3 color) {
+			}
+		};
+	}
+
+	// --- public ---
+
+	@Override
+	public void begin(Vec3 color) {
+	}
+
+	@Override
+	public void end() {
+	}
+
+	@Override
+	public DebugDraw getDebugDraw() {
+		return debugDraw;
+	}
+
+	@Override
+	public void setViewMatrix(Mat4 matrix) {
+	}
+
+	@Override
+	public void setProjectionMatrix(Mat4 matrix) {
+	}
+}
@@ -1,5 +1,7 @@
 package demo.common;
 
+import java.util.Random;
+
 import oimo.collision.geometry.BoxGeometry;
 import oimo.collision.geometry.CapsuleGeometry;
 import oimo.collision.geometry.ConeGeometry;
@@ -245,4 +247,46 @@ public class Utils {
 
 		return body1;
 	}
+
+	// ---------------------------------------------------------------------------
+
+	// source of the random numbers of the demos, separate from the one of the engine so
+	// that a scene only depends on its seed
+	static Random random = new Random();
+
+	/**
+	 * Sets the seed of the random numbers returned by `rand` and the methods using it,
+	 * so the following sequence of random numbers is reproducible.
+	 */
+	public static void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Returns random number in [0,1)
+	 */
+	public static double rand() {
+		return random.nextDouble();
+	}
+
+	/**
+	 * Returns random number in [min,max)
+	 */
+	public static double randIn(double min, double max) {
+		return min + rand() * (max - min);
+	}
+
+	/**
+	 * Returns new random Vec3 with each component in [min,max)
+	 */
+	public static Vec3 randVec3In(double min, double max) {
+		return new Vec3(randIn(min, max), randIn(min, max), randIn(min, max));
+	}
+
+	/**
+	 * Returns new random Vec3 with each component in [-1,1)
+	 */
+	public static Vec3 randVec3() {
+		return randVec3In(-1, 1);
+	}
 }
@@ -5,7 +5,6 @@ import demo.common.DemoRenderer;
 import demo.common.Utils;
 import demo.common.UserInput;
 import demo.common.ViewInfo;
-import oimo.common.MathUtil;
 import oimo.common.Vec3;
 import oimo.dynamics.World;
 import oimo.dynamics.rigidbody.RigidBody;
@@ -36,7 +35,7 @@ public class BasicDemo2 extends DemoBase {
 				for (int k=-h;k<h+1;k++) {
 					Vec3 pos = new Vec3(j * sp, size + i * size * 3, k * sp);
 					RigidBody box = Utils.addBox(world, pos, new Vec3(size, size, size), false);
-					box.setAngularVelocity(MathUtil.randVec3In(-0.05, 0.05));
+					box.setAngularVelocity(Utils.randVec3In(-0.05, 0.05));
 				}
 			}
 		}
@@ -30,7 +30,7 @@ public class BreakableJointDemo extends DemoBase {
 			} else {
 				chain[i+1]=Utils.addBox(world, new Vec3((i + 1) * 0.4, 6, 0), new Vec3(0.25, 0.25, 0.25), false);
 			}
-			chain[i+1].setLinearVelocity(MathUtil.randVec3().scaleEq(0.05));
+			chain[i+1].setLinearVelocity(Utils.randVec3().scaleEq(0.05));
 		}
 
 		for (int i=1;i<chain.length;i++) {
@@ -4,7 +4,6 @@ import demo.common.DemoRenderer;
 import demo.common.Utils;
 import demo.common.UserInput;
 import demo.common.ViewInfo;
-import oimo.common.MathUtil;
 import oimo.common.Vec3;
 import oimo.dynamics.World;
 import oimo.dynamics.rigidbody.RigidBody;
@@ -24,9 +23,9 @@ public class BridgeDemo extends DemoBase {
 		renderer.camera(new Vec3(0, 8, 12), new Vec3(0, 2, 0), new Vec3(0, 1, 0));
 
 		for (int i=0;i<5;i++) {
-			Utils.addSphere(world, new Vec3(MathUtil.randIn(-4, 4), MathUtil.randIn(2, 3), MathUtil.randIn(-1, 1)), 0.8, false).getShapeList().setDensity(0.3);
-			Utils.addBox(world, new Vec3(MathUtil.randIn(-4, 4), MathUtil.randIn(2, 3), MathUtil.randIn(-1, 1)), new Vec3(0.5, 0.5, 0.5), false).getShapeList().setDensity(0.3);
-			Utils.addCone(world, new Vec3(MathUtil.randIn(-4, 4), MathUtil.randIn(2, 3), MathUtil.randIn(-1, 1)), 0.6, 0.6, false).getShapeList().setDensity(0.3);
+			Utils.addSphere(world, new Vec3(Utils.randIn(-4, 4), Utils.randIn(2, 3), Utils.randIn(-1, 1)), 0.8, false).getShapeList().setDensity(0.3);
+			Utils.addBox(world, new Vec3(Utils.randIn(-4, 4), Utils.randIn(2, 3), Utils.randIn(-1, 1)), new Vec3(0.5, 0.5, 0.5), false).getShapeList().setDensity(0.3);
+			Utils.addCone(world, new Vec3(Utils.randIn(-4, 4), Utils.randIn(2, 3), Utils.randIn(-1, 1)), 0.6, 0.6, false).getShapeList().setDensity(0.3);
 		}
 
 		int num = 20;
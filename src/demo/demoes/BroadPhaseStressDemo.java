@@ -154,10 +154,10 @@ public class BroadPhaseStressDemo extends DemoBase {
 		ShapeConfig compc = new ShapeConfig();
 		RigidBodyConfig rigidc = new RigidBodyConfig();
 		for (int i=0;i<num;i++) {
-			compc.geometry = shapes[(int) Math.round(Math.random()*1)];
-			compc.position.set(MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1));
+			compc.geometry = shapes[(int) Math.round(Utils.rand()*1)];
+			compc.position.set(Utils.randIn(-1, 1), Utils.randIn(-1, 1), Utils.randIn(-1, 1));
 			compc.position.scaleEq(0);
-			rigidc.position.set(MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1));
+			rigidc.position.set(Utils.randIn(-1, 1), Utils.randIn(-1, 1), Utils.randIn(-1, 1));
 			rigidc.position.x *= FIELD_W;
 			rigidc.position.y *= FIELD_H;
 			rigidc.position.z *= FIELD_D;
@@ -170,8 +170,8 @@ public class BroadPhaseStressDemo extends DemoBase {
 
 	void moveRigidBody(RigidBody b) {
 		double speed = this.speed;
-		Vec3 v = new Vec3().set(MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1)).normalize().scaleEq(speed);
-		Vec3 av = new Vec3().set(MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1), MathUtil.randIn(-1, 1)).scaleEq(5);
+		Vec3 v = new Vec3().set(Utils.randIn(-1, 1), Utils.randIn(-1, 1), Utils.randIn(-1, 1)).normalize().scaleEq(speed);
+		Vec3 av = new Vec3().set(Utils.randIn(-1, 1), Utils.randIn(-1, 1), Utils.randIn(-1, 1)).scaleEq(5);
 		b.setLinearVelocity(v);
 		b.setAngularVelocity(av);
 	}
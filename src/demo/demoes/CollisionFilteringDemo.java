@@ -40,7 +40,7 @@ public class CollisionFilteringDemo extends DemoBase {
 			for (int j=-w;j<w+1;j++) {
 				for (int k=-h;k<h+1;k++) {
 					Vec3 pos = new Vec3(j * size * 3, 3 + i * size * 3, k * size * 3);
-					pos.addEq(MathUtil.randVec3In(-0.01, 0.01));
+					pos.addEq(Utils.randVec3In(-0.01, 0.01));
 					Shape shape;
 					if (i == 0) {
 						shape = Utils.addSphere(world, pos, size, false).getShapeList();
@@ -48,7 +48,7 @@ public class CompoundShapesDemo extends DemoBase {
 
 
 			for (int i=0;i<n;i++) {
-				rc.position.set(-2, 1 + i, 0).addEq(MathUtil.randVec3In(-0.01, 0.01));
+				rc.position.set(-2, 1 + i, 0).addEq(Utils.randVec3In(-0.01, 0.01));
 				RigidBody rb = new RigidBody(rc);
 				rb.addShape(new Shape(sc1));
 				rb.addShape(new Shape(sc2));
@@ -68,7 +68,7 @@ public class CompoundShapesDemo extends DemoBase {
 			sc2.position.set(0, -0.2, 0);
 
 			for (int i=0;i<n;i++) {
-				rc.position.set(0, 1 + i, 0).addEq(MathUtil.randVec3In(-0.01, 0.01));
+				rc.position.set(0, 1 + i, 0).addEq(Utils.randVec3In(-0.01, 0.01));
 				RigidBody rb = new RigidBody(rc);
 				rb.addShape(new Shape(sc1));
 				rb.addShape(new Shape(sc2));
@@ -89,7 +89,7 @@ public class CompoundShapesDemo extends DemoBase {
 			sc1.rotation.appendRotationEq(90 * MathUtil.TO_RADIANS, 0, 0, 1);
 
 			for (int i=0;i<n;i++) {
-				rc.position.set(2, 1 + i, 0).addEq(MathUtil.randVec3In(-0.01, 0.01));
+				rc.position.set(2, 1 + i, 0).addEq(Utils.randVec3In(-0.01, 0.01));
 				RigidBody rb = new RigidBody(rc);
 				rb.addShape(new Shape(sc1));
 				rb.addShape(new Shape(sc2));
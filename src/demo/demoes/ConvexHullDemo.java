@@ -47,8 +47,8 @@ public class ConvexHullDemo extends DemoBase {
 	}
 
 	double rand() {
-		double x = Math.pow(Math.random(), 0.7);
-		if (Math.random() < 0.5) x = -x;
+		double x = Math.pow(Utils.rand(), 0.7);
+		if (Utils.rand() < 0.5) x = -x;
 		return x;
 	}
 
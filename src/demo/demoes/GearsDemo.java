@@ -45,10 +45,10 @@ public class GearsDemo extends DemoBase {
 
 		//createGear(new Vec3(0, 0, 0), 1.0, 0.2,null);
 		for (int i=0;i<20;i++) {
-			Utils.addBox(world, MathUtil.randVec3In(-1, 1).scale3Eq(3, 1, 1).addEq(new Vec3(0, 6, 0)), new Vec3(0.2, 0.2, 0.2), false);
+			Utils.addBox(world, Utils.randVec3In(-1, 1).scale3Eq(3, 1, 1).addEq(new Vec3(0, 6, 0)), new Vec3(0.2, 0.2, 0.2), false);
 		}
 		for (int i=0;i<20;i++) {
-			Utils.addSphere(world, MathUtil.randVec3In(-1, 1).scale3Eq(3, 1, 1).addEq(new Vec3(0, 6, 0)), 0.3, false);
+			Utils.addSphere(world, Utils.randVec3In(-1, 1).scale3Eq(3, 1, 1).addEq(new Vec3(0, 6, 0)), 0.3, false);
 		}
 	}
 
@@ -0,0 +1,55 @@
+package demo.demoes;
+import demo.common.*;
+import oimo.collision.geometry.*;
+import oimo.common.*;
+import oimo.dynamics.*;
+
+/**
+ * Heightfield demo
+ */
+public class HeightfieldDemo extends DemoBase {
+	public HeightfieldDemo() {
+		super("Heightfield");
+	}
+
+	@Override 
+	public void init(World world, DemoRenderer renderer, UserInput input, ViewInfo viewInfo) {
+		super.init(world, renderer, input, viewInfo);
+		renderer.camera(new Vec3(0, 10, 14), new Vec3(0, 0, 0), new Vec3(0, 1, 0));
+
+		// rolling hills of n * n samples
+		int n = 48;
+		double cellSize = 0.4;
+		float[] heights = new float[n * n];
+		for (int j=0;j<n;j++) {
+			for (int i=0;i<n;i++) {
+				heights[j * n + i] = (float) (0.8 * MathUtil.sin(i * 0.25) * MathUtil.cos(j * 0.2) + 0.3 * MathUtil.sin(i * 0.7 + j * 0.5));
+			}
+		}
+		Utils.addRigidBody(world, new Vec3(), new HeightfieldGeometry(n, n, cellSize, cellSize, heights), true);
+
+		for (int i=0;i<60;i++) {
+			Vec3 pos = new Vec3(Utils.randIn(-6, 6), 3 + i * 0.4, Utils.randIn(-6, 6));
+			switch (i % 4) {
+			case 0:
+				Utils.addSphere(world, pos, 0.4, false);
+				break;
+			case 1:
+				Utils.addBox(world, pos, new Vec3(0.4, 0.3, 0.3), false);
+				break;
+			case 2:
+				Utils.addCapsule(world, pos, 0.3, 0.3, false);
+				break;
+			case 3:
+				Utils.addCylinder(world, pos, 0.4, 0.3, false);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void update() {
+		super.update();
+		teleportRigidBodies(-20, 10, 6, 6);
+	}
+}
@@ -140,8 +140,8 @@ public class JointsDemo extends DemoBase {
 		bc.type = RigidBodyType.DYNAMIC;
 		for (int i=0;i<num;i++) {
 			if (i == num - 1) {
-				bc.position.x += MathUtil.randIn(-0.001, 0.001);
-				bc.position.z += MathUtil.randIn(-0.001, 0.001);
+				bc.position.x += Utils.randIn(-0.001, 0.001);
+				bc.position.z += Utils.randIn(-0.001, 0.001);
 			}
 			bc.position.y += radius * 2;
 			b2 = new RigidBody(bc);
@@ -183,8 +183,8 @@ public class JointsDemo extends DemoBase {
 			jc.localAxis1 = axis;
 			jc.localAxis2 = axis;
 			if (i == num - 1) {
-				bc.position.x += MathUtil.randIn(-0.001, 0.001);
-				bc.position.z += MathUtil.randIn(-0.001, 0.001);
+				bc.position.x += Utils.randIn(-0.001, 0.001);
+				bc.position.z += Utils.randIn(-0.001, 0.001);
 			}
 			bc.position.y += radius * 2;
 			b2 = new RigidBody(bc);
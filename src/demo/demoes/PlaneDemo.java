@@ -0,0 +1,48 @@
+package demo.demoes;
+import demo.common.*;
+import oimo.collision.geometry.*;
+import oimo.common.*;
+import oimo.dynamics.*;
+
+/**
+ * Plane demo
+ */
+public class PlaneDemo extends DemoBase {
+	public PlaneDemo() {
+		super("Plane");
+	}
+
+	@Override 
+	public void init(World world, DemoRenderer renderer, UserInput input, ViewInfo viewInfo) {
+		super.init(world, renderer, input, viewInfo);
+		renderer.camera(new Vec3(0, 8, 14), new Vec3(0, 1, 0), new Vec3(0, 1, 0));
+
+		Utils.addRigidBody(world, new Vec3(), new PlaneGeometry(), true);
+
+		for (int i=0;i<120;i++) {
+			Vec3 pos = new Vec3(Utils.randIn(-5, 5), 1 + i * 0.3, Utils.randIn(-5, 5));
+			switch (i % 6) {
+			case 0:
+				Utils.addSphere(world, pos, 0.4, false);
+				break;
+			case 1:
+				Utils.addBox(world, pos, new Vec3(0.4, 0.3, 0.3), false);
+				break;
+			case 2:
+				Utils.addCapsule(world, pos, 0.3, 0.3, false);
+				break;
+			case 3:
+				Utils.addCylinder(world, pos, 0.4, 0.3, false);
+				break;
+			case 4:
+				Utils.addCone(world, pos, 0.4, 0.4, false);
+				break;
+			case 5:
+				Vec3[] vertices = new Vec3[8];
+				for (int m=0;m<8;m++) vertices[m] = new Vec3(Utils.randIn(-0.4, 0.4), Utils.randIn(-0.4, 0.4), Utils.randIn(-0.4, 0.4));
+				Utils.addRigidBody(world, pos, new ConvexHullGeometry(vertices), false);
+				break;
+			}
+		}
+	}
+}
@@ -37,20 +37,20 @@ public class RayCastingDemo extends DemoBase {
 			for (int j=-w;j<w+1;j++) {
 				for (int k=-h;k<h+1;k++) {
 
-					wid = MathUtil.randIn(0.3, 0.4);
-					hei = MathUtil.randIn(0.3, 0.4);
-					int shapeType=(int) (5 * Math.random());
+					wid = Utils.randIn(0.3, 0.4);
+					hei = Utils.randIn(0.3, 0.4);
+					int shapeType=(int) (5 * Utils.rand());
 					switch (shapeType) {
 					case 0:
-						Utils.addCone(world, new Vec3(j * sp + MathUtil.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + MathUtil.randIn(-0.01, 0.01)), wid, hei, false);
+						Utils.addCone(world, new Vec3(j * sp + Utils.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + Utils.randIn(-0.01, 0.01)), wid, hei, false);
 					case 1:
-						Utils.addBox(world, new Vec3(j * sp + MathUtil.randIn(-0.01, 0.01), spH + i * spH * 2 * 0.9998, k * sp + MathUtil.randIn(-0.01, 0.01)), new Vec3(wid, hei, wid), false);
+						Utils.addBox(world, new Vec3(j * sp + Utils.randIn(-0.01, 0.01), spH + i * spH * 2 * 0.9998, k * sp + Utils.randIn(-0.01, 0.01)), new Vec3(wid, hei, wid), false);
 					case 2:
-						Utils.addCylinder(world, new Vec3(j * sp + MathUtil.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + MathUtil.randIn(-0.01, 0.01)), wid, hei, false);
+						Utils.addCylinder(world, new Vec3(j * sp + Utils.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + Utils.randIn(-0.01, 0.01)), wid, hei, false);
 					case 3:
-						Utils.addCapsule(world, new Vec3(j * sp + MathUtil.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + MathUtil.randIn(-0.01, 0.01)), wid, hei, false);
+						Utils.addCapsule(world, new Vec3(j * sp + Utils.randIn(-0.01, 0.01), spH + i * spH * 2 * 1.002, k * sp + Utils.randIn(-0.01, 0.01)), wid, hei, false);
 					case 4:
-						Utils.addSphere(world, new Vec3(j * sp + MathUtil.randIn(-0.01, 0.01), spH + i * spH * 2 * 0.9998, k * sp + MathUtil.randIn(-0.01, 0.01)), wid, false);
+						Utils.addSphere(world, new Vec3(j * sp + Utils.randIn(-0.01, 0.01), spH + i * spH * 2 * 0.9998, k * sp + Utils.randIn(-0.01, 0.01)), wid, false);
 					}
 				}
 			}
@@ -22,7 +22,7 @@ public class SpringsDemo extends DemoBase {
 		renderer.camera(new Vec3(0, 7, 9), new Vec3(0, 2, 0), new Vec3(0, 1, 0));
 
 		for (int i=0;i<5;i++) {
-			Utils.addSphere(world, MathUtil.randVec3In(-1, 1).scale3Eq(2, 2, 0.1).addEq(new Vec3(0, 8, 0)), 0.6, false);
+			Utils.addSphere(world, Utils.randVec3In(-1, 1).scale3Eq(2, 2, 0.1).addEq(new Vec3(0, 8, 0)), 0.6, false);
 		}
 
 		addSpringyBoard(new Vec3(-3, 3, 0), 1, 8);
@@ -0,0 +1,77 @@
+package demo.demoes;
+import demo.common.*;
+import oimo.collision.geometry.*;
+import oimo.common.*;
+import oimo.dynamics.*;
+
+/**
+ * Triangle mesh demo
+ */
+public class TriangleMeshDemo extends DemoBase {
+	public TriangleMeshDemo() {
+		super("Triangle Mesh");
+	}
+
+	@Override 
+	public void init(World world, DemoRenderer renderer, UserInput input, ViewInfo viewInfo) {
+		super.init(world, renderer, input, viewInfo);
+		renderer.camera(new Vec3(0, 8, 12), new Vec3(0, 0, 0), new Vec3(0, 1, 0));
+
+		// a bumpy terrain of n * n quads
+		int n = 24;
+		double size = 16;
+		double[] vertices = new double[(n + 1) * (n + 1) * 3];
+		int[] indices = new int[n * n * 6];
+		for (int i=0;i<=n;i++) {
+			for (int j=0;j<=n;j++) {
+				int o = (i * (n + 1) + j) * 3;
+				vertices[o] = (i / (double) n - 0.5) * size;
+				vertices[o + 1] = 0.6 * MathUtil.sin(i * 0.6) * MathUtil.cos(j * 0.5);
+				vertices[o + 2] = (j / (double) n - 0.5) * size;
+			}
+		}
+		int k = 0;
+		for (int i=0;i<n;i++) {
+			for (int j=0;j<n;j++) {
+				int v1 = i * (n + 1) + j;
+				int v2 = v1 + 1;
+				int v3 = v1 + n + 1;
+				int v4 = v3 + 1;
+				indices[k++] = v1;
+				indices[k++] = v2;
+				indices[k++] = v3;
+				indices[k++] = v2;
+				indices[k++] = v4;
+				indices[k++] = v3;
+			}
+		}
+		Utils.addRigidBody(world, new Vec3(), new TriangleMeshGeometry(vertices, indices), true);
+
+		for (int i=0;i<40;i++) {
+			Vec3 pos = new Vec3(Utils.randIn(-5, 5), 3 + i * 0.5, Utils.randIn(-5, 5));
+			switch (i % 5) {
+			case 0:
+				Utils.addSphere(world, pos, 0.4, false);
+				break;
+			case 1:
+				Utils.addBox(world, pos, new Vec3(0.4, 0.4, 0.4), false);
+				break;
+			case 2:
+				Utils.addCapsule(world, pos, 0.3, 0.3, false);
+				break;
+			case 3:
+				Utils.addCylinder(world, pos, 0.4, 0.3, false);
+				break;
+			case 4:
+				Utils.addCone(world, pos, 0.4, 0.4, false);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void update() {
+		super.update();
+		teleportRigidBodies(-20, 10, 5, 5);
+	}
+}
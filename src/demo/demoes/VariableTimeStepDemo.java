@@ -37,8 +37,8 @@ public class VariableTimeStepDemo extends DemoBase {
 		for (int i=0;i<n;i++) {
 			for (int k=-h;k<h+1;k++) {
 				for (int j=0;j<w;j++) {
-					if ((j + k & 1) == 0) Utils.addBox(world, new Vec3(j * wid * 2 + MathUtil.randIn(-0.01, 0.01), hei + i * hei * 2.2, k * dep * 2 + MathUtil.randIn(-0.01, 0.01)), new Vec3(wid, hei, dep), false);
-					else Utils.addCylinder(world, new Vec3(j * wid * 2 + MathUtil.randIn(-0.01, 0.01), hei + i * hei * 2.2, k * dep * 2 + MathUtil.randIn(-0.01, 0.01)), wid, hei, false);
+					if ((j + k & 1) == 0) Utils.addBox(world, new Vec3(j * wid * 2 + Utils.randIn(-0.01, 0.01), hei + i * hei * 2.2, k * dep * 2 + Utils.randIn(-0.01, 0.01)), new Vec3(wid, hei, dep), false);
+					else Utils.addCylinder(world, new Vec3(j * wid * 2 + Utils.randIn(-0.01, 0.01), hei + i * hei * 2.2, k * dep * 2 + Utils.randIn(-0.01, 0.01)), wid, hei, false);
 				}
 			}
 		}
@@ -36,7 +36,7 @@ public class VerticalStackingDemo extends DemoBase {
 
 		for (int i=-w;i<w+1;i++) {
 			for (int j=0;j<n + dn * (i + w);j++) {
-				Utils.addBox(world, new Vec3(i * sp + MathUtil.randIn(-0.01, 0.01), size + j * size * 2.2, MathUtil.randIn(-0.01, 0.01)), new Vec3(size, size, size), false);
+				Utils.addBox(world, new Vec3(i * sp + Utils.randIn(-0.01, 0.01), size + j * size * 2.2, Utils.randIn(-0.01, 0.01)), new Vec3(size, size, size), false);
 			}
 		}
 
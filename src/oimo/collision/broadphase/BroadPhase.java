@@ -66,12 +66,30 @@ public abstract class BroadPhase {
 	 */
 	public abstract Proxy createProxy(Object userData, Aabb aabb);
 
+	/**
+	 * Returns a new proxy connected with the user data `userData` containing the
+	 * axis-aligned bounding box `aabb`, and adds the proxy into the collision
+	 * space as a static proxy if `isStatic` is true. See `BroadPhase.setProxyStatic`.
+	 */
+	public Proxy createProxy(Object userData, Aabb aabb, boolean isStatic) {
+		Proxy proxy = createProxy(userData, aabb);
+		setProxyStatic(proxy, isStatic);
+		return proxy;
+	}
+
 	/**
 	 * Removes the proxy `proxy` from the collision space.
 	 */
 	public abstract void destroyProxy(Proxy proxy);
 
-	
+	/**
+	 * Sets whether the proxy `proxy` is static. Static proxies are expected to move rarely,
+	 * and broad-phases may skip the pairs of two static proxies.
+	 */
+	public void setProxyStatic(Proxy proxy, boolean isStatic) {
+		proxy._static = isStatic;
+	}
+
 	/**
 	 * Returns whether the pair of `proxy1` and `proxy2` is overlapping. As proxies
 	 * can be larger than the containing AABBs, two proxies may overlap even though
@@ -119,6 +137,29 @@ public abstract class BroadPhase {
 	 */
 	public abstract void rayCast(Vec3 begin, Vec3 end, BroadPhaseProxyCallback callback);
 
+	/**
+	 * Performs ray castings for the rays of indices `rays[from]` to `rays[until - 1]`.
+	 * The start and end points of the ray of index `i` are packed at `3 * i` of `begins`
+	 * and `ends`. `callback.process` is called for all proxies each ray intersects.
+	 *
+	 * Broad phases may traverse neighboring rays together, so rays should be sorted for
+	 * coherence. Unlike the other queries, several threads may call this at once, each with
+	 * its own `callback`, as long as no proxy is created, destroyed or moved meanwhile.
+	 */
+	public void rayCastPacket(double[] begins, double[] ends, int[] rays, int from, int until, BroadPhaseRayCastCallback callback) {
+		RayCastPacketAdapter adapter = new RayCastPacketAdapter(callback);
+		Vec3 begin = new Vec3();
+		Vec3 end = new Vec3();
+		for (int i = from; i < until; i++) {
+			int ray = rays[i];
+			int o = ray * 3;
+			begin.set(begins[o], begins[o + 1], begins[o + 2]);
+			end.set(ends[o], ends[o + 1], ends[o + 2]);
+			adapter.ray = ray;
+			rayCast(begin, end, adapter);
+		}
+	}
+
 	/**
 	 * Performs a convex casting. `callback.process` is called for all shapes the
 	 * convex geometry `convex` hits. The convex geometry translates by
@@ -159,12 +200,15 @@ public abstract class BroadPhase {
 	public void poolProxyPairs() {
 		ProxyPair p = _proxyPairList;
 		if (p != null) {
+			ProxyPair last;
 			do {
 				p._p1 = null;
 				p._p2 = null;
+				last = p;
 				p = p._next;
 			} while (p != null);
-			_proxyPairList._next = _proxyPairPool;
+			// append the pool to the whole list, not only to its first pair
+			last._next = _proxyPairPool;
 			_proxyPairPool = _proxyPairList;
 			_proxyPairList = null;
 		}
@@ -282,6 +326,26 @@ public abstract class BroadPhase {
 		return false;
 	}
 
+	// casts the rays of a packet one by one
+	static class RayCastPacketAdapter extends BroadPhaseProxyCallback {
+		BroadPhaseRayCastCallback callback;
+		int ray;
+
+		RayCastPacketAdapter(BroadPhaseRayCastCallback callback) {
+			this.callback = callback;
+		}
+
+		@Override
+		public void process(Proxy proxy) {
+			callback.process(proxy, ray);
+		}
+
+		@Override
+		public double getMaxFraction() {
+			return callback.getMaxFraction(ray);
+		}
+	}
+
 	public class ConvexSweepGeometry extends ConvexGeometry {
 		ConvexGeometry c;
 		Vec3 localTranslation;
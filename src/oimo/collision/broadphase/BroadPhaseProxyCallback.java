@@ -14,4 +14,14 @@ public abstract class BroadPhaseProxyCallback {
 	 * This is called every time a broad phase algorithm reports a proxy `proxy`.
 	 */
 	public abstract void process(Proxy proxy) ;
+
+	/**
+	 * Returns the fraction of a ray, from its start point to its end point, beyond which
+	 * proxies are of no more interest. This is called after every `process` of a ray
+	 * cast, so broad phases can skip the proxies the ray enters beyond it. Returns `1`
+	 * by default.
+	 */
+	public double getMaxFraction() {
+		return 1;
+	}
 }
\ No newline at end of file
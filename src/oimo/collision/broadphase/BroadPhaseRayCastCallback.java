@@ -0,0 +1,26 @@
+package oimo.collision.broadphase;
+
+/**
+ * A callback class for ray casts of several rays at once in a broad phase.
+ */
+public abstract class BroadPhaseRayCastCallback {
+	/**
+	 * Default constructor.
+	 */
+	public BroadPhaseRayCastCallback() {
+	}
+
+	/**
+	 * This is called every time a broad phase algorithm reports a proxy `proxy` that
+	 * the ray of index `ray` may hit.
+	 */
+	public abstract void process(Proxy proxy, int ray);
+
+	/**
+	 * Returns the fraction of the ray of index `ray` beyond which proxies are of no
+	 * more interest, see `BroadPhaseProxyCallback.getMaxFraction`. Returns `1` by default.
+	 */
+	public double getMaxFraction(int ray) {
+		return 1;
+	}
+}
@@ -11,4 +11,10 @@ public class BroadPhaseType {
 	 * The BVH algorithm uses bounding volume hierarchy for detecting overlapping pairs of proxies efficiently.
 	 */
 	public static final int BVH=2;
+
+	/**
+	 * The sweep and prune algorithm keeps the proxies sorted along the axis of the greatest variance
+	 * and sweeps the sorted list for overlapping pairs. This is efficient for many proxies of similar sizes.
+	 */
+	public static final int SAP=3;
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ public class Proxy {
 	public Vec3 _aabbMax;
 
 	public int _id;
+	public boolean _static;
 
 	/**
 	 * Extra field that users can use for their own purposes. **Do not modify this property if
@@ -27,6 +28,7 @@ public class Proxy {
 	public Proxy(Object userData, int id) {
 		this.userData = userData;
 		_id = id;
+		_static = false;
 		_prev = null;
 		_next = null;
 		_aabbMin=new Vec3();
@@ -49,6 +51,13 @@ public class Proxy {
 		return _id;
 	}
 
+	/**
+	 * Returns whether the proxy is static, see `BroadPhase.setProxyStatic`.
+	 */
+	public boolean isStatic() {
+		return _static;
+	}
+
 	/**
 	 * Returns the fat AABB of the proxy.
 	 */
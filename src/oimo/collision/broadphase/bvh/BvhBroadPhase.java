@@ -2,12 +2,14 @@ package oimo.collision.broadphase.bvh;
 
 import oimo.collision.broadphase.BroadPhase;
 import oimo.collision.broadphase.BroadPhaseProxyCallback;
+import oimo.collision.broadphase.BroadPhaseRayCastCallback;
 import oimo.collision.broadphase.BroadPhaseType;
 import oimo.collision.broadphase.Proxy;
 import oimo.collision.geometry.Aabb;
 import oimo.collision.geometry.ConvexGeometry;
 import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.M;
+import oimo.common.MathUtil;
 import oimo.common.Setting;
 import oimo.common.Transform;
 import oimo.common.Vec3;
@@ -15,19 +17,73 @@ import oimo.common.Vec3;
 /**
  * The broad-phase collision detection algorithm based on bounding volume hierarchy (BVH).
  * Average time complexity is O(NlogN) or lower.
+ *
+ * Static proxies are kept in a tree of their own, which is rebuilt only when they change.
+ * Pairs are collected within the tree of the other proxies and between the two trees, so
+ * pairs of two static proxies are never visited.
  */
 public class BvhBroadPhase extends BroadPhase {
+	/**
+	 * The maximum number of rays traversing the tree together in `rayCastPacket`.
+	 */
+	public static final int PACKET_SIZE = 32;
+
+	// per-thread buffers of the packet ray casts
+	static class PacketScratch {
+		double[] pos = new double[PACKET_SIZE * 3];
+		double[] dir = new double[PACKET_SIZE * 3];
+		double[] invDir = new double[PACKET_SIZE * 3];
+		double[] maxFractions = new double[PACKET_SIZE];
+		int[] nodes = new int[256];
+		int[] firsts = new int[256];
+
+		void grow(int size) {
+			int newLength = nodes.length << 1;
+			while (newLength < size) newLength <<= 1;
+			int[] newNodes = new int[newLength];
+			int[] newFirsts = new int[newLength];
+			System.arraycopy(nodes, 0, newNodes, 0, nodes.length);
+			System.arraycopy(firsts, 0, newFirsts, 0, firsts.length);
+			nodes = newNodes;
+			firsts = newFirsts;
+		}
+	}
+
+	private static final ThreadLocal<PacketScratch> packetScratches = ThreadLocal.withInitial(PacketScratch::new);
+
 	public BvhTree _tree;
+	public BvhTree _staticTree;
+	// whether the static tree changed since its last rebuild
+	boolean staticTreeChanged;
 
 	BvhProxy[] movedProxies;
 	int numMovedProxies;
 
+	// rebuild policy: the cost of the tree just after the last top-down rebuild
+	int numStepsSinceCheck;
+	double rebuiltCost;
+
+	// explicit stack of node ids for the traversals, used from `stackBase` by the current query
+	int[] stack;
+	int stackBase;
+
+	// entry fractions of the nodes on the stack of the ray casts
+	double[] fractions;
+
 	public BvhBroadPhase() {
 		super(BroadPhaseType.BVH);
 		_incremental = true;
 		_tree = new BvhTree();
+		// the trees share the node store, so the traversals can go across them
+		_staticTree = new BvhTree(_tree._store);
+		staticTreeChanged = false;
 		movedProxies = new BvhProxy[1024];
 		numMovedProxies = 0;
+		numStepsSinceCheck = 0;
+		rebuiltCost = 0;
+		stack = new int[256];
+		stackBase = 0;
+		fractions = new double[256];
 	}
 
 	// --- private ---
@@ -63,145 +119,455 @@ public class BvhBroadPhase extends BroadPhase {
 	
 		if (displacement != null) {
 			// predict movement
-			Vec3 d=displacement;
-			//Vec3 zero:IVec3;
-			Vec3 addToMin=new Vec3();
-			Vec3 addToMax=new Vec3();
-			M.vec3_zero(zero);
-			M.vec3_fromVec3(d, displacement);
-			M.vec3_min(addToMin, zero, d);
-			M.vec3_max(addToMax, zero, d);
-			M.vec3_add(p._aabbMin, p._aabbMin, addToMin);
-			M.vec3_add(p._aabbMax, p._aabbMax, addToMax);
+			Vec3 d = displacement;
+			p._aabbMin.add3Eq(MathUtil.min(0, d.x), MathUtil.min(0, d.y), MathUtil.min(0, d.z));
+			p._aabbMax.add3Eq(MathUtil.max(0, d.x), MathUtil.max(0, d.y), MathUtil.max(0, d.z));
 		}
 	}
 
-	void collide(BvhNode n1, BvhNode n2) {
-		_testCount++;
-		boolean l1 = n1._height == 0;
-		boolean l2 = n2._height == 0;
-		if (n1 == n2) {
-			if (l1) return;
-			collide(n1._children[0], n2);
-			collide(n1._children[1], n2);
-			return;
-		}
-		if (!M.aabb_overlap(n1._aabbMin, n1._aabbMax, n2._aabbMin, n2._aabbMax)) {
-			return;
-		}
-		if (l1 && l2) {
-			pickAndPushProxyPair(n1._proxy, n2._proxy);
-			return;
-		}
-		if (l2 || n1._height > n2._height) {
-			// descend node 1
-			collide(n1._children[0], n2);
-			collide(n1._children[1], n2);
-		} else {
-			// descend node 2
-			collide(n2._children[0], n1);
-			collide(n2._children[1], n1);
+	private BvhTree treeOf(BvhProxy p) {
+		return p._static ? _staticTree : _tree;
+	}
+
+	// rebuilds the tree top-down if its cost grew too much since the last rebuild,
+	// and the static tree if it changed
+	private void checkTreeQuality() {
+		if (staticTreeChanged) {
+			staticTreeChanged = false;
+			if (_staticTree._numLeaves >= 2) _staticTree._buildTopDown();
 		}
+		if (_tree._numLeaves < 2) return;
+		if (rebuiltCost > 0 && _tree._getCost() <= rebuiltCost * Setting.bvhRebuildCostRatio) return;
+		_tree._buildTopDown();
+		rebuiltCost = _tree._getCost();
 	}
 
-	void rayCastRecursive(BvhNode node, Vec3 _p1,Vec3 _p2, BroadPhaseProxyCallback callback) {
-		// TODO: use stack?
-		double x1 = _p1.x;
-		double y1 = _p1.y;
-		double z1 = _p1.z;
-		double x2 = _p2.x;
-		double y2 = _p2.y;
-		double z2 = _p2.z;
-		double pminx = node._aabbMin.x;
-		double pminy = node._aabbMin.y;
-		double pminz = node._aabbMin.z;
-		double pmaxx = node._aabbMax.x;
-		double pmaxy = node._aabbMax.y;
-		double pmaxz = node._aabbMax.z;
-		boolean tmp;
-		if(pminx > (x1 > x2 ? x1 : x2) || pmaxx < (x1 < x2 ? x1 : x2) || pminy > (y1 > y2 ? y1 : y2) || pmaxy < (y1 < y2 ? y1 : y2) || pminz > (z1 > z2 ? z1 : z2) || pmaxz < (z1 < z2 ? z1 : z2)) {
-			tmp = false;
-		} else {
-			double dx = x2 - x1;
-			double dy = y2 - y1;
-			double dz = z2 - z1;
-			double adx = dx < 0 ? -dx : dx;
-			double ady = dy < 0 ? -dy : dy;
-			double adz = dz < 0 ? -dz : dz;
-			double pextx = (pmaxx - pminx) * 0.5f;
-			double pexty = (pmaxy - pminy) * 0.5f;
-			double pextz = (pmaxz - pminz) * 0.5f;
-			double cpx = x1 - (pmaxx + pminx) * 0.5f;
-			double cpy = y1 - (pmaxy + pminy) * 0.5f;
-			double cpz = z1 - (pmaxz + pminz) * 0.5f;
-			boolean tmp1;
-			boolean tmp2;
-			double x = cpy * dz - cpz * dy;
-			if(!((x < 0 ? -x : x) - (pexty * adz + pextz * ady) > 0)) {
-				x = cpz * dx - cpx * dz;
-				tmp2 = (x < 0 ? -x : x) - (pextz * adx + pextx * adz) > 0;
-			} else {
-				tmp2 = true;
+	// returns the traversal stack grown to hold at least `size` elements
+	private int[] growStack(int size) {
+		int newLength = stack.length << 1;
+		while (newLength < size) newLength <<= 1;
+		int[] newArray = new int[newLength];
+		double[] newFractions = new double[newLength];
+		System.arraycopy(stack, 0, newArray, 0, stack.length);
+		System.arraycopy(fractions, 0, newFractions, 0, fractions.length);
+		stack = newArray;
+		fractions = newFractions;
+		return newArray;
+	}
+
+	// whether the nodes of the store at offsets `o1` and `o2` of `b` overlap, see `M.aabb_overlap`
+	private static boolean overlap(double[] b, int o1, int o2) {
+		return
+			b[o1] < b[o2 + 3] && b[o1 + 3] > b[o2] &&
+			b[o1 + 1] < b[o2 + 4] && b[o1 + 4] > b[o2 + 1] &&
+			b[o1 + 2] < b[o2 + 5] && b[o1 + 5] > b[o2 + 2];
+	}
+
+	void collide(int root1, int root2) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		int[] h = store._heights;
+		int[] stack = this.stack;
+		int sp = 0;
+		stack[sp++] = root1;
+		stack[sp++] = root2;
+		while (sp > 0) {
+			int n2 = stack[--sp];
+			int n1 = stack[--sp];
+			_testCount++;
+			boolean l1 = c[n1 << 1] == BvhNodeStore.NULL;
+			boolean l2 = c[n2 << 1] == BvhNodeStore.NULL;
+			if (sp + 4 > stack.length) stack = growStack(sp + 4);
+			if (n1 == n2) {
+				if (l1) continue;
+				// pushed in reverse order to visit the first child first
+				stack[sp++] = c[(n1 << 1) + 1];
+				stack[sp++] = n2;
+				stack[sp++] = c[n1 << 1];
+				stack[sp++] = n2;
+				continue;
+			}
+			if (!overlap(b, n1 * BvhNodeStore.BOUNDS_SIZE, n2 * BvhNodeStore.BOUNDS_SIZE)) {
+				continue;
+			}
+			if (l1 && l2) {
+				pickAndPushProxyPair(store._proxies[n1], store._proxies[n2]);
+				continue;
 			}
-			if(!tmp2) {
-				x = cpx * dy - cpy * dx;
-				tmp1 = (x < 0 ? -x : x) - (pextx * ady + pexty * adx) > 0;
+			if (l2 || h[n1] > h[n2]) {
+				// descend node 1
+				stack[sp++] = c[(n1 << 1) + 1];
+				stack[sp++] = n2;
+				stack[sp++] = c[n1 << 1];
+				stack[sp++] = n2;
 			} else {
-				tmp1 = true;
+				// descend node 2
+				stack[sp++] = c[(n2 << 1) + 1];
+				stack[sp++] = n1;
+				stack[sp++] = c[n2 << 1];
+				stack[sp++] = n1;
 			}
-			tmp = tmp1 ? false : true;
 		}
-		if(!tmp) {
-			return;
+	}
+
+	// same as `collide(root, leaf)`, with the bounds of the leaf kept in locals
+	void collideLeaf(int root, int leaf) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		int o = leaf * BvhNodeStore.BOUNDS_SIZE;
+		double minX = b[o];
+		double minY = b[o + 1];
+		double minZ = b[o + 2];
+		double maxX = b[o + 3];
+		double maxY = b[o + 4];
+		double maxZ = b[o + 5];
+		BvhProxy proxy = store._proxies[leaf];
+
+		int[] stack = this.stack;
+		int sp = 0;
+		stack[sp++] = root;
+		while (sp > 0) {
+			int node = stack[--sp];
+			_testCount++;
+			if (node == leaf) continue;
+			o = node * BvhNodeStore.BOUNDS_SIZE;
+			if (!(b[o] < maxX && b[o + 3] > minX && b[o + 1] < maxY && b[o + 4] > minY && b[o + 2] < maxZ && b[o + 5] > minZ)) {
+				continue;
+			}
+			int c1 = c[node << 1];
+			if (c1 == BvhNodeStore.NULL) {
+				pickAndPushProxyPair(store._proxies[node], proxy);
+				continue;
+			}
+			if (sp + 2 > stack.length) stack = growStack(sp + 2);
+			stack[sp++] = c[(node << 1) + 1];
+			stack[sp++] = c1;
 		}
-		if(node._height == 0) {
-			callback.process(node._proxy);
-			return;
+	}
+
+	// returns the fraction at which the segment from `(x, y, z)` along `(dx, dy, dz)` enters the
+	// node at offset `o` of `b`, or infinity if it misses the node before `maxFraction`
+	private static double entryFraction(double[] b, int o, double x, double y, double z, double dx, double dy, double dz, double maxFraction) {
+		double tmin = 0;
+		double tmax = maxFraction;
+		for (int i=0;i<3;i++) {
+			double p = i == 0 ? x : i == 1 ? y : z;
+			double d = i == 0 ? dx : i == 1 ? dy : dz;
+			double min = b[o + i];
+			double max = b[o + 3 + i];
+			if (d == 0) {
+				if (p < min || p > max) return MathUtil.POSITIVE_INFINITY;
+				continue;
+			}
+			double inv = 1 / d;
+			double t1 = (min - p) * inv;
+			double t2 = (max - p) * inv;
+			if (t1 > t2) {
+				double tmp = t1;
+				t1 = t2;
+				t2 = tmp;
+			}
+			if (t1 > tmin) tmin = t1;
+			if (t2 < tmax) tmax = t2;
+			if (tmin > tmax) return MathUtil.POSITIVE_INFINITY;
 		}
-		this.rayCastRecursive(node._children[0],_p1,_p2,callback);
-		this.rayCastRecursive(node._children[1],_p1,_p2,callback);
+		return tmin;
 	}
 
-	void convexCastRecursive(BvhNode node, ConvexGeometry convex,Transform begin,Vec3 translation, BroadPhaseProxyCallback callback) {
-		// TODO: use stack?
-		Vec3 v = this._aabb.min;
-		Vec3 v1 = this._aabb.max;
-		this._convexSweep.init(convex,begin,translation);
-		GjkEpa gjkEpa = oimo.collision.narrowphase.detector.gjkepa.GjkEpa.instance;
-		if(!(gjkEpa.computeClosestPointsImpl(this._convexSweep,this._aabb,begin,this.identity,null,false) == 0 && gjkEpa.distance <= 0)) {
-			return;
+	// visits the nodes front to back, and skips the ones entered beyond the maximum fraction of the callback
+	void rayCastIterative(int root, Vec3 _p1,Vec3 _p2, BroadPhaseProxyCallback callback) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		double x = _p1.x;
+		double y = _p1.y;
+		double z = _p1.z;
+		double dx = _p2.x - x;
+		double dy = _p2.y - y;
+		double dz = _p2.z - z;
+		double maxFraction = callback.getMaxFraction();
+
+		double f = entryFraction(b, root * BvhNodeStore.BOUNDS_SIZE, x, y, z, dx, dy, dz, maxFraction);
+		if (f > maxFraction) return;
+
+		// starts above the entries of an enclosing query, as callbacks may query again
+		int base = stackBase;
+		int[] stack = base + 1 > this.stack.length ? growStack(base + 1) : this.stack;
+		double[] fractions = this.fractions;
+		int sp = base;
+		stack[sp] = root;
+		fractions[sp] = f;
+		sp++;
+		while (sp > base) {
+			sp--;
+			int node = stack[sp];
+			if (fractions[sp] > maxFraction) continue;
+
+			int c1 = c[node << 1];
+			if (c1 == BvhNodeStore.NULL) {
+				stackBase = sp;
+				callback.process(store._proxies[node]);
+				stackBase = base;
+				stack = this.stack;
+				fractions = this.fractions;
+				double newMaxFraction = callback.getMaxFraction();
+				if (newMaxFraction < maxFraction) maxFraction = newMaxFraction;
+				continue;
+			}
+			int c2 = c[(node << 1) + 1];
+			double f1 = entryFraction(b, c1 * BvhNodeStore.BOUNDS_SIZE, x, y, z, dx, dy, dz, maxFraction);
+			double f2 = entryFraction(b, c2 * BvhNodeStore.BOUNDS_SIZE, x, y, z, dx, dy, dz, maxFraction);
+			if (sp + 2 > stack.length) {
+				stack = growStack(sp + 2);
+				fractions = this.fractions;
+			}
+			// the nearer child is pushed last to be visited first
+			if (f1 > f2) {
+				int tmpNode = c1;
+				c1 = c2;
+				c2 = tmpNode;
+				double tmp = f1;
+				f1 = f2;
+				f2 = tmp;
+			}
+			if (f2 <= maxFraction) {
+				stack[sp] = c2;
+				fractions[sp] = f2;
+				sp++;
+			}
+			if (f1 <= maxFraction) {
+				stack[sp] = c1;
+				fractions[sp] = f1;
+				sp++;
+			}
 		}
-		if(node._height == 0) {
-			callback.process(node._proxy);
-			return;
+	}
+
+	// returns whether the ray `k` of the packet enters the box at `o` of `b` before `maxFraction`
+	private static boolean packetRayTest(double[] b, int o, double[] pos, double[] dir, double[] invDir, int k, double maxFraction) {
+		int k3 = k * 3;
+		double tmin = 0;
+		double tmax = maxFraction;
+		for (int i=0;i<3;i++) {
+			double p = pos[k3 + i];
+			double min = b[o + i];
+			double max = b[o + 3 + i];
+			if (dir[k3 + i] == 0) {
+				if (p < min || p > max) return false;
+				continue;
+			}
+			double inv = invDir[k3 + i];
+			double t1 = (min - p) * inv;
+			double t2 = (max - p) * inv;
+			if (t1 > t2) {
+				double tmp = t1;
+				t1 = t2;
+				t2 = tmp;
+			}
+			if (t1 > tmin) tmin = t1;
+			if (t2 < tmax) tmax = t2;
+			if (tmin > tmax) return false;
 		}
-		this.convexCastRecursive(node._children[0],convex,begin,translation,callback);
-		this.convexCastRecursive(node._children[1],convex,begin,translation,callback);
+		return true;
 	}
 
-	void aabbTestRecursive(BvhNode node, Aabb aabb,BroadPhaseProxyCallback callback) {
-		if (!M.aabb_overlap(node._aabbMin, node._aabbMax, aabb._min, aabb._max)) {
-			return;
+	// traverses the tree once for up to `PACKET_SIZE` rays. a node is culled if it misses the box
+	// of the packet, otherwise the rays are tested in order and the node is descended from the
+	// first ray entering it, so coherent rays cost about one test per node. nearer child first
+	// along the direction of that ray
+	void rayCastPacketIterative(int root, double[] begins, double[] ends, int[] rays, int from, int until, BroadPhaseRayCastCallback callback, PacketScratch scratch) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		double[] pos = scratch.pos;
+		double[] dir = scratch.dir;
+		double[] invDir = scratch.invDir;
+		double[] maxFractions = scratch.maxFractions;
+
+		// load the rays and the box of the packet
+		double minX = MathUtil.POSITIVE_INFINITY;
+		double minY = MathUtil.POSITIVE_INFINITY;
+		double minZ = MathUtil.POSITIVE_INFINITY;
+		double maxX = -MathUtil.POSITIVE_INFINITY;
+		double maxY = -MathUtil.POSITIVE_INFINITY;
+		double maxZ = -MathUtil.POSITIVE_INFINITY;
+		int n = until - from;
+		for (int k=0;k<n;k++) {
+			int ray = rays[from + k];
+			int o = ray * 3;
+			int k3 = k * 3;
+			double maxFraction = callback.getMaxFraction(ray);
+			for (int i=0;i<3;i++) {
+				double p = begins[o + i];
+				double d = ends[o + i] - p;
+				double q = p + d * maxFraction;
+				pos[k3 + i] = p;
+				dir[k3 + i] = d;
+				invDir[k3 + i] = d == 0 ? 0 : 1 / d;
+				double lo = p < q ? p : q;
+				double hi = p > q ? p : q;
+				if (i == 0) {
+					if (lo < minX) minX = lo;
+					if (hi > maxX) maxX = hi;
+				} else if (i == 1) {
+					if (lo < minY) minY = lo;
+					if (hi > maxY) maxY = hi;
+				} else {
+					if (lo < minZ) minZ = lo;
+					if (hi > maxZ) maxZ = hi;
+				}
+			}
+			maxFractions[k] = maxFraction;
 		}
 
-		if (node._height == 0) { // leaf
-			callback.process(node._proxy);
-			return;
+		int[] nodes = scratch.nodes;
+		int[] firsts = scratch.firsts;
+		int sp = 0;
+		nodes[sp] = root;
+		firsts[sp] = 0;
+		sp++;
+		while (sp > 0) {
+			sp--;
+			int node = nodes[sp];
+			int o = node * BvhNodeStore.BOUNDS_SIZE;
+			if (
+				b[o] > maxX || b[o + 3] < minX ||
+				b[o + 1] > maxY || b[o + 4] < minY ||
+				b[o + 2] > maxZ || b[o + 5] < minZ
+			) continue;
+
+			int first = firsts[sp];
+			while (first < n && !packetRayTest(b, o, pos, dir, invDir, first, maxFractions[first])) first++;
+			if (first == n) continue;
+
+			int c1 = c[node << 1];
+			if (c1 == BvhNodeStore.NULL) {
+				BvhProxy proxy = store._proxies[node];
+				for (int k=first;k<n;k++) {
+					if (k > first && !packetRayTest(b, o, pos, dir, invDir, k, maxFractions[k])) continue;
+					int ray = rays[from + k];
+					callback.process(proxy, ray);
+					double maxFraction = callback.getMaxFraction(ray);
+					if (maxFraction < maxFractions[k]) maxFractions[k] = maxFraction;
+				}
+				continue;
+			}
+			int c2 = c[(node << 1) + 1];
+
+			// compare the doubled centers of the children along the direction
+			int k3 = first * 3;
+			int o1 = c1 * BvhNodeStore.BOUNDS_SIZE;
+			int o2 = c2 * BvhNodeStore.BOUNDS_SIZE;
+			double d =
+				(b[o1] + b[o1 + 3] - b[o2] - b[o2 + 3]) * dir[k3] +
+				(b[o1 + 1] + b[o1 + 4] - b[o2 + 1] - b[o2 + 4]) * dir[k3 + 1] +
+				(b[o1 + 2] + b[o1 + 5] - b[o2 + 2] - b[o2 + 5]) * dir[k3 + 2];
+			if (d > 0) {
+				int tmp = c1;
+				c1 = c2;
+				c2 = tmp;
+			}
+			if (sp + 2 > nodes.length) {
+				scratch.grow(sp + 2);
+				nodes = scratch.nodes;
+				firsts = scratch.firsts;
+			}
+			nodes[sp] = c2;
+			firsts[sp] = first;
+			sp++;
+			nodes[sp] = c1;
+			firsts[sp] = first;
+			sp++;
 		}
+	}
 
-		aabbTestRecursive(node._children[0], aabb, callback);
-		aabbTestRecursive(node._children[1], aabb, callback);
+	void convexCastIterative(int root, ConvexGeometry convex,Transform begin,Vec3 translation, BroadPhaseProxyCallback callback) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		Vec3 min = this._aabb.min;
+		Vec3 max = this._aabb.max;
+		this._convexSweep.init(convex,begin,translation);
+		GjkEpa gjkEpa = GjkEpa.getInstance();
+
+		// starts above the entries of an enclosing query, as callbacks may query again
+		int base = stackBase;
+		int[] stack = base + 1 > this.stack.length ? growStack(base + 1) : this.stack;
+		int sp = base;
+		stack[sp++] = root;
+		while (sp > base) {
+			int node = stack[--sp];
+			int o = node * BvhNodeStore.BOUNDS_SIZE;
+			min.set(b[o], b[o + 1], b[o + 2]);
+			max.set(b[o + 3], b[o + 4], b[o + 5]);
+			if(!(gjkEpa.computeClosestPointsImpl(this._convexSweep,this._aabb,begin,this.identity,null,false) == 0 && gjkEpa.distance <= 0)) {
+				continue;
+			}
+			int c1 = c[node << 1];
+			if (c1 == BvhNodeStore.NULL) {
+				stackBase = sp;
+				callback.process(store._proxies[node]);
+				stackBase = base;
+				stack = this.stack;
+				continue;
+			}
+			if (sp + 2 > stack.length) stack = growStack(sp + 2);
+			stack[sp++] = c[(node << 1) + 1];
+			stack[sp++] = c1;
+		}
+	}
+
+	void aabbTestIterative(int root, Aabb aabb,BroadPhaseProxyCallback callback) {
+		BvhNodeStore store = _tree._store;
+		double[] b = store._bounds;
+		int[] c = store._children;
+		Vec3 min = aabb._min;
+		Vec3 max = aabb._max;
+
+		// starts above the entries of an enclosing query, as callbacks may query again
+		int base = stackBase;
+		int[] stack = base + 1 > this.stack.length ? growStack(base + 1) : this.stack;
+		int sp = base;
+		stack[sp++] = root;
+		while (sp > base) {
+			int node = stack[--sp];
+			int o = node * BvhNodeStore.BOUNDS_SIZE;
+			if (!(b[o] < max.x && b[o + 3] > min.x && b[o + 1] < max.y && b[o + 4] > min.y && b[o + 2] < max.z && b[o + 5] > min.z)) {
+				continue;
+			}
+			int c1 = c[node << 1];
+			if (c1 == BvhNodeStore.NULL) { // leaf
+				stackBase = sp;
+				callback.process(store._proxies[node]);
+				stackBase = base;
+				stack = this.stack;
+				continue;
+			}
+			if (sp + 2 > stack.length) stack = growStack(sp + 2);
+			stack[sp++] = c[(node << 1) + 1];
+			stack[sp++] = c1;
+		}
 	}
 
 	// --- public ---
 
 	@Override 
 	public Proxy createProxy(Object userData,Aabb aabb) {
+		return createProxy(userData, aabb, false);
+	}
+
+	@Override
+	public Proxy createProxy(Object userData, Aabb aabb, boolean isStatic) {
 		BvhProxy p = new BvhProxy(userData, _idCount++);
+		p._static = isStatic;
 		addProxy(p);
 
+		// inserted straight into its tree
 		updateProxy(p, aabb, null);
-		_tree._insertProxy(p);
+		treeOf(p)._insertProxy(p);
+		if (isStatic) staticTreeChanged = true;
 		addToMovedProxy(p);
 
 		return p;
@@ -212,7 +578,8 @@ public class BvhBroadPhase extends BroadPhase {
 		removeProxy(proxy);
 
 		BvhProxy bvhProxy =  (BvhProxy) proxy;
-		_tree._deleteProxy(bvhProxy);
+		treeOf(bvhProxy)._deleteProxy(bvhProxy);
+		if (bvhProxy._static) staticTreeChanged = true;
 		bvhProxy.userData = null;
 		bvhProxy._next = null;
 		bvhProxy._prev = null;
@@ -222,6 +589,18 @@ public class BvhBroadPhase extends BroadPhase {
 		}
 	}
 
+	@Override
+	public void setProxyStatic(Proxy proxy, boolean isStatic) {
+		BvhProxy p = (BvhProxy) proxy;
+		if (p._static == isStatic) return;
+		treeOf(p)._deleteProxy(p);
+		p._static = isStatic;
+		treeOf(p)._insertProxy(p);
+		staticTreeChanged = true;
+		// the pairs are collected again against the other tree
+		addToMovedProxy(p);
+	}
+
 	@Override 
 	public void moveProxy(Proxy proxy,Aabb aabb,Vec3 displacement) {
 		BvhProxy p =  (BvhProxy) proxy;
@@ -258,51 +637,85 @@ public class BvhBroadPhase extends BroadPhase {
 		for (int i=0;i<numMovedProxies;i++) {
 			BvhProxy p = movedProxies[i];
 			if (p._moved) {
-				_tree._deleteProxy(p);
-				_tree._insertProxy(p);
+				BvhTree tree = treeOf(p);
+				tree._deleteProxy(p);
+				tree._insertProxy(p);
+				if (p._static) staticTreeChanged = true;
 				if (incrementalCollision) {
-					collide(_tree._root, p._leaf);
+					// static proxies are tested only against the non-static ones
+					if (_tree._root != BvhNodeStore.NULL) collideLeaf(_tree._root, p._leaf);
+					if (!p._static && _staticTree._root != BvhNodeStore.NULL) collideLeaf(_staticTree._root, p._leaf);
 				}
 				p._moved = false;
 			}
 			movedProxies[i] = null;
 		}
-		if (!incrementalCollision) {
+		if (!incrementalCollision && _tree._root != BvhNodeStore.NULL) {
 			collide(_tree._root, _tree._root);
+			if (_staticTree._root != BvhNodeStore.NULL) collide(_tree._root, _staticTree._root);
 		}
 
 		numMovedProxies = 0;
+
+		// the pairs are collected, the tree can be reshaped for the next steps
+		if (Setting.bvhRebuildCheckInterval > 0 && ++numStepsSinceCheck >= Setting.bvhRebuildCheckInterval) {
+			numStepsSinceCheck = 0;
+			checkTreeQuality();
+		}
 	}
 
 	@Override 
 	public void rayCast(Vec3 begin, Vec3 end, BroadPhaseProxyCallback callback) {
-		if (_tree._root == null) return; // no AABBs in the broadphase
 //		var p1:IVec3;
 //		var p2:IVec3;
 //		M.vec3_fromVec3(p1, begin);
 //		M.vec3_fromVec3(p2, end);
-		this.rayCastRecursive(_tree._root, begin, end, callback);
+		if (_staticTree._root != BvhNodeStore.NULL) rayCastIterative(_staticTree._root, begin, end, callback);
+		if (_tree._root != BvhNodeStore.NULL) rayCastIterative(_tree._root, begin, end, callback);
+	}
+
+	/**
+	 * Performs ray castings in packets of up to `PACKET_SIZE` consecutive rays, each packet
+	 * traversing the tree once.
+	 */
+	@Override
+	public void rayCastPacket(double[] begins, double[] ends, int[] rays, int from, int until, BroadPhaseRayCastCallback callback) {
+		if (_tree._root == BvhNodeStore.NULL && _staticTree._root == BvhNodeStore.NULL) return; // no AABBs in the broadphase
+		PacketScratch scratch = packetScratches.get();
+		for (int i=from;i<until;i+=PACKET_SIZE) {
+			int end = i + PACKET_SIZE < until ? i + PACKET_SIZE : until;
+			// the fractions shortened by the static tree cull the other one
+			if (_staticTree._root != BvhNodeStore.NULL) rayCastPacketIterative(_staticTree._root, begins, ends, rays, i, end, callback, scratch);
+			if (_tree._root != BvhNodeStore.NULL) rayCastPacketIterative(_tree._root, begins, ends, rays, i, end, callback, scratch);
+		}
 	}
 
 	@Override 
 	public void convexCast(ConvexGeometry convex,Transform begin, Vec3 translation,BroadPhaseProxyCallback callback) {
-		if (_tree._root == null) return; // no AABBs in the broadphase
-
-		convexCastRecursive(_tree._root, convex, begin, translation, callback);
+		if (_staticTree._root != BvhNodeStore.NULL) convexCastIterative(_staticTree._root, convex, begin, translation, callback);
+		if (_tree._root != BvhNodeStore.NULL) convexCastIterative(_tree._root, convex, begin, translation, callback);
 	}
 
 	
 	@Override 
 	public void aabbTest(Aabb aabb, BroadPhaseProxyCallback callback) {
-		if (_tree._root == null) return; // no AABBs in the broadphase
-
-		aabbTestRecursive(_tree._root, aabb, callback);
+		if (_staticTree._root != BvhNodeStore.NULL) aabbTestIterative(_staticTree._root, aabb, callback);
+		if (_tree._root != BvhNodeStore.NULL) aabbTestIterative(_tree._root, aabb, callback);
 	}
 
 	/**
-	 * Returns the balance of the bounding volume tree.
+	 * Returns the balance of the bounding volume tree of the non-static proxies.
 	 */
 	public int getTreeBalance() {
 		return _tree._getBalance();
 	}
+
+	/**
+	 * Returns the surface area heuristic cost of the bounding volume tree of the non-static
+	 * proxies, the sum of the surface areas of its internal nodes relative to the one of the
+	 * root. Lower is better.
+	 */
+	public double getTreeCost() {
+		return _tree._getCost();
+	}
 }
\ No newline at end of file
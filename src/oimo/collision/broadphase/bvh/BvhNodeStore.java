@@ -0,0 +1,167 @@
+package oimo.collision.broadphase.bvh;
+
+import oimo.common.MathUtil;
+
+/**
+ * Internal class.
+ *
+ * The nodes of BVH trees, kept in parallel arrays indexed by node id so that the trees
+ * and their traversals read contiguous memory instead of following node references.
+ */
+public class BvhNodeStore {
+	/**
+	 * The number of elements of the bounds of a node: the minimum then the maximum.
+	 */
+	public static final int BOUNDS_SIZE = 6;
+
+	/**
+	 * The child id of a leaf, the parent id of a root, and the end of the lists.
+	 */
+	public static final int NULL = -1;
+
+	// node's aabb. if the node is a leaf, the aabb is equal to the proxy's one.
+	public double[] _bounds;
+	public int[] _children;
+	public int[] _parents;
+	public int[] _heights;
+	public BvhProxy[] _proxies;
+
+	// for BvhTree.leafList
+	public int[] _prevLeaves;
+	public int[] _nextLeaves;
+
+	// number of ids ever allocated, and the head of the free ids linked by `_children`
+	int numIds;
+	int freeId;
+
+	public BvhNodeStore() {
+		int capacity = 1024;
+		_bounds = new double[capacity * BOUNDS_SIZE];
+		_children = new int[capacity << 1];
+		_parents = new int[capacity];
+		_heights = new int[capacity];
+		_proxies = new BvhProxy[capacity];
+		_prevLeaves = new int[capacity];
+		_nextLeaves = new int[capacity];
+		numIds = 0;
+		freeId = NULL;
+	}
+
+	// --- private ---
+
+	private void expand() {
+		int capacity = _heights.length << 1;
+		double[] newBounds = new double[capacity * BOUNDS_SIZE];
+		int[] newChildren = new int[capacity << 1];
+		int[] newParents = new int[capacity];
+		int[] newHeights = new int[capacity];
+		BvhProxy[] newProxies = new BvhProxy[capacity];
+		int[] newPrevLeaves = new int[capacity];
+		int[] newNextLeaves = new int[capacity];
+		System.arraycopy(_bounds, 0, newBounds, 0, numIds * BOUNDS_SIZE);
+		System.arraycopy(_children, 0, newChildren, 0, numIds << 1);
+		System.arraycopy(_parents, 0, newParents, 0, numIds);
+		System.arraycopy(_heights, 0, newHeights, 0, numIds);
+		System.arraycopy(_proxies, 0, newProxies, 0, numIds);
+		System.arraycopy(_prevLeaves, 0, newPrevLeaves, 0, numIds);
+		System.arraycopy(_nextLeaves, 0, newNextLeaves, 0, numIds);
+		_bounds = newBounds;
+		_children = newChildren;
+		_parents = newParents;
+		_heights = newHeights;
+		_proxies = newProxies;
+		_prevLeaves = newPrevLeaves;
+		_nextLeaves = newNextLeaves;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns the id of a new node, initialized as a leaf without proxy nor parent.
+	 */
+	public int _allocate() {
+		int id = freeId;
+		if (id != NULL) {
+			freeId = _children[id << 1];
+		} else {
+			if (numIds == _heights.length) expand();
+			id = numIds++;
+		}
+		_children[id << 1] = NULL;
+		_children[(id << 1) + 1] = NULL;
+		_parents[id] = NULL;
+		_heights[id] = 0;
+		_proxies[id] = null;
+		_prevLeaves[id] = NULL;
+		_nextLeaves[id] = NULL;
+		return id;
+	}
+
+	/**
+	 * Releases the node `id` for reuse.
+	 */
+	public void _free(int id) {
+		_proxies[id] = null;
+		_children[id << 1] = freeId;
+		freeId = id;
+	}
+
+	public void _setChild(int id, int index, int child) {
+		_children[(id << 1) + index] = child;
+		_parents[child] = id;
+	}
+
+	/**
+	 * Returns the index of `id` in the children of its parent, or `0` if it is a root.
+	 */
+	public int _childIndex(int id) {
+		int parent = _parents[id];
+		return parent != NULL && _children[(parent << 1) + 1] == id ? 1 : 0;
+	}
+
+	/**
+	 * Makes `id` a leaf of `proxy` with the AABB of the proxy.
+	 */
+	public void _setLeaf(int id, BvhProxy proxy) {
+		double[] b = _bounds;
+		int o = id * BOUNDS_SIZE;
+		_children[id << 1] = NULL;
+		_children[(id << 1) + 1] = NULL;
+		_heights[id] = 0;
+		_proxies[id] = proxy;
+		b[o] = proxy._aabbMin.x;
+		b[o + 1] = proxy._aabbMin.y;
+		b[o + 2] = proxy._aabbMin.z;
+		b[o + 3] = proxy._aabbMax.x;
+		b[o + 4] = proxy._aabbMax.y;
+		b[o + 5] = proxy._aabbMax.z;
+	}
+
+	public void _computeAabb(int id) {
+		double[] b = _bounds;
+		int o = id * BOUNDS_SIZE;
+		int o1 = _children[id << 1] * BOUNDS_SIZE;
+		int o2 = _children[(id << 1) + 1] * BOUNDS_SIZE;
+		b[o] = MathUtil.min(b[o1], b[o2]);
+		b[o + 1] = MathUtil.min(b[o1 + 1], b[o2 + 1]);
+		b[o + 2] = MathUtil.min(b[o1 + 2], b[o2 + 2]);
+		b[o + 3] = MathUtil.max(b[o1 + 3], b[o2 + 3]);
+		b[o + 4] = MathUtil.max(b[o1 + 4], b[o2 + 4]);
+		b[o + 5] = MathUtil.max(b[o1 + 5], b[o2 + 5]);
+	}
+
+	public void _computeHeight(int id) {
+		int h1 = _heights[_children[id << 1]];
+		int h2 = _heights[_children[(id << 1) + 1]];
+		_heights[id] = (h1 > h2 ? h1 : h2) + 1;
+	}
+
+	public double _perimeter(int id) {
+		double[] b = _bounds;
+		int o = id * BOUNDS_SIZE;
+		double x = b[o + 3] - b[o];
+		double y = b[o + 4] - b[o + 1];
+		double z = b[o + 5] - b[o + 2];
+		return x * (y + z) + y * z;
+	}
+}
@@ -8,12 +8,12 @@ import oimo.collision.broadphase.Proxy;
  * BVH Proxy
  */
 public class BvhProxy extends Proxy {
-	public BvhNode _leaf;
+	public int _leaf;
 	public boolean _moved;
 
 	public BvhProxy(Object userData, int id) {
 		super(userData, id);
-		_leaf = null;
+		_leaf = BvhNodeStore.NULL;
 		_moved = false;
 	}
 
@@ -0,0 +1,10 @@
+package oimo.collision.broadphase.bvh;
+/**
+ * Internal class.
+ *
+ * Strategies of splitting leaves in top-down construction.
+ */
+public class BvhSplitStrategy {
+	public static final int MEAN = 0;
+	public static final int SURFACE_AREA_HEURISTIC = 1;
+}
@@ -1,5 +1,7 @@
 package oimo.collision.broadphase.bvh;
 
+import oimo.common.MathUtil;
+
 /**
  * Internal class.
  *
@@ -7,11 +9,28 @@ package oimo.collision.broadphase.bvh;
  */
 public class BvhStrategy {
 	public int _insertionStrategy;
+	public int _splitStrategy;
 	public boolean _balancingEnabled;
+	public boolean _rotationEnabled;
+
+	// number of bins of the surface area heuristic along an axis
+	static final int SAH_NUM_BINS = 16;
+
+	// per bin: aabb (min xyz, max xyz) and number of leaves, and the suffix sums of the bins
+	double[] binBounds;
+	int[] binCounts;
+	double[] binRightAreas;
+	int[] binRightCounts;
 
 	public BvhStrategy() {
 		_insertionStrategy = BvhInsertionStrategy.SIMPLE;
+		_splitStrategy = BvhSplitStrategy.SURFACE_AREA_HEURISTIC;
 		_balancingEnabled = false;
+		_rotationEnabled = true;
+		binBounds = new double[SAH_NUM_BINS * 6];
+		binCounts = new int[SAH_NUM_BINS];
+		binRightAreas = new double[SAH_NUM_BINS];
+		binRightCounts = new int[SAH_NUM_BINS];
 	}
 
 	// --- internal ---
@@ -21,12 +40,12 @@ public class BvhStrategy {
 	 * `0` or `1` to descend to corresponding child of current node.
 	 * `-1` to stop descending and make common parent with current node.
 	 */
-	public int _decideInsertion(BvhNode currentNode, BvhNode leaf) {
+	public int _decideInsertion(BvhNodeStore store, int currentNode, int leaf) {
 		switch(_insertionStrategy) {
 		case BvhInsertionStrategy.SIMPLE:
-			return decideInsertionSimple(currentNode, leaf);
+			return decideInsertionSimple(store, currentNode, leaf);
 		case BvhInsertionStrategy.MINIMIZE_SURFACE_AREA:
-			return decideInsertionMinimumSurfaceArea(currentNode, leaf);
+			return decideInsertionMinimumSurfaceArea(store, currentNode, leaf);
 		default:
 			System.out.println("invalid BVH insertion strategy: " + _insertionStrategy);
 			return -1;
@@ -37,33 +56,43 @@ public class BvhStrategy {
 	 * Sorts `leaves` and returns the split index `k` of the half-open interval [`from`, `until`).
 	 * Leaves are separated into [`from`, `k`) and [`k`, `until`).
 	 */
-	public int _splitLeaves(BvhNode[] leaves, int from, int until) {
-		return splitLeavesMean(leaves, from, until);
+	public int _splitLeaves(BvhNodeStore store, int[] leaves, int from, int until) {
+		switch(_splitStrategy) {
+		case BvhSplitStrategy.MEAN:
+			return splitLeavesMean(store, leaves, from, until);
+		case BvhSplitStrategy.SURFACE_AREA_HEURISTIC:
+			return splitLeavesSah(store, leaves, from, until);
+		default:
+			System.out.println("invalid BVH split strategy: " + _splitStrategy);
+			return splitLeavesMean(store, leaves, from, until);
+		}
 	}
 
 	// --- private ---
 
-	 int decideInsertionSimple(BvhNode currentNode,BvhNode leaf) {
+	 int decideInsertionSimple(BvhNodeStore store, int currentNode, int leaf) {
+		 	double[] b = store._bounds;
+		 	int ol = leaf * BvhNodeStore.BOUNDS_SIZE;
 		 	double centerX;
 		 	double centerY;
 		 	double centerZ;
-			centerX = leaf._aabbMin.x + leaf._aabbMax.x;
-			centerY = leaf._aabbMin.y + leaf._aabbMax.y;
-			centerZ = leaf._aabbMin.z + leaf._aabbMax.z;
-			BvhNode c1 = currentNode._children[0];
-			BvhNode c2 = currentNode._children[1];
+			centerX = b[ol] + b[ol + 3];
+			centerY = b[ol + 1] + b[ol + 4];
+			centerZ = b[ol + 2] + b[ol + 5];
+			int o1 = store._children[currentNode << 1] * BvhNodeStore.BOUNDS_SIZE;
+			int o2 = store._children[(currentNode << 1) + 1] * BvhNodeStore.BOUNDS_SIZE;
 			double diff1X;
 			double diff1Y;
 			double diff1Z;
 			double diff2X;
 			double diff2Y;
 			double diff2Z;
-			diff1X = c1._aabbMin.x + c1._aabbMax.x;
-			diff1Y = c1._aabbMin.y + c1._aabbMax.y;
-			diff1Z = c1._aabbMin.z + c1._aabbMax.z;
-			diff2X = c2._aabbMin.x + c2._aabbMax.x;
-			diff2Y = c2._aabbMin.y + c2._aabbMax.y;
-			diff2Z = c2._aabbMin.z + c2._aabbMax.z;
+			diff1X = b[o1] + b[o1 + 3];
+			diff1Y = b[o1 + 1] + b[o1 + 4];
+			diff1Z = b[o1 + 2] + b[o1 + 5];
+			diff2X = b[o2] + b[o2 + 3];
+			diff2Y = b[o2 + 1] + b[o2 + 4];
+			diff2Z = b[o2 + 2] + b[o2 + 5];
 			diff1X -= centerX;
 			diff1Y -= centerY;
 			diff1Z -= centerZ;
@@ -77,63 +106,68 @@ public class BvhStrategy {
 			}
 	}
 
-	int decideInsertionMinimumSurfaceArea(BvhNode currentNode, BvhNode leaf) {
-		BvhNode c11 = currentNode._children[0];
-		BvhNode c21 = currentNode._children[1];
-		double ey = currentNode._aabbMax.y - currentNode._aabbMin.y;
-		double ez = currentNode._aabbMax.z - currentNode._aabbMin.z;
+	int decideInsertionMinimumSurfaceArea(BvhNodeStore store, int currentNode, int leaf) {
+		double[] b = store._bounds;
+		int c11 = store._children[currentNode << 1];
+		int c21 = store._children[(currentNode << 1) + 1];
+		int on = currentNode * BvhNodeStore.BOUNDS_SIZE;
+		int ol = leaf * BvhNodeStore.BOUNDS_SIZE;
+		int o1 = c11 * BvhNodeStore.BOUNDS_SIZE;
+		int o2 = c21 * BvhNodeStore.BOUNDS_SIZE;
+		double ey = b[on + 4] - b[on + 1];
+		double ez = b[on + 5] - b[on + 2];
 		double combinedMinX;
 		double combinedMinY;
 		double combinedMinZ;
 		double combinedMaxX;
 		double combinedMaxY;
 		double combinedMaxZ;
-		combinedMinX = currentNode._aabbMin.x < leaf._aabbMin.x ? currentNode._aabbMin.x : leaf._aabbMin.x;
-		combinedMinY = currentNode._aabbMin.y < leaf._aabbMin.y ? currentNode._aabbMin.y : leaf._aabbMin.y;
-		combinedMinZ = currentNode._aabbMin.z < leaf._aabbMin.z ? currentNode._aabbMin.z : leaf._aabbMin.z;
-		combinedMaxX = currentNode._aabbMax.x > leaf._aabbMax.x ? currentNode._aabbMax.x : leaf._aabbMax.x;
-		combinedMaxY = currentNode._aabbMax.y > leaf._aabbMax.y ? currentNode._aabbMax.y : leaf._aabbMax.y;
-		combinedMaxZ = currentNode._aabbMax.z > leaf._aabbMax.z ? currentNode._aabbMax.z : leaf._aabbMax.z;
+		combinedMinX = b[on] < b[ol] ? b[on] : b[ol];
+		combinedMinY = b[on + 1] < b[ol + 1] ? b[on + 1] : b[ol + 1];
+		combinedMinZ = b[on + 2] < b[ol + 2] ? b[on + 2] : b[ol + 2];
+		combinedMaxX = b[on + 3] > b[ol + 3] ? b[on + 3] : b[ol + 3];
+		combinedMaxY = b[on + 4] > b[ol + 4] ? b[on + 4] : b[ol + 4];
+		combinedMaxZ = b[on + 5] > b[ol + 5] ? b[on + 5] : b[ol + 5];
 		double ey1 = combinedMaxY - combinedMinY;
 		double ez1 = combinedMaxZ - combinedMinZ;
 		double newArea = ((combinedMaxX - combinedMinX) * (ey1 + ez1) + ey1 * ez1) * 2;
 		double creatingCost = newArea * 2;
-		double incrementalCost = (newArea - ((currentNode._aabbMax.x - currentNode._aabbMin.x) * (ey + ez) + ey * ez) * 2) * 2;
+		double incrementalCost = (newArea - ((b[on + 3] - b[on]) * (ey + ez) + ey * ez) * 2) * 2;
 		double descendingCost1 = incrementalCost;
-		combinedMinX = c11._aabbMin.x < leaf._aabbMin.x ? c11._aabbMin.x : leaf._aabbMin.x;
-		combinedMinY = c11._aabbMin.y < leaf._aabbMin.y ? c11._aabbMin.y : leaf._aabbMin.y;
-		combinedMinZ = c11._aabbMin.z < leaf._aabbMin.z ? c11._aabbMin.z : leaf._aabbMin.z;
-		combinedMaxX = c11._aabbMax.x > leaf._aabbMax.x ? c11._aabbMax.x : leaf._aabbMax.x;
-		combinedMaxY = c11._aabbMax.y > leaf._aabbMax.y ? c11._aabbMax.y : leaf._aabbMax.y;
-		combinedMaxZ = c11._aabbMax.z > leaf._aabbMax.z ? c11._aabbMax.z : leaf._aabbMax.z;
-		if(c11._height == 0) {
+		combinedMinX = b[o1] < b[ol] ? b[o1] : b[ol];
+		combinedMinY = b[o1 + 1] < b[ol + 1] ? b[o1 + 1] : b[ol + 1];
+		combinedMinZ = b[o1 + 2] < b[ol + 2] ? b[o1 + 2] : b[ol + 2];
+		combinedMaxX = b[o1 + 3] > b[ol + 3] ? b[o1 + 3] : b[ol + 3];
+		combinedMaxY = b[o1 + 4] > b[ol + 4] ? b[o1 + 4] : b[ol + 4];
+		combinedMaxZ = b[o1 + 5] > b[ol + 5] ? b[o1 + 5] : b[ol + 5];
+		if(store._heights[c11] == 0) {
 			 ey = combinedMaxY - combinedMinY;
 			 ez = combinedMaxZ - combinedMinZ;
 			descendingCost1 = incrementalCost + ((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2;
 		} else {
 			 ey = combinedMaxY - combinedMinY;
 			 ez = combinedMaxZ - combinedMinZ;
-			 ey1 = c11._aabbMax.y - c11._aabbMin.y;
-			 ez1 = c11._aabbMax.z - c11._aabbMin.z;
-			descendingCost1 = incrementalCost + (((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2 - ((c11._aabbMax.x - c11._aabbMin.x) * (ey1 + ez1) + ey1 * ez1) * 2);
+			 ey1 = b[o1 + 4] - b[o1 + 1];
+			 ez1 = b[o1 + 5] - b[o1 + 2];
+			descendingCost1 = incrementalCost + (((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2 - ((b[o1 + 3] - b[o1]) * (ey1 + ez1) + ey1 * ez1) * 2);
 		}
 		double descendingCost2 = incrementalCost;
-		combinedMinX = c21._aabbMin.x < leaf._aabbMin.x ? c21._aabbMin.x : leaf._aabbMin.x;
-		combinedMinY = c21._aabbMin.y < leaf._aabbMin.y ? c21._aabbMin.y : leaf._aabbMin.y;
-		combinedMinZ = c21._aabbMin.z < leaf._aabbMin.z ? c21._aabbMin.z : leaf._aabbMin.z;
-		combinedMaxX = c21._aabbMax.x > leaf._aabbMax.x ? c21._aabbMax.x : leaf._aabbMax.x;
-		combinedMaxY = c21._aabbMax.y > leaf._aabbMax.y ? c21._aabbMax.y : leaf._aabbMax.y;
-		combinedMaxZ = c21._aabbMax.z > leaf._aabbMax.z ? c21._aabbMax.z : leaf._aabbMax.z;
-		if(c21._height == 0) {
+		combinedMinX = b[o2] < b[ol] ? b[o2] : b[ol];
+		combinedMinY = b[o2 + 1] < b[ol + 1] ? b[o2 + 1] : b[ol + 1];
+		combinedMinZ = b[o2 + 2] < b[ol + 2] ? b[o2 + 2] : b[ol + 2];
+		combinedMaxX = b[o2 + 3] > b[ol + 3] ? b[o2 + 3] : b[ol + 3];
+		combinedMaxY = b[o2 + 4] > b[ol + 4] ? b[o2 + 4] : b[ol + 4];
+		combinedMaxZ = b[o2 + 5] > b[ol + 5] ? b[o2 + 5] : b[ol + 5];
+		if(store._heights[c21] == 0) {
 			 ey = combinedMaxY - combinedMinY;
 			 ez = combinedMaxZ - combinedMinZ;
 			descendingCost2 = incrementalCost + ((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2;
 		} else {
 			 ey = combinedMaxY - combinedMinY;
 			 ez = combinedMaxZ - combinedMinZ;
-			 ey1 = c21._aabbMax.y - c21._aabbMin.y;
-			 ez1 = c21._aabbMax.z - c21._aabbMin.z;
-			descendingCost2 = incrementalCost + (((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2 - ((c21._aabbMax.x - c21._aabbMin.x) * (ey1 + ez1) + ey1 * ez1) * 2);
+			 ey1 = b[o2 + 4] - b[o2 + 1];
+			 ez1 = b[o2 + 5] - b[o2 + 2];
+			descendingCost2 = incrementalCost + (((combinedMaxX - combinedMinX) * (ey + ez) + ey * ez) * 2 - ((b[o2 + 3] - b[o2]) * (ey1 + ez1) + ey1 * ez1) * 2);
 		}
 		if(creatingCost < descendingCost1) {
 			if(creatingCost < descendingCost2) {
@@ -148,7 +182,8 @@ public class BvhStrategy {
 		}
 	}
 
-	 int splitLeavesMean(BvhNode[] leaves, int from,int until) {
+	 int splitLeavesMean(BvhNodeStore store, int[] leaves, int from,int until) {
+		double[] b = store._bounds;
 		double invN = 1.0f / (until - from);
 
 		// mean := sum(min + max) / n
@@ -157,13 +192,10 @@ public class BvhStrategy {
 		double centerMeanZ = 0;
 		int _g = from;
 		while(_g < until) {
-			BvhNode leaf = leaves[_g++];
-			leaf._tmp.x = leaf._aabbMax.x + leaf._aabbMin.x;
-			leaf._tmp.y = leaf._aabbMax.y + leaf._aabbMin.y;
-			leaf._tmp.z = leaf._aabbMax.z + leaf._aabbMin.z;
-			centerMeanX += leaf._tmp.x;
-			centerMeanY += leaf._tmp.y;
-			centerMeanZ += leaf._tmp.z;
+			int o = leaves[_g++] * BvhNodeStore.BOUNDS_SIZE;
+			centerMeanX += b[o + 3] + b[o];
+			centerMeanY += b[o + 4] + b[o + 1];
+			centerMeanZ += b[o + 5] + b[o + 2];
 		}
 		centerMeanX *= invN;
 		centerMeanY *= invN;
@@ -173,10 +205,10 @@ public class BvhStrategy {
 		double varianceY = 0;
 		double varianceZ = 0;
 		for (int i=from;i<until;i++) {
-			BvhNode leaf = leaves[i];
-			double diffX = leaf._tmp.x - centerMeanX;
-			double diffY = leaf._tmp.y - centerMeanY;
-			double diffZ = leaf._tmp.z - centerMeanZ;
+			int o = leaves[i] * BvhNodeStore.BOUNDS_SIZE;
+			double diffX = b[o + 3] + b[o] - centerMeanX;
+			double diffY = b[o + 4] + b[o + 1] - centerMeanY;
+			double diffZ = b[o + 5] + b[o + 2] - centerMeanZ;
 			diffX *= diffX;
 			diffY *= diffY;
 			diffZ *= diffZ;
@@ -195,12 +227,12 @@ public class BvhStrategy {
 			if(varX > varZ) {
 				double mean = centerMeanX;
 				while(true) {
-					while(!(leaves[l]._tmp.x <= mean)) ++l;
-					while(!(leaves[r]._tmp.x >= mean)) --r;
+					while(!(center(b, leaves[l], 0) <= mean)) ++l;
+					while(!(center(b, leaves[r], 0) >= mean)) --r;
 					if(l >= r) {
 						break;
 					}
-					BvhNode tmp = leaves[l];
+					int tmp = leaves[l];
 					leaves[l] = leaves[r];
 					leaves[r] = tmp;
 					++l;
@@ -209,12 +241,12 @@ public class BvhStrategy {
 			} else {
 				double mean = centerMeanZ;
 				while(true) {
-					while(!(leaves[l]._tmp.z <= mean)) ++l;
-					while(!(leaves[r]._tmp.z >= mean)) --r;
+					while(!(center(b, leaves[l], 2) <= mean)) ++l;
+					while(!(center(b, leaves[r], 2) >= mean)) --r;
 					if(l >= r) {
 						break;
 					}
-					BvhNode tmp = leaves[l];
+					int tmp = leaves[l];
 					leaves[l] = leaves[r];
 					leaves[r] = tmp;
 					++l;
@@ -224,12 +256,12 @@ public class BvhStrategy {
 		} else if(varY > varZ) {
 			double mean = centerMeanY;
 			while(true) {
-				while(!(leaves[l]._tmp.y <= mean)) ++l;
-				while(!(leaves[r]._tmp.y >= mean)) --r;
+				while(!(center(b, leaves[l], 1) <= mean)) ++l;
+				while(!(center(b, leaves[r], 1) >= mean)) --r;
 				if(l >= r) {
 					break;
 				}
-				BvhNode tmp = leaves[l];
+				int tmp = leaves[l];
 				leaves[l] = leaves[r];
 				leaves[r] = tmp;
 				++l;
@@ -238,12 +270,12 @@ public class BvhStrategy {
 		} else {
 			double mean = centerMeanZ;
 			while(true) {
-				while(!(leaves[l]._tmp.z <= mean)) ++l;
-				while(!(leaves[r]._tmp.z >= mean)) --r;
+				while(!(center(b, leaves[l], 2) <= mean)) ++l;
+				while(!(center(b, leaves[r], 2) >= mean)) --r;
 				if(l >= r) {
 					break;
 				}
-				BvhNode tmp = leaves[l];
+				int tmp = leaves[l];
 				leaves[l] = leaves[r];
 				leaves[r] = tmp;
 				++l;
@@ -253,4 +285,163 @@ public class BvhStrategy {
 		return l;
 	}
 
+
+	/**
+	 * Splits the leaves with the binned surface area heuristic: the centers are binned along
+	 * each axis, and the boundary between bins minimizing `area(left) * count(left) +
+	 * area(right) * count(right)` is chosen.
+	 */
+	int splitLeavesSah(BvhNodeStore store, int[] leaves, int from, int until) {
+		double[] nodeBounds = store._bounds;
+		int numBins = SAH_NUM_BINS;
+		double[] bounds = binBounds;
+		int[] counts = binCounts;
+		double[] rightAreas = binRightAreas;
+		int[] rightCounts = binRightCounts;
+
+		// bounds of the centers, doubled as in `splitLeavesMean`
+		double cminX = MathUtil.POSITIVE_INFINITY;
+		double cminY = MathUtil.POSITIVE_INFINITY;
+		double cminZ = MathUtil.POSITIVE_INFINITY;
+		double cmaxX = MathUtil.NEGATIVE_INFINITY;
+		double cmaxY = MathUtil.NEGATIVE_INFINITY;
+		double cmaxZ = MathUtil.NEGATIVE_INFINITY;
+		for (int i=from;i<until;i++) {
+			int o = leaves[i] * BvhNodeStore.BOUNDS_SIZE;
+			double cx = nodeBounds[o + 3] + nodeBounds[o];
+			double cy = nodeBounds[o + 4] + nodeBounds[o + 1];
+			double cz = nodeBounds[o + 5] + nodeBounds[o + 2];
+			if (cx < cminX) cminX = cx;
+			if (cy < cminY) cminY = cy;
+			if (cz < cminZ) cminZ = cz;
+			if (cx > cmaxX) cmaxX = cx;
+			if (cy > cmaxY) cmaxY = cy;
+			if (cz > cmaxZ) cmaxZ = cz;
+		}
+
+		double bestCost = MathUtil.POSITIVE_INFINITY;
+		int bestAxis = -1;
+		int bestBin = 0;
+		double bestMin = 0;
+		double bestScale = 0;
+		for (int axis=0;axis<3;axis++) {
+			double cmin = axis == 0 ? cminX : axis == 1 ? cminY : cminZ;
+			double cmax = axis == 0 ? cmaxX : axis == 1 ? cmaxY : cmaxZ;
+			if (cmax <= cmin) continue;
+			double scale = numBins / (cmax - cmin);
+
+			// fill the bins
+			for (int b=0;b<numBins;b++) {
+				counts[b] = 0;
+				bounds[b * 6] = MathUtil.POSITIVE_INFINITY;
+				bounds[b * 6 + 1] = MathUtil.POSITIVE_INFINITY;
+				bounds[b * 6 + 2] = MathUtil.POSITIVE_INFINITY;
+				bounds[b * 6 + 3] = MathUtil.NEGATIVE_INFINITY;
+				bounds[b * 6 + 4] = MathUtil.NEGATIVE_INFINITY;
+				bounds[b * 6 + 5] = MathUtil.NEGATIVE_INFINITY;
+			}
+			for (int i=from;i<until;i++) {
+				int leaf = leaves[i];
+				int ol = leaf * BvhNodeStore.BOUNDS_SIZE;
+				int bin = binOf(center(nodeBounds, leaf, axis), cmin, scale);
+				int o = bin * 6;
+				counts[bin]++;
+				if (nodeBounds[ol] < bounds[o]) bounds[o] = nodeBounds[ol];
+				if (nodeBounds[ol + 1] < bounds[o + 1]) bounds[o + 1] = nodeBounds[ol + 1];
+				if (nodeBounds[ol + 2] < bounds[o + 2]) bounds[o + 2] = nodeBounds[ol + 2];
+				if (nodeBounds[ol + 3] > bounds[o + 3]) bounds[o + 3] = nodeBounds[ol + 3];
+				if (nodeBounds[ol + 4] > bounds[o + 4]) bounds[o + 4] = nodeBounds[ol + 4];
+				if (nodeBounds[ol + 5] > bounds[o + 5]) bounds[o + 5] = nodeBounds[ol + 5];
+			}
+
+			// sweep from the right
+			double minX = MathUtil.POSITIVE_INFINITY;
+			double minY = MathUtil.POSITIVE_INFINITY;
+			double minZ = MathUtil.POSITIVE_INFINITY;
+			double maxX = MathUtil.NEGATIVE_INFINITY;
+			double maxY = MathUtil.NEGATIVE_INFINITY;
+			double maxZ = MathUtil.NEGATIVE_INFINITY;
+			int count = 0;
+			for (int b=numBins-1;b>0;b--) {
+				int o = b * 6;
+				if (counts[b] > 0) {
+					if (bounds[o] < minX) minX = bounds[o];
+					if (bounds[o + 1] < minY) minY = bounds[o + 1];
+					if (bounds[o + 2] < minZ) minZ = bounds[o + 2];
+					if (bounds[o + 3] > maxX) maxX = bounds[o + 3];
+					if (bounds[o + 4] > maxY) maxY = bounds[o + 4];
+					if (bounds[o + 5] > maxZ) maxZ = bounds[o + 5];
+					count += counts[b];
+				}
+				rightCounts[b] = count;
+				rightAreas[b] = count > 0 ? halfArea(maxX - minX, maxY - minY, maxZ - minZ) : 0;
+			}
+
+			// sweep from the left and evaluate the boundaries
+			minX = MathUtil.POSITIVE_INFINITY;
+			minY = MathUtil.POSITIVE_INFINITY;
+			minZ = MathUtil.POSITIVE_INFINITY;
+			maxX = MathUtil.NEGATIVE_INFINITY;
+			maxY = MathUtil.NEGATIVE_INFINITY;
+			maxZ = MathUtil.NEGATIVE_INFINITY;
+			count = 0;
+			for (int b=0;b<numBins-1;b++) {
+				int o = b * 6;
+				if (counts[b] > 0) {
+					if (bounds[o] < minX) minX = bounds[o];
+					if (bounds[o + 1] < minY) minY = bounds[o + 1];
+					if (bounds[o + 2] < minZ) minZ = bounds[o + 2];
+					if (bounds[o + 3] > maxX) maxX = bounds[o + 3];
+					if (bounds[o + 4] > maxY) maxY = bounds[o + 4];
+					if (bounds[o + 5] > maxZ) maxZ = bounds[o + 5];
+					count += counts[b];
+				}
+				if (count == 0 || rightCounts[b + 1] == 0) continue;
+				double cost = halfArea(maxX - minX, maxY - minY, maxZ - minZ) * count + rightAreas[b + 1] * rightCounts[b + 1];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestBin = b;
+					bestMin = cmin;
+					bestScale = scale;
+				}
+			}
+		}
+
+		if (bestAxis == -1) {
+			// all the centers are at the same position
+			return (from + until) >> 1;
+		}
+
+		// partition the leaves, bins up to `bestBin` go to the left
+		int l = from;
+		int r = until - 1;
+		while (l <= r) {
+			if (binOf(center(nodeBounds, leaves[l], bestAxis), bestMin, bestScale) <= bestBin) {
+				l++;
+			} else {
+				int tmp = leaves[l];
+				leaves[l] = leaves[r];
+				leaves[r] = tmp;
+				r--;
+			}
+		}
+		return l;
+	}
+
+	// returns the doubled center of the node `id` of `b` along `axis`
+	private static double center(double[] b, int id, int axis) {
+		int o = id * BvhNodeStore.BOUNDS_SIZE + axis;
+		return b[o + 3] + b[o];
+	}
+
+	private int binOf(double c, double min, double scale) {
+		int b = (int) ((c - min) * scale);
+		return b < SAH_NUM_BINS ? b : SAH_NUM_BINS - 1;
+	}
+
+	private double halfArea(double x, double y, double z) {
+		return x * (y + z) + y * z;
+	}
+
 }
\ No newline at end of file
@@ -1,70 +1,59 @@
 package oimo.collision.broadphase.bvh;
 
-import oimo.common.M;
-import oimo.dynamics.rigidbody.Shape;
-
 /**
  * Internal class.
  *
- * BVH Tree
+ * BVH Tree. The nodes are ids of `_store`.
  */
 public class BvhTree {
-	public BvhNode _root;
+	public int _root;
 	public int _numLeaves;
 	public BvhStrategy _strategy;
+	public BvhNodeStore _store;
 
-	BvhNode _nodePool;
-
-	BvhNode leafList;
-	BvhNode leafListLast;
+	int leafList;
+	int leafListLast;
 
-	BvhNode[] tmp;
+	int[] tmp;
 
 	public BvhTree() {
-		_root = null;
+		this(new BvhNodeStore());
+	}
+
+	/**
+	 * Creates a tree whose nodes are allocated in `store`, which may be shared by other trees.
+	 */
+	public BvhTree(BvhNodeStore store) {
+		_root = BvhNodeStore.NULL;
 		_numLeaves = 0;
 		_strategy = new BvhStrategy();
-		_nodePool = null;
-		leafList = null;
-		leafListLast = null;
-		tmp =new BvhNode[1024];
+		_store = store;
+		leafList = BvhNodeStore.NULL;
+		leafListLast = BvhNodeStore.NULL;
+		tmp = new int[1024];
 	}
 
 	// --- internal ---
 
-	public void _print(BvhNode root, String indent) {
-		if (root == null) return;
+	public void _print(int root, String indent) {
+		if (root == BvhNodeStore.NULL) return;
 		if(indent == null) {
 			indent = "";
 		}
-		if (root._height == 0) {
-			System.out.println(indent + root._proxy._id);
+		BvhNodeStore s = _store;
+		if (s._heights[root] == 0) {
+			System.out.println(indent + s._proxies[root]._id);
 		} else {
-			_print(root._children[0], indent + "  ");
-			double tmp =0;
-			double sizeX = root._aabbMax.x - root._aabbMin.x ;
-			double sizeY = root._aabbMax.y - root._aabbMin.y;
-			double sizeZ = root._aabbMax.z - root._aabbMin.z;
-			double y = sizeY;
-			double z = sizeZ;
-			if(sizeX * (y + z) + y * z > 0) {
-				sizeX = root._aabbMax.x - root._aabbMin.x ;
-				sizeY = root._aabbMax.y - root._aabbMin.y;
-				sizeZ = root._aabbMax.z - root._aabbMin.z;
-				 y = sizeY;
-				 z = sizeZ;
-				tmp = ((int)((sizeX * (y + z) + y * z) * 1000 + 0.5f) | 0) / 1000;
+			_print(s._children[root << 1], indent + "  ");
+			double tmp = 0;
+			double area = s._perimeter(root);
+			if(area > 0) {
+				tmp = ((int)(area * 1000 + 0.5f) | 0) / 1000;
 			} else {
-				 sizeX = root._aabbMax.x  - root._aabbMin.x ;
-				 sizeY = root._aabbMax.y - root._aabbMin.y;
-				 sizeZ = root._aabbMax.z - root._aabbMin.z;
-				 y = sizeY;
-				 z = sizeZ;
-				tmp = ((int)((sizeX * (y + z) + y * z) * 1000 - 0.5f) | 0) / 1000;
+				tmp = ((int)(area * 1000 - 0.5f) | 0) / 1000;
 			}
-			
-			System.out.println(indent + "#" + root._height + ", " + tmp);
-			_print(root._children[1], indent + "  ");
+			System.out.println(indent + "#" + s._heights[root] + ", " + tmp);
+			_print(s._children[(root << 1) + 1], indent + "  ");
 		}
 	}
 
@@ -72,27 +61,23 @@ public class BvhTree {
 	 * Inserts the proxy.
 	 * This creates a leaf connected to the proxy and inserts it to the tree and `leafList`.
 	 */
-	 public void _insertProxy(BvhProxy proxy) {
-		 BvhNode leaf = pick();
-		leaf._proxy = proxy;
+	public void _insertProxy(BvhProxy proxy) {
+		BvhNodeStore s = _store;
+		int leaf = pick();
 		proxy._leaf = leaf;
-
-		M.vec3_assign(leaf._aabbMin, proxy._aabbMin);
-		M.vec3_assign(leaf._aabbMax, proxy._aabbMax);
+		s._setLeaf(leaf, proxy);
 
 		_numLeaves++;
-		
-		if(leafList == null) {
+
+		if(leafList == BvhNodeStore.NULL) {
 			leafList = leaf;
 			leafListLast = leaf;
 		} else {
-			leafListLast._nextLeaf = leaf;
-			leaf._prevLeaf = leafListLast;
+			s._nextLeaves[leafListLast] = leaf;
+			s._prevLeaves[leaf] = leafListLast;
 			leafListLast = leaf;
 		}
-		//M.list_push(leafList, leafListLast, _prevLeaf, _nextLeaf, leaf);
 
-		
 		insertLeaf(leaf);
 	}
 
@@ -101,30 +86,14 @@ public class BvhTree {
 	 * This also deletes the leaf connected to the proxy from the tree and `leafList`.
 	 */
 	public void _deleteProxy(BvhProxy proxy) {
-		BvhNode leaf = proxy._leaf;
+		int leaf = proxy._leaf;
 
 		_numLeaves--;
-		BvhNode prev1 = leaf._prevLeaf;
-		BvhNode next1 = leaf._nextLeaf;
-		if(prev1 != null) {
-			prev1._nextLeaf = next1;
-		}
-		if(next1 != null) {
-			next1._prevLeaf = prev1;
-		}
-		if(leaf == this.leafList) {
-			this.leafList = this.leafList._nextLeaf;
-		}
-		if(leaf == this.leafListLast) {
-			this.leafListLast = this.leafListLast._prevLeaf;
-		}
-		leaf._nextLeaf = null;
-		leaf._prevLeaf = null;
-		//M.list_remove(leafList, leafListLast, _prevLeaf, _nextLeaf, leaf);
+		removeFromLeafList(leaf);
 
 		deleteLeaf(leaf);
 
-		proxy._leaf = null;
+		proxy._leaf = BvhNodeStore.NULL;
 		pool(leaf);
 	}
 
@@ -132,63 +101,49 @@ public class BvhTree {
 	 * Clears whole the tree.
 	 * All leaves are disposed and deleted from `leafList`.
 	 */
-	 public void _clear() {
-		if (_root == null) return;
+	public void _clear() {
+		if (_root == BvhNodeStore.NULL) return;
 		deleteRecursive(_root);
-		_root = null;
+		_root = BvhNodeStore.NULL;
 		_numLeaves = 0;
 	}
 
-	 public void _optimize(int count) {
-		if (_root == null) return;
-		for (int i=0;i<count;i++) {
-			BvhNode leaf = _root;
-			while (leaf._height > 0) {
-				int h1 = leaf._children[0]._height;
-				int h2 = leaf._children[1]._height;
-				// TODO: better strategy
-				leaf = leaf._children[Math.random() > (h1 / (h1 + h2)) ? 1 : 0];
-			}
-			deleteLeaf(leaf);
-			insertLeaf(leaf);
-		}
-	}
-
-	 protected void _buildTopDown() {
-		if (_root == null) return;
+	protected void _buildTopDown() {
+		if (_root == BvhNodeStore.NULL) return;
 		decompose();
 
-		while (tmp.length < _numLeaves) {
-			int newLength=tmp.length<<1;
-			BvhNode[] newArray =new BvhNode[newLength];
-			for(int i=0;i<tmp.length;i++) {
-				newArray[i]=tmp[i];
-				tmp[i]=null;
-			}
-			tmp=newArray;
-			//M.array_expand(tmp, tmp.length);
+		if (tmp.length < _numLeaves) {
+			int newLength = tmp.length << 1;
+			while (newLength < _numLeaves) newLength <<= 1;
+			tmp = new int[newLength];
 		}
 
 		// collect leaves
+		int[] nextLeaves = _store._nextLeaves;
 		int idx = 0;
-		BvhNode leaf = leafList;
-		
-		while(leaf != null) {
+		int leaf = leafList;
+		while(leaf != BvhNodeStore.NULL) {
 			tmp[idx] = leaf;
 			idx++;
-			leaf = leaf._nextLeaf;;
+			leaf = nextLeaves[leaf];
 		}
-		
-		//		M.list_foreach(leaf, _nextLeaf, {
-		//			tmp[idx] = leaf;
-		//			idx++;
-		//		});
+
 		_root = buildTopDownRecursive(tmp, 0, _numLeaves);
 	}
-	
 
 	public int _getBalance() {
-		return getBalanceRecursive(this._root);
+		return getBalanceRecursive(_root);
+	}
+
+	/**
+	 * Returns the surface area heuristic cost of the tree, the sum of the surface areas of
+	 * the internal nodes relative to the one of the root. Lower is better.
+	 */
+	public double _getCost() {
+		if (_root == BvhNodeStore.NULL || _store._heights[_root] == 0) return 0;
+		double rootArea = _store._perimeter(_root);
+		if (rootArea == 0) return 0;
+		return getAreaRecursive(_root) / rootArea;
 	}
 
 	// --- private ---
@@ -198,248 +153,279 @@ public class BvhTree {
 	 * The tree must be reconstructed using `leafList` after the call of this method.
 	 */
 	public void decompose() {
-		if (_root == null) return;
+		if (_root == BvhNodeStore.NULL) return;
 		decomposeRecursive(_root);
-		_root = null;
+		_root = BvhNodeStore.NULL;
 	}
 
-	public void deleteRecursive(BvhNode root) {
-		if(root._height == 0) {
-			BvhNode prev = root._prevLeaf;
-			BvhNode next = root._nextLeaf;
-			if(prev != null) {
-				prev._nextLeaf = next;
-			}
-			if(next != null) {
-				next._prevLeaf = prev;
-			}
-			if(root == this.leafList) {
-				this.leafList = this.leafList._nextLeaf;
-			}
-			if(root == this.leafListLast) {
-				this.leafListLast = this.leafListLast._prevLeaf;
-			}
-			root._nextLeaf = null;
-			root._prevLeaf = null;
-			root._proxy._leaf = null;
-			root._next = null;
-			root._childIndex = 0;
-			root._children[0] = null;
-			root._children[1] = null;
-			root._childIndex = 0;
-			root._parent = null;
-			root._height = 0;
-			root._proxy = null;
-			root._next = this._nodePool;
-			this._nodePool = root;
+	public void deleteRecursive(int root) {
+		BvhNodeStore s = _store;
+		if(s._heights[root] == 0) {
+			removeFromLeafList(root);
+			s._proxies[root]._leaf = BvhNodeStore.NULL;
+			pool(root);
 			return;
 		}
-		this.deleteRecursive(root._children[0]);
-		this.deleteRecursive(root._children[1]);
-		root._next = null;
-		root._childIndex = 0;
-		root._children[0] = null;
-		root._children[1] = null;
-		root._childIndex = 0;
-		root._parent = null;
-		root._height = 0;
-		root._proxy = null;
-		root._next = this._nodePool;
-		this._nodePool = root;
+		deleteRecursive(s._children[root << 1]);
+		deleteRecursive(s._children[(root << 1) + 1]);
+		pool(root);
 	}
 
-	public void decomposeRecursive(BvhNode root) {
-		if(root._height == 0) {
-			root._childIndex = 0;
-			root._parent = null;
+	public void decomposeRecursive(int root) {
+		BvhNodeStore s = _store;
+		if(s._heights[root] == 0) {
+			s._parents[root] = BvhNodeStore.NULL;
 			return;
 		}
-		this.decomposeRecursive(root._children[0]);
-		this.decomposeRecursive(root._children[1]);
-		root._next = null;
-		root._childIndex = 0;
-		root._children[0] = null;
-		root._children[1] = null;
-		root._childIndex = 0;
-		root._parent = null;
-		root._height = 0;
-		root._proxy = null;
-		root._next = this._nodePool;
-		this._nodePool = root;
+		decomposeRecursive(s._children[root << 1]);
+		decomposeRecursive(s._children[(root << 1) + 1]);
+		pool(root);
 	}
 
-	public BvhNode buildTopDownRecursive(BvhNode[] leaves, int from,int until) {
+	public int buildTopDownRecursive(int[] leaves, int from, int until) {
+		BvhNodeStore s = _store;
 		if(until - from == 1) {
-			BvhNode leaf = leaves[from];
-			BvhProxy proxy = leaf._proxy;
-			leaf._aabbMin.x = proxy._aabbMin.x;
-			leaf._aabbMin.y = proxy._aabbMin.y;
-			leaf._aabbMin.z = proxy._aabbMin.z;
-			leaf._aabbMax.x = proxy._aabbMax.x;
-			leaf._aabbMax.y = proxy._aabbMax.y;
-			leaf._aabbMax.z = proxy._aabbMax.z;
+			int leaf = leaves[from];
+			s._setLeaf(leaf, s._proxies[leaf]);
 			return leaf;
 		}
-		int splitAt = this._strategy._splitLeaves(leaves,from,until);
-		BvhNode child1 = this.buildTopDownRecursive(leaves,from,splitAt);
-		BvhNode child2 = this.buildTopDownRecursive(leaves,splitAt,until);
-		BvhNode first = this._nodePool;
-		if(first != null) {
-			this._nodePool = first._next;
-			first._next = null;
-		} else {
-			first = new oimo.collision.broadphase.bvh.BvhNode();
-		}
-		BvhNode parent = first;
-		parent._children[0] = child1;
-		child1._parent = parent;
-		child1._childIndex = 0;
-		parent._children[1] = child2;
-		child2._parent = parent;
-		child2._childIndex = 1;
-		BvhNode c1 = parent._children[0];
-		BvhNode c2 = parent._children[1];
-		parent._aabbMin.x = c1._aabbMin.x < c2._aabbMin.x ? c1._aabbMin.x : c2._aabbMin.x;
-		parent._aabbMin.y = c1._aabbMin.y < c2._aabbMin.y ? c1._aabbMin.y : c2._aabbMin.y;
-		parent._aabbMin.z = c1._aabbMin.z < c2._aabbMin.z ? c1._aabbMin.z : c2._aabbMin.z;
-		parent._aabbMax.x = c1._aabbMax.x > c2._aabbMax.x ? c1._aabbMax.x : c2._aabbMax.x;
-		parent._aabbMax.y = c1._aabbMax.y > c2._aabbMax.y ? c1._aabbMax.y : c2._aabbMax.y;
-		parent._aabbMax.z = c1._aabbMax.z > c2._aabbMax.z ? c1._aabbMax.z : c2._aabbMax.z;
-		int h1 = parent._children[0]._height;
-		int h2 = parent._children[1]._height;
-		parent._height = (h1 > h2 ? h1 : h2) + 1;
+		int splitAt = _strategy._splitLeaves(s, leaves, from, until);
+		int child1 = buildTopDownRecursive(leaves, from, splitAt);
+		int child2 = buildTopDownRecursive(leaves, splitAt, until);
+		int parent = pick();
+		s._setChild(parent, 0, child1);
+		s._setChild(parent, 1, child2);
+		s._computeAabb(parent);
+		s._computeHeight(parent);
 		return parent;
-		
-//		var num:Int = until - from;
-//		M.assert(num > 0);
-//		if (num == 1) {
-//			var leaf:BvhNode = leaves[from];
-//			var proxy:BvhProxy = leaf._proxy;
-//			M.vec3_assign(leaf._aabbMin, proxy._aabbMin);
-//			M.vec3_assign(leaf._aabbMax, proxy._aabbMax);
-//			return leaf;
-//		}
-//		// sort and split
-//		var splitAt:Int = _strategy._splitLeaves(leaves, from, until);
-//		var child1:BvhNode = buildTopDownRecursive(leaves, from, splitAt);
-//		var child2:BvhNode = buildTopDownRecursive(leaves, splitAt, until);
-//		var parent:BvhNode = pick();
-//		parent._setChild(0, child1);
-//		parent._setChild(1, child2);
-//		parent._computeAabb();
-//		parent._computeHeight();
-//		return parent;
 	}
 
-	public int getBalanceRecursive(BvhNode root) {
-		if(root == null || root._height == 0) {
+	public int getBalanceRecursive(int root) {
+		BvhNodeStore s = _store;
+		if(root == BvhNodeStore.NULL || s._heights[root] == 0) {
 			return 0;
 		}
-		int balance = root._children[0]._height - root._children[1]._height;
+		int c1 = s._children[root << 1];
+		int c2 = s._children[(root << 1) + 1];
+		int balance = s._heights[c1] - s._heights[c2];
 		if(balance < 0) {
 			balance = -balance;
 		}
-		return balance + this.getBalanceRecursive(root._children[0]) + this.getBalanceRecursive(root._children[1]);
+		return balance + getBalanceRecursive(c1) + getBalanceRecursive(c2);
+	}
 
-//		if (root == null || root._height == 0) return 0;
-//		var balance:Int = root._children[0]._height - root._children[1]._height;
-//		if (balance < 0) balance = -balance;
-//		return balance + getBalanceRecursive(root._children[0]) + getBalanceRecursive(root._children[1]);
+	public double getAreaRecursive(int root) {
+		BvhNodeStore s = _store;
+		if (s._heights[root] == 0) {
+			return 0;
+		}
+		return s._perimeter(root) + getAreaRecursive(s._children[root << 1]) + getAreaRecursive(s._children[(root << 1) + 1]);
+	}
+
+	void removeFromLeafList(int leaf) {
+		int[] prevLeaves = _store._prevLeaves;
+		int[] nextLeaves = _store._nextLeaves;
+		int prev = prevLeaves[leaf];
+		int next = nextLeaves[leaf];
+		if(prev != BvhNodeStore.NULL) {
+			nextLeaves[prev] = next;
+		}
+		if(next != BvhNodeStore.NULL) {
+			prevLeaves[next] = prev;
+		}
+		if(leaf == leafList) {
+			leafList = next;
+		}
+		if(leaf == leafListLast) {
+			leafListLast = prev;
+		}
+		nextLeaves[leaf] = BvhNodeStore.NULL;
+		prevLeaves[leaf] = BvhNodeStore.NULL;
 	}
 
-	void  insertLeaf(BvhNode leaf) {
-		//assertBeLeaf(leaf);
-		if (_root == null) { // the tree is empty
+	void insertLeaf(int leaf) {
+		BvhNodeStore s = _store;
+		if (_root == BvhNodeStore.NULL) { // the tree is empty
 			_root = leaf;
 			return;
 		}
 		// search for the position to insert
-		BvhNode sibling = _root;
+		int[] children = s._children;
+		int[] heights = s._heights;
+		int sibling = _root;
 
-		while (sibling._height > 0) {
-			int nextStep = _strategy._decideInsertion(sibling, leaf);
+		while (heights[sibling] > 0) {
+			int nextStep = _strategy._decideInsertion(s, sibling, leaf);
 
 			if (nextStep == -1) {
 				// insert to current position
 				break;
 			} else {
-				sibling = sibling._children[nextStep];
+				sibling = children[(sibling << 1) + nextStep];
 			}
 		}
 
-		BvhNode parent = sibling._parent;
+		int parent = s._parents[sibling];
+		int index = s._childIndex(sibling);
 
 		// new common parent with the sibling
-		BvhNode node = pick();
+		int node = pick();
 
-		if (parent == null) {
+		if (parent == BvhNodeStore.NULL) {
 			// replace the root node
 			_root = node;
 		} else {
 			// connect to the old parent
-			parent._setChild(sibling._childIndex, node);
+			s._setChild(parent, index, node);
 		}
-		node._setChild(sibling._childIndex, sibling);
-		node._setChild(sibling._childIndex ^ 1, leaf);
-
-		// fix data
-		while (node != null) {
-			if (_strategy._balancingEnabled) {
+		s._setChild(node, index, sibling);
+		s._setChild(node, index ^ 1, leaf);
+
+		// fix data, up to the first node left unchanged unless the tree is balanced
+		int[] parents = s._parents;
+		boolean balancingEnabled = _strategy._balancingEnabled;
+		boolean rotationEnabled = _strategy._rotationEnabled;
+		while (node != BvhNodeStore.NULL) {
+			if (balancingEnabled) {
 				node = balance(node);
 			}
-			node._computeHeight();
-			node._computeAabb();
-			node = node._parent;
+			boolean changed = refit(node);
+			if (rotationEnabled && rotate(node)) {
+				s._computeHeight(node);
+				changed = true;
+			}
+			if (!changed && !balancingEnabled) break;
+			node = parents[node];
 		}
 	}
 
-	void deleteLeaf(BvhNode leaf) {
-		//assertBeLeaf(leaf);
+	void deleteLeaf(int leaf) {
+		BvhNodeStore s = _store;
 		if (_root == leaf) { // the tree has only the leaf
-			_root = null;
+			_root = BvhNodeStore.NULL;
 			return;
 		}
-		BvhNode parent = leaf._parent;
-		BvhNode sibling = parent._children[leaf._childIndex ^ 1];
-		BvhNode grandParent = parent._parent;
-		if (grandParent == null) {
-			sibling._parent = null;
-			sibling._childIndex = 0;
+		int[] parents = s._parents;
+		int parent = parents[leaf];
+		int sibling = s._children[(parent << 1) + (s._childIndex(leaf) ^ 1)];
+		int grandParent = parents[parent];
+		if (grandParent == BvhNodeStore.NULL) {
+			parents[sibling] = BvhNodeStore.NULL;
 			_root = sibling;
 			pool(parent);
 			return;
 		}
-		sibling._parent = grandParent;
-		grandParent._setChild(parent._childIndex, sibling);
+		s._setChild(grandParent, s._childIndex(parent), sibling);
 		pool(parent);
 
-		// fix data
-		BvhNode node = grandParent;
-		while (node != null) {
-			if (_strategy._balancingEnabled) {
+		// fix data, up to the first node left unchanged unless the tree is balanced
+		boolean balancingEnabled = _strategy._balancingEnabled;
+		int node = grandParent;
+		while (node != BvhNodeStore.NULL) {
+			if (balancingEnabled) {
 				node = balance(node);
 			}
-			node._computeHeight();
-			node._computeAabb();
-			node = node._parent;
+			if (!refit(node) && !balancingEnabled) break;
+			node = parents[node];
 		}
 	}
 
+	/**
+	 * Recomputes the AABB and the height of `node`, and returns whether either changed.
+	 */
+	boolean refit(int node) {
+		BvhNodeStore s = _store;
+		double[] b = s._bounds;
+		int o = node * BvhNodeStore.BOUNDS_SIZE;
+		double minX = b[o];
+		double minY = b[o + 1];
+		double minZ = b[o + 2];
+		double maxX = b[o + 3];
+		double maxY = b[o + 4];
+		double maxZ = b[o + 5];
+		int height = s._heights[node];
+		s._computeAabb(node);
+		s._computeHeight(node);
+		return
+			height != s._heights[node] ||
+			minX != b[o] || minY != b[o + 1] || minZ != b[o + 2] ||
+			maxX != b[o + 3] || maxY != b[o + 4] || maxZ != b[o + 5];
+	}
+
+	/**
+	 * Applies the best rotation at `node`, swapping a child with a child of its sibling,
+	 * and returns whether a rotation was applied. The bounds of `node` do not change, only
+	 * the ones of the sibling.
+	 */
+	boolean rotate(int node) {
+		//          [ N ]
+		//         /     \
+		//    [ C ]       [ S ]
+		//                 / \
+		//             [S-0] [S-1]
+		// swapping C and S-g changes only the area of S
+
+		BvhNodeStore store = _store;
+		double[] b = store._bounds;
+		int[] children = store._children;
+		int n = node << 1;
+		double bestGain = 0;
+		int bestChild = -1;
+		int bestGrandChild = -1;
+		for (int i=0;i<2;i++) {
+			int c = children[n + i];
+			int s = children[n + (i ^ 1)];
+			if (children[s << 1] == BvhNodeStore.NULL) continue;
+			double area = perimeter(b, s, s);
+			for (int g=0;g<2;g++) {
+				double gain = area - perimeter(b, c, children[(s << 1) + (g ^ 1)]);
+				if (gain > bestGain) {
+					bestGain = gain;
+					bestChild = i;
+					bestGrandChild = g;
+				}
+			}
+		}
+		if (bestChild == -1) return false;
+
+		int c = children[n + bestChild];
+		int s = children[n + (bestChild ^ 1)];
+		int gc = children[(s << 1) + bestGrandChild];
+		store._setChild(node, bestChild, gc);
+		store._setChild(s, bestGrandChild, c);
+		store._computeAabb(s);
+		store._computeHeight(s);
+		return true;
+	}
+
+	// returns the perimeter of the aabb containing the ones of the nodes `id1` and `id2` of `b`
+	static double perimeter(double[] b, int id1, int id2) {
+		int o1 = id1 * BvhNodeStore.BOUNDS_SIZE;
+		int o2 = id2 * BvhNodeStore.BOUNDS_SIZE;
+		double x = (b[o1 + 3] > b[o2 + 3] ? b[o1 + 3] : b[o2 + 3]) - (b[o1] < b[o2] ? b[o1] : b[o2]);
+		double y = (b[o1 + 4] > b[o2 + 4] ? b[o1 + 4] : b[o2 + 4]) - (b[o1 + 1] < b[o2 + 1] ? b[o1 + 1] : b[o2 + 1]);
+		double z = (b[o1 + 5] > b[o2 + 5] ? b[o1 + 5] : b[o2 + 5]) - (b[o1 + 2] < b[o2 + 2] ? b[o1 + 2] : b[o2 + 2]);
+		return x * (y + z) + y * z;
+	}
+
 	/**
 	 * Balances and returns the node at the same position of `node`.
 	 */
-	BvhNode balance(BvhNode node) {
-		int nh = node._height;
+	int balance(int node) {
+		BvhNodeStore s = _store;
+		int[] children = s._children;
+		int[] heights = s._heights;
+		int nh = heights[node];
 		if (nh < 2) {
 			return node;
 		}
-		BvhNode p = node._parent;
-		BvhNode l = node._children[0];
-		BvhNode r = node._children[1];
-		int lh = l._height;
-		int rh = r._height;
+		int p = s._parents[node];
+		int l = children[node << 1];
+		int r = children[(node << 1) + 1];
+		int lh = heights[l];
+		int rh = heights[r];
 		int balance = lh - rh;
-		int nodeIndex = node._childIndex;
+		int nodeIndex = s._childIndex(node);
 
 		//          [ N ]
 		//         /     \
@@ -449,15 +435,15 @@ public class BvhTree {
 
 		// is the tree balanced?
 		if (balance > 1) {
-			BvhNode ll = l._children[0];
-			BvhNode lr = l._children[1];
-			int llh = ll._height;
-			int lrh = lr._height;
+			int ll = children[l << 1];
+			int lr = children[(l << 1) + 1];
+			int llh = heights[ll];
+			int lrh = heights[lr];
 
 			// is L-L higher than L-R?
 			if (llh > lrh) {
 				// set N to L-R
-				l._setChild(1, node);
+				s._setChild(l, 1, node);
 
 				//          [ L ]
 				//         /     \
@@ -466,7 +452,7 @@ public class BvhTree {
 				// [...] [...] [ L ] [ R ]
 
 				// set L-R
-				node._setChild(0, lr);
+				s._setChild(node, 0, lr);
 
 				//          [ L ]
 				//         /     \
@@ -475,13 +461,13 @@ public class BvhTree {
 				// [...] [...] [L-R] [ R ]
 
 				// fix bounds and heights
-				l._computeAabb();
-				l._computeHeight();
-				node._computeAabb();
-				node._computeHeight();
+				s._computeAabb(l);
+				s._computeHeight(l);
+				s._computeAabb(node);
+				s._computeHeight(node);
 			} else {
 				// set N to L-L
-				l._setChild(0, node);
+				s._setChild(l, 0, node);
 
 				//          [ L ]
 				//         /     \
@@ -490,7 +476,7 @@ public class BvhTree {
 				// [ L ] [ R ] [...] [...]
 
 				// set L-L
-				node._setChild(0, ll);
+				s._setChild(node, 0, ll);
 
 				//          [ L ]
 				//         /     \
@@ -499,30 +485,30 @@ public class BvhTree {
 				// [L-L] [ R ] [...] [...]
 
 				// fix bounds and heights
-				l._computeAabb();
-				l._computeHeight();
-				node._computeAabb();
-				node._computeHeight();
+				s._computeAabb(l);
+				s._computeHeight(l);
+				s._computeAabb(node);
+				s._computeHeight(node);
 			}
 			// set new parent of L
-			if (p != null) {
-				p._setChild(nodeIndex, l);
+			if (p != BvhNodeStore.NULL) {
+				s._setChild(p, nodeIndex, l);
 			} else {
 				_root = l;
-				l._parent = null;
+				s._parents[l] = BvhNodeStore.NULL;
 			}
 			return l;
 		}
 		if (balance < -1) {
-			BvhNode rl = r._children[0];
-			BvhNode rr = r._children[1];
-			int rlh = rl._height;
-			int rrh = rr._height;
+			int rl = children[r << 1];
+			int rr = children[(r << 1) + 1];
+			int rlh = heights[rl];
+			int rrh = heights[rr];
 
 			// is R-L higher than R-R?
 			if (rlh > rrh) {
 				// set N to R-R
-				r._setChild(1, node);
+				s._setChild(r, 1, node);
 
 				//          [ R ]
 				//         /     \
@@ -531,7 +517,7 @@ public class BvhTree {
 				// [...] [...] [ L ] [ R ]
 
 				// set R-R
-				node._setChild(1, rr);
+				s._setChild(node, 1, rr);
 
 				//          [ R ]
 				//         /     \
@@ -540,13 +526,13 @@ public class BvhTree {
 				// [...] [...] [ L ] [R-R]
 
 				// fix bounds and heights
-				r._computeAabb();
-				r._computeHeight();
-				node._computeAabb();
-				node._computeHeight();
+				s._computeAabb(r);
+				s._computeHeight(r);
+				s._computeAabb(node);
+				s._computeHeight(node);
 			} else {
 				// set N to R-L
-				r._setChild(0, node);
+				s._setChild(r, 0, node);
 
 				//          [ R ]
 				//         /     \
@@ -555,7 +541,7 @@ public class BvhTree {
 				// [ L ] [ R ] [...] [...]
 
 				// set R-L
-				node._setChild(1, rl);
+				s._setChild(node, 1, rl);
 
 				//          [ R ]
 				//         /     \
@@ -564,47 +550,29 @@ public class BvhTree {
 				// [ L ] [R-L] [...] [...]
 
 				// fix bounds and heights
-				r._computeAabb();
-				r._computeHeight();
-				node._computeAabb();
-				node._computeHeight();
+				s._computeAabb(r);
+				s._computeHeight(r);
+				s._computeAabb(node);
+				s._computeHeight(node);
 			}
 			// set new parent of R
-			if (p != null) {
-				p._setChild(nodeIndex, r);
+			if (p != BvhNodeStore.NULL) {
+				s._setChild(p, nodeIndex, r);
 			} else {
 				_root = r;
-				r._parent = null;
+				s._parents[r] = BvhNodeStore.NULL;
 			}
 			return r;
 		}
 		return node;
 	}
 
-//	extern inline function assertBeLeaf(leaf:BvhNode):Void {
-//		M.assert(leaf._proxy != null && leaf._proxy._leaf == leaf && leaf._children[0] == null && leaf._children[1] == null && leaf._height == 0);
-//	}
-
-	private void pool(BvhNode node) {
-		//M.assert(node._proxy == null || node._proxy._leaf == null);
-		node._removeReferences();
-		//node._removeReferences();
-		node._next = this._nodePool;
-		this._nodePool = node;
-		//M.singleList_pool(_nodePool, _next, node);
+	private void pool(int node) {
+		_store._free(node);
 	}
 
-	private BvhNode  pick() {
-		BvhNode first = _nodePool;
-		if(first != null) {
-			_nodePool = first._next;
-			first._next = null;
-		} else {
-			first = new BvhNode();
-		}
-		return first;
-		
-		//return M.singleList_pick(_nodePool, _next, new BvhNode());
+	private int pick() {
+		return _store._allocate();
 	}
 
-}
\ No newline at end of file
+}
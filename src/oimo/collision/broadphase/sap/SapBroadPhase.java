@@ -0,0 +1,290 @@
+package oimo.collision.broadphase.sap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import oimo.collision.broadphase.BroadPhase;
+import oimo.collision.broadphase.BroadPhaseProxyCallback;
+import oimo.collision.broadphase.BroadPhaseType;
+import oimo.collision.broadphase.Proxy;
+import oimo.collision.geometry.Aabb;
+import oimo.collision.geometry.ConvexGeometry;
+import oimo.common.M;
+import oimo.common.MathUtil;
+import oimo.common.Setting;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * The broad-phase collision detection algorithm based on sweep and prune (sort and sweep).
+ * The proxies are kept sorted along the axis on which their centers vary the most, using an
+ * insertion sort that is nearly linear as the order changes little between steps. Average
+ * time complexity is O(N) plus the number of proxies overlapping along the axis.
+ */
+public class SapBroadPhase extends BroadPhase {
+	// proxies sorted by `_min`, including destroyed ones until the next sort
+	SapProxy[] proxies;
+	int numSortedProxies;
+	int numDestroyedProxies;
+
+	// the sweep axis, 0 for x, 1 for y and 2 for z
+	int axis;
+
+	// the largest extent of the proxies along the axis, bounds the search of the queries
+	double maxExtent;
+
+	// whether proxies were created, destroyed or moved since the last sort
+	boolean dirty;
+
+	Aabb castAabb;
+	Aabb castAabb2;
+	Transform castEnd;
+
+	static final Comparator<SapProxy> BY_MIN = (p1, p2) -> Double.compare(p1._min, p2._min);
+
+	public SapBroadPhase() {
+		super(BroadPhaseType.SAP);
+		_incremental = false;
+		proxies = new SapProxy[1024];
+		numSortedProxies = 0;
+		numDestroyedProxies = 0;
+		axis = 0;
+		maxExtent = 0;
+		dirty = false;
+		castAabb = new Aabb();
+		castAabb2 = new Aabb();
+		castEnd = new Transform();
+	}
+
+	// --- private ---
+
+	private static double component(Vec3 v, int axis) {
+		return axis == 0 ? v.x : axis == 1 ? v.y : v.z;
+	}
+
+	// sorts the proxies along the sweep axis if they changed since the last sort, synchronized
+	// as concurrent packet ray casts all sort first
+	private synchronized void sort() {
+		if (!dirty) return;
+		dirty = false;
+
+		int n = numSortedProxies;
+		SapProxy[] proxies = this.proxies;
+
+		// remove destroyed proxies, keeping the order
+		if (numDestroyedProxies > 0) {
+			int num = 0;
+			for (int i=0;i<n;i++) {
+				SapProxy p = proxies[i];
+				if (!p._destroyed) {
+					proxies[num++] = p;
+				}
+			}
+			for (int i=num;i<n;i++) {
+				proxies[i] = null;
+			}
+			n = num;
+			numSortedProxies = num;
+			numDestroyedProxies = 0;
+		}
+		if (n == 0) return;
+
+		// choose the axis of the greatest variance of the centers
+		double sumX = 0;
+		double sumY = 0;
+		double sumZ = 0;
+		double sumSqX = 0;
+		double sumSqY = 0;
+		double sumSqZ = 0;
+		for (int i=0;i<n;i++) {
+			SapProxy p = proxies[i];
+			double x = (p._aabbMin.x + p._aabbMax.x) * 0.5;
+			double y = (p._aabbMin.y + p._aabbMax.y) * 0.5;
+			double z = (p._aabbMin.z + p._aabbMax.z) * 0.5;
+			sumX += x;
+			sumY += y;
+			sumZ += z;
+			sumSqX += x * x;
+			sumSqY += y * y;
+			sumSqZ += z * z;
+		}
+		double varX = sumSqX - sumX * sumX / n;
+		double varY = sumSqY - sumY * sumY / n;
+		double varZ = sumSqZ - sumZ * sumZ / n;
+		double varAxis = axis == 0 ? varX : axis == 1 ? varY : varZ;
+		double varMax = varX > varY ? (varX > varZ ? varX : varZ) : (varY > varZ ? varY : varZ);
+		int newAxis = axis;
+		// switch only for a clearly better axis, as switching needs a full sort
+		if (varMax > varAxis * Setting.sapAxisSwitchRatio) {
+			newAxis = varMax == varX ? 0 : varMax == varY ? 1 : 2;
+		}
+
+		// project the AABBs on the axis
+		double maxExtent = 0;
+		for (int i=0;i<n;i++) {
+			SapProxy p = proxies[i];
+			p._min = component(p._aabbMin, newAxis);
+			p._max = component(p._aabbMax, newAxis);
+			if (p._max - p._min > maxExtent) maxExtent = p._max - p._min;
+		}
+		this.maxExtent = maxExtent;
+
+		if (newAxis != axis) {
+			axis = newAxis;
+			Arrays.sort(proxies, 0, n, BY_MIN);
+			return;
+		}
+
+		// insertion sort, nearly linear thanks to the temporal coherence
+		for (int i=1;i<n;i++) {
+			SapProxy p = proxies[i];
+			double min = p._min;
+			int j = i - 1;
+			while (j >= 0 && proxies[j]._min > min) {
+				proxies[j + 1] = proxies[j];
+				j--;
+			}
+			proxies[j + 1] = p;
+		}
+	}
+
+	// returns the index of the first proxy that can overlap the range from `min` along the axis
+	private int lowerBound(double min) {
+		double key = min - maxExtent;
+		int lo = 0;
+		int hi = numSortedProxies;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (proxies[mid]._min < key) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	// --- public ---
+
+	@Override
+	public Proxy createProxy(Object userData, Aabb aabb) {
+		SapProxy p = new SapProxy(userData, _idCount++);
+		addProxy(p);
+		p._setAabb(aabb);
+
+		// expand the array
+		if (proxies.length == numSortedProxies) {
+			SapProxy[] newArray = new SapProxy[numSortedProxies << 1];
+			for (int i=0;i<numSortedProxies;i++) {
+				newArray[i] = proxies[i];
+				proxies[i] = null;
+			}
+			proxies = newArray;
+		}
+
+		// placed last, the next sort moves it in place
+		p._min = MathUtil.POSITIVE_INFINITY;
+		p._max = MathUtil.POSITIVE_INFINITY;
+		proxies[numSortedProxies++] = p;
+		dirty = true;
+		return p;
+	}
+
+	@Override
+	public void destroyProxy(Proxy proxy) {
+		removeProxy(proxy);
+
+		SapProxy p = (SapProxy) proxy;
+		p.userData = null;
+		p._destroyed = true;
+		numDestroyedProxies++;
+		dirty = true;
+	}
+
+	@Override
+	public void moveProxy(Proxy proxy, Aabb aabb, Vec3 displacement) {
+		proxy._setAabb(aabb);
+		dirty = true;
+	}
+
+	@Override
+	public void collectPairs() {
+		poolProxyPairs();
+		_testCount = 0;
+		sort();
+
+		int n = numSortedProxies;
+		SapProxy[] proxies = this.proxies;
+		for (int i=0;i<n;i++) {
+			SapProxy p1 = proxies[i];
+			double max = p1._max;
+			for (int j=i+1;j<n;j++) {
+				SapProxy p2 = proxies[j];
+				if (p2._min > max) break;
+				_testCount++;
+				if (isOverlapping(p1, p2)) {
+					pickAndPushProxyPair(p1, p2);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void rayCast(Vec3 begin, Vec3 end, BroadPhaseProxyCallback callback) {
+		sort();
+		double b = component(begin, axis);
+		double e = component(end, axis);
+		double min = b < e ? b : e;
+		double max = b > e ? b : e;
+		for (int i=lowerBound(min);i<numSortedProxies;i++) {
+			SapProxy p = proxies[i];
+			if (p._min > max) break;
+			if (p._max >= min && aabbSegmentTest(p._aabbMin, p._aabbMax, begin, end)) {
+				callback.process(p);
+			}
+		}
+	}
+
+	@Override
+	public void convexCast(ConvexGeometry convex, Transform begin, Vec3 translation, BroadPhaseProxyCallback callback) {
+		sort();
+
+		// the AABB swept by the convex
+		M.transform_assign(castEnd, begin);
+		castEnd.translate(translation);
+		convex._computeAabb(castAabb, begin);
+		convex._computeAabb(castAabb2, castEnd);
+		castAabb.combine(castAabb2);
+
+		double min = component(castAabb._min, axis);
+		double max = component(castAabb._max, axis);
+		for (int i=lowerBound(min);i<numSortedProxies;i++) {
+			SapProxy p = proxies[i];
+			if (p._min > max) break;
+			if (p._max >= min && aabbConvexSweepTest(p._aabbMin, p._aabbMax, convex, begin, translation)) {
+				callback.process(p);
+			}
+		}
+	}
+
+	@Override
+	public void aabbTest(Aabb aabb, BroadPhaseProxyCallback callback) {
+		sort();
+		double min = component(aabb._min, axis);
+		double max = component(aabb._max, axis);
+		for (int i=lowerBound(min);i<numSortedProxies;i++) {
+			SapProxy p = proxies[i];
+			if (p._min > max) break;
+			if (p._max >= min && M.aabb_overlap(aabb._min, aabb._max, p._aabbMin, p._aabbMax)) {
+				callback.process(p);
+			}
+		}
+	}
+
+	/**
+	 * Returns the sweep axis, `0` for x, `1` for y and `2` for z.
+	 */
+	public int getAxis() {
+		return axis;
+	}
+}
@@ -0,0 +1,23 @@
+package oimo.collision.broadphase.sap;
+
+import oimo.collision.broadphase.Proxy;
+
+/**
+ * Internal class.
+ *
+ * Sweep and prune proxy
+ */
+public class SapProxy extends Proxy {
+	// projection of the AABB on the sweep axis, refreshed before sorting
+	public double _min;
+	public double _max;
+	public boolean _destroyed;
+
+	public SapProxy(Object userData, int id) {
+		super(userData, id);
+		_min = 0;
+		_max = 0;
+		_destroyed = false;
+	}
+
+}
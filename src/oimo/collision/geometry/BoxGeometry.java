@@ -1,5 +1,7 @@
 package oimo.collision.geometry;
 import oimo.common.M;
+import oimo.common.Mat3;
+import oimo.common.MathUtil;
 import oimo.common.Transform;
 import oimo.common.Vec3;
 /**
@@ -74,38 +76,29 @@ public class BoxGeometry extends ConvexGeometry {
 
 	@Override 
 	public void _computeAabb(Aabb aabb, Transform tf) {
-		
-		Vec3  tfx=new Vec3();
-		Vec3  tfy=new Vec3();
-		Vec3  tfz=new Vec3();
-		
-		M.vec3_mulMat3(tfx, _halfAxisX, tf._rotation);
-		M.vec3_mulMat3(tfy, _halfAxisY, tf._rotation);
-		M.vec3_mulMat3(tfz, _halfAxisZ, tf._rotation);
-		M.vec3_abs(tfx, tfx);
-		M.vec3_abs(tfy, tfy);
-		M.vec3_abs(tfz, tfz);
-		Vec3 tfs=new Vec3();
-		
-		M.vec3_add(tfs, tfx, tfy);
-		M.vec3_add(tfs, tfs, tfz);
-
-		M.vec3_sub(aabb._min, tf._position, tfs);
-		M.vec3_add(aabb._max, tf._position, tfs);
+		// the half extents of the AABB are the absolute values of the rotated half axes, summed
+		Mat3 r = tf._rotation;
+		double hx = _halfExtents.x;
+		double hy = _halfExtents.y;
+		double hz = _halfExtents.z;
+		double sx = MathUtil.abs(r.e00) * hx + MathUtil.abs(r.e01) * hy + MathUtil.abs(r.e02) * hz;
+		double sy = MathUtil.abs(r.e10) * hx + MathUtil.abs(r.e11) * hy + MathUtil.abs(r.e12) * hz;
+		double sz = MathUtil.abs(r.e20) * hx + MathUtil.abs(r.e21) * hy + MathUtil.abs(r.e22) * hz;
+		Vec3 p = tf._position;
+		aabb._min.set(p.x - sx, p.y - sy, p.z - sz);
+		aabb._max.set(p.x + sx, p.y + sy, p.z + sz);
 	}
 	
 
 	@Override 
 	public void computeLocalSupportingVertex(Vec3 dir,Vec3 out) {
-		Vec3 gjkMargins=new Vec3();
-		Vec3 coreExtents=new Vec3();
-		M.vec3_set(gjkMargins, _gjkMargin, _gjkMargin, _gjkMargin);
-		M.vec3_min(gjkMargins, gjkMargins, _halfExtents); // avoid making core extents negative
-		M.vec3_sub(coreExtents, _halfExtents, gjkMargins);
-		out.x = dir.x > 0 ? coreExtents.x : -coreExtents.x;
-		out.y = dir.y > 0 ? coreExtents.y : -coreExtents.y;
-		out.z = dir.z > 0 ? coreExtents.z : -coreExtents.z;
-		
+		// avoid making core extents negative
+		double coreX = _halfExtents.x - MathUtil.min(_gjkMargin, _halfExtents.x);
+		double coreY = _halfExtents.y - MathUtil.min(_gjkMargin, _halfExtents.y);
+		double coreZ = _halfExtents.z - MathUtil.min(_gjkMargin, _halfExtents.z);
+		out.x = dir.x > 0 ? coreX : -coreX;
+		out.y = dir.y > 0 ? coreY : -coreY;
+		out.z = dir.z > 0 ? coreZ : -coreZ;
 	}
 
 	@Override 
@@ -1,6 +1,7 @@
 package oimo.collision.geometry;
 
 import oimo.common.M;
+import oimo.common.Mat3;
 import oimo.common.MathUtil;
 import oimo.common.Transform;
 import oimo.common.Vec3;
@@ -63,16 +64,14 @@ public class CapsuleGeometry extends ConvexGeometry {
 
 	@Override 
 	public void _computeAabb(Aabb aabb, Transform tf) {
-		Vec3 radVec=new Vec3();
-		radVec.set( _radius, _radius, _radius);
-		Vec3 axis=new Vec3();
-		M.mat3_getCol(axis, tf._rotation, 1);
-		M.vec3_abs(axis, axis);
-		M.vec3_scale(axis, axis, _halfHeight);
-
-		M.vec3_add(radVec, radVec, axis);
-		M.vec3_sub(aabb._min, tf._position, radVec);
-		M.vec3_add(aabb._max, tf._position, radVec);
+		// the radius plus the absolute y axis scaled by the half height
+		Mat3 r = tf._rotation;
+		double ex = _radius + MathUtil.abs(r.e01) * _halfHeight;
+		double ey = _radius + MathUtil.abs(r.e11) * _halfHeight;
+		double ez = _radius + MathUtil.abs(r.e21) * _halfHeight;
+		Vec3 p = tf._position;
+		aabb._min.set(p.x - ex, p.y - ey, p.z - ez);
+		aabb._max.set(p.x + ex, p.y + ey, p.z + ez);
 	}
 
 	@Override 
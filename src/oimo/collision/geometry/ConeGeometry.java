@@ -1,5 +1,6 @@
 package oimo.collision.geometry;
 import oimo.common.M;
+import oimo.common.Mat3;
 import oimo.common.MathUtil;
 import oimo.common.Transform;
 import oimo.common.Vec3;
@@ -58,40 +59,31 @@ public class ConeGeometry extends ConvexGeometry {
 
 	@Override 
 	public void _computeAabb(Aabb aabb, Transform tf) {
-		Vec3 axis=new Vec3();
-		Vec3 axis2=new Vec3();
-		Vec3 eh=new Vec3();
-		Vec3 er=new Vec3();
-		M.mat3_getCol(axis, tf._rotation, 1);
-	//	axis.normalize();
-		M.vec3_compWiseMul(axis2, axis, axis);
-
-		double axis2x = axis2.x;
-		double axis2y = axis2.y;
-		double axis2z = axis2.z;
-
-		M.vec3_set(er, MathUtil.sqrt(1 - axis2x), MathUtil.sqrt(1 - axis2y), MathUtil.sqrt(1 - axis2z));
-		M.vec3_scale(er, er, _radius);
-
-		M.vec3_scale(eh, axis, _halfHeight);
-
-		Vec3 rmin=new Vec3(); // -(signed projected axis) - (projected radius)
-		Vec3 rmax=new Vec3(); // -(signed projected axis) + (projected radius)
-		M.vec3_negate(rmin, eh);
-		M.vec3_sub(rmin, rmin, er);
-		M.vec3_negate(rmax, eh);
-		M.vec3_add(rmax, rmax, er);
-
-		Vec3 max=new Vec3(); 
-		Vec3 min=new Vec3(); 
-		M.vec3_max(max, rmin, rmax);
-		M.vec3_max(max, max, eh);
-		M.vec3_min(min, rmin, rmax);
-		M.vec3_min(min, min, eh);
-
-		M.vec3_add(aabb._min, tf._position, min);
-		M.vec3_add(aabb._max, tf._position, max);
-	
+		Mat3 r = tf._rotation;
+		double ax = r.e01;
+		double ay = r.e11;
+		double az = r.e21;
+
+		// projected radius of the base and signed projected half height
+		double erx = MathUtil.sqrt(1 - ax * ax) * _radius;
+		double ery = MathUtil.sqrt(1 - ay * ay) * _radius;
+		double erz = MathUtil.sqrt(1 - az * az) * _radius;
+		double ehx = ax * _halfHeight;
+		double ehy = ay * _halfHeight;
+		double ehz = az * _halfHeight;
+
+		// the base spans -eh -/+ er, the apex is at eh
+		Vec3 p = tf._position;
+		aabb._min.set(
+			p.x + MathUtil.min(-ehx - erx, ehx),
+			p.y + MathUtil.min(-ehy - ery, ehy),
+			p.z + MathUtil.min(-ehz - erz, ehz)
+		);
+		aabb._max.set(
+			p.x + MathUtil.max(-ehx + erx, ehx),
+			p.y + MathUtil.max(-ehy + ery, ehy),
+			p.z + MathUtil.max(-ehz + erz, ehz)
+		);
 	}
 
 	@Override 
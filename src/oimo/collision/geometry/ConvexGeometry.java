@@ -47,8 +47,16 @@ public abstract class  ConvexGeometry extends Geometry {
 
 	@Override
 	public boolean rayCast(Vec3 begin, Vec3 end, Transform transform, RayCastHit hit) {
+		return rayCast(begin, end, transform, hit, GjkEpa.getInstance());
+	}
+
+	/**
+	 * Same as `rayCast`, but uses `gjkEpa` if GJK ray casting is enabled. `gjkEpa` must not be
+	 * used by another thread during the call.
+	 */
+	public boolean rayCast(Vec3 begin, Vec3 end, Transform transform, RayCastHit hit, GjkEpa gjkEpa) {
 		if (_useGjkRayCast) {
-			return GjkEpa.getInstance().rayCast(this, transform, begin, end, hit);
+			return gjkEpa.rayCast(this, transform, begin, end, hit);
 		} else {
 			return super.rayCast(begin, end, transform, hit);
 		}
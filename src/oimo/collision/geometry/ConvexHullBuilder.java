@@ -0,0 +1,160 @@
+package oimo.collision.geometry;
+
+import oimo.common.Vec3;
+
+/**
+ * Builds the convex hull of a point cloud by the quickhull algorithm. Interior points and
+ * duplicates are removed, and the hull is given as its vertices, its triangles and the
+ * neighbors of each vertex along the edges of the triangles.
+ *
+ * The number of vertices can be limited to simplify the hull. The farthest points are kept
+ * first, so the simplified hull is contained in the exact one.
+ */
+public class ConvexHullBuilder {
+	public int _maxVertices;
+
+	public int _numVertices;
+	public Vec3[] _vertices;
+	public int _numFaces;
+	public int[] _faces;
+	public int[] _adjacencyOffsets;
+	public int[] _adjacency;
+
+	/**
+	 * Creates a convex hull builder with no limit on the number of vertices.
+	 */
+	public ConvexHullBuilder() {
+		_maxVertices = 0;
+		clear();
+	}
+
+	// --- private ---
+
+	private void clear() {
+		_numVertices = 0;
+		_vertices = null;
+		_numFaces = 0;
+		_faces = null;
+		_adjacencyOffsets = null;
+		_adjacency = null;
+	}
+
+	private void buildAdjacency() {
+		// each edge is shared by two triangles in opposite directions, so collecting the
+		// directed edges of all the triangles lists every neighbor exactly once
+		int numEdges = _numFaces * 3;
+		_adjacencyOffsets = new int[_numVertices + 1];
+		for (int i = 0; i < numEdges; i++) {
+			_adjacencyOffsets[_faces[i] + 1]++;
+		}
+		for (int i = 0; i < _numVertices; i++) {
+			_adjacencyOffsets[i + 1] += _adjacencyOffsets[i];
+		}
+		_adjacency = new int[numEdges];
+		int[] counts = new int[_numVertices];
+		for (int t = 0; t < _numFaces; t++) {
+			for (int k = 0; k < 3; k++) {
+				int from = _faces[t * 3 + k];
+				int to = _faces[t * 3 + (k + 1) % 3];
+				_adjacency[_adjacencyOffsets[from] + counts[from]++] = to;
+			}
+		}
+	}
+
+	// --- public ---
+
+	/**
+	 * Builds the convex hull of `points`. Returns `false` if the points are degenerate (all on
+	 * a plane, a line or a point), in which case the builder holds no hull.
+	 */
+	public boolean build(Vec3[] points) {
+		clear();
+		QuickHull hull = new QuickHull(points, _maxVertices);
+		if (!hull.build()) return false;
+
+		// keep the points used by the triangles, in their original order
+		int[] map = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			map[i] = -1;
+		}
+		int[] triangles = hull.triangles;
+		int numIndices = hull.numTriangles * 3;
+		for (int i = 0; i < numIndices; i++) {
+			map[triangles[i]] = 0;
+		}
+		for (int i = 0; i < points.length; i++) {
+			if (map[i] != -1) map[i] = _numVertices++;
+		}
+		_vertices = new Vec3[_numVertices];
+		for (int i = 0; i < points.length; i++) {
+			if (map[i] != -1) _vertices[map[i]] = points[i].clone();
+		}
+		_numFaces = hull.numTriangles;
+		_faces = new int[numIndices];
+		for (int i = 0; i < numIndices; i++) {
+			_faces[i] = map[triangles[i]];
+		}
+
+		buildAdjacency();
+		return true;
+	}
+
+	/**
+	 * Returns the maximum number of the vertices of the hull, `0` for no limit.
+	 */
+	public int getMaxVertices() {
+		return _maxVertices;
+	}
+
+	/**
+	 * Sets the maximum number of the vertices of the hull to `maxVertices`, `0` for no limit.
+	 * Limits below four are raised to four.
+	 */
+	public void setMaxVertices(int maxVertices) {
+		_maxVertices = maxVertices > 0 && maxVertices < 4 ? 4 : maxVertices;
+	}
+
+	/**
+	 * Returns the number of the vertices of the hull.
+	 */
+	public int getNumVertices() {
+		return _numVertices;
+	}
+
+	/**
+	 * Returns the vertices of the hull.
+	 */
+	public Vec3[] getVertices() {
+		return _vertices;
+	}
+
+	/**
+	 * Returns the number of the triangles of the hull.
+	 */
+	public int getNumFaces() {
+		return _numFaces;
+	}
+
+	/**
+	 * Returns the triangles of the hull, as three indices of the vertices per triangle in
+	 * counterclockwise order seen from outside.
+	 */
+	public int[] getFaces() {
+		return _faces;
+	}
+
+	/**
+	 * Returns the offsets of the neighbors of each vertex in `getAdjacency`. The neighbors of
+	 * the vertex `i` are from the offset `i` to the offset `i + 1`, exclusive.
+	 */
+	public int[] getAdjacencyOffsets() {
+		return _adjacencyOffsets;
+	}
+
+	/**
+	 * Returns the neighbors of all the vertices, see `getAdjacencyOffsets`.
+	 */
+	public int[] getAdjacency() {
+		return _adjacency;
+	}
+}
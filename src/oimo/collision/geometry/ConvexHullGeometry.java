@@ -1,28 +1,74 @@
 package oimo.collision.geometry;
 
 import oimo.common.M;
+import oimo.common.Mat3;
+import oimo.common.MathUtil;
+import oimo.common.Setting;
 import oimo.common.Transform;
 import oimo.common.Vec3;
 
 /**
  * A convex hull collision geometry. A convex hull of the vertices is the
  * smallest convex polyhedron which contains all vertices.
+ *
+ * The hull is built by `ConvexHullBuilder`, which drops the interior and duplicated
+ * vertices. Hulls of many vertices keep the edges of the hull, so that support queries
+ * climb from vertex to vertex instead of scanning all of them.
  */
 public class ConvexHullGeometry extends ConvexGeometry {
 	public Vec3[] _vertices;
 	public Vec3[] _tmpVertices; // for internal use in rendering
 	public int _numVertices;
 
+	// the triangles of the hull, or null if the vertices are degenerate (flat)
+	public int[] _faces;
+	public int _numFaces;
+
+	// the neighbors of the vertex `i` on the hull are `_adjacency[_adjacencyOffsets[i]]` to
+	// `_adjacency[_adjacencyOffsets[i + 1] - 1]`, or null if support queries scan all the vertices
+	public int[] _adjacencyOffsets;
+	public int[] _adjacency;
+
+	// the vertices found by the last support query and by the last AABB computation along
+	// -x, +x, -y, +y, -z and +z, where the next ones start climbing. Queries on different
+	// threads may overwrite them concurrently, which is fine as any vertex of the hull is a
+	// valid start
+	int _supportCache;
+	int[] _aabbCache;
+
 	/**
 	 * Creates a convex hull collision geometry of the vertices `vertices`.
 	 */
 	public ConvexHullGeometry(Vec3[] vertices) {
+		this(vertices, 0);
+	}
+
+	/**
+	 * Creates a convex hull collision geometry of the vertices `vertices`, simplified to at most
+	 * `maxVertices` vertices. `0` means no limit.
+	 */
+	public ConvexHullGeometry(Vec3[] vertices, int maxVertices) {
 		super(GeometryType.CONVEX_HULL);
-		_numVertices = vertices.length;
-		_vertices = new Vec3[_numVertices];
+		ConvexHullBuilder builder = new ConvexHullBuilder();
+		builder.setMaxVertices(maxVertices);
+		if (builder.build(vertices)) {
+			_numVertices = builder._numVertices;
+			_vertices = builder._vertices;
+			_numFaces = builder._numFaces;
+			_faces = builder._faces;
+			if (_numVertices >= Setting.convexHullMinHillClimbingVertices) {
+				initClimbing(builder);
+			}
+		} else {
+			// degenerate, keep all the vertices
+			_numVertices = vertices.length;
+			_vertices = new Vec3[_numVertices];
+			for (int i = 0; i < _numVertices; i++) {
+				_vertices[i] = vertices[i].clone();
+			}
+		}
 		_tmpVertices = new Vec3[_numVertices];
 		for (int i = 0; i < _numVertices; i++) {
-			_vertices[i] = vertices[i].clone();
 			_tmpVertices[i] = new Vec3();
 		}
 		_useGjkRayCast = true;
@@ -30,14 +76,134 @@ public class ConvexHullGeometry extends ConvexGeometry {
 	}
 
 	/**
-	 * Returns the vertices of the convex hull.
+	 * Returns the vertices of the convex hull. The vertices must not be modified.
 	 */
 	public Vec3[] getVertices() {
 		return _vertices;
 	}
 
+	// --- private ---
+
+	private void initClimbing(ConvexHullBuilder builder) {
+		_adjacencyOffsets = builder._adjacencyOffsets;
+		_adjacency = builder._adjacency;
+
+		// start from the extreme vertices along the local axes
+		_supportCache = _faces[0];
+		_aabbCache = new int[6];
+		for (int k = 0; k < 6; k++) {
+			double sign = (k & 1) == 0 ? -1 : 1;
+			int axis = k >> 1;
+			_aabbCache[k] = climb(_supportCache, axis == 0 ? sign : 0, axis == 1 ? sign : 0, axis == 2 ? sign : 0);
+		}
+	}
+
+	// returns the vertex farthest along `(dx, dy, dz)`, climbing the hull from the vertex `start`
+	private int climb(int start, double dx, double dy, double dz) {
+		Vec3[] vs = _vertices;
+		int[] offsets = _adjacencyOffsets;
+		int[] adjacency = _adjacency;
+		int current = start;
+		Vec3 v = vs[current];
+		double maxDot = v.x * dx + v.y * dy + v.z * dz;
+		while (true) {
+			int next = current;
+			int last = offsets[current + 1];
+			for (int i = offsets[current]; i < last; i++) {
+				int n = adjacency[i];
+				v = vs[n];
+				double dot = v.x * dx + v.y * dy + v.z * dz;
+				if (dot > maxDot) {
+					maxDot = dot;
+					next = n;
+				}
+			}
+			// the hull is convex, so a vertex with no higher neighbor is the farthest one
+			if (next == current) return current;
+			current = next;
+		}
+	}
+
+	private void computeAabbByClimbing(Aabb aabb, Transform tf) {
+		Mat3 r = tf._rotation;
+		Vec3 p = tf._position;
+		Vec3[] vs = _vertices;
+		int[] cache = _aabbCache;
+
+		// the world axes in the local coordinates are the rows of the rotation
+		for (int k = 0; k < 3; k++) {
+			double ax = k == 0 ? r.e00 : k == 1 ? r.e10 : r.e20;
+			double ay = k == 0 ? r.e01 : k == 1 ? r.e11 : r.e21;
+			double az = k == 0 ? r.e02 : k == 1 ? r.e12 : r.e22;
+			int min = climb(cache[k << 1], -ax, -ay, -az);
+			int max = climb(cache[(k << 1) + 1], ax, ay, az);
+			cache[k << 1] = min;
+			cache[(k << 1) + 1] = max;
+			double lower = vs[min].x * ax + vs[min].y * ay + vs[min].z * az - _gjkMargin;
+			double upper = vs[max].x * ax + vs[max].y * ay + vs[max].z * az + _gjkMargin;
+			if (k == 0) {
+				aabb._min.x = p.x + lower;
+				aabb._max.x = p.x + upper;
+			} else if (k == 1) {
+				aabb._min.y = p.y + lower;
+				aabb._max.y = p.y + upper;
+			} else {
+				aabb._min.z = p.z + lower;
+				aabb._max.z = p.z + upper;
+			}
+		}
+	}
+
+	// volume and inertia about the origin of the solid of the triangles, summing the signed
+	// tetrahedra from the origin to each triangle
+	private void computeMassOfFaces() {
+		double volume = 0;
+		double xx = 0;
+		double yy = 0;
+		double zz = 0;
+		double xy = 0;
+		double yz = 0;
+		double zx = 0;
+		for (int t = 0; t < _numFaces; t++) {
+			Vec3 a = _vertices[_faces[t * 3]];
+			Vec3 b = _vertices[_faces[t * 3 + 1]];
+			Vec3 c = _vertices[_faces[t * 3 + 2]];
+			double det = a.x * (b.y * c.z - b.z * c.y) + a.y * (b.z * c.x - b.x * c.z) + a.z * (b.x * c.y - b.y * c.x);
+			volume += det / 6;
+
+			// the second moments of the tetrahedron, det / 120 * (aa^T + bb^T + cc^T + ss^T) with s = a + b + c
+			double sx = a.x + b.x + c.x;
+			double sy = a.y + b.y + c.y;
+			double sz = a.z + b.z + c.z;
+			double k = det / 120;
+			xx += k * (a.x * a.x + b.x * b.x + c.x * c.x + sx * sx);
+			yy += k * (a.y * a.y + b.y * b.y + c.y * c.y + sy * sy);
+			zz += k * (a.z * a.z + b.z * b.z + c.z * c.z + sz * sz);
+			xy += k * (a.x * a.y + b.x * b.y + c.x * c.y + sx * sy);
+			yz += k * (a.y * a.z + b.y * b.z + c.y * c.z + sy * sz);
+			zx += k * (a.z * a.x + b.z * b.x + c.z * c.x + sz * sx);
+		}
+		_volume = volume;
+		if (volume <= 0) {
+			M.mat3_zero(_inertiaCoeff);
+			return;
+		}
+		double invVolume = 1 / volume;
+		_inertiaCoeff.set(
+			(yy + zz) * invVolume, -xy * invVolume, -zx * invVolume,
+			-xy * invVolume, (zz + xx) * invVolume, -yz * invVolume,
+			-zx * invVolume, -yz * invVolume, (xx + yy) * invVolume
+		);
+	}
+
+	// --- internal ---
+
 	@Override
 	public void _updateMass() {
+		if (_faces != null) {
+			computeMassOfFaces();
+			return;
+		}
 		_volume = 1;
 		M.mat3_diagonal(_inertiaCoeff, 1, 1, 1);
 
@@ -84,31 +250,35 @@ public class ConvexHullGeometry extends ConvexGeometry {
 
 	@Override
 	public void _computeAabb(Aabb aabb, Transform tf) {
-		Vec3 min = new Vec3();
-		Vec3 max = new Vec3();
-		Vec3 margin= new Vec3();
-
-		M.vec3_set(margin, _gjkMargin, _gjkMargin, _gjkMargin);
-
-		Vec3 localV= new Vec3();
-		M.vec3_fromVec3(localV, _vertices[0]);
-		Vec3 worldV= new Vec3();
-		M.vec3_mulMat3(worldV, localV, tf._rotation);
-		M.vec3_add(worldV, worldV, tf._position);
-
-		M.vec3_assign(min, worldV);
-		M.vec3_assign(max, worldV);
+		if (_adjacency != null) {
+			computeAabbByClimbing(aabb, tf);
+			return;
+		}
+		Mat3 r = tf._rotation;
+		Vec3 p = tf._position;
+		Vec3 v = _vertices[0];
+		double minx = r.e00 * v.x + r.e01 * v.y + r.e02 * v.z + p.x;
+		double miny = r.e10 * v.x + r.e11 * v.y + r.e12 * v.z + p.y;
+		double minz = r.e20 * v.x + r.e21 * v.y + r.e22 * v.z + p.z;
+		double maxx = minx;
+		double maxy = miny;
+		double maxz = minz;
 
 		for (int i=1;i< _numVertices;i++) {
-			M.vec3_fromVec3(localV, _vertices[i]);
-			M.vec3_mulMat3(worldV, localV, tf._rotation);
-			M.vec3_add(worldV, worldV, tf._position);
-			M.vec3_min(min, min, worldV);
-			M.vec3_max(max, max, worldV);
+			v = _vertices[i];
+			double x = r.e00 * v.x + r.e01 * v.y + r.e02 * v.z + p.x;
+			double y = r.e10 * v.x + r.e11 * v.y + r.e12 * v.z + p.y;
+			double z = r.e20 * v.x + r.e21 * v.y + r.e22 * v.z + p.z;
+			minx = MathUtil.min(minx, x);
+			miny = MathUtil.min(miny, y);
+			minz = MathUtil.min(minz, z);
+			maxx = MathUtil.max(maxx, x);
+			maxy = MathUtil.max(maxy, y);
+			maxz = MathUtil.max(maxz, z);
 		}
 
-		M.vec3_sub(aabb._min, min, margin);
-		M.vec3_add(aabb._max, max, margin);
+		aabb._min.set(minx - _gjkMargin, miny - _gjkMargin, minz - _gjkMargin);
+		aabb._max.set(maxx + _gjkMargin, maxy + _gjkMargin, maxz + _gjkMargin);
 //		Vec3 min = new Vec3();
 //		Vec3 max = new Vec3();
 //		var worldV = new Vec3();
@@ -138,6 +308,12 @@ public class ConvexHullGeometry extends ConvexGeometry {
 
 	@Override
 	public void computeLocalSupportingVertex(Vec3 dir, Vec3 out) {
+		if (_adjacency != null) {
+			int i = climb(_supportCache, dir.x, dir.y, dir.z);
+			_supportCache = i;
+			out.copyFrom(_vertices[i]);
+			return;
+		}
 		double maxDot = _vertices[0].dot(dir);
 		int maxIndex = 0;
 		for (int i = 1; i < _numVertices; i++) {
@@ -1,5 +1,6 @@
 package oimo.collision.geometry;
 import oimo.common.M;
+import oimo.common.Mat3;
 import oimo.common.MathUtil;
 import oimo.common.Transform;
 import oimo.common.Vec3;
@@ -51,28 +52,17 @@ public class CylinderGeometry extends ConvexGeometry {
 
 	@Override
 	public void _computeAabb(Aabb aabb, Transform tf) {
-		Vec3 axis=new Vec3();
-		Vec3 axis2=new Vec3();
-		Vec3 eh=new Vec3();
-		Vec3 er=new Vec3();
-		M.mat3_getCol(axis, tf._rotation, 1);
-		M.vec3_abs(axis, axis);
-		M.vec3_compWiseMul(axis2, axis, axis);
-
-		double axis2x = axis2.x;
-		double axis2y = axis2.y;
-		double axis2z = axis2.z;
-
-		M.vec3_set(er, MathUtil.sqrt(1 - axis2x), MathUtil.sqrt(1 - axis2y), MathUtil.sqrt(1 - axis2z));
-		M.vec3_scale(er, er, _radius);
-
-		M.vec3_scale(eh, axis, _halfHeight);
-
-		Vec3 max =new Vec3();
-		M.vec3_add(max, er, eh);
-
-		M.vec3_sub(aabb._min, tf._position, max);
-		M.vec3_add(aabb._max, tf._position, max);
+		Mat3 r = tf._rotation;
+		double ax = r.e01;
+		double ay = r.e11;
+		double az = r.e21;
+		// projected radius of the caps plus the absolute projected half height
+		double ex = MathUtil.sqrt(1 - ax * ax) * _radius + MathUtil.abs(ax) * _halfHeight;
+		double ey = MathUtil.sqrt(1 - ay * ay) * _radius + MathUtil.abs(ay) * _halfHeight;
+		double ez = MathUtil.sqrt(1 - az * az) * _radius + MathUtil.abs(az) * _halfHeight;
+		Vec3 p = tf._position;
+		aabb._min.set(p.x - ex, p.y - ey, p.z - ez);
+		aabb._max.set(p.x + ex, p.y + ey, p.z + ez);
 	}
 
 	@Override
@@ -18,6 +18,37 @@ public abstract class Geometry {
 		_volume = 0;
 	}
 
+	// --- private ---
+
+	/**
+	 * Sets `aabb` to the AABB of the local box from `min` to `max` transformed by `tf`.
+	 */
+	protected static void computeBoxAabb(Aabb aabb, Transform tf, Vec3 min, Vec3 max) {
+		Vec3 center = new Vec3();
+		Vec3 half = new Vec3();
+		M.vec3_add(center, min, max);
+		M.vec3_scale(center, center, 0.5);
+		M.vec3_sub(half, max, center);
+		M.vec3_mulMat3(center, center, tf._rotation);
+		M.vec3_add(center, center, tf._position);
+
+		// sum of the rotated half axes, as for a box geometry
+		Vec3 tfx = new Vec3(half.x, 0, 0);
+		Vec3 tfy = new Vec3(0, half.y, 0);
+		Vec3 tfz = new Vec3(0, 0, half.z);
+		M.vec3_mulMat3(tfx, tfx, tf._rotation);
+		M.vec3_mulMat3(tfy, tfy, tf._rotation);
+		M.vec3_mulMat3(tfz, tfz, tf._rotation);
+		M.vec3_abs(tfx, tfx);
+		M.vec3_abs(tfy, tfy);
+		M.vec3_abs(tfz, tfz);
+		M.vec3_add(half, tfx, tfy);
+		M.vec3_add(half, half, tfz);
+
+		M.vec3_sub(aabb._min, center, half);
+		M.vec3_add(aabb._max, center, half);
+	}
+
 	// --- internal ---
 	/**
 	 * Calculate volume, mass and inertia tensors for this geometry
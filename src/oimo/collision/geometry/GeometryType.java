@@ -48,4 +48,25 @@ public class GeometryType {
 	 * See `ConvexHullGeometry`.
 	 */
 	public static final int CONVEX_HULL = 5;
+
+	/**
+	 * Represents a triangle mesh collision geometry.
+	 *
+	 * See `TriangleMeshGeometry`.
+	 */
+	public static final int TRIANGLE_MESH = 6;
+
+	/**
+	 * Represents a heightfield collision geometry.
+	 *
+	 * See `HeightfieldGeometry`.
+	 */
+	public static final int HEIGHTFIELD = 7;
+
+	/**
+	 * Represents an infinite plane (half-space) collision geometry.
+	 *
+	 * See `PlaneGeometry`.
+	 */
+	public static final int PLANE = 8;
 }
\ No newline at end of file
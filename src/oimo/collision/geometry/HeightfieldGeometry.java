@@ -0,0 +1,270 @@
+package oimo.collision.geometry;
+
+import oimo.common.M;
+import oimo.common.MathUtil;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * A heightfield collision geometry, for static terrains. The heights are sampled on a
+ * regular grid of `numX` by `numZ` samples in the local x-z plane, centered on the origin,
+ * and the sample `(i, j)` is at index `j * numX + i` of the height array. Each cell of four
+ * samples is made of two triangles. The heights are kept as `float` values, or as `short`
+ * values with a scale and an offset, so a sample costs two or four bytes.
+ *
+ * Heightfields have no volume and add no mass, so they should be attached to static rigid
+ * bodies. The height array is referenced, not copied, and must not be modified afterward.
+ */
+public class HeightfieldGeometry extends Geometry {
+	public int _numX;
+	public int _numZ;
+	public double _cellSizeX;
+	public double _cellSizeZ;
+
+	// either float heights, or short heights scaled by `_heightScale` then offset by `_heightOffset`
+	public float[] _floatHeights;
+	public short[] _shortHeights;
+	public double _heightScale;
+	public double _heightOffset;
+
+	// local position of the sample (0, 0), and the range of the heights
+	public double _originX;
+	public double _originZ;
+	public double _minHeight;
+	public double _maxHeight;
+
+	/**
+	 * Creates a heightfield of `numX` by `numZ` samples spaced by `cellSizeX` and `cellSizeZ`,
+	 * of the heights `heights`.
+	 */
+	public HeightfieldGeometry(int numX, int numZ, double cellSizeX, double cellSizeZ, float[] heights) {
+		super(GeometryType.HEIGHTFIELD);
+		init(numX, numZ, cellSizeX, cellSizeZ);
+		_floatHeights = heights;
+		_heightScale = 1;
+		_heightOffset = 0;
+		computeHeightRange();
+		_updateMass();
+	}
+
+	/**
+	 * Creates a heightfield of `numX` by `numZ` samples spaced by `cellSizeX` and `cellSizeZ`,
+	 * of the heights `heights[k] * heightScale + heightOffset`.
+	 */
+	public HeightfieldGeometry(int numX, int numZ, double cellSizeX, double cellSizeZ, short[] heights, double heightScale, double heightOffset) {
+		super(GeometryType.HEIGHTFIELD);
+		init(numX, numZ, cellSizeX, cellSizeZ);
+		_shortHeights = heights;
+		_heightScale = heightScale;
+		_heightOffset = heightOffset;
+		computeHeightRange();
+		_updateMass();
+	}
+
+	// --- private ---
+
+	private void init(int numX, int numZ, double cellSizeX, double cellSizeZ) {
+		if (numX < 2) numX = 2;
+		if (numZ < 2) numZ = 2;
+		_numX = numX;
+		_numZ = numZ;
+		_cellSizeX = cellSizeX;
+		_cellSizeZ = cellSizeZ;
+		_originX = -(numX - 1) * cellSizeX * 0.5;
+		_originZ = -(numZ - 1) * cellSizeZ * 0.5;
+	}
+
+	private void computeHeightRange() {
+		double min = MathUtil.POSITIVE_INFINITY;
+		double max = -MathUtil.POSITIVE_INFINITY;
+		int n = _numX * _numZ;
+		for (int k=0;k<n;k++) {
+			double h = _floatHeights != null ? _floatHeights[k] : _shortHeights[k] * _heightScale + _heightOffset;
+			if (h < min) min = h;
+			if (h > max) max = h;
+		}
+		_minHeight = min;
+		_maxHeight = max;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns the height of the sample `(i, j)`.
+	 */
+	public double _getHeight(int i, int j) {
+		int k = j * _numX + i;
+		return _floatHeights != null ? _floatHeights[k] : _shortHeights[k] * _heightScale + _heightOffset;
+	}
+
+	/**
+	 * Sets the vertices of `triangle` to the ones of the triangle `index` (`0` or `1`) of the
+	 * cell `(i, j)`, whose samples are `(i, j)` to `(i + 1, j + 1)`.
+	 */
+	public void _setCellTriangle(int i, int j, int index, TriangleGeometry triangle) {
+		double x0 = _originX + i * _cellSizeX;
+		double z0 = _originZ + j * _cellSizeZ;
+		double x1 = x0 + _cellSizeX;
+		double z1 = z0 + _cellSizeZ;
+		if (index == 0) {
+			triangle._vertex1.set(x0, _getHeight(i, j), z0);
+			triangle._vertex2.set(x0, _getHeight(i, j + 1), z1);
+			triangle._vertex3.set(x1, _getHeight(i + 1, j), z0);
+		} else {
+			triangle._vertex1.set(x1, _getHeight(i + 1, j), z0);
+			triangle._vertex2.set(x0, _getHeight(i, j + 1), z1);
+			triangle._vertex3.set(x1, _getHeight(i + 1, j + 1), z1);
+		}
+	}
+
+	@Override
+	public void _updateMass() {
+		_volume = 0;
+		M.mat3_zero(_inertiaCoeff);
+	}
+
+	@Override
+	public void _computeAabb(Aabb aabb, Transform tf) {
+		Vec3 min = new Vec3(_originX, _minHeight, _originZ);
+		Vec3 max = new Vec3(-_originX, _maxHeight, -_originZ);
+		computeBoxAabb(aabb, tf, min, max);
+	}
+
+	@Override
+	public boolean _rayCastLocal(Vec3 begin, Vec3 end, RayCastHit result) {
+		double x = begin.x;
+		double y = begin.y;
+		double z = begin.z;
+		double dx = end.x - x;
+		double dy = end.y - y;
+		double dz = end.z - z;
+
+		// clip the segment by the bounds of the heightfield
+		double tmin = 0;
+		double tmax = 1;
+		for (int k=0;k<3;k++) {
+			double p = k == 0 ? x : k == 1 ? y : z;
+			double d = k == 0 ? dx : k == 1 ? dy : dz;
+			double min = k == 0 ? _originX : k == 1 ? _minHeight : _originZ;
+			double max = k == 0 ? -_originX : k == 1 ? _maxHeight : -_originZ;
+			if (d == 0) {
+				if (p < min || p > max) return false;
+				continue;
+			}
+			double t1 = (min - p) / d;
+			double t2 = (max - p) / d;
+			if (t1 > t2) {
+				double tmp = t1;
+				t1 = t2;
+				t2 = tmp;
+			}
+			if (t1 > tmin) tmin = t1;
+			if (t2 < tmax) tmax = t2;
+			if (tmin > tmax) return false;
+		}
+
+		// walk the cells under the segment in order (DDA), the first hit is the closest one
+		int maxI = _numX - 2;
+		int maxJ = _numZ - 2;
+		int i = (int) Math.floor((x + dx * tmin - _originX) / _cellSizeX);
+		int j = (int) Math.floor((z + dz * tmin - _originZ) / _cellSizeZ);
+		if (i < 0) i = 0;
+		if (i > maxI) i = maxI;
+		if (j < 0) j = 0;
+		if (j > maxJ) j = maxJ;
+		int stepI = dx > 0 ? 1 : -1;
+		int stepJ = dz > 0 ? 1 : -1;
+		double deltaI = dx == 0 ? MathUtil.POSITIVE_INFINITY : _cellSizeX / (dx > 0 ? dx : -dx);
+		double deltaJ = dz == 0 ? MathUtil.POSITIVE_INFINITY : _cellSizeZ / (dz > 0 ? dz : -dz);
+		double nextI = dx == 0 ? MathUtil.POSITIVE_INFINITY : (_originX + (i + (dx > 0 ? 1 : 0)) * _cellSizeX - x) / dx;
+		double nextJ = dz == 0 ? MathUtil.POSITIVE_INFINITY : (_originZ + (j + (dz > 0 ? 1 : 0)) * _cellSizeZ - z) / dz;
+
+		TriangleGeometry triangle = new TriangleGeometry();
+		double enter = tmin;
+		while (true) {
+			double exit = nextI < nextJ ? nextI : nextJ;
+			if (exit > tmax) exit = tmax;
+
+			// skip the cell if the segment passes above or below all its samples
+			double h00 = _getHeight(i, j);
+			double h10 = _getHeight(i + 1, j);
+			double h01 = _getHeight(i, j + 1);
+			double h11 = _getHeight(i + 1, j + 1);
+			double cellMin = MathUtil.min(MathUtil.min(h00, h10), MathUtil.min(h01, h11));
+			double cellMax = MathUtil.max(MathUtil.max(h00, h10), MathUtil.max(h01, h11));
+			double y1 = y + dy * enter;
+			double y2 = y + dy * exit;
+			if ((y1 < y2 ? y1 : y2) <= cellMax && (y1 > y2 ? y1 : y2) >= cellMin) {
+				double minFraction = 2;
+				int hitIndex = -1;
+				for (int index=0;index<2;index++) {
+					_setCellTriangle(i, j, index, triangle);
+					Vec3 a = triangle._vertex1;
+					Vec3 b = triangle._vertex2;
+					Vec3 c = triangle._vertex3;
+					double fraction = TriangleGeometry._rayCastTriangle(x, y, z, dx, dy, dz, a.x, a.y, a.z, b.x, b.y, b.z, c.x, c.y, c.z);
+					if (fraction >= 0 && fraction < minFraction) {
+						minFraction = fraction;
+						hitIndex = index;
+					}
+				}
+				if (hitIndex != -1) {
+					_setCellTriangle(i, j, hitIndex, triangle);
+					triangle._computeNormalAgainst(dx, dy, dz, result.normal);
+					result.position.set(x + dx * minFraction, y + dy * minFraction, z + dz * minFraction);
+					result.fraction = minFraction;
+					return true;
+				}
+			}
+
+			if (exit >= tmax) return false;
+			enter = exit;
+			if (nextI < nextJ) {
+				i += stepI;
+				if (i < 0 || i > maxI) return false;
+				nextI += deltaI;
+			} else {
+				j += stepJ;
+				if (j < 0 || j > maxJ) return false;
+				nextJ += deltaJ;
+			}
+		}
+	}
+
+	// --- public ---
+
+	/**
+	 * Returns the number of samples along the x-axis.
+	 */
+	public int getNumSamplesX() {
+		return _numX;
+	}
+
+	/**
+	 * Returns the number of samples along the z-axis.
+	 */
+	public int getNumSamplesZ() {
+		return _numZ;
+	}
+
+	/**
+	 * Returns the spacing of the samples along the x-axis.
+	 */
+	public double getCellSizeX() {
+		return _cellSizeX;
+	}
+
+	/**
+	 * Returns the spacing of the samples along the z-axis.
+	 */
+	public double getCellSizeZ() {
+		return _cellSizeZ;
+	}
+
+	/**
+	 * Returns the height of the sample `(i, j)`.
+	 */
+	public double getHeight(int i, int j) {
+		return _getHeight(i, j);
+	}
+}
@@ -0,0 +1,75 @@
+package oimo.collision.geometry;
+
+import oimo.common.M;
+import oimo.common.Mat3;
+import oimo.common.MathUtil;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * An infinite plane collision geometry, or more precisely a half-space. The boundary plane
+ * passes through the local origin with the local y-axis as its normal, and everything below
+ * it (local `y <= 0`) is solid. Rotate the shape or its rigid body to orient the plane.
+ *
+ * Planes have no volume and add no mass, so they should be attached to static or kinematic
+ * rigid bodies. They are kept out of the broad-phase, and the contact manager tests them
+ * against the AABBs of the other shapes instead.
+ */
+public class PlaneGeometry extends Geometry {
+
+	/**
+	 * Creates a plane collision geometry.
+	 */
+	public PlaneGeometry() {
+		super(GeometryType.PLANE);
+		_updateMass();
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns whether the half-space transformed by `tf` and `aabb` intersect.
+	 */
+	public boolean _overlapsAabb(Transform tf, Aabb aabb) {
+		Mat3 r = tf._rotation;
+		double nx = r.e01;
+		double ny = r.e11;
+		double nz = r.e21;
+		Vec3 min = aabb._min;
+		Vec3 max = aabb._max;
+
+		// the signed distance of the lowest corner of the AABB along the normal
+		double cx = (min.x + max.x) * 0.5 - tf._position.x;
+		double cy = (min.y + max.y) * 0.5 - tf._position.y;
+		double cz = (min.z + max.z) * 0.5 - tf._position.z;
+		double ex = (max.x - min.x) * 0.5;
+		double ey = (max.y - min.y) * 0.5;
+		double ez = (max.z - min.z) * 0.5;
+		double projected = (nx > 0 ? nx : -nx) * ex + (ny > 0 ? ny : -ny) * ey + (nz > 0 ? nz : -nz) * ez;
+		return nx * cx + ny * cy + nz * cz - projected <= 0;
+	}
+
+	@Override
+	public void _updateMass() {
+		_volume = 0;
+		M.mat3_zero(_inertiaCoeff);
+	}
+
+	@Override
+	public void _computeAabb(Aabb aabb, Transform tf) {
+		// unbounded, only used for debugging as planes are not in the broad-phase
+		aabb._min.set(MathUtil.NEGATIVE_INFINITY, MathUtil.NEGATIVE_INFINITY, MathUtil.NEGATIVE_INFINITY);
+		aabb._max.set(MathUtil.POSITIVE_INFINITY, MathUtil.POSITIVE_INFINITY, MathUtil.POSITIVE_INFINITY);
+	}
+
+	@Override
+	public boolean _rayCastLocal(Vec3 begin, Vec3 end, RayCastHit result) {
+		// segments starting inside the half-space don't hit it
+		if (begin.y <= 0 || end.y > 0) return false;
+		double t = begin.y / (begin.y - end.y);
+		result.position.set(begin.x + (end.x - begin.x) * t, 0, begin.z + (end.z - begin.z) * t);
+		result.normal.set(0, 1, 0);
+		result.fraction = t;
+		return true;
+	}
+}
@@ -0,0 +1,421 @@
+package oimo.collision.geometry;
+
+import oimo.common.Vec3;
+
+/**
+ * Internal class.
+ *
+ * Computes the triangles of the convex hull of a point set by the quickhull algorithm.
+ * Points closer to the hull than a tolerance relative to the size of the set are treated
+ * as inside it, so duplicated and coplanar points do not make degenerate triangles.
+ *
+ * If the number of vertices is limited, the farthest point outside the hull is added first,
+ * and the points left outside once the limit is reached are dropped.
+ */
+class QuickHull {
+	Vec3[] points;
+	int numPoints;
+	int maxVertices;
+	double tolerance;
+
+	// face `f` has the vertices `faceVertices[3f]` to `faceVertices[3f + 2]` in counterclockwise
+	// order seen from outside, and `faceNeighbors[3f + k]` shares its edge `k`, which starts at
+	// the vertex `k`
+	int[] faceVertices;
+	int[] faceNeighbors;
+	double[] facePlanes;
+	boolean[] faceAlive;
+	int numFaces;
+
+	// the points outside each face, as linked lists
+	int[] outsideHeads;
+	int[] outsideNexts;
+
+	// `faceMarks[f]` is `2 * stamp + 1` if the face is visible from the current eye point,
+	// `2 * stamp` if it is not
+	int[] faceMarks;
+	int stamp;
+
+	/**
+	 * The number of the triangles of the hull.
+	 */
+	int numTriangles;
+
+	/**
+	 * The vertices of the triangles of the hull, three indices of the points per triangle,
+	 * in counterclockwise order seen from outside.
+	 */
+	int[] triangles;
+
+	/**
+	 * `maxVertices` limits the number of the vertices of the hull, `0` for no limit.
+	 */
+	QuickHull(Vec3[] points, int maxVertices) {
+		this.points = points;
+		numPoints = points.length;
+		this.maxVertices = maxVertices;
+	}
+
+	// --- private ---
+
+	private double distance(int face, int point) {
+		Vec3 p = points[point];
+		int o = face << 2;
+		return facePlanes[o] * p.x + facePlanes[o + 1] * p.y + facePlanes[o + 2] * p.z - facePlanes[o + 3];
+	}
+
+	private int addFace(int a, int b, int c) {
+		if (numFaces == faceAlive.length) {
+			int n = numFaces << 1;
+			int[] newVertices = new int[n * 3];
+			int[] newNeighbors = new int[n * 3];
+			double[] newPlanes = new double[n << 2];
+			boolean[] newAlive = new boolean[n];
+			int[] newHeads = new int[n];
+			int[] newMarks = new int[n];
+			for (int i = 0; i < numFaces * 3; i++) {
+				newVertices[i] = faceVertices[i];
+				newNeighbors[i] = faceNeighbors[i];
+			}
+			for (int i = 0; i < numFaces << 2; i++) {
+				newPlanes[i] = facePlanes[i];
+			}
+			for (int i = 0; i < numFaces; i++) {
+				newAlive[i] = faceAlive[i];
+				newHeads[i] = outsideHeads[i];
+				newMarks[i] = faceMarks[i];
+			}
+			faceVertices = newVertices;
+			faceNeighbors = newNeighbors;
+			facePlanes = newPlanes;
+			faceAlive = newAlive;
+			outsideHeads = newHeads;
+			faceMarks = newMarks;
+		}
+		int f = numFaces++;
+		faceVertices[f * 3] = a;
+		faceVertices[f * 3 + 1] = b;
+		faceVertices[f * 3 + 2] = c;
+		faceAlive[f] = true;
+		outsideHeads[f] = -1;
+		faceMarks[f] = -1;
+
+		Vec3 pa = points[a];
+		Vec3 pb = points[b];
+		Vec3 pc = points[c];
+		double e1x = pb.x - pa.x;
+		double e1y = pb.y - pa.y;
+		double e1z = pb.z - pa.z;
+		double e2x = pc.x - pa.x;
+		double e2y = pc.y - pa.y;
+		double e2z = pc.z - pa.z;
+		double nx = e1y * e2z - e1z * e2y;
+		double ny = e1z * e2x - e1x * e2z;
+		double nz = e1x * e2y - e1y * e2x;
+		double l = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (l > 0) l = 1 / l;
+		nx *= l;
+		ny *= l;
+		nz *= l;
+		int o = f << 2;
+		facePlanes[o] = nx;
+		facePlanes[o + 1] = ny;
+		facePlanes[o + 2] = nz;
+		facePlanes[o + 3] = nx * pa.x + ny * pa.y + nz * pa.z;
+		return f;
+	}
+
+	// adds `point` to the outside set of the face it is the farthest above, returns `false` if none
+	private boolean assign(int point, int from, int until) {
+		int best = -1;
+		double maxDist = tolerance;
+		for (int i = from; i < until; i++) {
+			if (!faceAlive[i]) continue;
+			double d = distance(i, point);
+			if (d > maxDist) {
+				maxDist = d;
+				best = i;
+			}
+		}
+		if (best == -1) return false;
+		outsideNexts[point] = outsideHeads[best];
+		outsideHeads[best] = point;
+		return true;
+	}
+
+	private boolean createSimplex() {
+		// the most distant pair of the extreme points along the axes
+		int[] extremes = new int[6];
+		for (int i = 0; i < numPoints; i++) {
+			Vec3 p = points[i];
+			if (p.x < points[extremes[0]].x) extremes[0] = i;
+			if (p.x > points[extremes[1]].x) extremes[1] = i;
+			if (p.y < points[extremes[2]].y) extremes[2] = i;
+			if (p.y > points[extremes[3]].y) extremes[3] = i;
+			if (p.z < points[extremes[4]].z) extremes[4] = i;
+			if (p.z > points[extremes[5]].z) extremes[5] = i;
+		}
+		double scale = 0;
+		for (int k = 0; k < 3; k++) {
+			double min = k == 0 ? points[extremes[0]].x : k == 1 ? points[extremes[2]].y : points[extremes[4]].z;
+			double max = k == 0 ? points[extremes[1]].x : k == 1 ? points[extremes[3]].y : points[extremes[5]].z;
+			scale += Math.max(Math.abs(min), Math.abs(max));
+		}
+		// a few dozen ulps of the largest coordinates
+		tolerance = scale * 1e-14;
+
+		int i0 = 0;
+		int i1 = 0;
+		double maxDist = -1;
+		for (int i = 0; i < 6; i++) {
+			for (int j = i + 1; j < 6; j++) {
+				double d = points[extremes[i]].sub(points[extremes[j]]).lengthSq();
+				if (d > maxDist) {
+					maxDist = d;
+					i0 = extremes[i];
+					i1 = extremes[j];
+				}
+			}
+		}
+		if (Math.sqrt(maxDist) <= tolerance) return false;
+
+		// the farthest point from the line, then from the plane
+		Vec3 p0 = points[i0];
+		Vec3 dir = points[i1].sub(p0).normalized();
+		int i2 = -1;
+		maxDist = tolerance;
+		for (int i = 0; i < numPoints; i++) {
+			Vec3 v = points[i].sub(p0);
+			double d = v.sub(dir.scale(v.dot(dir))).length();
+			if (d > maxDist) {
+				maxDist = d;
+				i2 = i;
+			}
+		}
+		if (i2 == -1) return false;
+
+		Vec3 normal = points[i1].sub(p0).cross(points[i2].sub(p0)).normalized();
+		int i3 = -1;
+		maxDist = tolerance;
+		double side = 0;
+		for (int i = 0; i < numPoints; i++) {
+			double d = points[i].sub(p0).dot(normal);
+			if (Math.abs(d) > maxDist) {
+				maxDist = Math.abs(d);
+				i3 = i;
+				side = d;
+			}
+		}
+		if (i3 == -1) return false;
+
+		// four faces facing away from the fourth point of each
+		if (side > 0) {
+			int tmp = i1;
+			i1 = i2;
+			i2 = tmp;
+		}
+		int f0 = addFace(i0, i1, i2);
+		int f1 = addFace(i0, i3, i1);
+		int f2 = addFace(i1, i3, i2);
+		int f3 = addFace(i2, i3, i0);
+		setNeighbors(f0, f1, f2, f3);
+		setNeighbors(f1, f3, f2, f0);
+		setNeighbors(f2, f1, f3, f0);
+		setNeighbors(f3, f2, f1, f0);
+
+		for (int i = 0; i < numPoints; i++) {
+			if (i == i0 || i == i1 || i == i2 || i == i3) continue;
+			assign(i, 0, numFaces);
+		}
+		return true;
+	}
+
+	private void setNeighbors(int face, int n0, int n1, int n2) {
+		faceNeighbors[face * 3] = n0;
+		faceNeighbors[face * 3 + 1] = n1;
+		faceNeighbors[face * 3 + 2] = n2;
+	}
+
+	// the farthest outside point of `face`
+	private int farthestOutside(int face) {
+		int farthest = -1;
+		double maxDist = -1;
+		for (int p = outsideHeads[face]; p != -1; p = outsideNexts[p]) {
+			double d = distance(face, p);
+			if (d > maxDist) {
+				maxDist = d;
+				farthest = p;
+			}
+		}
+		return farthest;
+	}
+
+	// the face whose farthest outside point is the farthest of all, or `-1` if none
+	private int farthestFace() {
+		int best = -1;
+		double maxDist = -1;
+		for (int f = 0; f < numFaces; f++) {
+			if (!faceAlive[f] || outsideHeads[f] == -1) continue;
+			double d = distance(f, farthestOutside(f));
+			if (d > maxDist) {
+				maxDist = d;
+				best = f;
+			}
+		}
+		return best;
+	}
+
+	// adds the farthest point outside `face` to the hull, returns `false` if the hull got broken
+	private boolean addPoint(int face, int[] stack, int[] horizon, int[] startFaces, int[] endFaces) {
+		int eye = farthestOutside(face);
+
+		// the faces visible from the eye, and the edges of the horizon with the faces beyond them
+		stamp++;
+		int visible = stamp * 2 + 1;
+		int invisible = stamp * 2;
+		int numVisible = 0;
+		int numHorizon = 0;
+		faceMarks[face] = visible;
+		stack[numVisible++] = face;
+		for (int s = 0; s < numVisible; s++) {
+			int f = stack[s];
+			for (int k = 0; k < 3; k++) {
+				int g = faceNeighbors[f * 3 + k];
+				if (faceMarks[g] != visible && faceMarks[g] != invisible) {
+					if (distance(g, eye) > tolerance) {
+						faceMarks[g] = visible;
+						if (numVisible == stack.length) return false;
+						stack[numVisible++] = g;
+						continue;
+					}
+					faceMarks[g] = invisible;
+				}
+				if (faceMarks[g] == invisible) {
+					if (numHorizon * 3 == horizon.length) return false;
+					horizon[numHorizon * 3] = faceVertices[f * 3 + k];
+					horizon[numHorizon * 3 + 1] = faceVertices[f * 3 + (k + 1) % 3];
+					horizon[numHorizon * 3 + 2] = g;
+					numHorizon++;
+				}
+			}
+		}
+
+		// a cone of new faces from the horizon to the eye
+		int firstNew = numFaces;
+		for (int i = 0; i < numHorizon; i++) {
+			int a = horizon[i * 3];
+			int b = horizon[i * 3 + 1];
+			if (startFaces[a] != -1 || endFaces[b] != -1) return false; // not a simple cycle
+			int f = addFace(a, b, eye);
+			startFaces[a] = f;
+			endFaces[b] = f;
+		}
+		boolean valid = true;
+		for (int i = 0; i < numHorizon; i++) {
+			int f = firstNew + i;
+			int a = horizon[i * 3];
+			int b = horizon[i * 3 + 1];
+			int g = horizon[i * 3 + 2];
+			int next = startFaces[b];
+			int prev = endFaces[a];
+			if (next == -1 || prev == -1) valid = false;
+			setNeighbors(f, g, next, prev);
+
+			// the face beyond the horizon now faces the new one instead of a visible one
+			for (int k = 0; k < 3; k++) {
+				if (faceVertices[g * 3 + k] == b && faceVertices[g * 3 + (k + 1) % 3] == a) {
+					faceNeighbors[g * 3 + k] = f;
+				}
+			}
+		}
+		for (int i = 0; i < numHorizon; i++) {
+			startFaces[horizon[i * 3]] = -1;
+			endFaces[horizon[i * 3 + 1]] = -1;
+		}
+		if (!valid) return false;
+
+		// move the outside points of the visible faces to the new ones, or drop them as inside
+		for (int s = 0; s < numVisible; s++) {
+			int f = stack[s];
+			faceAlive[f] = false;
+			int p = outsideHeads[f];
+			outsideHeads[f] = -1;
+			while (p != -1) {
+				int next = outsideNexts[p];
+				if (p != eye) {
+					assign(p, firstNew, numFaces);
+				}
+				p = next;
+			}
+		}
+		return true;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Computes the triangles of the hull. Returns `false` if the points are degenerate (all
+	 * on a plane, a line or a point) or the hull could not be computed robustly.
+	 */
+	boolean build() {
+		numTriangles = 0;
+		triangles = null;
+		if (numPoints < 4) return false;
+
+		int capacity = 16;
+		faceVertices = new int[capacity * 3];
+		faceNeighbors = new int[capacity * 3];
+		facePlanes = new double[capacity << 2];
+		faceAlive = new boolean[capacity];
+		outsideHeads = new int[capacity];
+		faceMarks = new int[capacity];
+		outsideNexts = new int[numPoints];
+		numFaces = 0;
+		stamp = 0;
+		if (!createSimplex()) return false;
+
+		// a hull of `n` points has at most `2n - 4` faces and `3n - 6` edges
+		int[] stack = new int[numPoints * 2];
+		int[] horizon = new int[numPoints * 9];
+		int[] startFaces = new int[numPoints];
+		int[] endFaces = new int[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			startFaces[i] = -1;
+			endFaces[i] = -1;
+		}
+
+		if (maxVertices > 0) {
+			// the farthest points first, until the limit
+			int numVertices = 4;
+			while (numVertices < maxVertices) {
+				int f = farthestFace();
+				if (f == -1) break;
+				if (!addPoint(f, stack, horizon, startFaces, endFaces)) return false;
+				numVertices++;
+			}
+		} else {
+			// new faces are added at the end, so one pass over the faces adds all the points
+			int f = 0;
+			while (f < numFaces) {
+				if (faceAlive[f] && outsideHeads[f] != -1) {
+					if (!addPoint(f, stack, horizon, startFaces, endFaces)) return false;
+					continue;
+				}
+				f++;
+			}
+		}
+
+		for (int i = 0; i < numFaces; i++) {
+			if (faceAlive[i]) numTriangles++;
+		}
+		triangles = new int[numTriangles * 3];
+		int n = 0;
+		for (int i = 0; i < numFaces; i++) {
+			if (!faceAlive[i]) continue;
+			triangles[n++] = faceVertices[i * 3];
+			triangles[n++] = faceVertices[i * 3 + 1];
+			triangles[n++] = faceVertices[i * 3 + 2];
+		}
+		return true;
+	}
+}
@@ -40,9 +40,9 @@ public class SphereGeometry extends ConvexGeometry {
 
 	@Override 
 	public void _computeAabb(Aabb result,Transform tf) {
-		Vec3 radVec =new Vec3(_radius, _radius, _radius);
-		M.vec3_sub(result._min, tf._position, radVec);
-		M.vec3_add(result._max, tf._position, radVec);
+		Vec3 p = tf._position;
+		result._min.set(p.x - _radius, p.y - _radius, p.z - _radius);
+		result._max.set(p.x + _radius, p.y + _radius, p.z + _radius);
 	}
 
 	@Override 
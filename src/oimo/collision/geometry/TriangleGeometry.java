@@ -0,0 +1,127 @@
+package oimo.collision.geometry;
+
+import oimo.common.M;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * Internal class.
+ *
+ * A triangle of a triangle mesh seen as a convex geometry, so that GJK/EPA can run against
+ * the triangles of a mesh one at a time. The triangle has no margin.
+ */
+public class TriangleGeometry extends ConvexGeometry {
+	public Vec3 _vertex1;
+	public Vec3 _vertex2;
+	public Vec3 _vertex3;
+
+	public TriangleGeometry() {
+		super(GeometryType.TRIANGLE_MESH);
+		_vertex1 = new Vec3();
+		_vertex2 = new Vec3();
+		_vertex3 = new Vec3();
+		_gjkMargin = 0;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Sets the vertices to the ones of the triangle of index `triangle` of `mesh`.
+	 */
+	public void _setTriangle(TriangleMesh mesh, int triangle) {
+		mesh.getVertexTo(triangle, 0, _vertex1);
+		mesh.getVertexTo(triangle, 1, _vertex2);
+		mesh.getVertexTo(triangle, 2, _vertex3);
+	}
+
+	@Override
+	public void _updateMass() {
+		_volume = 0;
+		M.mat3_zero(_inertiaCoeff);
+	}
+
+	@Override
+	public void _computeAabb(Aabb aabb, Transform tf) {
+		Vec3 v1 = new Vec3();
+		Vec3 v2 = new Vec3();
+		Vec3 v3 = new Vec3();
+		M.vec3_mulMat3(v1, _vertex1, tf._rotation);
+		M.vec3_mulMat3(v2, _vertex2, tf._rotation);
+		M.vec3_mulMat3(v3, _vertex3, tf._rotation);
+		M.vec3_min(aabb._min, v1, v2);
+		M.vec3_min(aabb._min, aabb._min, v3);
+		M.vec3_max(aabb._max, v1, v2);
+		M.vec3_max(aabb._max, aabb._max, v3);
+		M.vec3_add(aabb._min, aabb._min, tf._position);
+		M.vec3_add(aabb._max, aabb._max, tf._position);
+	}
+
+	@Override
+	public void computeLocalSupportingVertex(Vec3 dir, Vec3 out) {
+		double d1 = _vertex1.dot(dir);
+		double d2 = _vertex2.dot(dir);
+		double d3 = _vertex3.dot(dir);
+		if (d1 > d2) {
+			out.copyFrom(d1 > d3 ? _vertex1 : _vertex3);
+		} else {
+			out.copyFrom(d2 > d3 ? _vertex2 : _vertex3);
+		}
+	}
+
+	/**
+	 * Returns the fraction at which the segment from `(x, y, z)` along `(dx, dy, dz)` hits
+	 * the triangle of the vertices `(ax, ay, az)`, `(bx, by, bz)` and `(cx, cy, cz)`, from
+	 * either side. Returns `-1` if they do not intersect.
+	 */
+	public static double _rayCastTriangle(
+		double x, double y, double z, double dx, double dy, double dz,
+		double ax, double ay, double az, double bx, double by, double bz, double cx, double cy, double cz
+	) {
+		// Moller-Trumbore
+		double e1x = bx - ax;
+		double e1y = by - ay;
+		double e1z = bz - az;
+		double e2x = cx - ax;
+		double e2y = cy - ay;
+		double e2z = cz - az;
+		double px = dy * e2z - dz * e2y;
+		double py = dz * e2x - dx * e2z;
+		double pz = dx * e2y - dy * e2x;
+		double det = e1x * px + e1y * py + e1z * pz;
+		if (det > -1e-12 && det < 1e-12) return -1; // parallel
+		double invDet = 1 / det;
+		double sx = x - ax;
+		double sy = y - ay;
+		double sz = z - az;
+		double u = (sx * px + sy * py + sz * pz) * invDet;
+		if (u < 0 || u > 1) return -1;
+		double qx = sy * e1z - sz * e1y;
+		double qy = sz * e1x - sx * e1z;
+		double qz = sx * e1y - sy * e1x;
+		double v = (dx * qx + dy * qy + dz * qz) * invDet;
+		if (v < 0 || u + v > 1) return -1;
+		double t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+		return t < 0 || t > 1 ? -1 : t;
+	}
+
+	/**
+	 * Sets `normal` to the unit normal of the triangle, facing against `(dx, dy, dz)`.
+	 */
+	public void _computeNormalAgainst(double dx, double dy, double dz, Vec3 normal) {
+		Vec3 e1 = new Vec3();
+		Vec3 e2 = new Vec3();
+		M.vec3_sub(e1, _vertex2, _vertex1);
+		M.vec3_sub(e2, _vertex3, _vertex1);
+		M.vec3_cross(normal, e1, e2);
+		if (normal.x * dx + normal.y * dy + normal.z * dz > 0) {
+			M.vec3_negate(normal, normal);
+		}
+		M.vec3_normalize(normal, normal);
+	}
+
+	@Override
+	public boolean _rayCastLocal(Vec3 begin, Vec3 end, RayCastHit result) {
+		// not used, the triangles are ray cast by their mesh or heightfield
+		return false;
+	}
+}
@@ -0,0 +1,243 @@
+package oimo.collision.geometry;
+
+import oimo.common.MathUtil;
+import oimo.common.Setting;
+import oimo.common.Vec3;
+
+/**
+ * Indexed triangles and a bounding volume hierarchy over them, which can be shared by any
+ * number of `TriangleMeshGeometry` instances. The vertex of index `i` is packed as `x, y, z`
+ * at `3 * i` of the vertex array, and the triangle of index `i` is made of the vertices of
+ * indices at `3 * i` of the index array. The arrays are referenced, not copied, and must
+ * not be modified afterward.
+ */
+public class TriangleMesh {
+	/**
+	 * The number of elements of the bounds of a node: the minimum then the maximum.
+	 */
+	public static final int BOUNDS_SIZE = 6;
+
+	public double[] _vertices;
+	public int[] _indices;
+	public int _numTriangles;
+
+	// the hierarchy, node 0 is the root. a leaf has no children and owns the triangles
+	// `_triangles[_nodeTriangles[2 * id]]` to `_triangles[_nodeTriangles[2 * id + 1] - 1]`
+	public double[] _nodeBounds;
+	public int[] _nodeChildren;
+	public int[] _nodeTriangles;
+	public int[] _triangles;
+	public int _numNodes;
+	public int _height;
+
+	/**
+	 * Creates a triangle mesh of the vertices `vertices` and the triangles `indices`.
+	 */
+	public TriangleMesh(double[] vertices, int[] indices) {
+		_vertices = vertices;
+		_indices = indices;
+		_numTriangles = indices.length / 3;
+
+		int n = _numTriangles;
+		int capacity = n > 0 ? 2 * n - 1 : 0;
+		_nodeBounds = new double[capacity * BOUNDS_SIZE];
+		_nodeChildren = new int[capacity << 1];
+		_nodeTriangles = new int[capacity << 1];
+		_triangles = new int[n];
+		_numNodes = 0;
+		_height = 0;
+		if (n == 0) return;
+
+		// bounds and centroids of the triangles
+		double[] bounds = new double[n * BOUNDS_SIZE];
+		double[] centers = new double[n * 3];
+		for (int i=0;i<n;i++) {
+			_triangles[i] = i;
+			int o = i * BOUNDS_SIZE;
+			for (int k=0;k<3;k++) {
+				double v1 = vertices[indices[i * 3] * 3 + k];
+				double v2 = vertices[indices[i * 3 + 1] * 3 + k];
+				double v3 = vertices[indices[i * 3 + 2] * 3 + k];
+				double min = v1 < v2 ? (v1 < v3 ? v1 : v3) : (v2 < v3 ? v2 : v3);
+				double max = v1 > v2 ? (v1 > v3 ? v1 : v3) : (v2 > v3 ? v2 : v3);
+				bounds[o + k] = min;
+				bounds[o + 3 + k] = max;
+				centers[i * 3 + k] = (min + max) * 0.5;
+			}
+		}
+		buildRecursive(0, n, bounds, centers);
+		_height = computeHeight(0);
+	}
+
+	// --- private ---
+
+	// builds the subtree of the triangles `_triangles[begin]` to `_triangles[end - 1]` and returns its root
+	private int buildRecursive(int begin, int end, double[] bounds, double[] centers) {
+		int id = _numNodes++;
+		int o = id * BOUNDS_SIZE;
+		double[] nb = _nodeBounds;
+		for (int k=0;k<3;k++) {
+			nb[o + k] = MathUtil.POSITIVE_INFINITY;
+			nb[o + 3 + k] = -MathUtil.POSITIVE_INFINITY;
+		}
+		double[] centerMin = new double[] { MathUtil.POSITIVE_INFINITY, MathUtil.POSITIVE_INFINITY, MathUtil.POSITIVE_INFINITY };
+		double[] centerMax = new double[] { -MathUtil.POSITIVE_INFINITY, -MathUtil.POSITIVE_INFINITY, -MathUtil.POSITIVE_INFINITY };
+		for (int i=begin;i<end;i++) {
+			int t = _triangles[i];
+			int to = t * BOUNDS_SIZE;
+			for (int k=0;k<3;k++) {
+				if (bounds[to + k] < nb[o + k]) nb[o + k] = bounds[to + k];
+				if (bounds[to + 3 + k] > nb[o + 3 + k]) nb[o + 3 + k] = bounds[to + 3 + k];
+				double c = centers[t * 3 + k];
+				if (c < centerMin[k]) centerMin[k] = c;
+				if (c > centerMax[k]) centerMax[k] = c;
+			}
+		}
+
+		if (end - begin <= Setting.triangleMeshMaxLeafTriangles) {
+			_nodeChildren[id << 1] = -1;
+			_nodeChildren[(id << 1) + 1] = -1;
+			_nodeTriangles[id << 1] = begin;
+			_nodeTriangles[(id << 1) + 1] = end;
+			return id;
+		}
+
+		// split at the mean of the centers along the axis they spread the most
+		int axis = 0;
+		double extent = centerMax[0] - centerMin[0];
+		if (centerMax[1] - centerMin[1] > extent) {
+			axis = 1;
+			extent = centerMax[1] - centerMin[1];
+		}
+		if (centerMax[2] - centerMin[2] > extent) {
+			axis = 2;
+		}
+		double mean = 0;
+		for (int i=begin;i<end;i++) {
+			mean += centers[_triangles[i] * 3 + axis];
+		}
+		mean /= end - begin;
+
+		int mid = begin;
+		for (int i=begin;i<end;i++) {
+			int t = _triangles[i];
+			if (centers[t * 3 + axis] < mean) {
+				_triangles[i] = _triangles[mid];
+				_triangles[mid++] = t;
+			}
+		}
+		if (mid == begin || mid == end) {
+			// the centers coincide, split in halves
+			mid = (begin + end) >>> 1;
+		}
+
+		int child1 = buildRecursive(begin, mid, bounds, centers);
+		int child2 = buildRecursive(mid, end, bounds, centers);
+		_nodeChildren[id << 1] = child1;
+		_nodeChildren[(id << 1) + 1] = child2;
+		_nodeTriangles[id << 1] = begin;
+		_nodeTriangles[(id << 1) + 1] = end;
+		return id;
+	}
+
+	private int computeHeight(int id) {
+		int child1 = _nodeChildren[id << 1];
+		if (child1 == -1) return 0;
+		int h1 = computeHeight(child1);
+		int h2 = computeHeight(_nodeChildren[(id << 1) + 1]);
+		return (h1 > h2 ? h1 : h2) + 1;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns a stack large enough for the traversals of the hierarchy.
+	 */
+	public int[] _createStack() {
+		return new int[_height + 2];
+	}
+
+	/**
+	 * Calls `callback.process` for all triangles whose bounds intersect the box from `min`
+	 * to `max` in the local coordinates of the mesh, using `stack` from `_createStack`.
+	 */
+	public void _aabbTest(Vec3 min, Vec3 max, int[] stack, TriangleMeshCallback callback) {
+		if (_numNodes == 0) return;
+		double[] b = _nodeBounds;
+		int[] c = _nodeChildren;
+		double minX = min.x;
+		double minY = min.y;
+		double minZ = min.z;
+		double maxX = max.x;
+		double maxY = max.y;
+		double maxZ = max.z;
+
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			int o = node * BOUNDS_SIZE;
+			if (
+				b[o] > maxX || b[o + 3] < minX ||
+				b[o + 1] > maxY || b[o + 4] < minY ||
+				b[o + 2] > maxZ || b[o + 5] < minZ
+			) continue;
+
+			int child1 = c[node << 1];
+			if (child1 == -1) {
+				int end = _nodeTriangles[(node << 1) + 1];
+				for (int i=_nodeTriangles[node << 1];i<end;i++) {
+					callback.process(_triangles[i]);
+				}
+				continue;
+			}
+			stack[sp++] = c[(node << 1) + 1];
+			stack[sp++] = child1;
+		}
+	}
+
+	// --- public ---
+
+	/**
+	 * Returns the number of triangles.
+	 */
+	public int getNumTriangles() {
+		return _numTriangles;
+	}
+
+	/**
+	 * Returns the vertex array.
+	 */
+	public double[] getVertices() {
+		return _vertices;
+	}
+
+	/**
+	 * Returns the index array.
+	 */
+	public int[] getIndices() {
+		return _indices;
+	}
+
+	/**
+	 * Sets `vertex` to the vertex `corner` (`0`, `1` or `2`) of the triangle of index `triangle`.
+	 */
+	public void getVertexTo(int triangle, int corner, Vec3 vertex) {
+		int o = _indices[triangle * 3 + corner] * 3;
+		vertex.set(_vertices[o], _vertices[o + 1], _vertices[o + 2]);
+	}
+
+	/**
+	 * Sets `min` and `max` to the bounds of all the triangles.
+	 */
+	public void getBoundsTo(Vec3 min, Vec3 max) {
+		if (_numNodes == 0) {
+			min.zero();
+			max.zero();
+			return;
+		}
+		double[] b = _nodeBounds;
+		min.set(b[0], b[1], b[2]);
+		max.set(b[3], b[4], b[5]);
+	}
+}
@@ -0,0 +1,17 @@
+package oimo.collision.geometry;
+
+/**
+ * A callback class for queries of the triangles of a triangle mesh.
+ */
+public abstract class TriangleMeshCallback {
+	/**
+	 * Default constructor.
+	 */
+	public TriangleMeshCallback() {
+	}
+
+	/**
+	 * This is called every time a query reports the triangle of index `triangle`.
+	 */
+	public abstract void process(int triangle);
+}
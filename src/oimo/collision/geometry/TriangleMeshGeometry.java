@@ -0,0 +1,162 @@
+package oimo.collision.geometry;
+
+import oimo.common.M;
+import oimo.common.MathUtil;
+import oimo.common.Transform;
+import oimo.common.Vec3;
+
+/**
+ * A triangle mesh collision geometry, for static level geometry. The triangles are kept
+ * in a `TriangleMesh`, which can be shared by many geometries. Triangle meshes have no
+ * volume and add no mass, so they should be attached to static rigid bodies. They collide
+ * with convex geometries, from both sides of the triangles.
+ */
+public class TriangleMeshGeometry extends Geometry {
+	public TriangleMesh _mesh;
+
+	/**
+	 * Creates a triangle mesh collision geometry of the triangles of `mesh`.
+	 */
+	public TriangleMeshGeometry(TriangleMesh mesh) {
+		super(GeometryType.TRIANGLE_MESH);
+		_mesh = mesh;
+		_updateMass();
+	}
+
+	/**
+	 * Creates a triangle mesh collision geometry of the vertices `vertices` and the triangles
+	 * `indices`. See `TriangleMesh` for the layout of the arrays.
+	 */
+	public TriangleMeshGeometry(double[] vertices, int[] indices) {
+		this(new TriangleMesh(vertices, indices));
+	}
+
+	/**
+	 * Returns the triangle mesh.
+	 */
+	public TriangleMesh getMesh() {
+		return _mesh;
+	}
+
+	// --- private ---
+
+	// returns the fraction at which the segment from `(x, y, z)` along `(dx, dy, dz)` enters
+	// the node at `o` of `b`, or positive infinity if it misses before `maxFraction`
+	private static double entryFraction(double[] b, int o, double x, double y, double z, double dx, double dy, double dz, double maxFraction) {
+		double tmin = 0;
+		double tmax = maxFraction;
+		for (int i=0;i<3;i++) {
+			double p = i == 0 ? x : i == 1 ? y : z;
+			double d = i == 0 ? dx : i == 1 ? dy : dz;
+			double min = b[o + i];
+			double max = b[o + 3 + i];
+			if (d == 0) {
+				if (p < min || p > max) return MathUtil.POSITIVE_INFINITY;
+				continue;
+			}
+			double inv = 1 / d;
+			double t1 = (min - p) * inv;
+			double t2 = (max - p) * inv;
+			if (t1 > t2) {
+				double tmp = t1;
+				t1 = t2;
+				t2 = tmp;
+			}
+			if (t1 > tmin) tmin = t1;
+			if (t2 < tmax) tmax = t2;
+			if (tmin > tmax) return MathUtil.POSITIVE_INFINITY;
+		}
+		return tmin;
+	}
+
+	// --- internal ---
+
+	@Override
+	public void _updateMass() {
+		_volume = 0;
+		M.mat3_zero(_inertiaCoeff);
+	}
+
+	@Override
+	public void _computeAabb(Aabb aabb, Transform tf) {
+		Vec3 min = new Vec3();
+		Vec3 max = new Vec3();
+		_mesh.getBoundsTo(min, max);
+		computeBoxAabb(aabb, tf, min, max);
+	}
+
+	@Override
+	public boolean _rayCastLocal(Vec3 begin, Vec3 end, RayCastHit result) {
+		TriangleMesh mesh = _mesh;
+		if (mesh._numNodes == 0) return false;
+		double[] b = mesh._nodeBounds;
+		int[] c = mesh._nodeChildren;
+		double[] v = mesh._vertices;
+		int[] indices = mesh._indices;
+
+		double x = begin.x;
+		double y = begin.y;
+		double z = begin.z;
+		double dx = end.x - x;
+		double dy = end.y - y;
+		double dz = end.z - z;
+
+		// the closest hit so far, nodes entered beyond it are skipped
+		double minFraction = 1;
+		int hitTriangle = -1;
+
+		int[] stack = mesh._createStack();
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int node = stack[--sp];
+			if (entryFraction(b, node * TriangleMesh.BOUNDS_SIZE, x, y, z, dx, dy, dz, minFraction) > minFraction) continue;
+
+			int child1 = c[node << 1];
+			if (child1 == -1) {
+				int last = mesh._nodeTriangles[(node << 1) + 1];
+				for (int i=mesh._nodeTriangles[node << 1];i<last;i++) {
+					int t = mesh._triangles[i];
+					int o1 = indices[t * 3] * 3;
+					int o2 = indices[t * 3 + 1] * 3;
+					int o3 = indices[t * 3 + 2] * 3;
+
+					double fraction = TriangleGeometry._rayCastTriangle(
+						x, y, z, dx, dy, dz,
+						v[o1], v[o1 + 1], v[o1 + 2], v[o2], v[o2 + 1], v[o2 + 2], v[o3], v[o3 + 1], v[o3 + 2]
+					);
+					if (fraction < 0 || fraction >= minFraction) continue;
+					minFraction = fraction;
+					hitTriangle = t;
+				}
+				continue;
+			}
+			int child2 = c[(node << 1) + 1];
+
+			// push the farther child first, comparing the doubled centers along the ray
+			int co1 = child1 * TriangleMesh.BOUNDS_SIZE;
+			int co2 = child2 * TriangleMesh.BOUNDS_SIZE;
+			double d =
+				(b[co1] + b[co1 + 3] - b[co2] - b[co2 + 3]) * dx +
+				(b[co1 + 1] + b[co1 + 4] - b[co2 + 1] - b[co2 + 4]) * dy +
+				(b[co1 + 2] + b[co1 + 5] - b[co2 + 2] - b[co2 + 5]) * dz;
+			if (d > 0) {
+				stack[sp++] = child1;
+				stack[sp++] = child2;
+			} else {
+				stack[sp++] = child2;
+				stack[sp++] = child1;
+			}
+		}
+		if (hitTriangle == -1) return false;
+
+		// the normal of the triangle, facing the start point
+		TriangleGeometry triangle = new TriangleGeometry();
+		triangle._setTriangle(mesh, hitTriangle);
+		triangle._computeNormalAgainst(dx, dy, dz, result.normal);
+
+		result.position.set(x + dx * minFraction, y + dy * minFraction, z + dz * minFraction);
+		result.fraction = minFraction;
+		return true;
+	}
+}
@@ -11,9 +11,9 @@ public class CollisionMatrix {
 	public Detector[][] detectors;;
 
 	public CollisionMatrix() {
-		detectors=new Detector[8][];
-		for (int i=0;i<6;i++) {
-			detectors[i] = new Detector[8];
+		detectors=new Detector[9][];
+		for (int i=0;i<9;i++) {
+			detectors[i] = new Detector[9];
 		}
 
 		GjkEpaDetector gjkEpaDetector = new GjkEpaDetector();
@@ -24,6 +24,9 @@ public class CollisionMatrix {
 		int co = GeometryType.CONE;
 		int ca = GeometryType.CAPSULE;
 		int ch = GeometryType.CONVEX_HULL;
+		int tm = GeometryType.TRIANGLE_MESH;
+		int hf = GeometryType.HEIGHTFIELD;
+		int pl = GeometryType.PLANE;
 
 		detectors[sp][sp] = new SphereSphereDetector();
 		detectors[sp][bo] = new SphereBoxDetector(false);
@@ -66,6 +69,30 @@ public class CollisionMatrix {
 		detectors[ch][co] = gjkEpaDetector;
 		detectors[ch][ca] = gjkEpaDetector;
 		detectors[ch][ch] = gjkEpaDetector;
+
+		TriangleMeshConvexDetector triangleMeshConvexDetector = new TriangleMeshConvexDetector(false);
+		TriangleMeshConvexDetector convexTriangleMeshDetector = new TriangleMeshConvexDetector(true);
+		HeightfieldConvexDetector heightfieldConvexDetector = new HeightfieldConvexDetector(false);
+		HeightfieldConvexDetector convexHeightfieldDetector = new HeightfieldConvexDetector(true);
+		for (int i=GeometryType._CONVEX_MIN;i<=GeometryType._CONVEX_MAX;i++) {
+			detectors[tm][i] = triangleMeshConvexDetector;
+			detectors[i][tm] = convexTriangleMeshDetector;
+			detectors[hf][i] = heightfieldConvexDetector;
+			detectors[i][hf] = convexHeightfieldDetector;
+		}
+
+		detectors[pl][sp] = new PlaneSphereDetector(false);
+		detectors[pl][bo] = new PlaneBoxDetector(false);
+		detectors[pl][cy] = new PlaneCylinderDetector(false);
+		detectors[pl][co] = new PlaneConeDetector(false);
+		detectors[pl][ca] = new PlaneCapsuleDetector(false);
+		detectors[pl][ch] = new PlaneConvexHullDetector(false);
+		detectors[sp][pl] = new PlaneSphereDetector(true);
+		detectors[bo][pl] = new PlaneBoxDetector(true);
+		detectors[cy][pl] = new PlaneCylinderDetector(true);
+		detectors[co][pl] = new PlaneConeDetector(true);
+		detectors[ca][pl] = new PlaneCapsuleDetector(true);
+		detectors[ch][pl] = new PlaneConvexHullDetector(true);
 	}
 
 	// --- public ---
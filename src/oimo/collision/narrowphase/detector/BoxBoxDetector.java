@@ -3,6 +3,7 @@ package oimo.collision.narrowphase.detector;
 import oimo.collision.geometry.BoxGeometry;
 import oimo.collision.geometry.Geometry;
 import oimo.collision.narrowphase.DetectorResult;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.M;
 import oimo.common.MathUtil;
 import oimo.common.Setting;
@@ -15,22 +16,24 @@ import oimo.common.Vec3;
 public class BoxBoxDetector extends Detector {
 	private static  final double EDGE_BIAS_MULT=1.0f;
 
-	FaceClipper clipper;
+	// one workspace per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<Workspace> workspaces;
 
 	/**
 	 * Default constructor.
 	 */
 	public BoxBoxDetector() {
 		super(false);
-		clipper = new FaceClipper();
+		workspaces = ThreadLocal.withInitial(Workspace::new);
 	}
 
 	@Override 
-	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData) {
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
 		BoxGeometry b1 =  (BoxGeometry) geom1;
 		BoxGeometry b2 =  (BoxGeometry) geom2;
 
 		result.incremental = false;
+		Workspace ws = workspaces.get();
 
 		// basis of box1 := {x1, y1, z1}
 		// basis of box2 := {x2, y2, z2}
@@ -76,20 +79,20 @@ public class BoxBoxDetector extends Detector {
 		//   a = cross(z2, _) | w2|x2.a| + h2|y2.a|
 		//   a = _            | w2|x2.a| + h2|y2.a| + d2|z2.a|
 
-		Vec3 c1=new Vec3();
-		Vec3 c2=new Vec3();
-		Vec3 c12=new Vec3(); // from center1 to center2
+		Vec3 c1 = ws.c1;
+		Vec3 c2 = ws.c2;
+		Vec3 c12 = ws.c12; // from center1 to center2
 		M.vec3_assign(c1, tf1._position);
 		M.vec3_assign(c2, tf2._position);
 		M.vec3_sub(c12, c2, c1);
 
 		// bases
-		Vec3 x1=new Vec3();
-		Vec3 y1=new Vec3();
-		Vec3 z1=new Vec3();
-		Vec3 x2=new Vec3();
-		Vec3 y2=new Vec3();
-		Vec3 z2=new Vec3();
+		Vec3 x1 = ws.x1;
+		Vec3 y1 = ws.y1;
+		Vec3 z1 = ws.z1;
+		Vec3 x2 = ws.x2;
+		Vec3 y2 = ws.y2;
+		Vec3 z2 = ws.z2;
 		M.mat3_getCol(x1, tf1._rotation, 0);
 		M.mat3_getCol(y1, tf1._rotation, 1);
 		M.mat3_getCol(z1, tf1._rotation, 2);
@@ -106,12 +109,18 @@ public class BoxBoxDetector extends Detector {
 		double d2=b2._halfExtents.z;
 
 		// scaled bases by half extents
-		Vec3 sx1=x1.scale(w1);
-		Vec3 sy1=y1.scale(h1);
-		Vec3 sz1=z1.scale(d1);
-		Vec3 sx2=x2.scale(w2);
-		Vec3 sy2=y2.scale(h2);
-		Vec3 sz2=z2.scale(d2);
+		Vec3 sx1 = ws.sx1;
+		M.vec3_scale(sx1, x1, w1);
+		Vec3 sy1 = ws.sy1;
+		M.vec3_scale(sy1, y1, h1);
+		Vec3 sz1 = ws.sz1;
+		M.vec3_scale(sz1, z1, d1);
+		Vec3 sx2 = ws.sx2;
+		M.vec3_scale(sx2, x2, w2);
+		Vec3 sy2 = ws.sy2;
+		M.vec3_scale(sy2, y2, h2);
+		Vec3 sz2 = ws.sz2;
+		M.vec3_scale(sz2, z2, d2);
 		
 
 		// --------------------- SAT check start ---------------------
@@ -123,7 +132,7 @@ public class BoxBoxDetector extends Detector {
 		double mDepth = MathUtil.POSITIVE_INFINITY;
 		int mId = -1;
 		int mSign = 0;
-		Vec3 mAxis=new Vec3();
+		Vec3 mAxis = ws.mAxis.zero();
 
 		// --------------------- 6 faces ---------------------
 
@@ -268,7 +277,7 @@ public class BoxBoxDetector extends Detector {
 			mDepth = 0;
 		}
 
-		Vec3 edgeAxis=new Vec3();
+		Vec3 edgeAxis = ws.edgeAxis;
 
 		// try cross(x1, x2)
 		M.vec3_cross(edgeAxis, x1, x2);
@@ -497,13 +506,13 @@ public class BoxBoxDetector extends Detector {
 			int id2 = ( ( mId - 6 ) - ( id1 * 3 ) );
 
 			// points on the edges
-			Vec3 p1=new Vec3();
-			Vec3 p2=new Vec3();
+			Vec3 p1 = ws.p1;
+			Vec3 p2 = ws.p2;
 			
 
 			// directions
-			Vec3 dir1=new Vec3();
-			Vec3 dir2=new Vec3();
+			Vec3 dir1 = ws.dir1;
+			Vec3 dir2 = ws.dir2;
 			
 
 			switch (id1) {
@@ -537,7 +546,7 @@ public class BoxBoxDetector extends Detector {
 			M.vec3_sub(p2, c2, p2);
 
 			// compute params
-			Vec3 r=new Vec3();
+			Vec3 r = ws.r;
 			M.vec3_sub(r, p1, p2);
 
 			double dot12 = M.vec3_dot(dir1, dir2);
@@ -549,14 +558,13 @@ public class BoxBoxDetector extends Detector {
 			double t2 = (dot2r - dot12 * dot1r) * invDet;
 
 			// compute closest points and normal
-			Vec3 cp1=new Vec3();
-			Vec3 cp2=new Vec3();
+			Vec3 cp1 = ws.cp1;
+			Vec3 cp2 = ws.cp2;
 			M.vec3_addRhsScaled(cp1, p1, dir1, t1);
 			M.vec3_addRhsScaled(cp2, p2, dir2, t2);
 
-			Vec3 normal =new Vec3(-mAxis.x,-mAxis.y,-mAxis.z);
 			// add contact point
-			setNormal(result, normal);
+			setNormal(result, -mAxis.x, -mAxis.y, -mAxis.z);
 			addPoint(result, cp1, cp2, mDepth, 4);
 			return;
 		}
@@ -595,10 +603,10 @@ public class BoxBoxDetector extends Detector {
 
 		// --------------------- find reference face ---------------------
 
-		Vec3 refCenter=new Vec3();
-		Vec3 refNormal=new Vec3();
-		Vec3 refX=new Vec3();
-		Vec3 refY=new Vec3();
+		Vec3 refCenter = ws.refCenter;
+		Vec3 refNormal = ws.refNormal;
+		Vec3 refX = ws.refX;
+		Vec3 refY = ws.refY;
 		double refW;
 		double refH;
 
@@ -674,10 +682,10 @@ public class BoxBoxDetector extends Detector {
 			incId = 5;
 		}
 
-		Vec3 incV1=new Vec3();
-		Vec3 incV2=new Vec3();
-		Vec3 incV3=new Vec3();
-		Vec3 incV4=new Vec3();
+		Vec3 incV1 = ws.incV1;
+		Vec3 incV2 = ws.incV2;
+		Vec3 incV3 = ws.incV3;
+		Vec3 incV4 = ws.incV4;
 
 		switch (incId) {
 			case 0:
@@ -706,6 +714,7 @@ public class BoxBoxDetector extends Detector {
 
 		// --------------------- clip incident face ---------------------
 
+		FaceClipper clipper = ws.clipper;
 		clipper.init(refW, refH);
 		clipper.addIncidentVertex(M.vec3_dot(incV1, refX), M.vec3_dot(incV1, refY),incV1.x, incV1.y,incV1.z);
 		clipper.addIncidentVertex(M.vec3_dot(incV2, refX), M.vec3_dot(incV2, refY),incV2.x, incV2.y,incV2.z);
@@ -720,20 +729,18 @@ public class BoxBoxDetector extends Detector {
 		// --------------------- add contact points ---------------------
 
 		// set normal
-		Vec3 normal=new Vec3();
 		if (swapped) {
-			normal.set(refNormal.x,refNormal.y,refNormal.z);
+			this.setNormal(result, refNormal.x, refNormal.y, refNormal.z);
 		} else {
-			normal.set(-refNormal.x,-refNormal.y,-refNormal.z);
+			this.setNormal(result, -refNormal.x, -refNormal.y, -refNormal.z);
 		}
-		this.setNormal(result, normal);
 
 		// add contact points
 		for (int i=0; i<clipper.numVertices;i++) {
 			double clippedVertexX;
 			double clippedVertexY;
 			double clippedVertexZ;
-			IncidentVertex v = this.clipper.vertices[i];
+			IncidentVertex v = clipper.vertices[i];
 			clippedVertexX = v.wx;
 			clippedVertexY = v.wy;
 			clippedVertexZ = v.wz;
@@ -902,6 +909,48 @@ public class BoxBoxDetector extends Detector {
 		}
 	}
 
+	// the scratch vectors of a detection and the clipper, reused by the calls on a thread
+	private class Workspace {
+		FaceClipper clipper = new FaceClipper();
+
+		Vec3 c1 = new Vec3();
+		Vec3 c2 = new Vec3();
+		Vec3 c12 = new Vec3();
+
+		Vec3 x1 = new Vec3();
+		Vec3 y1 = new Vec3();
+		Vec3 z1 = new Vec3();
+		Vec3 x2 = new Vec3();
+		Vec3 y2 = new Vec3();
+		Vec3 z2 = new Vec3();
+		Vec3 sx1 = new Vec3();
+		Vec3 sy1 = new Vec3();
+		Vec3 sz1 = new Vec3();
+		Vec3 sx2 = new Vec3();
+		Vec3 sy2 = new Vec3();
+		Vec3 sz2 = new Vec3();
+
+		Vec3 mAxis = new Vec3();
+		Vec3 edgeAxis = new Vec3();
+
+		Vec3 p1 = new Vec3();
+		Vec3 p2 = new Vec3();
+		Vec3 dir1 = new Vec3();
+		Vec3 dir2 = new Vec3();
+		Vec3 r = new Vec3();
+		Vec3 cp1 = new Vec3();
+		Vec3 cp2 = new Vec3();
+
+		Vec3 refCenter = new Vec3();
+		Vec3 refNormal = new Vec3();
+		Vec3 refX = new Vec3();
+		Vec3 refY = new Vec3();
+		Vec3 incV1 = new Vec3();
+		Vec3 incV2 = new Vec3();
+		Vec3 incV3 = new Vec3();
+		Vec3 incV4 = new Vec3();
+	}
+
 	private  class FaceClipper {
 		public double w;
 		public double h;
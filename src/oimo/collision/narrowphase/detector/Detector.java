@@ -1,6 +1,7 @@
 package oimo.collision.narrowphase.detector;
 import oimo.collision.geometry.*;
 import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.Transform;
 import oimo.common.Vec3;
 
@@ -45,21 +46,29 @@ public abstract class Detector {
 		}
 	}
 
-	protected abstract void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData);
+	protected abstract void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa);
 
 	// --- public ---
 
 	/**
 	 * Computes the contact manifold of two collision geometries `geom1` and `geom2` with the transforms
 	 * `transform1` and `transform2`, and stores it to `result`. `cachedData` is used to improve performance
-	 * of collision detection in some detectors.
+	 * of collision detection in some detectors. This uses the `GjkEpa` instance of the calling thread.
 	 */
 	public void detect(DetectorResult result, Geometry geom1, Geometry geom2, Transform transform1, Transform transform2, CachedDetectorData cachedData) {
+		detect(result, geom1, geom2, transform1, transform2, cachedData, GjkEpa.getInstance());
+	}
+
+	/**
+	 * Same as `detect`, but uses `gjkEpa` for detectors that need GJK/EPA. `gjkEpa` must not be used
+	 * by another thread during the call.
+	 */
+	public void detect(DetectorResult result, Geometry geom1, Geometry geom2, Transform transform1, Transform transform2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
 		result.clear();
 		if (swapped) {
-			detectImpl(result, geom2, geom1, transform2, transform1, cachedData);
+			detectImpl(result, geom2, geom1, transform2, transform1, cachedData, gjkEpa);
 		} else {
-			detectImpl(result, geom1, geom2, transform1, transform2, cachedData);
+			detectImpl(result, geom1, geom2, transform1, transform2, cachedData, gjkEpa);
 		}
 	}
 }
@@ -16,8 +16,7 @@ public class GjkEpaDetector extends Detector {
 	}
 
 	@Override 
-	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData) {
-		GjkEpa gjkEpa = GjkEpa.getInstance();
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
 		ConvexGeometry g1 =  (ConvexGeometry) geom1;
 		ConvexGeometry g2 =  (ConvexGeometry) geom2;
 		int status = gjkEpa.computeClosestPoints(g1, g2, tf1, tf2, Setting.enableGJKCaching ? cachedData : null);
@@ -0,0 +1,84 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.*;
+import oimo.common.*;
+
+/**
+ * Heightfield vs convex detector. Only the cells under the AABB of the convex geometry are
+ * considered, and the ones whose samples are all above or below it are skipped, then GJK/EPA
+ * runs against the triangles of the remaining cells. The deepest contact is reported, and the
+ * manifold is built incrementally as for `GjkEpaDetector`.
+ */
+public class HeightfieldConvexDetector extends Detector {
+	// one workspace per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `ConvexGeometry` for the first
+	 * argument and `HeightfieldGeometry` for the second argument.
+	 */
+	public HeightfieldConvexDetector(boolean swapped) {
+		super(swapped);
+		workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		HeightfieldGeometry g1 = (HeightfieldGeometry) geom1;
+		ConvexGeometry g2 = (ConvexGeometry) geom2;
+		result.incremental = true;
+
+		Workspace ws = workspaces.get();
+		TriangleCollector collector = ws.collector;
+		collector.reset(null, g2, tf1, tf2, gjkEpa);
+
+		// the AABB of the convex geometry in the local coordinates of the heightfield
+		Aabb aabb = ws.aabb;
+		g2._computeAabb(aabb, collector.relTf);
+		double minY = aabb._min.y;
+		double maxY = aabb._max.y;
+		if (minY > g1._maxHeight || maxY < g1._minHeight) return;
+
+		// the range of the cells under the AABB
+		int maxI = g1._numX - 2;
+		int maxJ = g1._numZ - 2;
+		int i1 = (int) Math.floor((aabb._min.x - g1._originX) / g1._cellSizeX);
+		int i2 = (int) Math.floor((aabb._max.x - g1._originX) / g1._cellSizeX);
+		int j1 = (int) Math.floor((aabb._min.z - g1._originZ) / g1._cellSizeZ);
+		int j2 = (int) Math.floor((aabb._max.z - g1._originZ) / g1._cellSizeZ);
+		if (i2 < 0 || i1 > maxI || j2 < 0 || j1 > maxJ) return;
+		if (i1 < 0) i1 = 0;
+		if (i2 > maxI) i2 = maxI;
+		if (j1 < 0) j1 = 0;
+		if (j2 > maxJ) j2 = maxJ;
+
+		for (int j=j1;j<=j2;j++) {
+			for (int i=i1;i<=i2;i++) {
+				double h00 = g1._getHeight(i, j);
+				double h10 = g1._getHeight(i + 1, j);
+				double h01 = g1._getHeight(i, j + 1);
+				double h11 = g1._getHeight(i + 1, j + 1);
+				double cellMin = MathUtil.min(MathUtil.min(h00, h10), MathUtil.min(h01, h11));
+				double cellMax = MathUtil.max(MathUtil.max(h00, h10), MathUtil.max(h01, h11));
+				if (cellMin > maxY || cellMax < minY) continue;
+
+				g1._setCellTriangle(i, j, 0, collector.triangle);
+				collector.add();
+				g1._setCellTriangle(i, j, 1, collector.triangle);
+				collector.add();
+			}
+		}
+		collector.collect();
+		if (!collector.touching) return;
+
+		this.setNormal(result, collector.normal);
+		this.addPoint(result, collector.pos1, collector.pos2, collector.depth, 0);
+	}
+
+	// the collector and the AABB, reused by the calls on a thread
+	private static class Workspace {
+		TriangleCollector collector = new TriangleCollector();
+		Aabb aabb = new Aabb();
+	}
+}
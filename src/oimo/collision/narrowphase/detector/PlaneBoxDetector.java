@@ -0,0 +1,55 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.*;
+
+/**
+ * Plane vs Box collision detector. The corners of the box below the plane are the contact points.
+ */
+public class PlaneBoxDetector extends Detector {
+	// one collector per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<PlaneContactCollector> collectors;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `BoxGeometry` and `PlaneGeometry` for the
+	 * first and second argument of `PlaneBoxDetector.detect`. If `swapped` is `false`, the collision detector expects
+	 * `PlaneGeometry` and `BoxGeometry` instead.
+	 */
+	public PlaneBoxDetector(boolean swapped) {
+		super(swapped);
+		collectors = ThreadLocal.withInitial(PlaneContactCollector::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		BoxGeometry g = (BoxGeometry) geom2;
+		Mat3 r = tf2._rotation;
+		Vec3 h = g._halfExtents;
+		double xx = r.e00 * h.x;
+		double xy = r.e10 * h.x;
+		double xz = r.e20 * h.x;
+		double yx = r.e01 * h.y;
+		double yy = r.e11 * h.y;
+		double yz = r.e21 * h.y;
+		double zx = r.e02 * h.z;
+		double zy = r.e12 * h.z;
+		double zz = r.e22 * h.z;
+
+		// the eight corners, the bits of the id tell the signs of the half axes
+		PlaneContactCollector collector = collectors.get();
+		collector.reset(tf1, 8);
+		for (int i=0;i<8;i++) {
+			double sx = (i & 1) == 0 ? -1 : 1;
+			double sy = (i & 2) == 0 ? -1 : 1;
+			double sz = (i & 4) == 0 ? -1 : 1;
+			collector.add(
+				tf2._position.x + xx * sx + yx * sy + zx * sz,
+				tf2._position.y + xy * sx + yy * sy + zy * sz,
+				tf2._position.z + xz * sx + yz * sy + zz * sz,
+				0, i
+			);
+		}
+		collector.report(this, result);
+	}
+}
@@ -0,0 +1,37 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.*;
+
+/**
+ * Plane vs Capsule collision detector. The end spheres of the capsule are tested one by one.
+ */
+public class PlaneCapsuleDetector extends Detector {
+	// one collector per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<PlaneContactCollector> collectors;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `CapsuleGeometry` and `PlaneGeometry` for the
+	 * first and second argument of `PlaneCapsuleDetector.detect`. If `swapped` is `false`, the collision detector expects
+	 * `PlaneGeometry` and `CapsuleGeometry` instead.
+	 */
+	public PlaneCapsuleDetector(boolean swapped) {
+		super(swapped);
+		collectors = ThreadLocal.withInitial(PlaneContactCollector::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		CapsuleGeometry g = (CapsuleGeometry) geom2;
+		double hx = tf2._rotation.e01 * g._halfHeight;
+		double hy = tf2._rotation.e11 * g._halfHeight;
+		double hz = tf2._rotation.e21 * g._halfHeight;
+
+		PlaneContactCollector collector = collectors.get();
+		collector.reset(tf1, 2);
+		collector.add(tf2._position.x - hx, tf2._position.y - hy, tf2._position.z - hz, g._radius, 0);
+		collector.add(tf2._position.x + hx, tf2._position.y + hy, tf2._position.z + hz, g._radius, 1);
+		collector.report(this, result);
+	}
+}
@@ -0,0 +1,171 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.narrowphase.*;
+import oimo.common.*;
+
+/**
+ * Collects the points of a convex geometry below a half-space, then reports them as a full
+ * manifold. If there are more points than a manifold can hold, the deepest one and the ones
+ * spanning the largest area with it are kept. Used by the half-space detectors, which expect
+ * the half-space as the first geometry, and reused by the calls on a thread through `reset`.
+ */
+class PlaneContactCollector {
+	// the outward normal and a point of the boundary plane
+	double nx;
+	double ny;
+	double nz;
+	double ox;
+	double oy;
+	double oz;
+
+	// points of the convex geometry, as (x, y, z, depth)
+	double[] points;
+	int[] ids;
+	int numPoints;
+
+	PlaneContactCollector() {
+		points = new double[8 << 2];
+		ids = new int[8];
+		numPoints = 0;
+	}
+
+	// --- private ---
+
+	private double signedArea(int i0, int i1, int k) {
+		int o0 = i0 << 2;
+		int o1 = i1 << 2;
+		int ok = k << 2;
+		double ax = points[o1] - points[o0];
+		double ay = points[o1 + 1] - points[o0 + 1];
+		double az = points[o1 + 2] - points[o0 + 2];
+		double bx = points[ok] - points[o0];
+		double by = points[ok + 1] - points[o0 + 1];
+		double bz = points[ok + 2] - points[o0 + 2];
+		return nx * (ay * bz - az * by) + ny * (az * bx - ax * bz) + nz * (ax * by - ay * bx);
+	}
+
+	private void report(Detector detector, DetectorResult result, int i) {
+		int o = i << 2;
+		double x = points[o];
+		double y = points[o + 1];
+		double z = points[o + 2];
+		double depth = points[o + 3];
+		detector.addPoint(result, x + nx * depth, y + ny * depth, z + nz * depth, x, y, z, depth, ids[i]);
+	}
+
+	// --- internal ---
+
+	/**
+	 * Starts collecting up to `maxPoints` points below the half-space of transform `tf`.
+	 */
+	void reset(Transform tf, int maxPoints) {
+		nx = tf._rotation.e01;
+		ny = tf._rotation.e11;
+		nz = tf._rotation.e21;
+		ox = tf._position.x;
+		oy = tf._position.y;
+		oz = tf._position.z;
+		if (ids.length < maxPoints) {
+			points = new double[maxPoints << 2];
+			ids = new int[maxPoints];
+		}
+		numPoints = 0;
+	}
+
+	/**
+	 * Adds the point of the sphere of radius `radius` at `(x, y, z)` deepest in the
+	 * half-space, if the sphere touches it. `radius` is zero for a vertex.
+	 */
+	void add(double x, double y, double z, double radius, int id) {
+		double depth = radius - (nx * (x - ox) + ny * (y - oy) + nz * (z - oz));
+		if (depth <= 0) return;
+		int o = numPoints << 2;
+		points[o] = x - nx * radius;
+		points[o + 1] = y - ny * radius;
+		points[o + 2] = z - nz * radius;
+		points[o + 3] = depth;
+		ids[numPoints++] = id;
+	}
+
+	/**
+	 * Adds four points of the rim of the disk of radius `radius` at `(x, y, z)` whose unit
+	 * normal is `(ax, ay, az)`, starting from the one deepest in the half-space and a quarter
+	 * turn apart. `(ux, uy, uz)` is a unit vector in the disk, used if it faces the plane.
+	 * The ids are `id` to `id + 3`.
+	 */
+	void addRim(double x, double y, double z, double ax, double ay, double az, double ux, double uy, double uz, double radius, int id) {
+		// the direction toward the plane, projected onto the disk
+		double dot = -(nx * ax + ny * ay + nz * az);
+		double dx = -nx - ax * dot;
+		double dy = -ny - ay * dot;
+		double dz = -nz - az * dot;
+		double len2 = dx * dx + dy * dy + dz * dz;
+		if (len2 > 1e-18) {
+			double invLen = 1 / MathUtil.sqrt(len2);
+			ux = dx * invLen;
+			uy = dy * invLen;
+			uz = dz * invLen;
+		}
+		double wx = ay * uz - az * uy;
+		double wy = az * ux - ax * uz;
+		double wz = ax * uy - ay * ux;
+		add(x + ux * radius, y + uy * radius, z + uz * radius, 0, id);
+		add(x + wx * radius, y + wy * radius, z + wz * radius, 0, id + 1);
+		add(x - ux * radius, y - uy * radius, z - uz * radius, 0, id + 2);
+		add(x - wx * radius, y - wy * radius, z - wz * radius, 0, id + 3);
+	}
+
+	/**
+	 * Sets the normal and the points of `result`.
+	 */
+	void report(Detector detector, DetectorResult result) {
+		result.incremental = false;
+		if (numPoints == 0) return;
+		detector.setNormal(result, -nx, -ny, -nz);
+
+		if (numPoints <= Setting.maxManifoldPoints) {
+			for (int i=0;i<numPoints;i++) {
+				report(detector, result, i);
+			}
+			return;
+		}
+
+		// the deepest point, the farthest one from it, then the ones on both sides of them
+		int i0 = 0;
+		for (int i=1;i<numPoints;i++) {
+			if (points[(i << 2) + 3] > points[(i0 << 2) + 3]) i0 = i;
+		}
+		int i1 = -1;
+		double maxDist = 0;
+		for (int i=0;i<numPoints;i++) {
+			double dx = points[i << 2] - points[i0 << 2];
+			double dy = points[(i << 2) + 1] - points[(i0 << 2) + 1];
+			double dz = points[(i << 2) + 2] - points[(i0 << 2) + 2];
+			double dist = dx * dx + dy * dy + dz * dz;
+			if (dist > maxDist) {
+				maxDist = dist;
+				i1 = i;
+			}
+		}
+		report(detector, result, i0);
+		if (i1 == -1) return;
+		report(detector, result, i1);
+
+		int i2 = -1;
+		int i3 = -1;
+		double maxArea = 0;
+		double minArea = 0;
+		for (int i=0;i<numPoints;i++) {
+			double area = signedArea(i0, i1, i);
+			if (area > maxArea) {
+				maxArea = area;
+				i2 = i;
+			}
+			if (area < minArea) {
+				minArea = area;
+				i3 = i;
+			}
+		}
+		if (i2 != -1) report(detector, result, i2);
+		if (i3 != -1) report(detector, result, i3);
+	}
+}
@@ -0,0 +1,44 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.*;
+
+/**
+ * Plane vs Convex Hull collision detector. The vertices of the hull below the plane are the
+ * contact points, rounded by the GJK margin as in `GjkEpaDetector`.
+ */
+public class PlaneConvexHullDetector extends Detector {
+	// one collector per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<PlaneContactCollector> collectors;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `ConvexHullGeometry` and `PlaneGeometry` for the
+	 * first and second argument of `PlaneConvexHullDetector.detect`. If `swapped` is `false`, the collision detector expects
+	 * `PlaneGeometry` and `ConvexHullGeometry` instead.
+	 */
+	public PlaneConvexHullDetector(boolean swapped) {
+		super(swapped);
+		collectors = ThreadLocal.withInitial(PlaneContactCollector::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		ConvexHullGeometry g = (ConvexHullGeometry) geom2;
+		int n = g._numVertices;
+		Mat3 r = tf2._rotation;
+		Vec3 p = tf2._position;
+		PlaneContactCollector collector = collectors.get();
+		collector.reset(tf1, n);
+		for (int i=0;i<n;i++) {
+			Vec3 v = g._vertices[i];
+			collector.add(
+				r.e00 * v.x + r.e01 * v.y + r.e02 * v.z + p.x,
+				r.e10 * v.x + r.e11 * v.y + r.e12 * v.z + p.y,
+				r.e20 * v.x + r.e21 * v.y + r.e22 * v.z + p.z,
+				g._gjkMargin, i
+			);
+		}
+		collector.report(this, result);
+	}
+}
@@ -0,0 +1,40 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.*;
+
+/**
+ * Plane vs Cylinder collision detector. Four points of the rim of each cap, starting from the
+ * deepest one, are the candidate contact points.
+ */
+public class PlaneCylinderDetector extends Detector {
+	// one collector per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<PlaneContactCollector> collectors;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `CylinderGeometry` and `PlaneGeometry` for the
+	 * first and second argument of `PlaneCylinderDetector.detect`. If `swapped` is `false`, the collision detector expects
+	 * `PlaneGeometry` and `CylinderGeometry` instead.
+	 */
+	public PlaneCylinderDetector(boolean swapped) {
+		super(swapped);
+		collectors = ThreadLocal.withInitial(PlaneContactCollector::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		CylinderGeometry g = (CylinderGeometry) geom2;
+		Mat3 r = tf2._rotation;
+		double hx = r.e01 * g._halfHeight;
+		double hy = r.e11 * g._halfHeight;
+		double hz = r.e21 * g._halfHeight;
+
+		PlaneContactCollector collector = collectors.get();
+		collector.reset(tf1, 8);
+		Vec3 p = tf2._position;
+		collector.addRim(p.x - hx, p.y - hy, p.z - hz, r.e01, r.e11, r.e21, r.e00, r.e10, r.e20, g._radius, 0);
+		collector.addRim(p.x + hx, p.y + hy, p.z + hz, r.e01, r.e11, r.e21, r.e00, r.e10, r.e20, g._radius, 4);
+		collector.report(this, result);
+	}
+}
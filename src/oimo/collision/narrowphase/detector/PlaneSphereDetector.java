@@ -0,0 +1,42 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.*;
+
+/**
+ * Plane vs Sphere collision detector.
+ */
+public class PlaneSphereDetector extends Detector {
+	/**
+	 * If `swapped` is `true`, the collision detector expects `SphereGeometry` and `PlaneGeometry` for the
+	 * first and second argument of `PlaneSphereDetector.detect`. If `swapped` is `false`, the collision detector expects
+	 * `PlaneGeometry` and `SphereGeometry` instead.
+	 */
+	public PlaneSphereDetector(boolean swapped) {
+		super(swapped);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		SphereGeometry g = (SphereGeometry) geom2;
+		result.incremental = false;
+
+		// the outward normal of the plane
+		double nx = tf1._rotation.e01;
+		double ny = tf1._rotation.e11;
+		double nz = tf1._rotation.e21;
+		Vec3 c = tf2._position;
+		Vec3 o = tf1._position;
+		double r = g._radius;
+		double depth = r - (nx * (c.x - o.x) + ny * (c.y - o.y) + nz * (c.z - o.z));
+		if (depth <= 0) return;
+
+		// the deepest point of the sphere, and its projection onto the plane
+		double x = c.x - nx * r;
+		double y = c.y - ny * r;
+		double z = c.z - nz * r;
+		this.setNormal(result, -nx, -ny, -nz);
+		this.addPoint(result, x + nx * depth, y + ny * depth, z + nz * depth, x, y, z, depth, 0);
+	}
+}
@@ -2,10 +2,10 @@ package oimo.collision.narrowphase.detector;
 
 import oimo.collision.geometry.*;
 import oimo.collision.narrowphase.*;
-import oimo.common.M;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
+import oimo.common.Mat3;
 import oimo.common.MathUtil;
 import oimo.common.Transform;
-import oimo.common.Vec3;
 
 /**
  * Sphere vs Box collision detector.
@@ -21,7 +21,7 @@ public class SphereBoxDetector extends Detector {
 	}
 
 	@Override 
-	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData) {
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
 		SphereGeometry s =  (SphereGeometry) geom1;
 		BoxGeometry b =  (BoxGeometry) geom2;
 
@@ -29,22 +29,30 @@ public class SphereBoxDetector extends Detector {
 		
 		double r = s._radius;
 		
-		//find min and max half extents of box
-		Vec3 halfExt=b._halfExtents.clone();
-		Vec3 negHalfExt=b._halfExtents.clone().negateEq();
-			
+		// half extents of the box
+		double hx = b._halfExtents.x;
+		double hy = b._halfExtents.y;
+		double hz = b._halfExtents.z;
+
 		//find center of sphere in boxframe	
-		Vec3 boxToSphereInBox= new Vec3();
-		M.vec3_sub(boxToSphereInBox, tf1._position, tf2._position);
-		M.vec3_mulMat3Transposed(boxToSphereInBox, boxToSphereInBox, tf2._rotation);
+		double dx = tf1._position.x - tf2._position.x;
+		double dy = tf1._position.y - tf2._position.y;
+		double dz = tf1._position.z - tf2._position.z;
+		Mat3 r2 = tf2._rotation;
+		double boxToSphereInBoxX = r2.e00 * dx + r2.e10 * dy + r2.e20 * dz;
+		double boxToSphereInBoxY = r2.e01 * dx + r2.e11 * dy + r2.e21 * dz;
+		double boxToSphereInBoxZ = r2.e02 * dx + r2.e12 * dy + r2.e22 * dz;
 		
 		// is the center of the sphere inside the box?
-		boolean insideBox = M.aabb_overlap(negHalfExt, halfExt, boxToSphereInBox, boxToSphereInBox);
+		boolean insideBox =
+			-hx < boxToSphereInBoxX && hx > boxToSphereInBoxX &&
+			-hy < boxToSphereInBoxY && hy > boxToSphereInBoxY &&
+			-hz < boxToSphereInBoxZ && hz > boxToSphereInBoxZ;
 		if(insideBox) {
 			// compute minimum distance between the center of the sphere and the box's surfaces that are perpendicular to each axis
-			double  distX = halfExt.x-Math.abs(boxToSphereInBox.x);
-			double  distY = halfExt.y-Math.abs(boxToSphereInBox.y);
-			double  distZ = halfExt.z-Math.abs(boxToSphereInBox.z);
+			double  distX = hx-Math.abs(boxToSphereInBoxX);
+			double  distY = hy-Math.abs(boxToSphereInBoxY);
+			double  distZ = hz-Math.abs(boxToSphereInBoxZ);
 			
 			double  normalInBoxX;
 			double  normalInBoxY;
@@ -57,7 +65,7 @@ public class SphereBoxDetector extends Detector {
 			// ... and select the smallest one, setting normal
 			if(distX < distY) {
 				if(distX < distZ) {
-					if(boxToSphereInBox.x > 0) {
+					if(boxToSphereInBoxX > 0) {
 						normalInBoxX = 1;
 						normalInBoxY = 0;
 						normalInBoxZ = 0;
@@ -71,7 +79,7 @@ public class SphereBoxDetector extends Detector {
 					projectionMaskZ = 1;
 					depth = distX;
 				} else {
-					if(boxToSphereInBox.z > 0) {
+					if(boxToSphereInBoxZ > 0) {
 						normalInBoxX = 0;
 						normalInBoxY = 0;
 						normalInBoxZ = 1;
@@ -86,7 +94,7 @@ public class SphereBoxDetector extends Detector {
 					depth = distZ;
 				}
 			} else if(distY < distZ) {
-				if(boxToSphereInBox.y > 0) {
+				if(boxToSphereInBoxY > 0) {
 					normalInBoxX = 0;
 					normalInBoxY = 1;
 					normalInBoxZ = 0;
@@ -100,7 +108,7 @@ public class SphereBoxDetector extends Detector {
 				projectionMaskZ = 1;
 				depth = distY;
 			} else {
-				if(boxToSphereInBox.z > 0) {
+				if(boxToSphereInBoxZ > 0) {
 					normalInBoxX = 0;
 					normalInBoxY = 0;
 					normalInBoxZ = 1;
@@ -117,13 +125,13 @@ public class SphereBoxDetector extends Detector {
 			
 			
 			// compute the closest point
-			double baseX = projectionMaskX * boxToSphereInBox.x;
-			double baseY = projectionMaskY * boxToSphereInBox.y;
-			double baseZ = projectionMaskZ * boxToSphereInBox.z;
+			double baseX = projectionMaskX * boxToSphereInBoxX;
+			double baseY = projectionMaskY * boxToSphereInBoxY;
+			double baseZ = projectionMaskZ * boxToSphereInBoxZ;
 			
-			double boxToClosestPointInBoxX = normalInBoxX * halfExt.x;
-			double boxToClosestPointInBoxY = normalInBoxY * halfExt.y;
-			double boxToClosestPointInBoxZ = normalInBoxZ * halfExt.z;
+			double boxToClosestPointInBoxX = normalInBoxX * hx;
+			double boxToClosestPointInBoxY = normalInBoxY * hy;
+			double boxToClosestPointInBoxZ = normalInBoxZ * hz;
 			boxToClosestPointInBoxX += baseX;
 			boxToClosestPointInBoxY += baseY;
 			boxToClosestPointInBoxZ += baseZ;
@@ -158,16 +166,17 @@ public class SphereBoxDetector extends Detector {
 
 		// compute the closest point to the center of the sphere; just clamp the coordinate of sphere to box AABB
 		double eps = 1e-9;
-		halfExt.sub3Eq(eps,eps,eps);
-		negHalfExt.add3Eq(eps,eps,eps);
+		hx -= eps;
+		hy -= eps;
+		hz -= eps;
 		//clamp 
-		double boxToClosestPointInBoxX=MathUtil.clamp(boxToSphereInBox.x, negHalfExt.x,halfExt.x);
-		double boxToClosestPointInBoxY=MathUtil.clamp(boxToSphereInBox.y, negHalfExt.y,halfExt.y);
-		double boxToClosestPointInBoxZ=MathUtil.clamp(boxToSphereInBox.z, negHalfExt.z,halfExt.z);
+		double boxToClosestPointInBoxX=MathUtil.clamp(boxToSphereInBoxX, -hx, hx);
+		double boxToClosestPointInBoxY=MathUtil.clamp(boxToSphereInBoxY, -hy, hy);
+		double boxToClosestPointInBoxZ=MathUtil.clamp(boxToSphereInBoxZ, -hz, hz);
 		
-		double closestPointToSphereInBoxX = boxToSphereInBox.x - boxToClosestPointInBoxX;
-		double closestPointToSphereInBoxY = boxToSphereInBox.y - boxToClosestPointInBoxY;
-		double closestPointToSphereInBoxZ = boxToSphereInBox.z - boxToClosestPointInBoxZ;
+		double closestPointToSphereInBoxX = boxToSphereInBoxX - boxToClosestPointInBoxX;
+		double closestPointToSphereInBoxY = boxToSphereInBoxY - boxToClosestPointInBoxY;
+		double closestPointToSphereInBoxZ = boxToSphereInBoxZ - boxToClosestPointInBoxZ;
 		
 		//check if closest point to sphere lies inside sphere
 		double dist = closestPointToSphereInBoxX * closestPointToSphereInBoxX + closestPointToSphereInBoxY * closestPointToSphereInBoxY + closestPointToSphereInBoxZ * closestPointToSphereInBoxZ;
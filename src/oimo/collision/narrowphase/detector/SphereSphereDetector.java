@@ -1,6 +1,7 @@
 package oimo.collision.narrowphase.detector;
 import oimo.collision.geometry.*;
 import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.MathUtil;
 import oimo.common.Transform;
 
@@ -16,7 +17,7 @@ public class SphereSphereDetector extends Detector {
 	}
 
 	@Override
-	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData) {
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
 		SphereGeometry s1 =  (SphereGeometry) geom1;
 		SphereGeometry s2 =  (SphereGeometry) geom2;
 
@@ -0,0 +1,203 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.detector.gjkepa.*;
+import oimo.common.*;
+
+/**
+ * Runs GJK/EPA between a convex geometry and triangles, and keeps the deepest contact. The
+ * triangles are either reported by a mesh query to `process`, or set to `triangle` before
+ * calling `add`, then `collect` runs GJK/EPA. A collector is reused by the detections of a
+ * thread, each starting with `reset`.
+ *
+ * The distance between the convex geometry and a triangle is at least the distance from
+ * the convex geometry to the plane of the triangle, which only needs two supporting vertices.
+ * So the triangles are tested in the decreasing order of the depth this bound allows, and
+ * the test stops once no remaining triangle can be deeper than the deepest contact found.
+ */
+class TriangleCollector extends TriangleMeshCallback {
+	TriangleMesh mesh;
+	TriangleGeometry triangle;
+	ConvexGeometry convex;
+	Transform tf1;
+	Transform tf2;
+	Transform relTf;
+	GjkEpa gjkEpa;
+
+	// the candidate triangles, in the local coordinates of the triangles, and their depth bounds
+	int numCandidates;
+	double[] candidates;
+	double[] maxDepths;
+
+	boolean touching;
+	double depth;
+	Vec3 pos1;
+	Vec3 pos2;
+	Vec3 normal;
+
+	Vec3 planeNormal;
+	Vec3 dir;
+	Vec3 support;
+	Vec3 contactNormal;
+
+	TriangleCollector() {
+		relTf = new Transform();
+		triangle = new TriangleGeometry();
+		numCandidates = 0;
+		candidates = new double[16 * 9];
+		maxDepths = new double[16];
+		touching = false;
+		depth = 0;
+		pos1 = new Vec3();
+		pos2 = new Vec3();
+		normal = new Vec3();
+		planeNormal = new Vec3();
+		dir = new Vec3();
+		support = new Vec3();
+		contactNormal = new Vec3();
+	}
+
+	// --- private ---
+
+	// returns the signed distance from the core of the convex geometry to the plane of the
+	// triangle through `v` along `n`, negative if the core crosses the plane
+	private double planeDistance(Vec3 v, Vec3 n) {
+		M.vec3_mulMat3Transposed(dir, n, relTf._rotation);
+		M.vec3_negate(dir, dir);
+		convex.computeLocalSupportingVertex(dir, support);
+		M.vec3_mulMat3(support, support, relTf._rotation);
+		M.vec3_add(support, support, relTf._position);
+		M.vec3_sub(support, support, v);
+		return M.vec3_dot(support, n);
+	}
+
+	// --- internal ---
+
+	/**
+	 * Starts a detection between `convex` of transform `tf2` and the triangles of transform
+	 * `tf1`, and computes `relTf`, the transform of the convex geometry relative to the triangles.
+	 */
+	void reset(TriangleMesh mesh, ConvexGeometry convex, Transform tf1, Transform tf2, GjkEpa gjkEpa) {
+		this.mesh = mesh;
+		this.convex = convex;
+		this.tf1 = tf1;
+		this.tf2 = tf2;
+		this.gjkEpa = gjkEpa;
+		M.vec3_sub(relTf._position, tf2._position, tf1._position);
+		M.vec3_mulMat3Transposed(relTf._position, relTf._position, tf1._rotation);
+		M.mat3_mulLhsTransposed(relTf._rotation, tf1._rotation, tf2._rotation);
+		numCandidates = 0;
+		touching = false;
+		depth = 0;
+	}
+
+	@Override
+	public void process(int t) {
+		triangle._setTriangle(mesh, t);
+		add();
+	}
+
+	/**
+	 * Adds `triangle` to the candidates, unless it is too far from the convex geometry.
+	 */
+	void add() {
+		Vec3 v1 = triangle._vertex1;
+		Vec3 v2 = triangle._vertex2;
+		Vec3 v3 = triangle._vertex3;
+		Vec3 n = planeNormal;
+		Vec3 e1 = dir;
+		Vec3 e2 = support;
+		M.vec3_sub(e1, v2, v1);
+		M.vec3_sub(e2, v3, v1);
+		M.vec3_cross(n, e1, e2);
+
+		// the distance is at least the one to the plane, on whichever side the convex is
+		double maxDepth = MathUtil.POSITIVE_INFINITY;
+		if (M.vec3_dot(n, n) > 1e-24) {
+			M.vec3_normalize(n, n);
+			double d1 = planeDistance(v1, n);
+			M.vec3_negate(n, n);
+			double d2 = planeDistance(v1, n);
+			double minDistance = d1 > d2 ? d1 : d2;
+			if (minDistance > convex._gjkMargin) return; // separating
+			maxDepth = convex._gjkMargin - minDistance;
+		}
+
+		if (numCandidates == maxDepths.length) {
+			double[] newCandidates = new double[numCandidates * 2 * 9];
+			double[] newMaxDepths = new double[numCandidates * 2];
+			System.arraycopy(candidates, 0, newCandidates, 0, numCandidates * 9);
+			System.arraycopy(maxDepths, 0, newMaxDepths, 0, numCandidates);
+			candidates = newCandidates;
+			maxDepths = newMaxDepths;
+		}
+		int o = numCandidates * 9;
+		candidates[o] = v1.x;
+		candidates[o + 1] = v1.y;
+		candidates[o + 2] = v1.z;
+		candidates[o + 3] = v2.x;
+		candidates[o + 4] = v2.y;
+		candidates[o + 5] = v2.z;
+		candidates[o + 6] = v3.x;
+		candidates[o + 7] = v3.y;
+		candidates[o + 8] = v3.z;
+		maxDepths[numCandidates++] = maxDepth;
+	}
+
+	/**
+	 * Runs GJK/EPA against the candidates that can be deeper than the deepest contact found.
+	 */
+	void collect() {
+		while (numCandidates > 0) {
+			// take the candidate of the greatest depth bound
+			int best = 0;
+			for (int i=1;i<numCandidates;i++) {
+				if (maxDepths[i] > maxDepths[best]) best = i;
+			}
+			double maxDepth = maxDepths[best];
+			if (touching && maxDepth <= depth) break;
+
+			int o = best * 9;
+			triangle._vertex1.set(candidates[o], candidates[o + 1], candidates[o + 2]);
+			triangle._vertex2.set(candidates[o + 3], candidates[o + 4], candidates[o + 5]);
+			triangle._vertex3.set(candidates[o + 6], candidates[o + 7], candidates[o + 8]);
+			int last = --numCandidates;
+			System.arraycopy(candidates, last * 9, candidates, o, 9);
+			maxDepths[best] = maxDepths[last];
+
+			test();
+		}
+		numCandidates = 0;
+	}
+
+	// runs GJK/EPA against `triangle`
+	void test() {
+		int status = gjkEpa.computeClosestPoints(triangle, convex, tf1, tf2, null);
+		if (status != GjkEpaResultState.SUCCEEDED) {
+			return; // degenerate triangle
+		}
+
+		double margin = convex._gjkMargin;
+		if (gjkEpa.distance > margin) { // separating
+			return;
+		}
+		double d = margin - gjkEpa.distance;
+		if (touching && d <= depth) return;
+
+		Vec3 n = contactNormal;
+		M.vec3_sub(n, gjkEpa.closestPoint1, gjkEpa.closestPoint2);
+		if (M.vec3_dot(n, n) == 0) {
+			return; // core geometries are just touching
+		}
+		if (gjkEpa.distance < 0) {
+			M.vec3_negate(n, n);
+		}
+		M.vec3_normalize(n, n);
+
+		// the triangle has no margin, move the closest point of the convex to its surface
+		touching = true;
+		depth = d;
+		normal.copyFrom(n);
+		pos1.copyFrom(gjkEpa.closestPoint1);
+		M.vec3_addRhsScaled(pos2, gjkEpa.closestPoint2, n, margin);
+	}
+}
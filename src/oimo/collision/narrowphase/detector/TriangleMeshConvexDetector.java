@@ -0,0 +1,57 @@
+package oimo.collision.narrowphase.detector;
+import oimo.collision.geometry.*;
+import oimo.collision.narrowphase.*;
+import oimo.collision.narrowphase.detector.gjkepa.*;
+import oimo.common.*;
+
+/**
+ * Triangle mesh vs convex detector. The triangles under the AABB of the convex geometry are
+ * found by the hierarchy of the mesh, then GJK/EPA runs against each of them. The deepest
+ * contact is reported, and the manifold is built incrementally as for `GjkEpaDetector`.
+ */
+public class TriangleMeshConvexDetector extends Detector {
+	// one workspace per thread, detectors are shared by the workers of the parallel narrow-phase
+	ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * If `swapped` is `true`, the collision detector expects `ConvexGeometry` for the first
+	 * argument and `TriangleMeshGeometry` for the second argument.
+	 */
+	public TriangleMeshConvexDetector(boolean swapped) {
+		super(swapped);
+		workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	@Override
+	protected void detectImpl(DetectorResult result, Geometry geom1, Geometry geom2, Transform tf1, Transform tf2, CachedDetectorData cachedData, GjkEpa gjkEpa) {
+		TriangleMeshGeometry g1 = (TriangleMeshGeometry) geom1;
+		ConvexGeometry g2 = (ConvexGeometry) geom2;
+		result.incremental = true;
+
+		Workspace ws = workspaces.get();
+		TriangleCollector collector = ws.collector;
+		collector.reset(g1._mesh, g2, tf1, tf2, gjkEpa);
+
+		// the AABB of the convex geometry in the local coordinates of the mesh
+		Aabb aabb = ws.aabb;
+		g2._computeAabb(aabb, collector.relTf);
+
+		int[] stack = ws.stack;
+		if (stack.length < g1._mesh._height + 2) {
+			stack = ws.stack = g1._mesh._createStack();
+		}
+		g1._mesh._aabbTest(aabb._min, aabb._max, stack, collector);
+		collector.collect();
+		if (!collector.touching) return;
+
+		this.setNormal(result, collector.normal);
+		this.addPoint(result, collector.pos1, collector.pos2, collector.depth, 0);
+	}
+
+	// the collector, the AABB and the stack of the mesh query, reused by the calls on a thread
+	private static class Workspace {
+		TriangleCollector collector = new TriangleCollector();
+		Aabb aabb = new Aabb();
+		int[] stack = new int[0];
+	}
+}
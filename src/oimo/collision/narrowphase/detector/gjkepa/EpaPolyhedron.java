@@ -17,6 +17,8 @@ public class EpaPolyhedron {
 
 	public EpaTriangle _trianglePool;
 	public EpaVertex _vertexPool;
+	// number of vertices ever created, gives the ids of the vertices
+	public int _numCreatedVertices;
 
 	public Vec3 _center;
 	public int _status;
@@ -30,6 +32,7 @@ public class EpaPolyhedron {
 		_numTriangles = 0;
 		_trianglePool = null;
 		_vertexPool = null;
+		_numCreatedVertices = 0;
 	}
 
 	// --- private ---
@@ -109,11 +112,11 @@ public class EpaPolyhedron {
 	public void findEdgeLoop(int id,EpaTriangle base, Vec3 from) {
 		if (base._tmpDfsId == id) return;
 		base._tmpDfsId = id;
-		GjkEpaLog.log("DFS: " + base.id);
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("DFS: " + base.id);
 		
 		if (!base.checkVisible(id, from)) {
 			_status = EpaPolyhedronState.TRIANGLE_INVISIBLE;
-			GjkEpaLog.log("tri " + base.id + " is invisible!");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("tri " + base.id + " is invisible!");
 			return;
 		}
 
@@ -122,12 +125,12 @@ public class EpaPolyhedron {
 			EpaTriangle t = base._adjacentTriangles[i];
 			if (t == null) continue;
 			if (t.checkVisible(id, from)) {
-				GjkEpaLog.log("tri " + t.id + " is visible.");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("tri " + t.id + " is visible.");
 				findEdgeLoop(id, t, from);
 			} else {
 				// triangle `base` can be seen from `from`, but triangle `t` cannot.
-				GjkEpaLog.log("tri " + t.id + " is invisible.");
-				GjkEpaLog.log("added edge: " + base.id + " " + t.id);
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("tri " + t.id + " is invisible.");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("added edge: " + base.id + " " + t.id);
 				int i2 = base._nextIndex[i];
 				EpaVertex v1 = base._vertices[i];
 				EpaVertex v2 = base._vertices[i2];
@@ -160,7 +163,7 @@ public class EpaPolyhedron {
 	
 	private void removeTriangle(EpaTriangle t){
 		this._numTriangles--;
-		GjkEpaLog.log("triangle removed " + _numTriangles + ", id: " + t.id);
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("triangle removed " + _numTriangles + ", id: " + t.id);
 		
 		EpaTriangle prev = t._prev;
 		EpaTriangle next = t._next;
@@ -194,6 +197,7 @@ public class EpaPolyhedron {
 			first._next = null;
 		} else {
 			first = new EpaVertex();
+			first.id = _numCreatedVertices++;
 		}
 		return first;
 	}
@@ -425,12 +429,12 @@ public class EpaPolyhedron {
 
 	public boolean _addVertex(EpaVertex vertex, EpaTriangle base) {
 		this._vertices[this._numVertices++] = vertex;
-		GjkEpaLog.log("vertex added " + _numVertices + " " + vertex.v);
-		GjkEpaLog.log("begin polyhedron modifying...");
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("vertex added " + _numVertices + " " + vertex.v);
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("begin polyhedron modifying...");
 
 		EpaVertex v1 = base._vertices[0];
 		
-		GjkEpaLog.log("trying to find a edge loop... v=" + vertex.v);
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("trying to find a edge loop... v=" + vertex.v);
 		// make a hole on the polyhedron finding its edge loop
 		this.findEdgeLoop(this._numVertices,base,vertex.v);
 		if(this._status != 0) {
@@ -445,7 +449,7 @@ public class EpaPolyhedron {
 		EpaTriangle firstT = null;
 		do {
 			if(v._tmpEdgeLoopNext == null) {
-				GjkEpaLog.log("edge loop is broken:");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("edge loop is broken:");
 				this._dumpAsObjModel();
 				this._status = EpaPolyhedronState.EDGE_LOOP_BROKEN;
 				return false;
@@ -456,7 +460,7 @@ public class EpaPolyhedron {
 			}
 			EpaTriangle t = pickTriangle();
 			if (firstT == null) firstT = t;
-			GjkEpaLog.log("patching...");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("patching...");
 
 			initTriangle(t, v, v._tmpEdgeLoopNext, vertex, _center,false);
 			if (_status != EpaPolyhedronState.OK) return false;
@@ -82,14 +82,14 @@ public class EpaTriangle {
 		double d = M.vec3_dot(vc1, inor);
 		if (d < 0) {
 			if (autoCheck) {
-				GjkEpaLog.log("found the triangle inverted, but it does not matter.");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("found the triangle inverted, but it does not matter.");
 				// vertices must be CCW
 				EpaVertex tmp = vertex2;
 				vertex2 = vertex3;
 				vertex3 = tmp;
 				M.vec3_scale(inor, inor, -1);
 			} else {
-				GjkEpaLog.log("the triangle is inverted!");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("the triangle is inverted!");
 				inverted = true;
 				//return false;
 			}
@@ -126,8 +126,8 @@ public class EpaTriangle {
 			}
 		}
 		if (count != 1) {
-			GjkEpaLog.log(_vertices[0].randId + " " + _vertices[1].randId + " " + _vertices[2].randId);
-			GjkEpaLog.log(triangle._vertices[0].randId + " " + triangle._vertices[1].randId + " " + triangle._vertices[2].randId);
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log(_vertices[0].id + " " + _vertices[1].id + " " + _vertices[2].id);
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log(triangle._vertices[0].id + " " + triangle._vertices[1].id + " " + triangle._vertices[2].id);
 			System.out.println("EPTriangle.java : invalid Polyhedron");
 			return false; // invalid polyhedron
 		}
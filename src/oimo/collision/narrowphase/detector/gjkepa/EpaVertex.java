@@ -1,5 +1,4 @@
 package oimo.collision.narrowphase.detector.gjkepa;
-import oimo.common.MathUtil;
 import oimo.common.Vec3;
 
 /**
@@ -15,7 +14,8 @@ public class EpaVertex {
 	public EpaVertex _tmpEdgeLoopNext;
 	public EpaTriangle _tmpEdgeLoopOuterTriangle;
 
-	public int randId=(int) (MathUtil.rand()*100000);
+	// identifies the vertex in the log, unique within its polyhedron
+	public int id;
 
 	public EpaVertex() {
 		v = new Vec3();
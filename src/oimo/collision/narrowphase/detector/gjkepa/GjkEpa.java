@@ -17,7 +17,8 @@ public class GjkEpa {
 	Transform tf1;
 	Transform tf2;
 
-	public static GjkEpa instance = new GjkEpa();
+	// one instance per thread, so that detectors and queries on different threads never share scratch
+	private static final ThreadLocal<GjkEpa> instances = ThreadLocal.withInitial(GjkEpa::new);
 
 	// ------------------------------------------------------------- for GJK
 
@@ -72,7 +73,8 @@ public class GjkEpa {
 
 	/**
 	 * Default constructor. Consider using `GjkEpa.getInstance` instead of creating
-	 * a new instance.
+	 * a new instance. An instance must not be used by multiple threads at the same
+	 * time.
 	 */
 	public GjkEpa() {
 		s = new Vec3[4];
@@ -149,31 +151,31 @@ public class GjkEpa {
 		while (count < max) {
 			// project the origin to the simplex and compute index of voronoi region of the origin.
 			int v = 0;
-			GjkEpaLog.log("simplex size: $simplexSize");
-			GjkEpaLog.log("projecting the origin to the simplex...");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("simplex size: $simplexSize");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("projecting the origin to the simplex...");
 			switch (simplexSize) {
 			case 1:
 				closest.copyFrom(s[0]);
-				GjkEpaLog.log("$"+s[0]);
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("$"+s[0]);
 				v = 1;
 				break;
 			case 2:
 				v = SimplexUtil.projectOrigin2(s[0], s[1], closest);
-				GjkEpaLog.log("${s[0]}");
-				GjkEpaLog.log("${s[1]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[0]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[1]}");
 				break;
 			case 3:
 				v = SimplexUtil.projectOrigin3(s[0], s[1], s[2], closest);
-				GjkEpaLog.log("${s[0]}");
-				GjkEpaLog.log("${s[1]}");
-				GjkEpaLog.log("${s[2]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[0]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[1]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[2]}");
 				break;
 			case 4:
 				v = SimplexUtil.projectOrigin4(s[0], s[1], s[2], s[3], closest);
-				GjkEpaLog.log("${s[0]}");
-				GjkEpaLog.log("${s[1]}");
-				GjkEpaLog.log("${s[2]}");
-				GjkEpaLog.log("${s[3]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[0]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[1]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[2]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("${s[3]}");
 			}
 
 			// check if the origin is touching or inside the simplex
@@ -187,15 +189,15 @@ public class GjkEpa {
 				switch (simplexSize) {
 				case 1:
 					pointToTetrahedron();
-					GjkEpaLog.log("point -> tetrahedron");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("point -> tetrahedron");
 					break;
 				case 2:
 					lineToTetrahedron();
-					GjkEpaLog.log("line -> tetrahedron");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("line -> tetrahedron");
 					break;
 				case 3:
 					triangleToTetrahedron();
-					GjkEpaLog.log("triangle -> tetrahedron");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("triangle -> tetrahedron");
 				}
 				if (simplexSize == 4) {
 					int epaState = computeDepth(c1, c2, tf1, tf2, s, w1, w2);
@@ -211,7 +213,7 @@ public class GjkEpa {
 				return GjkEpaResultState._GJK_FAILED_TO_MAKE_TETRAHEDRON;
 			}
 
-			GjkEpaLog.log("projected origin: $v");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("projected origin: $v");
 
 			// shrink the simplex according to the voronoi index of the origin
 			shrinkSimplex(v);
@@ -228,12 +230,12 @@ public class GjkEpa {
 			double d1 = closest.dot(dir);
 			double d2 = s[simplexSize].dot(dir);
 
-			GjkEpaLog.log("n: $simplexSize, prev: $closest, current: ${s[simplexSize]}, dir: $dir, iteration: $count, d2 - d1: ${d2 - d1}");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("n: $simplexSize, prev: $closest, current: ${s[simplexSize]}, dir: $dir, iteration: $count, d2 - d1: ${d2 - d1}");
 
 			if (d2 - d1 < eps2) { // terminate GJK; no improvement
 				interpolateClosestPoints();
 
-				GjkEpaLog.log("iteration: " + count);
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("iteration: " + count);
 
 				distance = closest.length(); // no improvement
 
@@ -248,14 +250,14 @@ public class GjkEpa {
 			count++;
 		}
 
-		GjkEpaLog.log("GJK failed: did not converge");
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("GJK failed: did not converge");
 		return GjkEpaResultState._GJK_DID_NOT_CONVERGE;
 	}
 
 	// `c1` can be null
 	public boolean convexCastImpl(ConvexGeometry c1, ConvexGeometry c2, Transform tf1, Transform tf2, Vec3 tl1,
 			Vec3 tl2, RayCastHit hit) {
-		GjkEpaLog.log("----------- GJK convex casting begin -----------");
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("----------- GJK convex casting begin -----------");
 
 		this.c1 = c1;
 		this.c2 = c2;
@@ -302,10 +304,10 @@ public class GjkEpa {
 			// project the origin to the simplex and compute index of voronoi region of the
 			// origin.
 			int v = 0;
-			GjkEpaLog.log("simplex size: $simplexSize");
-			GjkEpaLog.log("projecting the origin to the simplex...");
-			GjkEpaLog.log("x: $rayX");
-			GjkEpaLog.log("lambda: $lambda");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("simplex size: $simplexSize");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("projecting the origin to the simplex...");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("x: $rayX");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("lambda: $lambda");
 			switch (simplexSize) {
 			case 1:
 				closest.copyFrom(s[0]);
@@ -332,7 +334,7 @@ public class GjkEpa {
 				break;
 			}
 
-			GjkEpaLog.log("projected origin: pos = $closest, voronoi index = $v");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("projected origin: pos = $closest, voronoi index = $v");
 
 			// shrink the simplex according to the voronoi index of the origin
 			shrinkSimplex(v);
@@ -340,7 +342,7 @@ public class GjkEpa {
 			// check if the origin is touching or inside the simplex
 			if (closest.lengthSq() < eps2) {
 				if (lambda == 0 || simplexSize == 4) {
-					GjkEpaLog.log("overlapping... closest: " + closest);
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("overlapping... closest: " + closest);
 					hit.fraction = lambda;
 					return false; // overlapping
 				}
@@ -350,7 +352,7 @@ public class GjkEpa {
 				hit.fraction = lambda;
 				hit.normal.copyFrom(dir).normalize(); // previous dir
 				hit.position.copyFrom(closestPoint1).addScaledEq(tl1, lambda);
-				GjkEpaLog.log("GJK convex cast succeeded");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("GJK convex cast succeeded");
 				return true;
 			}
 
@@ -367,26 +369,26 @@ public class GjkEpa {
 			// n is the normal at the vertex p
 			Vec3 p = s[simplexSize];
 			Vec3 n = dir;
-			 GjkEpaLog.log("new vertex p = $p");
-			 GjkEpaLog.log("normal n = $n");
-			 GjkEpaLog.log("ray dir r = $rayR");
+			 if (GjkEpaLog.ENABLED) GjkEpaLog.log("new vertex p = $p");
+			 if (GjkEpaLog.ENABLED) GjkEpaLog.log("normal n = $n");
+			 if (GjkEpaLog.ENABLED) GjkEpaLog.log("ray dir r = $rayR");
 
 			// check if a part of the ray can be rejected
 			double pn = p.dot(n);
-			GjkEpaLog.log("p dot n = $pn");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("p dot n = $pn");
 			if (pn < 0) {
 				// check if entire the ray can be rejected
 				if (rayR.dot(n) >= 0) {
-					GjkEpaLog.log("rejected [0");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("rejected [0");
 					return false;
 				}
 				double dLambda = pn / rayR.dot(n);
 				lambda += dLambda;
 				if (lambda >= 1) {
-					GjkEpaLog.log("rejected 1]");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("rejected 1]");
 					return false;
 				}
-				GjkEpaLog.log("advanced: " + dLambda);
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("advanced: " + dLambda);
 				rayX.addScaledEq(rayR, dLambda);
 
 				// translate the simplex
@@ -395,7 +397,7 @@ public class GjkEpa {
 					s[i].addScaledEq(rayR, -dLambda);
 				}
 			} else {
-				GjkEpaLog.log("ray did not advance");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("ray did not advance");
 			}
 
 			// do not add new vertex to the simplex if already exists
@@ -406,18 +408,18 @@ public class GjkEpa {
 				double dz = s[i].z - s[simplexSize].z;
 				if (dx * dx + dy * dy + dz * dz < eps2) {
 					duplicate = true;
-					GjkEpaLog.log("duplicate vertex ${s[i]} and ${s[simplexSize]}");
+					if (GjkEpaLog.ENABLED) GjkEpaLog.log("duplicate vertex ${s[i]} and ${s[simplexSize]}");
 					break;
 				}
 			}
 			if (!duplicate) {
-				GjkEpaLog.log("added ${s[simplexSize]}");
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("added ${s[simplexSize]}");
 				simplexSize++;
 			}
 
 			count++;
 
-			GjkEpaLog.log("iteration: $count");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("iteration: $count");
 		}
 
 		//GjkEpaLog.log("GJK convex cast failed: did not converge");
@@ -1139,7 +1141,7 @@ public class GjkEpa {
 	public int computeDepth(ConvexGeometry convex1, ConvexGeometry convex2, Transform tf1, Transform tf2,
 			Vec3[] initialPolyhedron, Vec3[] initialPolyhedron1, Vec3[] initialPolyhedron2) {
 		
-		GjkEpaLog.log("----------- EPA begin ----------- ");
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("----------- EPA begin ----------- ");
 
 		polyhedron._clear();
 		if (!polyhedron._init(
@@ -1148,7 +1150,7 @@ public class GjkEpa {
 			polyhedron._pickVertex().init(initialPolyhedron[2], initialPolyhedron1[2], initialPolyhedron2[2]),
 			polyhedron._pickVertex().init(initialPolyhedron[3], initialPolyhedron1[3], initialPolyhedron2[3])
 		)) {
-			GjkEpaLog.log("EPA failed at initialization: " + polyhedron._status);
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("EPA failed at initialization: " + polyhedron._status);
 			return GjkEpaResultState.EPA_FAILED_TO_INIT;
 		}
 
@@ -1162,7 +1164,7 @@ public class GjkEpa {
 		while (count < maxIterations) {
 			EpaTriangle face = polyhedron._getBestTriangle();
 
-			GjkEpaLog.log("nearest face:");
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("nearest face:");
 			//GjkEpaLog.run(face.dump());
 
 			dir.copyFrom(face._normal).normalize();
@@ -1175,8 +1177,8 @@ public class GjkEpa {
 			double dot1 = v0.v.dot(dir);
 			double dot2 = supportingVertex.dot(dir);
 
-			GjkEpaLog.log("got new vertex: " + supportingVertex);
-			GjkEpaLog.log("improvement: " + dot1 + " -> " + dot2 + ", normal: " + dir.toString());
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("got new vertex: " + supportingVertex);
+			if (GjkEpaLog.ENABLED) GjkEpaLog.log("improvement: " + dot1 + " -> " + dot2 + ", normal: " + dir.toString());
 
 			if (dot2 - dot1 < 1e-6 || count == maxIterations - 1) { // no improvement
 				closest.copyFrom(dir).scaleEq(dir.dot(v0.v) / dir.lengthSq());
@@ -1231,7 +1233,7 @@ public class GjkEpa {
 			EpaVertex epaVertex = polyhedron._pickVertex().init(supportingVertex, witness1, witness2);
 			if (!polyhedron._addVertex(epaVertex, face)) {
 
-				GjkEpaLog.log("EPA failed at vertex addition: " + polyhedron._status);
+				if (GjkEpaLog.ENABLED) GjkEpaLog.log("EPA failed at vertex addition: " + polyhedron._status);
 				//GjkEpaLog.run(polyhedron._dumpAsObjModel());
 
 				return GjkEpaResultState.EPA_FAILED_TO_ADD_VERTEX;
@@ -1239,7 +1241,7 @@ public class GjkEpa {
 			count++;
 		}
 
-		GjkEpaLog.log("EPA failed: did not converge.");
+		if (GjkEpaLog.ENABLED) GjkEpaLog.log("EPA failed: did not converge.");
 		//GjkEpaLog.run(polyhedron._dumpAsObjModel());
 
 		return GjkEpaResultState.EPA_DID_NOT_CONVERGE;
@@ -1420,10 +1422,10 @@ public class GjkEpa {
 	// --- public ---
 
 	/**
-	 * Returns an instance of `GjkEpa`.
+	 * Returns the instance of `GjkEpa` confined to the calling thread.
 	 */
 	public static GjkEpa getInstance() {
-		return instance;
+		return instances.get();
 	}
 
 	/**
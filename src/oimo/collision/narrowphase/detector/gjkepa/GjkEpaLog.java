@@ -1,5 +1,8 @@
 package oimo.collision.narrowphase.detector.gjkepa;
 public class GjkEpaLog {
+	// the calls are guarded by this constant so that the messages are not even built when disabled
+	public static final boolean ENABLED = false;
+
 	public static void log(String text) {
 	//	System.out.println(text);
 	}
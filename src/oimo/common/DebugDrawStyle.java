@@ -40,6 +40,8 @@ public class DebugDrawStyle {
 	public Vec3 basisColorY = new Vec3(0.0f, 1.0f, 0.0f);
 	public Vec3 basisColorZ = new Vec3(0.0f, 0.0f, 1.0f);
 
+	public double planeHalfSize = 10.0f;
+
 	/**
 	 * Default constructor.
 	 */
@@ -2,9 +2,6 @@ package oimo.common;
 
 public class M {
 	
-	private static Mat3 _M3 =new Mat3();
-	private static Vec3 _V3 =new Vec3();
-	private static Quat _Q =new Quat();
 	private static double EPS=1e-9;
 	public static void vec3_zero(Vec3 dst) {
 		 dst.zero();
@@ -86,8 +83,17 @@ public class M {
 	 * @param src2
 	 */
 	public static void mat3_mul(Mat3 dst, Mat3 src1, Mat3 src2) {
-		_M3.copyFrom(src1).mulEq(src2);
-		dst.copyFrom(_M3);
+		dst.set(
+			src1.e00 * src2.e00 + src1.e01 * src2.e10 + src1.e02 * src2.e20,
+			src1.e00 * src2.e01 + src1.e01 * src2.e11 + src1.e02 * src2.e21,
+			src1.e00 * src2.e02 + src1.e01 * src2.e12 + src1.e02 * src2.e22,
+			src1.e10 * src2.e00 + src1.e11 * src2.e10 + src1.e12 * src2.e20,
+			src1.e10 * src2.e01 + src1.e11 * src2.e11 + src1.e12 * src2.e21,
+			src1.e10 * src2.e02 + src1.e11 * src2.e12 + src1.e12 * src2.e22,
+			src1.e20 * src2.e00 + src1.e21 * src2.e10 + src1.e22 * src2.e20,
+			src1.e20 * src2.e01 + src1.e21 * src2.e11 + src1.e22 * src2.e21,
+			src1.e20 * src2.e02 + src1.e21 * src2.e12 + src1.e22 * src2.e22
+		);
 	}
 	
 	/**
@@ -97,8 +103,17 @@ public class M {
 	 * @param src2
 	 */
 	public static void mat3_mulRhsTransposed(Mat3 dst, Mat3 src1, Mat3 src2) {
-		_M3.copyFrom(src1).mulTransposeEq(src2);
-		dst.copyFrom(_M3);
+		dst.set(
+			src1.e00 * src2.e00 + src1.e01 * src2.e01 + src1.e02 * src2.e02,
+			src1.e00 * src2.e10 + src1.e01 * src2.e11 + src1.e02 * src2.e12,
+			src1.e00 * src2.e20 + src1.e01 * src2.e21 + src1.e02 * src2.e22,
+			src1.e10 * src2.e00 + src1.e11 * src2.e01 + src1.e12 * src2.e02,
+			src1.e10 * src2.e10 + src1.e11 * src2.e11 + src1.e12 * src2.e12,
+			src1.e10 * src2.e20 + src1.e11 * src2.e21 + src1.e12 * src2.e22,
+			src1.e20 * src2.e00 + src1.e21 * src2.e01 + src1.e22 * src2.e02,
+			src1.e20 * src2.e10 + src1.e21 * src2.e11 + src1.e22 * src2.e12,
+			src1.e20 * src2.e20 + src1.e21 * src2.e21 + src1.e22 * src2.e22
+		);
 	}
 	
 	/**
@@ -108,9 +123,17 @@ public class M {
 	 * @param src2
 	 */
 	public static void mat3_mulLhsTransposed(Mat3 dst, Mat3 src1, Mat3 src2) {
-		_M3.copyFrom(src1).transposeEq();
-		_M3.mulEq(src2);
-		dst.copyFrom(_M3);
+		dst.set(
+			src1.e00 * src2.e00 + src1.e10 * src2.e10 + src1.e20 * src2.e20,
+			src1.e00 * src2.e01 + src1.e10 * src2.e11 + src1.e20 * src2.e21,
+			src1.e00 * src2.e02 + src1.e10 * src2.e12 + src1.e20 * src2.e22,
+			src1.e01 * src2.e00 + src1.e11 * src2.e10 + src1.e21 * src2.e20,
+			src1.e01 * src2.e01 + src1.e11 * src2.e11 + src1.e21 * src2.e21,
+			src1.e01 * src2.e02 + src1.e11 * src2.e12 + src1.e21 * src2.e22,
+			src1.e02 * src2.e00 + src1.e12 * src2.e10 + src1.e22 * src2.e20,
+			src1.e02 * src2.e01 + src1.e12 * src2.e11 + src1.e22 * src2.e21,
+			src1.e02 * src2.e02 + src1.e12 * src2.e12 + src1.e22 * src2.e22
+		);
 	}
 	
 	/**
@@ -120,8 +143,33 @@ public class M {
 	 * @param eulerXYZ Euler angles in radians
 	 */
 	public static void mat3_rotateXYZ(Mat3 dst, Vec3 eulerXYZ) {
-		_M3.fromEulerXyz(eulerXYZ).mulEq(dst);
-		dst.copyFrom(_M3);
+		double sx = MathUtil.sin(eulerXYZ.x);
+		double sy = MathUtil.sin(eulerXYZ.y);
+		double sz = MathUtil.sin(eulerXYZ.z);
+		double cx = MathUtil.cos(eulerXYZ.x);
+		double cy = MathUtil.cos(eulerXYZ.y);
+		double cz = MathUtil.cos(eulerXYZ.z);
+		// the euler matrix, see `Mat3.fromEulerXyz`
+		double r00 = cy * cz;
+		double r01 = -cy * sz;
+		double r02 = sy;
+		double r10 = cx * sz + cz * sx * sy;
+		double r11 = cx * cz - sx * sy * sz;
+		double r12 = -cy * sx;
+		double r20 = sx * sz - cx * cz * sy;
+		double r21 = cz * sx + cx * sy * sz;
+		double r22 = cx * cy;
+		dst.set(
+			r00 * dst.e00 + r01 * dst.e10 + r02 * dst.e20,
+			r00 * dst.e01 + r01 * dst.e11 + r02 * dst.e21,
+			r00 * dst.e02 + r01 * dst.e12 + r02 * dst.e22,
+			r10 * dst.e00 + r11 * dst.e10 + r12 * dst.e20,
+			r10 * dst.e01 + r11 * dst.e11 + r12 * dst.e21,
+			r10 * dst.e02 + r11 * dst.e12 + r12 * dst.e22,
+			r20 * dst.e00 + r21 * dst.e10 + r22 * dst.e20,
+			r20 * dst.e01 + r21 * dst.e11 + r22 * dst.e21,
+			r20 * dst.e02 + r21 * dst.e12 + r22 * dst.e22
+		);
 	}
 
 	public static void quat_fromMat3(Quat dest, Mat3 src) {
@@ -200,9 +248,11 @@ public class M {
 	 * @param v2
 	 */
 	public static void vec3_swap(Vec3 v1, Vec3 v2) {
-		_V3.set(v1);
+		double x = v1.x;
+		double y = v1.y;
+		double z = v1.z;
 		v1.set(v2);
-		v2.set(_V3);
+		v2.set(x, y, z);
 	}
 	
 	
@@ -214,10 +264,10 @@ public class M {
 	 * @param transform
 	 */
 	public static void vec3_mulMat3(Vec3 dst, Vec3 v, Mat3 transform) {
-		_V3.x = transform.e00 * v.x + transform.e01 * v.y + transform.e02 * v.z ;
-		_V3.y = transform.e10 * v.x + transform.e11 * v.y + transform.e12 * v.z ;
-		_V3.z = transform.e20 * v.x + transform.e21 * v.y + transform.e22 * v.z ;
-		dst.set(_V3);
+		double x = transform.e00 * v.x + transform.e01 * v.y + transform.e02 * v.z ;
+		double y = transform.e10 * v.x + transform.e11 * v.y + transform.e12 * v.z ;
+		double z = transform.e20 * v.x + transform.e21 * v.y + transform.e22 * v.z ;
+		dst.set(x, y, z);
 	}
 	
 	/**
@@ -228,10 +278,10 @@ public class M {
 	 * @param transform
 	 */
 	public static void vec3_mulMat3Transposed(Vec3 dst, Vec3 v, Mat3 transform) {
-		_V3.x = transform.e00 * v.x + transform.e10 * v.y + transform.e20 * v.z ;
-		_V3.y = transform.e01 * v.x + transform.e11 * v.y + transform.e21 * v.z ;
-		_V3.z = transform.e02 * v.x + transform.e12 * v.y + transform.e22 * v.z ;
-		dst.set(_V3);
+		double x = transform.e00 * v.x + transform.e10 * v.y + transform.e20 * v.z ;
+		double y = transform.e01 * v.x + transform.e11 * v.y + transform.e21 * v.z ;
+		double z = transform.e02 * v.x + transform.e12 * v.y + transform.e22 * v.z ;
+		dst.set(x, y, z);
 	}
 
 	/**
@@ -332,10 +382,10 @@ public class M {
 
 	
 	public static void vec3_cross(Vec3 dst, Vec3 v1, Vec3 v2) {
-		_V3.x = v1.y * v2.z - v1.z * v2.y;
-		_V3.y = v1.z * v2.x - v1.x * v2.z;
-		_V3.z = v1.x * v2.y - v1.y * v2.x;
-		dst.set(_V3);
+		double x = v1.y * v2.z - v1.z * v2.y;
+		double y = v1.z * v2.x - v1.x * v2.z;
+		double z = v1.x * v2.y - v1.y * v2.x;
+		dst.set(x, y, z);
 	}
 
 	public static void error(String string) {
@@ -427,11 +477,12 @@ public class M {
 	public static void quat_mul(Quat dst, Quat a, Quat b) {
 		double qax = a.x, qay = a.y, qaz = a.z, qaw = a.w;
 		double qbx = b.x, qby = b.y, qbz = b.z, qbw = b.w;
-		_Q.x = qax * qbw + qaw * qbx + qay * qbz - qaz * qby;
-		_Q.y = qay * qbw + qaw * qby + qaz * qbx - qax * qbz;
-		_Q.z = qaz * qbw + qaw * qbz + qax * qby - qay * qbx;
-		_Q.w = qaw * qbw - qax * qbx - qay * qby - qaz * qbz;
-		 dst.copyFrom(_Q);
+		dst.set(
+			qax * qbw + qaw * qbx + qay * qbz - qaz * qby,
+			qay * qbw + qaw * qby + qaz * qbx - qax * qbz,
+			qaz * qbw + qaw * qbz + qax * qby - qay * qbx,
+			qaw * qbw - qax * qbx - qay * qby - qaz * qbz
+		);
 	}
 
 	
@@ -469,8 +520,46 @@ public class M {
 	 * @param t
 	 */
 	public static void quat_slerp(Quat dst, Quat q1, Quat q2, double t) {
-		_Q.copyFrom(q1).slerp(q2, t);
-		dst.copyFrom(_Q);
+		// same as `Quat.slerp`, but writes the result to `dst` instead of a new quaternion
+		double x = q1.x;
+		double y = q1.y;
+		double z = q1.z;
+		double w = q1.w;
+		double qx = q2.x;
+		double qy = q2.y;
+		double qz = q2.z;
+		double qw = q2.w;
+		double d = x * qx + y * qy + z * qz + w * qw;
+		if (d < 0) {
+			d = -d;
+			qx = -qx;
+			qy = -qy;
+			qz = -qz;
+			qw = -qw;
+		}
+		if (d > 1 - 1e-6) {
+			// two quaternions are too close, use lerp instead
+			dst.set(x + (qx - x) * t, y + (qy - y) * t, z + (qz - z) * t, w + (qw - w) * t).normalize();
+			return;
+		}
+		// target angle
+		double theta = t * MathUtil.acos(d);
+
+		// make q2 orthogonal to q1
+		qx -= x * d;
+		qy -= y * d;
+		qz -= z * d;
+		qw -= w * d;
+		double invLen = 1 / MathUtil.sqrt(qx * qx + qy * qy + qz * qz + qw * qw);
+		qx *= invLen;
+		qy *= invLen;
+		qz *= invLen;
+		qw *= invLen;
+
+		// mix them
+		double sin = MathUtil.sin(theta);
+		double cos = MathUtil.cos(theta);
+		dst.set(x * cos + qx * sin, y * cos + qy * sin, z * cos + qz * sin, w * cos + qw * sin);
 	}
 
 	/**
@@ -1,14 +1,103 @@
 package oimo.common;
 
 import oimo.dynamics.World;
+import oimo.dynamics.callback.PerformanceCallback;
 
 /**
  * A class that records the time the world takes for physics calculations.
  * Unless otherwise specified, time is in milliseconds.
+ *
+ * The time of each phase of a step (see the phase constants) is measured with
+ * `System.nanoTime` and kept in a `PerformanceHistogram` of the latest
+ * `Setting.performanceHistogramSize` steps. Phases inside islands are summed over
+ * all the islands, so they are CPU time rather than wall time when islands are
+ * solved in parallel. Nothing is recorded unless profiling is enabled with
+ * `World.setProfilingEnabled`.
  * 
  * @author saharan
  */
 public class Performance {
+	/**
+	 * Collecting overlapping proxy pairs in the broad-phase.
+	 */
+	public static final int BROAD_PHASE = 0;
+	/**
+	 * Creating contacts for new proxy pairs.
+	 */
+	public static final int PAIR_CREATION = 1;
+	/**
+	 * Destroying contacts whose proxies no longer overlap.
+	 */
+	public static final int CONTACT_DESTRUCTION = 2;
+	/**
+	 * Updating contact manifolds.
+	 */
+	public static final int NARROW_PHASE = 3;
+	/**
+	 * Building simulation islands.
+	 */
+	public static final int ISLAND_BUILDING = 4;
+	/**
+	 * Sleep checks and integration of forces and velocities.
+	 */
+	public static final int INTEGRATION = 5;
+	/**
+	 * `ConstraintSolver.preSolveVelocity`.
+	 */
+	public static final int VELOCITY_PRE_SOLVE = 6;
+	/**
+	 * `ConstraintSolver.warmStart`.
+	 */
+	public static final int WARM_START = 7;
+	/**
+	 * Velocity iterations.
+	 */
+	public static final int VELOCITY_SOLVE = 8;
+	/**
+	 * `ConstraintSolver.postSolveVelocity`.
+	 */
+	public static final int VELOCITY_POST_SOLVE = 9;
+	/**
+	 * Split impulse iterations and integration of pseudo velocities.
+	 */
+	public static final int SPLIT_IMPULSE = 10;
+	/**
+	 * Nonlinear Gauss-Seidel position iterations.
+	 */
+	public static final int POSITION_SOLVE = 11;
+	/**
+	 * `ConstraintSolver.postSolve`.
+	 */
+	public static final int POST_SOLVE = 12;
+	/**
+	 * Synchronization of shapes and broad-phase proxies.
+	 */
+	public static final int SHAPE_SYNC = 13;
+	/**
+	 * The whole `World.step`.
+	 */
+	public static final int STEP = 14;
+	/**
+	 * The number of the phases.
+	 */
+	public static final int NUM_PHASES = 15;
+
+	static final String[] PHASE_NAMES = {
+		"broadPhase", "pairCreation", "contactDestruction", "narrowPhase", "islandBuilding",
+		"integration", "velocityPreSolve", "warmStart", "velocitySolve", "velocityPostSolve",
+		"splitImpulse", "positionSolve", "postSolve", "shapeSync", "step"
+	};
+
+	// nanoseconds spent in each phase in the current step
+	long[] phaseTimes;
+	PerformanceHistogram[] histograms;
+
+	PerformanceCallback[] callbacks;
+	int numCallbacks;
+
+	// whether the phases are timed, see `World.setProfilingEnabled`
+	public boolean _enabled;
+
 	/**
 	 * Time required for wide area collision detection.
 	 */
@@ -63,6 +152,128 @@ public class Performance {
 	 */
 	public Performance(World world) {
 		this.parent = world;
+		phaseTimes = new long[NUM_PHASES];
+		histograms = new PerformanceHistogram[NUM_PHASES];
+		for (int i = 0; i < NUM_PHASES; i++) {
+			histograms[i] = new PerformanceHistogram(Setting.performanceHistogramSize);
+		}
+		callbacks = new PerformanceCallback[2];
+		numCallbacks = 0;
+		_enabled = false;
+	}
+
+	// --- internal ---
+
+	public void _beginStep() {
+		for (int i = 0; i < NUM_PHASES; i++) {
+			phaseTimes[i] = 0;
+		}
+	}
+
+	/**
+	 * Returns the current time in nanoseconds, or `0` without reading the clock if profiling is disabled.
+	 */
+	public long _now() {
+		return _enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Adds the time since `since` to the phase `phase` and returns the current time, see `_now`.
+	 */
+	public long _lap(int phase, long since) {
+		if (!_enabled) return 0;
+		long now = System.nanoTime();
+		phaseTimes[phase] += now - since;
+		return now;
+	}
+
+	public void _addTime(int phase, long nanoTime) {
+		phaseTimes[phase] += nanoTime;
+	}
+
+	public void _addTimes(long[] nanoTimes) {
+		for (int i = 0; i < NUM_PHASES; i++) {
+			phaseTimes[i] += nanoTimes[i];
+			nanoTimes[i] = 0;
+		}
+	}
+
+	public void _endStep() {
+		for (int i = 0; i < NUM_PHASES; i++) {
+			histograms[i].add(phaseTimes[i]);
+		}
+
+		// compatible millisecond values
+		broadPhaseCollisionTime = (phaseTimes[BROAD_PHASE] + phaseTimes[PAIR_CREATION] + phaseTimes[CONTACT_DESTRUCTION]) / 1000000;
+		narrowPhaseCollisionTime = phaseTimes[NARROW_PHASE] / 1000000;
+		dynamicsTime = (phaseTimes[STEP] - phaseTimes[BROAD_PHASE] - phaseTimes[PAIR_CREATION] - phaseTimes[CONTACT_DESTRUCTION] - phaseTimes[NARROW_PHASE]) / 1000000;
+		totalTime = phaseTimes[STEP] / 1000000;
+
+		for (int i = 0; i < numCallbacks; i++) {
+			callbacks[i].stepProfiled(this);
+		}
+	}
+
+	// --- public ---
+
+	/**
+	 * Returns the time in nanoseconds spent in the phase `phase` in the last step.
+	 */
+	public long getPhaseTime(int phase) {
+		return histograms[phase].getLast();
+	}
+
+	/**
+	 * Returns the rolling statistics of the phase `phase`.
+	 */
+	public PerformanceHistogram getHistogram(int phase) {
+		return histograms[phase];
+	}
+
+	/**
+	 * Returns the name of the phase `phase`, suitable for a metric name.
+	 */
+	public static String getPhaseName(int phase) {
+		return PHASE_NAMES[phase];
+	}
+
+	/**
+	 * Removes all the samples of the histograms.
+	 */
+	public void clearHistograms() {
+		for (int i = 0; i < NUM_PHASES; i++) {
+			histograms[i].clear();
+		}
+	}
+
+	/**
+	 * Adds `callback`, which is called at the end of every step.
+	 */
+	public void addCallback(PerformanceCallback callback) {
+		if (numCallbacks == callbacks.length) {
+			PerformanceCallback[] newArray = new PerformanceCallback[numCallbacks << 1];
+			for (int i = 0; i < numCallbacks; i++) {
+				newArray[i] = callbacks[i];
+			}
+			callbacks = newArray;
+		}
+		callbacks[numCallbacks++] = callback;
+	}
+
+	/**
+	 * Removes `callback` added by `addCallback`.
+	 */
+	public void removeCallback(PerformanceCallback callback) {
+		for (int i = 0; i < numCallbacks; i++) {
+			if (callbacks[i] == callback) {
+				numCallbacks--;
+				for (int j = i; j < numCallbacks; j++) {
+					callbacks[j] = callbacks[j + 1];
+				}
+				callbacks[numCallbacks] = null;
+				return;
+			}
+		}
 	}
 
 	public void setTime(int n) {
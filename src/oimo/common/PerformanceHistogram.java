@@ -0,0 +1,125 @@
+package oimo.common;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics of the latest samples of a timing, in nanoseconds. Only the
+ * last `getCapacity()` samples are kept, older ones are overwritten.
+ */
+public class PerformanceHistogram {
+	long[] samples;
+	int numSamples;
+	int next;
+
+	// sorted copy of the samples, rebuilt lazily for percentiles
+	long[] sorted;
+	boolean sortedValid;
+
+	/**
+	 * Creates a histogram of the latest `capacity` samples.
+	 */
+	public PerformanceHistogram(int capacity) {
+		if (capacity < 1) capacity = 1;
+		samples = new long[capacity];
+		sorted = new long[capacity];
+		numSamples = 0;
+		next = 0;
+		sortedValid = false;
+	}
+
+	// --- public ---
+
+	/**
+	 * Adds the sample `value`, overwriting the oldest one if the histogram is full.
+	 */
+	public void add(long value) {
+		samples[next] = value;
+		next = next + 1 == samples.length ? 0 : next + 1;
+		if (numSamples < samples.length) numSamples++;
+		sortedValid = false;
+	}
+
+	/**
+	 * Removes all the samples.
+	 */
+	public void clear() {
+		numSamples = 0;
+		next = 0;
+		sortedValid = false;
+	}
+
+	/**
+	 * Returns the maximum number of samples kept.
+	 */
+	public int getCapacity() {
+		return samples.length;
+	}
+
+	/**
+	 * Returns the number of samples currently kept.
+	 */
+	public int getNumSamples() {
+		return numSamples;
+	}
+
+	/**
+	 * Returns the latest sample, or `0` if there is no sample.
+	 */
+	public long getLast() {
+		if (numSamples == 0) return 0;
+		return samples[next == 0 ? samples.length - 1 : next - 1];
+	}
+
+	/**
+	 * Returns the minimum of the samples, or `0` if there is no sample.
+	 */
+	public long getMin() {
+		if (numSamples == 0) return 0;
+		long min = samples[0];
+		for (int i = 1; i < numSamples; i++) {
+			if (samples[i] < min) min = samples[i];
+		}
+		return min;
+	}
+
+	/**
+	 * Returns the maximum of the samples, or `0` if there is no sample.
+	 */
+	public long getMax() {
+		if (numSamples == 0) return 0;
+		long max = samples[0];
+		for (int i = 1; i < numSamples; i++) {
+			if (samples[i] > max) max = samples[i];
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the average of the samples, or `0` if there is no sample.
+	 */
+	public double getAverage() {
+		if (numSamples == 0) return 0;
+		long sum = 0;
+		for (int i = 0; i < numSamples; i++) {
+			sum += samples[i];
+		}
+		return (double) sum / numSamples;
+	}
+
+	/**
+	 * Returns the `percentile`-th percentile (`0` to `100`) of the samples using the
+	 * nearest-rank method, or `0` if there is no sample.
+	 */
+	public long getPercentile(double percentile) {
+		if (numSamples == 0) return 0;
+		if (!sortedValid) {
+			System.arraycopy(samples, 0, sorted, 0, numSamples);
+			Arrays.sort(sorted, 0, numSamples);
+			sortedValid = true;
+		}
+		int rank = (int) Math.ceil(percentile / 100 * numSamples);
+		if (rank < 1) rank = 1;
+		if (rank > numSamples) rank = numSamples;
+		return sorted[rank - 1];
+	}
+}
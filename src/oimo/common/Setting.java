@@ -18,6 +18,17 @@ public class Setting {
 	// dynamic BVH
 	public static double bvhProxyPadding = 0.1f;
 	public static double bvhIncrementalCollisionThreshold = 0.45f;
+	public static int bvhRebuildCheckInterval = 60;
+	public static double bvhRebuildCostRatio = 1.5f;
+
+	// sweep and prune
+	public static double sapAxisSwitchRatio = 1.2f;
+
+	// triangle meshes
+	public static int triangleMeshMaxLeafTriangles = 4;
+
+	// convex hulls
+	public static int convexHullMinHillClimbingVertices = 16;
 
 	// GJK/EPA
 	public static double defaultGJKMargin = 0.05f;
@@ -37,6 +48,7 @@ public class Setting {
 	public static int alternativeContactPositionCorrectionAlgorithm = PositionCorrectionAlgorithm._SPLIT_IMPULSE;
 	public static double contactPersistenceThreshold = 0.05f;
 	public static int maxManifoldPoints = 4;
+	public static int contactMapInitialCapacity = 256;
 
 	// joints
 	public static int defaultJointConstraintSolverType = ConstraintSolverType._ITERATIVE;
@@ -50,6 +62,9 @@ public class Setting {
 	// direct MLCP solver
 	public static double directMlcpSolverEps = 1e-9f;
 
+	// profiling
+	public static int performanceHistogramSize = 300;
+
 	// islands
 	public static int islandInitialRigidBodyArraySize = 128;
 	public static int islandInitialConstraintArraySize = 128;
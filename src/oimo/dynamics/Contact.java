@@ -1,6 +1,7 @@
 package oimo.dynamics;
 import oimo.collision.narrowphase.*;
 import oimo.collision.narrowphase.detector.*;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.Setting;
 import oimo.dynamics.callback.ContactCallback;
 import oimo.dynamics.constraint.contact.*;
@@ -39,6 +40,12 @@ public class Contact {
 	public ManifoldUpdater _updater;
 	public ContactConstraint _contactConstraint;
 	public boolean _touching;
+	public boolean _prevTouching;
+
+	// the list of the contacts of an island, and the rigid body whose island holds this
+	public Contact _islandPrev;
+	public Contact _islandNext;
+	public RigidBody _islandBody;
 
 	public Contact() {
 		_next = null;
@@ -63,6 +70,10 @@ public class Contact {
 		_updater = new ManifoldUpdater(_manifold);
 		_contactConstraint = new ContactConstraint(_manifold);
 		_touching = false;
+
+		_islandPrev = null;
+		_islandNext = null;
+		_islandBody = null;
 	}
 
 	// --- private ---
@@ -223,6 +234,7 @@ public class Contact {
 			// touching in the last frame
 			sendEndContact();
 		}
+		IslandGraph._unlinkContact(this);
 
 		detachLinks();
 		_s1 = null;
@@ -239,13 +251,20 @@ public class Contact {
 		_contactConstraint._detach();
 	}
 
-	public void _updateManifold() {
+	public void _updateManifold(GjkEpa gjkEpa) {
+		if (_detector == null) return;
+		_detect(gjkEpa);
+		_sendCallbacks();
+	}
+
+	// updates the manifold without sending any callback, this only writes the data of this contact
+	public void _detect(GjkEpa gjkEpa) {
 		if (_detector == null) return;
 
-		boolean ptouching = _touching;
+		_prevTouching = _touching;
 
 		DetectorResult result = _detectorResult;
-		_detector.detect(result, _s1._geom, _s2._geom, _s1._transform, _s2._transform, _cachedDetectorData);
+		_detector.detect(result, _s1._geom, _s2._geom, _s1._transform, _s2._transform, _cachedDetectorData, gjkEpa);
 
 		int num = result.numPoints;
 		_touching = num > 0;
@@ -274,11 +293,18 @@ public class Contact {
 		} else {
 			_manifold._clear();
 		}
+	}
+
+	// sends the callbacks of the last call of `_detect`
+	public void _sendCallbacks() {
+		if (_detector == null) return;
 
-		if (_touching && !ptouching) {
+		if (_touching && !_prevTouching) {
+			IslandGraph._linkContact(this);
 			sendBeginContact();
 		}
-		if (!_touching && ptouching) {
+		if (!_touching && _prevTouching) {
+			IslandGraph._unlinkContact(this);
 			sendEndContact();
 		}
 		if (_touching) {
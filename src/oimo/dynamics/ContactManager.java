@@ -1,9 +1,15 @@
 package oimo.dynamics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import oimo.collision.broadphase.*;
 import oimo.collision.geometry.*;
 import oimo.collision.narrowphase.*;
 import oimo.collision.narrowphase.detector.Detector;
+import oimo.collision.narrowphase.detector.gjkepa.GjkEpa;
 import oimo.common.M;
+import oimo.common.Performance;
+import oimo.common.Setting;
 import oimo.dynamics.constraint.contact.ContactConstraint;
 import oimo.dynamics.constraint.joint.*;
 import oimo.dynamics.rigidbody.*;
@@ -21,16 +27,41 @@ public class ContactManager {
 
 	public BroadPhase _broadPhase;
 	public CollisionMatrix _collisionMatrix;
+	// owned by this manager so that worlds stepped on different threads never share it
+	public GjkEpa _gjkEpa;
+
+	// contacts to be updated by the parallel narrow-phase, in the order of the contact list
+	Contact[] _manifoldJobs;
+	int _numManifoldJobs;
+	// GJK/EPA instances of the chunks of the parallel narrow-phase
+	GjkEpa[] _chunkGjkEpas;
+
+	// contacts hashed by the ids of their shapes, to find the contact of a pair in constant time
+	ContactMap _contactMap;
+	// pairs of rigid bodies whose collisions are disabled by joints
+	JointedPairSet _jointedPairs;
+
+	// shapes of half-spaces, kept out of the broad-phase
+	public Shape[] _planeShapes;
+	public int _numPlaneShapes;
 
 	public ContactManager(BroadPhase broadPhase) {
 		_broadPhase = broadPhase;
 		_collisionMatrix = new CollisionMatrix();
+		_gjkEpa = new GjkEpa();
+		_contactMap = new ContactMap();
+		_jointedPairs = new JointedPairSet();
+		_manifoldJobs = new Contact[Setting.islandInitialConstraintArraySize];
+		_numManifoldJobs = 0;
+		_chunkGjkEpas = new GjkEpa[0];
+		_planeShapes = new Shape[4];
+		_numPlaneShapes = 0;
 		_numContacts = 0;
 	}
 
 	// --- private ---
 
-	private void createContacts() {
+	private void createContacts(RigidBody[] activeRigidBodies, int numActiveRigidBodies) {
 		ProxyPair pp = _broadPhase._proxyPairList;
 		while(pp != null) {
 			ProxyPair n = pp._next;
@@ -49,101 +80,130 @@ public class ContactManager {
 				if (!shouldCollide(s1, s2)) {
 					break;
 				}
+				pickContact(s1, s2);
+				break;
+			} 
+			pp = n;
+		}
+		if (_numPlaneShapes > 0) {
+			createPlaneContacts(activeRigidBodies, numActiveRigidBodies);
+		}
+	}
 
-				// search for the same contact
-				RigidBody b1 = s1._rigidBody;
-				RigidBody b2 = s2._rigidBody;
-				int n1 = b1._numContactLinks;
-				int n2 = b2._numContactLinks;
-				ContactLink l;
-				// select shorter linked list
-				if (n1 < n2) {
-					l = b1._contactLinkList;
-				} else {
-					l = b2._contactLinkList;
+	// the half-spaces are not in the broad-phase. a half-space that does not move is tested only
+	// against the shapes of the awake rigid bodies, as `destroyOutdatedContacts` keeps the
+	// contacts of the inactive pairs. a moving one is tested against the AABBs of all the proxies
+	private void createPlaneContacts(RigidBody[] activeRigidBodies, int numActiveRigidBodies) {
+		for (int i=0;i<_numPlaneShapes;i++) {
+			Shape plane = _planeShapes[i];
+			if (isActive(plane._rigidBody)) {
+				Proxy p = _broadPhase._proxyList;
+				while(p != null) {
+					createPlaneContact(plane, (Shape) p.userData);
+					p = p._next;
 				}
-				int id1 = s1._id;
-				int id2 = s2._id;
-				boolean found = false;
-				while(l != null) {
-					Contact c = l._contact;
-					if(c._s1._id == id1 && c._s2._id == id2) {
-						c._latest = true;
-						found = true;
-						break;
-					}
-					l = l._next;
+				continue;
+			}
+			for (int j=0;j<numActiveRigidBodies;j++) {
+				RigidBody b = activeRigidBodies[j];
+				// the set keeps removed and inactive rigid bodies until the islands are built
+				if (b == null || !isActive(b)) continue;
+				Shape s = b._shapeList;
+				while(s != null) {
+					if (s._proxy != null) createPlaneContact(plane, s);
+					s = s._next;
 				}
+			}
+		}
+	}
 
-				// if not found, create a new contact
-				if (!found) {
-					// trying to pick an object up from the pool
-					Contact first = this._contactPool;
-					if(first != null) {
-						this._contactPool = first._next;
-						first._next = null;
-					} else {
-						first = new oimo.dynamics.Contact();
-					}
-					Contact c = first;
-					if(this._contactList == null) {
-						this._contactList = c;
-						this._contactListLast = c;
-					} else {
-						this._contactListLast._next = c;
-						c._prev = this._contactListLast;
-						this._contactListLast = c;
-					}
-					c._latest = true;
-					Detector detector = this._collisionMatrix.detectors[s1._geom._type][s2._geom._type];
-					c._s1 = s1;
-					c._s2 = s2;
-					c._b1 = s1._rigidBody;
-					c._b2 = s2._rigidBody;
-					c._touching = false;
-					if(c._b1._contactLinkList == null) {
-						c._b1._contactLinkList = c._link1;
-						c._b1._contactLinkListLast = c._link1;
-					} else {
-						c._b1._contactLinkListLast._next = c._link1;
-						c._link1._prev = c._b1._contactLinkListLast;
-						c._b1._contactLinkListLast = c._link1;
-					}
-					if(c._b2._contactLinkList == null) {
-						c._b2._contactLinkList = c._link2;
-						c._b2._contactLinkListLast = c._link2;
-					} else {
-						c._b2._contactLinkListLast._next = c._link2;
-						c._link2._prev = c._b2._contactLinkListLast;
-						c._b2._contactLinkListLast = c._link2;
-					}
-					c._b1._numContactLinks++;
-					c._b2._numContactLinks++;
-					c._link1._other = c._b2;
-					c._link2._other = c._b1;
-					c._link1._contact = c;
-					c._link2._contact = c;
-					c._detector = detector;
-					ContactConstraint _this = c._contactConstraint;
-					_this._s1 = s1;
-					_this._s2 = s2;
-					_this._b1 = _this._s1._rigidBody;
-					_this._b2 = _this._s2._rigidBody;
-					_this._tf1 = _this._b1._transform;
-					_this._tf2 = _this._b2._transform;
-					this._numContacts++;
+	private void createPlaneContact(Shape plane, Shape s) {
+		if (!((PlaneGeometry) plane._geom)._overlapsAabb(plane._transform, s._aabb)) return;
+		Shape s1 = plane._id < s._id ? plane : s;
+		Shape s2 = plane._id < s._id ? s : plane;
+		if (shouldCollide(s1, s2)) {
+			pickContact(s1, s2);
+		}
+	}
+
+	// marks the contact of the shapes as overlapping, or creates it if not found
+	private void pickContact(Shape s1, Shape s2) {
+		// search for the same contact
+		Contact found = _contactMap._get(s1._id, s2._id);
+		if (found != null) {
+			found._latest = true;
+		}
+
+		// if not found, create a new contact
+		if (found == null) {
+			// trying to pick an object up from the pool
+			Contact first = this._contactPool;
+			if(first != null) {
+				this._contactPool = first._next;
+				first._next = null;
+			} else {
+				first = new oimo.dynamics.Contact();
+			}
+			Contact c = first;
+			if(this._contactList == null) {
+				this._contactList = c;
+				this._contactListLast = c;
+			} else {
+				this._contactListLast._next = c;
+				c._prev = this._contactListLast;
+				this._contactListLast = c;
+			}
+			c._latest = true;
+			Detector detector = this._collisionMatrix.detectors[s1._geom._type][s2._geom._type];
+			c._s1 = s1;
+			c._s2 = s2;
+			c._b1 = s1._rigidBody;
+			c._b2 = s2._rigidBody;
+			c._touching = false;
+			if(c._b1._contactLinkList == null) {
+				c._b1._contactLinkList = c._link1;
+				c._b1._contactLinkListLast = c._link1;
+			} else {
+				c._b1._contactLinkListLast._next = c._link1;
+				c._link1._prev = c._b1._contactLinkListLast;
+				c._b1._contactLinkListLast = c._link1;
+			}
+			if(c._b2._contactLinkList == null) {
+				c._b2._contactLinkList = c._link2;
+				c._b2._contactLinkListLast = c._link2;
+			} else {
+				c._b2._contactLinkListLast._next = c._link2;
+				c._link2._prev = c._b2._contactLinkListLast;
+				c._b2._contactLinkListLast = c._link2;
+			}
+			c._b1._numContactLinks++;
+			c._b2._numContactLinks++;
+			c._link1._other = c._b2;
+			c._link2._other = c._b1;
+			c._link1._contact = c;
+			c._link2._contact = c;
+			c._detector = detector;
+			ContactConstraint _this = c._contactConstraint;
+			_this._s1 = s1;
+			_this._s2 = s2;
+			_this._b1 = _this._s1._rigidBody;
+			_this._b2 = _this._s2._rigidBody;
+			_this._tf1 = _this._b1._transform;
+			_this._tf2 = _this._b2._transform;
+			_contactMap._add(c);
+			this._numContacts++;
 //					var c:Contact = M.singleList_pick(_contactPool, _next, new Contact());
 //					M.list_push(_contactList, _contactListLast, _prev, _next, c);
 //					c._latest = true;
 //					c._attach(s1, s2, _collisionMatrix.getDetector(s1._geom._type, s2._geom._type));
 //					_numContacts++;
-				}
-				break;
-			} 
-			pp = n;
 		}
 	}
 
+	private static boolean isActive(RigidBody r) {
+		return !r._sleeping && r._type != RigidBodyType._STATIC;
+	}
+
 	private void destroyOutdatedContacts() {
 		// whether the broadphase returns only new overlapping pairs
 		boolean incremental = _broadPhase._incremental;
@@ -158,6 +218,15 @@ public class ContactManager {
 					c._shouldBeSkipped = false;
 					break;
 				}
+				if (c._s1._geom._type == GeometryType.PLANE || c._s2._geom._type == GeometryType.PLANE) {
+					// contacts of half-spaces are renewed every step unless both rigid bodies are inactive
+					if (!isActive(c._b1) && !isActive(c._b2)) {
+						c._shouldBeSkipped = true;
+					} else {
+						_destroyContact(c);
+					}
+					break;
+				}
 				if (!incremental) {
 					// the pair is separated, because the broad-phase algorithm collects
 					// all the overlapping pairs and they are marked as latest
@@ -222,40 +291,64 @@ public class ContactManager {
 			return false;
 		}
 
-		// search for joints the two bodies are connected to
-		JointLink jl;
-		RigidBody other;
-		if (r1._numJointLinks < r2._numJointLinks) {
-			jl = r1._jointLinkList;
-			other = r2;
-		} else {
-			jl = r2._jointLinkList;
-			other = r1;
-		}
-		while(jl != null) {
-			if(jl._other == other && !jl._joint._allowCollision) {
-				// collisions between the two bodies are disabled
-				return false;
-			}
-			jl = jl._next;
+		// joints between the two bodies may disable collisions
+		if (_jointedPairs._contains(r1._id, r2._id)) {
+			return false;
 		}
-		
-//		M.list_foreach(jl, _next, {
-//			if (jl._other == other && !jl._joint._allowCollision) {
-//				// collisions between the two bodies are disabled
-//				return false;
-//			}
-//		});
 
 		return true;
 	}
 
+	// whether the joint `j` disables collisions between two rigid bodies in its world
+	private static boolean disablesCollision(Joint j) {
+		return !j._allowCollision && j._b1._world == j._world && j._b2._world == j._world;
+	}
+
 	// --- internal ---
 
-	void _updateContacts() {
+	public void _addJointedPair(Joint j) {
+		if (disablesCollision(j)) {
+			_jointedPairs._add(j._b1._id, j._b2._id);
+		}
+	}
+
+	public void _removeJointedPair(Joint j) {
+		if (disablesCollision(j)) {
+			_jointedPairs._remove(j._b1._id, j._b2._id);
+		}
+	}
+
+	public void _addPlaneShape(Shape shape) {
+		if (_numPlaneShapes == _planeShapes.length) {
+			Shape[] newArray = new Shape[_numPlaneShapes << 1];
+			for (int i = 0; i < _numPlaneShapes; i++) {
+				newArray[i] = _planeShapes[i];
+			}
+			_planeShapes = newArray;
+		}
+		_planeShapes[_numPlaneShapes++] = shape;
+	}
+
+	public void _removePlaneShape(Shape shape) {
+		for (int i = 0; i < _numPlaneShapes; i++) {
+			if (_planeShapes[i] == shape) {
+				_planeShapes[i] = _planeShapes[--_numPlaneShapes];
+				_planeShapes[_numPlaneShapes] = null;
+				return;
+			}
+		}
+	}
+
+	// updates the contacts from the broad-phase. `activeRigidBodies` contains at least the awake
+	// rigid bodies of the world, and may contain others and `null`
+	void _updateContacts(Performance performance, RigidBody[] activeRigidBodies, int numActiveRigidBodies) {
+		long time = performance._now();
 		_broadPhase.collectPairs();
-		createContacts();
+		time = performance._lap(Performance.BROAD_PHASE, time);
+		createContacts(activeRigidBodies, numActiveRigidBodies);
+		time = performance._lap(Performance.PAIR_CREATION, time);
 		destroyOutdatedContacts();
+		performance._lap(Performance.CONTACT_DESTRUCTION, time);
 	}
 
 	// send postSolve events
@@ -281,10 +374,52 @@ public class ContactManager {
 		while(c != null) {
 			Contact n = c._next;
 			if (!c._shouldBeSkipped) {
-				c._updateManifold();
+				c._updateManifold(_gjkEpa);
 			}
 			c = n;
 		}
+	}
+
+	/**
+	 * Same as `_updateManifolds`, but runs the detectors on `pool`. Contact callbacks are sent
+	 * afterwards on the calling thread, in the order of the contact list.
+	 */
+	public void _updateManifolds(ForkJoinPool pool) {
+		_numManifoldJobs = 0;
+		Contact c = _contactList;
+		while(c != null) {
+			if (!c._shouldBeSkipped && c._detector != null) {
+				if (_numManifoldJobs == _manifoldJobs.length) {
+					Contact[] newArray = new Contact[_numManifoldJobs << 1];
+					for (int i = 0; i < _numManifoldJobs; i++) {
+						newArray[i] = _manifoldJobs[i];
+					}
+					_manifoldJobs = newArray;
+				}
+				_manifoldJobs[_numManifoldJobs++] = c;
+			}
+			c = c._next;
+		}
+		if (_numManifoldJobs == 0) return;
+
+		// a few chunks per worker to balance the cost of different detectors
+		int numChunks = pool.getParallelism() * 4;
+		if (numChunks > _numManifoldJobs) numChunks = _numManifoldJobs;
+		if (_chunkGjkEpas.length < numChunks) {
+			GjkEpa[] newArray = new GjkEpa[numChunks];
+			for (int i = 0; i < numChunks; i++) {
+				newArray[i] = i < _chunkGjkEpas.length ? _chunkGjkEpas[i] : new GjkEpa();
+			}
+			_chunkGjkEpas = newArray;
+		}
+		pool.invoke(new DetectTask(0, numChunks, numChunks));
+
+		// send callbacks in the same order as the serial narrow-phase
+		for (int i = 0; i < _numManifoldJobs; i++) {
+			_manifoldJobs[i]._sendCallbacks();
+			_manifoldJobs[i] = null;
+		}
+		_numManifoldJobs = 0;
 //		M.list_foreach(c, _next, {
 //			if (!c._shouldBeSkipped) {
 //				c._updateManifold();
@@ -309,7 +444,7 @@ public class ContactManager {
 		}
 		c._next = null;
 		c._prev = null;
-		
+		_contactMap._remove(c);
 		
 		//M.list_remove(_contactList, _contactListLast, _prev, _next, contact);
 		c._detach();
@@ -338,4 +473,33 @@ public class ContactManager {
 		return _contactList;
 	}
 
+	// updates the manifolds of the chunks in [from, until), the chunk `i` always uses `_chunkGjkEpas[i]`
+	@SuppressWarnings("serial")
+	class DetectTask extends RecursiveAction {
+		int from;
+		int until;
+		int numChunks;
+
+		DetectTask(int from, int until, int numChunks) {
+			this.from = from;
+			this.until = until;
+			this.numChunks = numChunks;
+		}
+
+		@Override
+		protected void compute() {
+			if (until - from > 1) {
+				int mid = (from + until) >>> 1;
+				invokeAll(new DetectTask(from, mid, numChunks), new DetectTask(mid, until, numChunks));
+				return;
+			}
+			GjkEpa gjkEpa = _chunkGjkEpas[from];
+			int begin = (int) ((long) _numManifoldJobs * from / numChunks);
+			int end = (int) ((long) _numManifoldJobs * until / numChunks);
+			for (int i = begin; i < end; i++) {
+				_manifoldJobs[i]._detect(gjkEpa);
+			}
+		}
+	}
+
 }
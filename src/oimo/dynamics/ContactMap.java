@@ -0,0 +1,124 @@
+package oimo.dynamics;
+import oimo.common.Setting;
+
+/**
+ * The contacts of a contact manager, hashed by the ids of their shapes. An open addressing
+ * table with linear probing: the keys are the two ids packed in a `long` and are kept in a
+ * primitive array next to the contacts, so lookups neither allocate nor box. Removal shifts
+ * the following entries back instead of leaving tombstones.
+ */
+class ContactMap {
+	// marks an empty slot, shape ids are never negative
+	static final long EMPTY = -1;
+
+	long[] _keys;
+	Contact[] _contacts;
+	int _size;
+	int _mask;
+
+	ContactMap() {
+		int capacity = 1;
+		while (capacity < Setting.contactMapInitialCapacity) capacity <<= 1;
+		init(capacity);
+	}
+
+	// --- private ---
+
+	private void init(int capacity) {
+		_keys = new long[capacity];
+		_contacts = new Contact[capacity];
+		for (int i = 0; i < capacity; i++) {
+			_keys[i] = EMPTY;
+		}
+		_size = 0;
+		_mask = capacity - 1;
+	}
+
+	private static long key(int id1, int id2) {
+		return (long) id1 << 32 | id2 & 0xffffffffL;
+	}
+
+	private int slot(long key) {
+		// fibonacci hashing spreads the consecutive ids over the table
+		long h = key * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ h >>> 32) & _mask;
+	}
+
+	private void grow() {
+		long[] keys = _keys;
+		Contact[] contacts = _contacts;
+		init(keys.length << 1);
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				put(keys[i], contacts[i]);
+			}
+		}
+	}
+
+	private void put(long key, Contact c) {
+		int i = slot(key);
+		while (_keys[i] != EMPTY) {
+			i = i + 1 & _mask;
+		}
+		_keys[i] = key;
+		_contacts[i] = c;
+		_size++;
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns the contact of the shapes of ids `id1` and `id2`, or `null` if not found.
+	 */
+	Contact _get(int id1, int id2) {
+		long key = key(id1, id2);
+		int i = slot(key);
+		long k;
+		while ((k = _keys[i]) != EMPTY) {
+			if (k == key) return _contacts[i];
+			i = i + 1 & _mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the contact `c`, which must not be in the map yet.
+	 */
+	void _add(Contact c) {
+		// keep the load factor at most 1/2 so that the probe sequences stay short
+		if ((_size + 1) * 2 > _keys.length) {
+			grow();
+		}
+		put(key(c._s1._id, c._s2._id), c);
+	}
+
+	/**
+	 * Removes the contact `c` if it is in the map.
+	 */
+	void _remove(Contact c) {
+		long key = key(c._s1._id, c._s2._id);
+		int i = slot(key);
+		long k;
+		while ((k = _keys[i]) != key) {
+			if (k == EMPTY) return;
+			i = i + 1 & _mask;
+		}
+		_size--;
+		// shift back the entries whose probe sequences pass through the removed slot
+		int j = i;
+		while (true) {
+			j = j + 1 & _mask;
+			k = _keys[j];
+			if (k == EMPTY) break;
+			int home = slot(k);
+			// move the entry unless its home slot lies cyclically in (i, j]
+			if (i <= j ? home <= i || home > j : home <= i && home > j) {
+				_keys[i] = k;
+				_contacts[i] = _contacts[j];
+				i = j;
+			}
+		}
+		_keys[i] = EMPTY;
+		_contacts[i] = null;
+	}
+}
@@ -1,5 +1,6 @@
 package oimo.dynamics;
 import oimo.common.M;
+import oimo.common.Performance;
 import oimo.common.Setting;
 import oimo.common.Vec3;
 import oimo.dynamics.constraint.ConstraintSolver;
@@ -27,6 +28,15 @@ public class Island {
 	int numSolversNgs;
 	ConstraintSolver[] solversNgs;///:Vector<ConstraintSolver>;
 
+	// scratch of the integration, an island is stepped by one thread at a time
+	Vec3 linAcc;
+	Vec3 angAcc;
+
+	// nanoseconds spent in each phase of `Performance`, collected by the world
+	long[] phaseTimes;
+	// whether the phases are timed into `phaseTimes`
+	boolean profiling;
+
 	public Island() {
 		rigidBodies = new RigidBody[Setting.islandInitialRigidBodyArraySize];
 		solvers = new ConstraintSolver[Setting.islandInitialConstraintArraySize];
@@ -36,10 +46,27 @@ public class Island {
 		numSolvers = 0;
 		numSolversSi = 0;
 		numSolversNgs = 0;
+		linAcc = new Vec3();
+		angAcc = new Vec3();
+		phaseTimes = new long[Performance.NUM_PHASES];
+		profiling = false;
 	}
 
 	// --- private ---
 
+	// returns the current time, or 0 without reading the clock if profiling is disabled
+	private long now() {
+		return profiling ? System.nanoTime() : 0;
+	}
+
+	// adds the time since `since` to the phase and returns the current time, see `now`
+	private long lap(int phase, long since) {
+		if (!profiling) return 0;
+		long now = System.nanoTime();
+		phaseTimes[phase] += now - since;
+		return now;
+	}
+
 	private double fastInvExp(double x) {
 		double x2 = x * x;
 		return 1 / (1 + x + x2 * (1 / 2 + x * (1 / 6) + x2 * (1 / 24)));
@@ -104,6 +131,10 @@ public class Island {
 		}
 		rigidBody._addedToIsland = true;
 		rigidBodies[numRigidBodies++] = rigidBody;
+
+		// clear linear/angular contact impulse
+		M.vec3_zero(rigidBody._linearContactImpulse);
+		M.vec3_zero(rigidBody._angularContactImpulse);
 	}
 
 	public void _addConstraintSolver(ConstraintSolver solver, int positionCorrection) {
@@ -130,6 +161,26 @@ public class Island {
 
 	// steps the single rigid body
 	public void _stepSingleRigidBody(TimeStep timeStep, RigidBody rb) {
+		long time = now();
+		boolean integrated = _integrateSingleRigidBody(timeStep, rb);
+		time = lap(Performance.INTEGRATION, time);
+		if (integrated) {
+			rb._syncShapes();
+			lap(Performance.SHAPE_SYNC, time);
+		}
+	}
+
+	// integrates all the rigid bodies of the island independently, used for batches of single rigid bodies
+	void _integrateSingleRigidBodies(TimeStep timeStep) {
+		long time = now();
+		for (int i=0;i<numRigidBodies;i++) {
+			_integrateSingleRigidBody(timeStep, rigidBodies[i]);
+		}
+		lap(Performance.INTEGRATION, time);
+	}
+
+	// steps the single rigid body without synchronizing its shapes, returns whether the shapes need to be synchronized
+	boolean _integrateSingleRigidBody(TimeStep timeStep, RigidBody rb) {
 		double dt = timeStep.dt;
 
 		// store previous transform
@@ -157,8 +208,8 @@ public class Island {
 				double angScale = fastInvExp(dt * rb._angularDamping);
 
 				// compute accelerations
-				Vec3 linAcc=new Vec3();
-				Vec3 angAcc=new Vec3();
+				Vec3 linAcc = this.linAcc;
+				Vec3 angAcc = this.angAcc;
 				M.vec3_scale(linAcc, gravity, rb._gravityScale);
 				M.vec3_addRhsScaled(linAcc, linAcc, rb._force, rb._invMass);
 				M.vec3_mulMat3(angAcc, rb._torque, rb._invInertia);
@@ -170,13 +221,23 @@ public class Island {
 				M.vec3_scale(rb._angVel, rb._angVel, angScale);
 			}
 			rb._integrate(dt);
-			rb._syncShapes();
+			return true;
 		}
+		return false;
 	}
 
 	// steps the island with multiple bodies and constraints
 	public void _step(TimeStep timeStep, int numVelocityIterations, int numPositionIterations) {
+		if (_solve(timeStep, numVelocityIterations, numPositionIterations)) {
+			_finish();
+		}
+	}
+
+	// solves the constraints and integrates the bodies of the island, returns false if the whole island fell asleep.
+	// this touches only the bodies and the constraints of the island, so that islands can be solved concurrently.
+	boolean _solve(TimeStep timeStep, int numVelocityIterations, int numPositionIterations) {
 		double dt = timeStep.dt;
+		long time = now();
 
 		boolean sleepIsland = true;
 
@@ -187,10 +248,6 @@ public class Island {
 			// store previous transform
 			M.transform_assign(rb._ptransform, rb._transform);
 
-			// clear linear/angular contact impulse
-			M.vec3_zero(rb._linearContactImpulse);
-			M.vec3_zero(rb._angularContactImpulse);
-
 			// don't let the rigid body sleep
 			rb._sleeping = false;
 
@@ -214,8 +271,8 @@ public class Island {
 				double angScale = fastInvExp(dt * rb._angularDamping);
 
 				// compute accelerations
-				Vec3 linAcc=new Vec3();
-				Vec3 angAcc=new Vec3();
+				Vec3 linAcc = this.linAcc;
+				Vec3 angAcc = this.angAcc;
 				M.vec3_scale(linAcc, gravity, rb._gravityScale);
 				M.vec3_addRhsScaled(linAcc, linAcc, rb._force, rb._invMass);
 				M.vec3_mulMat3(angAcc, rb._torque, rb._invInertia);
@@ -227,6 +284,7 @@ public class Island {
 				M.vec3_scale(rb._angVel, rb._angVel, angScale);
 			}
 		}
+		time = lap(Performance.INTEGRATION, time);
 
 		if (sleepIsland) {
 			// sleep the whole island
@@ -234,7 +292,7 @@ public class Island {
 				RigidBody rb = rigidBodies[i];
 				rb.sleep();
 			}
-			return;
+			return false;
 		}
 
 
@@ -272,28 +330,33 @@ public class Island {
 			ConstraintSolver s = solvers[i];
 			s.preSolveVelocity(timeStep);
 		}
+		time = lap(Performance.VELOCITY_PRE_SOLVE, time);
 		for (int i=0;i< numSolvers;i++) {
 			ConstraintSolver s = solvers[i];
 			s.warmStart(timeStep);
 		}
+		time = lap(Performance.WARM_START, time);
 		for (int t=0;t< numVelocityIterations;t++) {
 			for (int i=0;i<numSolvers;i++) {
 				ConstraintSolver s = solvers[i];
 				s.solveVelocity();
 			}
 		}
+		time = lap(Performance.VELOCITY_SOLVE, time);
 
 		// post-solve (velocity)
 		for (int i=0;i<numSolvers;i++) {
 			ConstraintSolver s = solvers[i];
 			s.postSolveVelocity(timeStep);
 		}
+		time = lap(Performance.VELOCITY_POST_SOLVE, time);
 
 		// integrate
 		for (int i=0;i<numRigidBodies;i++) {
 			RigidBody rb = rigidBodies[i];
 			rb._integrate(dt);
 		}
+		time = lap(Performance.INTEGRATION, time);
 
 		// solve split impulse
 		for (int i =0;i<numSolversSi ;i++) {
@@ -312,6 +375,7 @@ public class Island {
 			RigidBody rb = rigidBodies[i];
 			rb._integratePseudoVelocity();
 		}
+		time = lap(Performance.SPLIT_IMPULSE, time);
 
 		// solve nonlinear Gauss-Seidel
 		for (int i=0;i<numSolversNgs;i++) {
@@ -324,18 +388,40 @@ public class Island {
 				s.solvePositionNgs(timeStep);
 			}
 		}
+		lap(Performance.POSITION_SOLVE, time);
+		return true;
+	}
+
+	// finishes the solved island, this may remove joints and moves proxies of the broad-phase
+	void _finish() {
+		long time = now();
 
 		// post-solve (some constraints may be removed)
 		for (int i=0;i<numSolvers;i++) {
 			ConstraintSolver s = solvers[i];
 			s.postSolve();
 		}
+		time = lap(Performance.POST_SOLVE, time);
 
 		// synchronize shapes
 		for (int i=0;i<numRigidBodies;i++) {
 			RigidBody rb = rigidBodies[i];
 			rb._syncShapes();
 		}
+		lap(Performance.SHAPE_SYNC, time);
+	}
+
+	// syncs the shapes of the rigid bodies that are still awake, used for batches of single rigid bodies
+	void _finishSingleRigidBodies() {
+		long time = now();
+		for (int i=0;i<numRigidBodies;i++) {
+			// the rigid body has been integrated unless it fell asleep
+			RigidBody rb = rigidBodies[i];
+			if (!rb._sleeping) {
+				rb._syncShapes();
+			}
+		}
+		lap(Performance.SHAPE_SYNC, time);
 	}
 
 }
@@ -0,0 +1,306 @@
+package oimo.dynamics;
+import oimo.dynamics.constraint.joint.*;
+import oimo.dynamics.rigidbody.*;
+
+/**
+ * The persistent islands of the world. Rigid bodies connected by touching contacts and joints,
+ * without going through static rigid bodies, belong to the same island.
+ *
+ * Each island is a disjoint set of non-static rigid bodies. Its root holds the lists of the
+ * members, the contacts and the joints of the island, so the islands to solve are known
+ * without searching the graph. Islands are merged as soon as an edge is added. An island that
+ * lost an edge may have been cut in several pieces, so it is marked and split lazily when it is
+ * collected for solving.
+ */
+class IslandGraph {
+	// --- private ---
+
+	private static RigidBody find(RigidBody rb) {
+		// path halving
+		while (rb._islandParent != rb) {
+			rb._islandParent = rb._islandParent._islandParent;
+			rb = rb._islandParent;
+		}
+		return rb;
+	}
+
+	private static void initRoot(RigidBody rb) {
+		rb._islandParent = rb._type == RigidBodyType._STATIC ? null : rb;
+		rb._islandNext = null;
+		rb._islandLast = rb;
+		rb._islandSize = 1;
+		rb._islandContactList = null;
+		rb._islandContactListLast = null;
+		rb._islandJointList = null;
+		rb._islandJointListLast = null;
+		rb._islandSplit = false;
+	}
+
+	private static RigidBody union(RigidBody r1, RigidBody r2) {
+		if (r1 == r2) return r1;
+		if (r1._islandSize < r2._islandSize) {
+			RigidBody tmp = r1;
+			r1 = r2;
+			r2 = tmp;
+		}
+		// the smaller island joins the larger one
+		r2._islandParent = r1;
+		r1._islandLast._islandNext = r2;
+		r1._islandLast = r2._islandLast;
+		r1._islandSize += r2._islandSize;
+		if (r2._islandContactList != null) {
+			if (r1._islandContactList == null) {
+				r1._islandContactList = r2._islandContactList;
+			} else {
+				r1._islandContactListLast._islandNext = r2._islandContactList;
+				r2._islandContactList._islandPrev = r1._islandContactListLast;
+			}
+			r1._islandContactListLast = r2._islandContactListLast;
+		}
+		if (r2._islandJointList != null) {
+			if (r1._islandJointList == null) {
+				r1._islandJointList = r2._islandJointList;
+			} else {
+				r1._islandJointListLast._islandNext = r2._islandJointList;
+				r2._islandJointList._islandPrev = r1._islandJointListLast;
+			}
+			r1._islandJointListLast = r2._islandJointListLast;
+		}
+		r1._islandSplit |= r2._islandSplit;
+		r2._islandLast = null;
+		r2._islandContactList = null;
+		r2._islandContactListLast = null;
+		r2._islandJointList = null;
+		r2._islandJointListLast = null;
+		r2._islandSplit = false;
+		return r1;
+	}
+
+	// rebuilds the islands of the members of `root` from the edges of the island
+	private static void split(RigidBody root) {
+		RigidBody rb = root;
+		Contact c = root._islandContactList;
+		Joint j = root._islandJointList;
+		while (rb != null) {
+			RigidBody n = rb._islandNext;
+			initRoot(rb);
+			rb = n;
+		}
+		while (c != null) {
+			Contact n = c._islandNext;
+			c._islandPrev = null;
+			c._islandNext = null;
+			c._islandBody = null;
+			_linkContact(c);
+			c = n;
+		}
+		while (j != null) {
+			Joint n = j._islandNext;
+			j._islandPrev = null;
+			j._islandNext = null;
+			j._islandBody = null;
+			_linkJoint(j);
+			j = n;
+		}
+	}
+
+	// --- internal ---
+
+	/**
+	 * Adds `rb`, just added to the world, as an island of its own.
+	 */
+	static void _addRigidBody(RigidBody rb) {
+		initRoot(rb);
+		// joints left attached while the rigid body was out of the world
+		JointLink jl = rb._jointLinkList;
+		while (jl != null) {
+			Joint j = jl._joint;
+			if (j._world != null) {
+				_unlinkJoint(j);
+				_linkJoint(j);
+			}
+			jl = jl._next;
+		}
+	}
+
+	/**
+	 * Removes `rb`, just removed from the world, from its island.
+	 */
+	static void _removeRigidBody(RigidBody rb) {
+		ContactLink cl = rb._contactLinkList;
+		while (cl != null) {
+			_unlinkContact(cl._contact);
+			cl = cl._next;
+		}
+		JointLink jl = rb._jointLinkList;
+		while (jl != null) {
+			_unlinkJoint(jl._joint);
+			jl = jl._next;
+		}
+		if (rb._islandParent != null) {
+			split(find(rb));
+		}
+		rb._islandParent = null;
+		rb._islandLast = null;
+	}
+
+	/**
+	 * Moves `rb` in or out of the islands if it became static or non-static.
+	 */
+	static void _updateRigidBodyType(RigidBody rb) {
+		if ((rb._islandParent == null) == (rb._type == RigidBodyType._STATIC)) return;
+		ContactLink cl = rb._contactLinkList;
+		while (cl != null) {
+			_unlinkContact(cl._contact);
+			cl = cl._next;
+		}
+		JointLink jl = rb._jointLinkList;
+		while (jl != null) {
+			_unlinkJoint(jl._joint);
+			jl = jl._next;
+		}
+		if (rb._islandParent != null) {
+			split(find(rb));
+		} else {
+			initRoot(rb);
+		}
+		cl = rb._contactLinkList;
+		while (cl != null) {
+			if (cl._contact._touching) {
+				_linkContact(cl._contact);
+			}
+			cl = cl._next;
+		}
+		jl = rb._jointLinkList;
+		while (jl != null) {
+			_linkJoint(jl._joint);
+			jl = jl._next;
+		}
+	}
+
+	/**
+	 * Adds the contact `c`, which began touching, to the islands.
+	 */
+	static void _linkContact(Contact c) {
+		RigidBody b1 = c._b1;
+		RigidBody b2 = c._b2;
+		RigidBody root;
+		if (b1._islandParent != null && b2._islandParent != null) {
+			root = union(find(b1), find(b2));
+			c._islandBody = b1;
+		} else if (b1._islandParent != null) {
+			root = find(b1);
+			c._islandBody = b1;
+		} else if (b2._islandParent != null) {
+			root = find(b2);
+			c._islandBody = b2;
+		} else {
+			return; // between static rigid bodies
+		}
+		if (root._islandContactList == null) {
+			root._islandContactList = c;
+		} else {
+			root._islandContactListLast._islandNext = c;
+			c._islandPrev = root._islandContactListLast;
+		}
+		root._islandContactListLast = c;
+	}
+
+	/**
+	 * Removes the contact `c`, which stopped touching or is destroyed, from the islands.
+	 */
+	static void _unlinkContact(Contact c) {
+		if (c._islandBody == null) return;
+		RigidBody root = find(c._islandBody);
+		Contact prev = c._islandPrev;
+		Contact next = c._islandNext;
+		if (prev != null) {
+			prev._islandNext = next;
+		}
+		if (next != null) {
+			next._islandPrev = prev;
+		}
+		if (c == root._islandContactList) {
+			root._islandContactList = next;
+		}
+		if (c == root._islandContactListLast) {
+			root._islandContactListLast = prev;
+		}
+		c._islandPrev = null;
+		c._islandNext = null;
+		c._islandBody = null;
+		// the contact may have been the only path between two parts of the island
+		if (c._b1._islandParent != null && c._b2._islandParent != null) {
+			root._islandSplit = true;
+		}
+	}
+
+	/**
+	 * Adds the joint `j`, just added to the world, to the islands.
+	 */
+	static void _linkJoint(Joint j) {
+		RigidBody b1 = j._b1;
+		RigidBody b2 = j._b2;
+		RigidBody root;
+		if (b1._islandParent != null && b2._islandParent != null) {
+			root = union(find(b1), find(b2));
+			j._islandBody = b1;
+		} else if (b1._islandParent != null) {
+			root = find(b1);
+			j._islandBody = b1;
+		} else if (b2._islandParent != null) {
+			root = find(b2);
+			j._islandBody = b2;
+		} else {
+			return; // between static rigid bodies
+		}
+		if (root._islandJointList == null) {
+			root._islandJointList = j;
+		} else {
+			root._islandJointListLast._islandNext = j;
+			j._islandPrev = root._islandJointListLast;
+		}
+		root._islandJointListLast = j;
+	}
+
+	/**
+	 * Removes the joint `j`, just removed from the world, from the islands.
+	 */
+	static void _unlinkJoint(Joint j) {
+		if (j._islandBody == null) return;
+		RigidBody root = find(j._islandBody);
+		Joint prev = j._islandPrev;
+		Joint next = j._islandNext;
+		if (prev != null) {
+			prev._islandNext = next;
+		}
+		if (next != null) {
+			next._islandPrev = prev;
+		}
+		if (j == root._islandJointList) {
+			root._islandJointList = next;
+		}
+		if (j == root._islandJointListLast) {
+			root._islandJointListLast = prev;
+		}
+		j._islandPrev = null;
+		j._islandNext = null;
+		j._islandBody = null;
+		if (j._b1._islandParent != null && j._b2._islandParent != null) {
+			root._islandSplit = true;
+		}
+	}
+
+	/**
+	 * Returns the root of the island of the non-static rigid body `rb`, splitting the island
+	 * first if it lost edges.
+	 */
+	static RigidBody _collect(RigidBody rb) {
+		RigidBody root = find(rb);
+		if (root._islandSplit) {
+			split(root);
+			root = find(rb);
+		}
+		return root;
+	}
+}
@@ -0,0 +1,179 @@
+package oimo.dynamics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import oimo.common.Performance;
+import oimo.common.Setting;
+import oimo.common.Vec3;
+import oimo.dynamics.rigidbody.RigidBody;
+
+/**
+ * Internal class.
+ *
+ * Collects the simulation islands of a step and solves them on a fork-join pool.
+ * Islands never share dynamic or kinematic rigid bodies, so each island is solved
+ * by a single worker with its own `Island` instance. Rigid bodies without contacts
+ * and joints are batched into islands that are only integrated. Post-solve of constraints
+ * (which may remove joints) and synchronization of shapes (which moves broad-phase
+ * proxies) are done afterwards on the calling thread in the order the islands were
+ * collected, so the result is identical to the serial solver.
+ */
+public class IslandScheduler {
+	// the maximum number of single rigid bodies integrated by a job
+	static final int SINGLE_BATCH_SIZE = 64;
+
+	// jobs in the order of collection, either an island or a batch of single rigid bodies
+	Island[] jobIslands;
+	boolean[] jobSingles;
+	boolean[] jobResults;
+	int numJobs;
+
+	// pool of the islands, reused among steps
+	Island[] islandPool;
+	int numUsedIslands;
+
+	TimeStep timeStep;
+	int numVelocityIterations;
+	int numPositionIterations;
+
+	public IslandScheduler() {
+		jobIslands = new Island[Setting.islandInitialRigidBodyArraySize];
+		jobSingles = new boolean[Setting.islandInitialRigidBodyArraySize];
+		jobResults = new boolean[Setting.islandInitialRigidBodyArraySize];
+		numJobs = 0;
+
+		islandPool = new Island[Setting.islandInitialRigidBodyArraySize];
+		numUsedIslands = 0;
+	}
+
+	// --- private ---
+
+	private void addJob(Island island, boolean single) {
+		if (numJobs == jobIslands.length) {
+			int newLength = numJobs << 1;
+			Island[] newIslands = new Island[newLength];
+			boolean[] newSingles = new boolean[newLength];
+			for (int i = 0; i < numJobs; i++) {
+				newIslands[i] = jobIslands[i];
+				newSingles[i] = jobSingles[i];
+			}
+			jobIslands = newIslands;
+			jobSingles = newSingles;
+			jobResults = new boolean[newLength];
+		}
+		jobIslands[numJobs] = island;
+		jobSingles[numJobs] = single;
+		numJobs++;
+	}
+
+	private Island pickIsland(Vec3 gravity, boolean single) {
+		if (numUsedIslands == islandPool.length) {
+			Island[] newArray = new Island[numUsedIslands << 1];
+			for (int i = 0; i < numUsedIslands; i++) {
+				newArray[i] = islandPool[i];
+			}
+			islandPool = newArray;
+		}
+		Island island = islandPool[numUsedIslands];
+		if (island == null) {
+			island = new Island();
+			islandPool[numUsedIslands] = island;
+		}
+		numUsedIslands++;
+		island._setGravity(gravity);
+		addJob(island, single);
+		return island;
+	}
+
+	private void runJob(int index) {
+		Island island = jobIslands[index];
+		if (jobSingles[index]) {
+			island._integrateSingleRigidBodies(timeStep);
+		} else {
+			jobResults[index] = island._solve(timeStep, numVelocityIterations, numPositionIterations);
+		}
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns a cleared island to be built, the island is solved by the next call of `_solve`.
+	 */
+	Island _pickIsland(Vec3 gravity) {
+		return pickIsland(gravity, false);
+	}
+
+	/**
+	 * Adds the rigid body that has neither contacts nor joints, it is integrated by the next call of `_solve`.
+	 */
+	void _addSingleRigidBody(RigidBody rigidBody, Vec3 gravity) {
+		Island island;
+		if (numJobs > 0 && jobSingles[numJobs - 1] && jobIslands[numJobs - 1].numRigidBodies < SINGLE_BATCH_SIZE) {
+			island = jobIslands[numJobs - 1];
+		} else {
+			island = pickIsland(gravity, true);
+		}
+		island._addRigidBody(rigidBody);
+	}
+
+	/**
+	 * Solves all the collected islands on `pool`, then finishes them on the calling thread.
+	 * Times spent in the islands are added to `performance` if profiling is enabled.
+	 */
+	void _solve(ForkJoinPool pool, TimeStep timeStep, int numVelocityIterations, int numPositionIterations, Performance performance) {
+		if (numJobs == 0) return;
+		this.timeStep = timeStep;
+		this.numVelocityIterations = numVelocityIterations;
+		this.numPositionIterations = numPositionIterations;
+
+		// a few jobs per worker are enough to balance islands of different sizes
+		int grain = numJobs / (pool.getParallelism() * 8);
+		if (grain < 1) grain = 1;
+		for (int i = 0; i < numJobs; i++) {
+			jobIslands[i].profiling = performance._enabled;
+		}
+		pool.invoke(new SolveTask(0, numJobs, grain));
+
+		for (int i = 0; i < numJobs; i++) {
+			Island island = jobIslands[i];
+			if (jobSingles[i]) {
+				island._finishSingleRigidBodies();
+			} else if (jobResults[i]) {
+				island._finish();
+			}
+			island._clear();
+			if (performance._enabled) performance._addTimes(island.phaseTimes);
+			jobIslands[i] = null;
+		}
+		numJobs = 0;
+		numUsedIslands = 0;
+		this.timeStep = null;
+	}
+
+	// solves the jobs in [from, until) by splitting the range recursively
+	@SuppressWarnings("serial")
+	class SolveTask extends RecursiveAction {
+		int from;
+		int until;
+		int grain;
+
+		SolveTask(int from, int until, int grain) {
+			this.from = from;
+			this.until = until;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (until - from > grain) {
+				int mid = (from + until) >>> 1;
+				invokeAll(new SolveTask(from, mid, grain), new SolveTask(mid, until, grain));
+				return;
+			}
+			for (int i = from; i < until; i++) {
+				runJob(i);
+			}
+		}
+	}
+
+}
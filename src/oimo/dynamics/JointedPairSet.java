@@ -0,0 +1,127 @@
+package oimo.dynamics;
+
+/**
+ * The pairs of rigid bodies that must not collide because a joint connects them, hashed by
+ * the ids of the rigid bodies. Each pair keeps the number of such joints, and is removed when
+ * the last one goes. An open addressing table with linear probing, like `ContactMap`.
+ */
+class JointedPairSet {
+	// marks an empty slot, rigid body ids are never negative
+	static final long EMPTY = -1;
+
+	long[] _keys;
+	int[] _counts;
+	int _size;
+	int _mask;
+
+	JointedPairSet() {
+		init(16);
+	}
+
+	// --- private ---
+
+	private void init(int capacity) {
+		_keys = new long[capacity];
+		_counts = new int[capacity];
+		for (int i = 0; i < capacity; i++) {
+			_keys[i] = EMPTY;
+		}
+		_size = 0;
+		_mask = capacity - 1;
+	}
+
+	private static long key(int id1, int id2) {
+		// the pair is unordered
+		if (id1 > id2) {
+			int tmp = id1;
+			id1 = id2;
+			id2 = tmp;
+		}
+		return (long) id1 << 32 | id2 & 0xffffffffL;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ h >>> 32) & _mask;
+	}
+
+	private int find(long key) {
+		int i = slot(key);
+		long k;
+		while ((k = _keys[i]) != key) {
+			if (k == EMPTY) return -1;
+			i = i + 1 & _mask;
+		}
+		return i;
+	}
+
+	private void put(long key, int count) {
+		int i = slot(key);
+		while (_keys[i] != EMPTY) {
+			i = i + 1 & _mask;
+		}
+		_keys[i] = key;
+		_counts[i] = count;
+		_size++;
+	}
+
+	private void grow() {
+		long[] keys = _keys;
+		int[] counts = _counts;
+		init(keys.length << 1);
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				put(keys[i], counts[i]);
+			}
+		}
+	}
+
+	// --- internal ---
+
+	/**
+	 * Returns whether a joint disables the collisions between the rigid bodies of ids `id1` and `id2`.
+	 */
+	boolean _contains(int id1, int id2) {
+		return _size > 0 && find(key(id1, id2)) != -1;
+	}
+
+	/**
+	 * Counts a joint disabling the collisions between the rigid bodies of ids `id1` and `id2`.
+	 */
+	void _add(int id1, int id2) {
+		long key = key(id1, id2);
+		int i = find(key);
+		if (i != -1) {
+			_counts[i]++;
+			return;
+		}
+		if ((_size + 1) * 2 > _keys.length) {
+			grow();
+		}
+		put(key, 1);
+	}
+
+	/**
+	 * Uncounts a joint counted by `_add`.
+	 */
+	void _remove(int id1, int id2) {
+		int i = find(key(id1, id2));
+		if (i == -1 || --_counts[i] > 0) return;
+		_size--;
+		// shift back the entries whose probe sequences pass through the removed slot
+		int j = i;
+		while (true) {
+			j = j + 1 & _mask;
+			long k = _keys[j];
+			if (k == EMPTY) break;
+			int home = slot(k);
+			if (i <= j ? home <= i || home > j : home <= i && home > j) {
+				_keys[i] = k;
+				_counts[i] = _counts[j];
+				i = j;
+			}
+		}
+		_keys[i] = EMPTY;
+		_counts[i] = 0;
+	}
+}
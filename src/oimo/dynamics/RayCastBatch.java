@@ -0,0 +1,199 @@
+package oimo.dynamics;
+import java.util.Arrays;
+
+import oimo.common.Vec3;
+import oimo.dynamics.rigidbody.Shape;
+
+/**
+ * Rays and their closest hits for `World.rayCastBatch`. Vectors are packed in arrays as
+ * `x, y, z` at `3 * i` for the ray of index `i`, so that many rays can be cast per call
+ * without allocating. Rays can be added with `addRay`, or written directly to `begins`
+ * and `ends` within the capacity before setting `numRays`.
+ */
+public class RayCastBatch {
+	/**
+	 * The start points of the rays.
+	 */
+	public double[] begins;
+
+	/**
+	 * The end points of the rays.
+	 */
+	public double[] ends;
+
+	/**
+	 * The number of rays.
+	 */
+	public int numRays;
+
+	/**
+	 * The shapes the rays hit, `null` for the rays that hit nothing.
+	 */
+	public Shape[] shapes;
+
+	/**
+	 * The ratios of the positions the rays hit from the start points to the end points,
+	 * `1` for the rays that hit nothing.
+	 */
+	public double[] fractions;
+
+	/**
+	 * The positions the rays hit.
+	 */
+	public double[] positions;
+
+	/**
+	 * The normal vectors of the surfaces the rays hit.
+	 */
+	public double[] normals;
+
+	// the indices of the rays sorted for coherence, and their sort keys
+	int[] _order;
+	long[] _keys;
+
+	/**
+	 * Creates a batch of up to `capacity` rays. The capacity grows as rays are added.
+	 */
+	public RayCastBatch(int capacity) {
+		if (capacity < 1) capacity = 1;
+		begins = new double[capacity * 3];
+		ends = new double[capacity * 3];
+		numRays = 0;
+		shapes = new Shape[capacity];
+		fractions = new double[capacity];
+		positions = new double[capacity * 3];
+		normals = new double[capacity * 3];
+		_order = new int[capacity];
+		_keys = new long[capacity];
+	}
+
+	// --- internal ---
+
+	/**
+	 * Makes room for `numRays` rays.
+	 */
+	public void _ensureCapacity(int numRays) {
+		int capacity = shapes.length;
+		if (numRays <= capacity) return;
+		while (capacity < numRays) capacity <<= 1;
+		begins = Arrays.copyOf(begins, capacity * 3);
+		ends = Arrays.copyOf(ends, capacity * 3);
+		shapes = Arrays.copyOf(shapes, capacity);
+		fractions = Arrays.copyOf(fractions, capacity);
+		positions = Arrays.copyOf(positions, capacity * 3);
+		normals = Arrays.copyOf(normals, capacity * 3);
+		_order = new int[capacity];
+		_keys = new long[capacity];
+	}
+
+	/**
+	 * Clears the results and sorts the rays by the octant of their directions, then by the
+	 * Morton code of their start points on a 512^3 grid, so that neighboring rays traverse
+	 * similar nodes.
+	 */
+	public void _prepare() {
+		int n = numRays;
+		_ensureCapacity(n);
+		if (n == 0) return;
+
+		double minX = begins[0];
+		double minY = begins[1];
+		double minZ = begins[2];
+		double maxX = minX;
+		double maxY = minY;
+		double maxZ = minZ;
+		for (int i = 0; i < n; i++) {
+			int o = i * 3;
+			double x = begins[o];
+			double y = begins[o + 1];
+			double z = begins[o + 2];
+			if (x < minX) minX = x;
+			if (y < minY) minY = y;
+			if (z < minZ) minZ = z;
+			if (x > maxX) maxX = x;
+			if (y > maxY) maxY = y;
+			if (z > maxZ) maxZ = z;
+
+			shapes[i] = null;
+			fractions[i] = 1;
+		}
+		double scaleX = maxX > minX ? 511 / (maxX - minX) : 0;
+		double scaleY = maxY > minY ? 511 / (maxY - minY) : 0;
+		double scaleZ = maxZ > minZ ? 511 / (maxZ - minZ) : 0;
+
+		for (int i = 0; i < n; i++) {
+			int o = i * 3;
+			int octant =
+				(ends[o] < begins[o] ? 1 : 0) |
+				(ends[o + 1] < begins[o + 1] ? 2 : 0) |
+				(ends[o + 2] < begins[o + 2] ? 4 : 0);
+			long code =
+				spread((int) ((begins[o] - minX) * scaleX)) |
+				spread((int) ((begins[o + 1] - minY) * scaleY)) << 1 |
+				spread((int) ((begins[o + 2] - minZ) * scaleZ)) << 2;
+			// the key is in the upper bits, the index of the ray in the lower ones
+			_keys[i] = ((long) octant << 27 | code) << 32 | i;
+		}
+		Arrays.sort(_keys, 0, n);
+		for (int i = 0; i < n; i++) {
+			_order[i] = (int) _keys[i];
+		}
+	}
+
+	// spreads the lower 9 bits of `v` to every third bit
+	static long spread(int v) {
+		long x = v & 0x1ff;
+		x = (x | x << 16) & 0x30000ffL;
+		x = (x | x << 8) & 0x300f00fL;
+		x = (x | x << 4) & 0x30c30c3L;
+		x = (x | x << 2) & 0x9249249L;
+		return x;
+	}
+
+	// --- public ---
+
+	/**
+	 * Adds a ray from `begin` to `end` and returns its index.
+	 */
+	public int addRay(Vec3 begin, Vec3 end) {
+		_ensureCapacity(numRays + 1);
+		int o = numRays * 3;
+		begins[o] = begin.x;
+		begins[o + 1] = begin.y;
+		begins[o + 2] = begin.z;
+		ends[o] = end.x;
+		ends[o + 1] = end.y;
+		ends[o + 2] = end.z;
+		return numRays++;
+	}
+
+	/**
+	 * Removes all the rays.
+	 */
+	public void clear() {
+		numRays = 0;
+	}
+
+	/**
+	 * Returns whether the ray of index `ray` hit any shape.
+	 */
+	public boolean isHit(int ray) {
+		return shapes[ray] != null;
+	}
+
+	/**
+	 * Sets `position` to the position the ray of index `ray` hit.
+	 */
+	public void getPositionTo(int ray, Vec3 position) {
+		int o = ray * 3;
+		position.set(positions[o], positions[o + 1], positions[o + 2]);
+	}
+
+	/**
+	 * Sets `normal` to the normal vector of the surface the ray of index `ray` hit.
+	 */
+	public void getNormalTo(int ray, Vec3 normal) {
+		int o = ray * 3;
+		normal.set(normals[o], normals[o + 1], normals[o + 2]);
+	}
+}
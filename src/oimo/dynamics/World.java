@@ -1,10 +1,13 @@
 package oimo.dynamics;
-import oimo.collision.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import oimo.collision.broadphase.*;
 import oimo.collision.broadphase.bruteforce.*;
 import oimo.collision.broadphase.bvh.BvhBroadPhase;
-import oimo.collision.broadphase.bvh.BvhNode;
+import oimo.collision.broadphase.bvh.BvhNodeStore;
 import oimo.collision.broadphase.bvh.BvhTree;
+import oimo.collision.broadphase.sap.SapBroadPhase;
 import oimo.collision.geometry.*;
 import oimo.collision.narrowphase.detector.gjkepa.*;
 import oimo.common.*;
@@ -40,24 +43,37 @@ public class World {
 
 	TimeStep _timeStep;
 	Island _island;
-	RigidBody[] _rigidBodyStack;
+	IslandScheduler _islandScheduler;
+	ForkJoinPool _workerPool;
+	int _numThreads;
 	ConstraintSolver[] _solversInIslands;
 	int _numSolversInIslands;
+	RigidBody[] _rigidBodiesInIslands;
+	int _numRigidBodiesInIslands;
+
+	// awake non-static rigid bodies, the only ones that can be the base of an island. bodies are
+	// added when they wake up, and removed lazily by `_solveIslands` once asleep or static
+	RigidBody[] _activeRigidBodies;
+	int _numActiveRigidBodies;
 
 	DebugDraw _debugDraw;
+	// the cell triangle of the heightfield being drawn
+	TriangleGeometry _drawTriangle;
 	public Performance performance;
 	RayCastWrapper _rayCastWrapper;
 	RayCastWrapper.ConvexCastWrapper _convexCastWrapper;
 	RayCastWrapper.ConvexCastWrapper.AabbTestWrapper _aabbTestWrapper;
+	RayCastBatchWrapper[] _rayCastBatchWrappers;
 
 	Pool _pool;
 
 	int  _shapeIdCount;
+	int _rigidBodyIdCount;
 
 	/**
 	 * Creates a new physics world, with broad-phase collision detection algorithm `broadPhaseType` and
 	 * gravitational acceleration `gravity`.
-	 * @param broadPhaseType 1=Bruteforce 2=BVM
+	 * @param broadPhaseType 1=Bruteforce 2=BVM 3=SAP
 	 * @param gravity
 	 */
 	public World(int broadPhaseType ,Vec3 gravity ) {
@@ -66,6 +82,9 @@ public class World {
 		case BroadPhaseType.BRUTE_FORCE:
 			_broadPhase = new BruteForceBroadPhase();
 			break;
+		case BroadPhaseType.SAP:
+			_broadPhase = new SapBroadPhase();
+			break;
 		case BroadPhaseType.BVH:
 		 default:
 			_broadPhase = new BvhBroadPhase();
@@ -93,203 +112,266 @@ public class World {
 		_rayCastWrapper = new RayCastWrapper();
 		_convexCastWrapper = new oimo.dynamics.World.RayCastWrapper.ConvexCastWrapper();
 		_aabbTestWrapper = new oimo.dynamics.World.RayCastWrapper.ConvexCastWrapper.AabbTestWrapper();
+		_rayCastBatchWrappers = new RayCastBatchWrapper[] { new RayCastBatchWrapper() };
 
 		_island = new Island();
+		_islandScheduler = new IslandScheduler();
+		_workerPool = null;
+		_numThreads = 1;
 		_solversInIslands = new ConstraintSolver[Setting.islandInitialConstraintArraySize];
-		_rigidBodyStack = new RigidBody[Setting.islandInitialRigidBodyArraySize];
+		_rigidBodiesInIslands = new RigidBody[Setting.islandInitialRigidBodyArraySize];
+		_numRigidBodiesInIslands = 0;
+		_activeRigidBodies = new RigidBody[Setting.islandInitialRigidBodyArraySize];
+		_numActiveRigidBodies = 0;
 
 		_timeStep = new TimeStep();
 
 		_pool = new Pool();
+		_drawTriangle = new TriangleGeometry();
 
 
 		_shapeIdCount = 0;
+		_rigidBodyIdCount = 0;
 		performance=new Performance(this);
 	}
 
 	void _updateContacts() {
-		long st = System.currentTimeMillis();
-			// update contacts (broad phase)
-		_contactManager._updateContacts();
-		long st1=System.currentTimeMillis();
-		performance.broadPhaseCollisionTime=st1-st;
+		// update contacts (broad phase)
+		_contactManager._updateContacts(performance, _activeRigidBodies, _numActiveRigidBodies);
+		long time = performance._now();
 		// update manifolds (narrow phase)
-		_contactManager._updateManifolds();
-		performance.narrowPhaseCollisionTime=System.currentTimeMillis()-st1;
-		
+		if (_workerPool != null) {
+			_contactManager._updateManifolds(_workerPool);
+		} else {
+			_contactManager._updateManifolds();
+		}
+		performance._lap(Performance.NARROW_PHASE, time);
 	}
 	
 
 	void _solveIslands() {
-		
-		long st = System.currentTimeMillis() ;/// 1000;
 		// wake up all rigid bodies if sleeping is disabled
 		if(Setting.disableSleeping) {
 			RigidBody b = this._rigidBodyList;
 			while(b != null) {
-				b._sleeping = false;
-				b._sleepTime = 0;
+				b.wakeUp();
 				b = b._next;
 			}
 		}
 		// expand array size if needed
-		if(this._rigidBodyStack.length < this._numRigidBodies) {
-			int newStackSize = this._rigidBodyStack.length << 1;
-			while(newStackSize < this._numRigidBodies) newStackSize <<= 1;
-			this._rigidBodyStack = new RigidBody[newStackSize];
-		}
 		// build and solve islands
 		_numIslands = 0;
 		_island._setGravity(_gravity);
-		RigidBody b = _rigidBodyList;
+		_island.profiling = performance._enabled;
+		boolean parallel = _workerPool != null;
 		_numSolversInIslands = 0;
-		while(b != null) {
-			RigidBody n = b._next;
+		_numRigidBodiesInIslands = 0;
+
+		// sweep the awake rigid bodies, compacting them in order. building islands may append
+		// the sleeping bodies of the islands, which are swept in the same pass
+		int numActive = 0;
+		for (int i=0;i<_numActiveRigidBodies;i++) {
+			RigidBody b = _activeRigidBodies[i];
+			_activeRigidBodies[i] = null;
+			if (b == null) continue; // removed from the world
+			if (!b._addedToIsland && (b._sleeping || b._type == RigidBodyType._STATIC)) {
+				b._activeIndex = -1;
+				continue;
+			}
+			b._activeIndex = numActive;
+			_activeRigidBodies[numActive++] = b;
+
 			while(!(b._addedToIsland || b._sleeping || b._type == 1)) {
 				if(b._numContactLinks == 0 && b._numJointLinks == 0) {
 					// never be the base of an island
-					this._island._stepSingleRigidBody(this._timeStep,b);
+					if (parallel) {
+						// batched with other single rigid bodies, which flags it as in an island
+						recordRigidBodyInIsland(b);
+						this._islandScheduler._addSingleRigidBody(b, _gravity);
+					} else {
+						this._island._stepSingleRigidBody(this._timeStep,b);
+					}
 					this._numIslands++;
 					break;
 				}
-				this.buildIsland(b);
-				this._island._step(this._timeStep,this._numVelocityIterations,this._numPositionIterations);
-				this._island._clear();
+				if (parallel) {
+					// solved later together with the other islands
+					long time = performance._now();
+					this.buildIsland(this._islandScheduler._pickIsland(_gravity), IslandGraph._collect(b));
+					performance._lap(Performance.ISLAND_BUILDING, time);
+				} else {
+					long time = performance._now();
+					this.buildIsland(this._island, IslandGraph._collect(b));
+					performance._lap(Performance.ISLAND_BUILDING, time);
+					this._island._step(this._timeStep,this._numVelocityIterations,this._numPositionIterations);
+					this._island._clear();
+				}
 				this._numIslands++;
 				break;
 			}
-			b = n;
 		}
-		
+		_numActiveRigidBodies = numActive;
+		if (parallel) {
+			this._islandScheduler._solve(_workerPool, _timeStep, _numVelocityIterations, _numPositionIterations, performance);
+		} else if (performance._enabled) {
+			performance._addTimes(this._island.phaseTimes);
+		}
+
+		long time = performance._now();
 		this._contactManager._postSolve();
+		performance._lap(Performance.POST_SOLVE, time);
 		
 		// clear island flags
-		b = this._rigidBodyList;
-		while(b != null) {
+		while(this._numRigidBodiesInIslands > 0) {
+			RigidBody b = this._rigidBodiesInIslands[--this._numRigidBodiesInIslands];
+			this._rigidBodiesInIslands[this._numRigidBodiesInIslands] = null;
 			b._addedToIsland = false;
-			b = b._next;
+			b._force.zero();
+			b._torque.zero();
 		}
-		
-		// clear forces and torques
-		b = this._rigidBodyList;
-		while(b != null) {
+
+		// clear forces and torques, applying them wakes the rigid bodies up
+		for (int i=0;i<_numActiveRigidBodies;i++) {
+			RigidBody b = _activeRigidBodies[i];
 			b._force.zero();
 			b._torque.zero();
-			b = b._next;
 		}
 		
 		while(this._numSolversInIslands > 0) {
 			this._solversInIslands[--this._numSolversInIslands]._addedToIsland = false;
 			this._solversInIslands[this._numSolversInIslands] = null;
 		}
-		performance.dynamicsTime =System.currentTimeMillis()- st;
-	
 	}
 
-	void buildIsland(RigidBody base) {
-		// begin DFS
-		int stackCount = 1;
-		_island._addRigidBody(base);
-		_rigidBodyStack[0] = base;
+	void addRigidBodyToIsland(Island island, RigidBody rb) {
+		recordRigidBodyInIsland(rb);
+		island._addRigidBody(rb);
+		// the island wakes up the sleeping rigid bodies it reaches
+		if (rb._sleeping && rb._type != RigidBodyType._STATIC) {
+			_activateRigidBody(rb);
+		}
+	}
 
-		while (stackCount > 0) {
-			// pop a rigid body
-			RigidBody rb = _rigidBodyStack[--stackCount];
-			_rigidBodyStack[stackCount] = null;
+	void recordRigidBodyInIsland(RigidBody rb) {
+		//expand capacity if needed
+		if(this._rigidBodiesInIslands.length == this._numRigidBodiesInIslands) {
+			RigidBody[] newArray = new RigidBody[this._numRigidBodiesInIslands << 1];
+			for(int i=0;i<this._numRigidBodiesInIslands;i++) {
+				newArray[i] = this._rigidBodiesInIslands[i];
+			}
+			this._rigidBodiesInIslands = newArray;
+		}
+		// add to rigid body array (to clear island flag later)
+		this._rigidBodiesInIslands[this._numRigidBodiesInIslands++] = rb;
+	}
 
-			// stop searching deeper
-			if (rb._type == RigidBodyType._STATIC) {
-				continue;
+	void buildIsland(Island island, RigidBody root) {
+		// the members, the contacts and the joints of the island are kept by the island graph
+		RigidBody rb = root;
+		while(rb != null) {
+			addRigidBodyToIsland(island, rb);
+			rb = rb._islandNext;
+		}
+
+		Contact c = root._islandContactList;
+		while(c != null) {
+			ContactConstraint cc = c._contactConstraint;
+			// ignore if not touching
+			if(cc.isTouching()) {
+				addConstraintSolverToIsland(island, cc._solver, cc._positionCorrectionAlgorithm);
+				clearStaticContactImpulses(c._b1);
+				clearStaticContactImpulses(c._b2);
 			}
+			c = c._islandNext;
+		}
 
-			// searching contacts
-			ContactLink cl = rb._contactLinkList;
-			while(cl != null) {
-				ContactLink n = cl._next;
-				ContactConstraint cc = cl._contact._contactConstraint;
-				ConstraintSolver ccs = cl._contact._contactConstraint._solver;
-				// ignore if not touching
-				if(cc.isTouching() && !ccs._addedToIsland) {
-					//expand capacity if needed
-					if(this._solversInIslands.length == this._numSolversInIslands) {
-						ConstraintSolver[] newArray = new ConstraintSolver[this._numSolversInIslands << 1];
-						for(int  i=0;i<this._numSolversInIslands;i++) {
-							newArray[i] = this._solversInIslands[i];
-							this._solversInIslands[i] = null;
-						}
-						this._solversInIslands = newArray;
-					}
-					// add to constraint array (to clear island flag later)
-					this._solversInIslands[this._numSolversInIslands++] = ccs;
-					// add to island
-					this._island._addConstraintSolver(ccs,cc._positionCorrectionAlgorithm);
-					// push the other rigid body if not added
-					RigidBody other = cl._other;
-					if(!other._addedToIsland) {
-						this._island._addRigidBody(other);
-						this._rigidBodyStack[stackCount++] = other;
-					}
-				}
-				cl = n;
+		Joint j = root._islandJointList;
+		while(j != null) {
+			addConstraintSolverToIsland(island, j._solver, j._positionCorrectionAlgorithm);
+			j = j._islandNext;
+		}
+	}
+
+	// static rigid bodies are not members of the islands, so their contact impulses are cleared
+	// by the first island touching them in the step, and flagged so that the others add to them
+	void clearStaticContactImpulses(RigidBody rb) {
+		if (rb._type != RigidBodyType._STATIC || rb._addedToIsland) return;
+		rb._addedToIsland = true;
+		recordRigidBodyInIsland(rb);
+		M.vec3_zero(rb._linearContactImpulse);
+		M.vec3_zero(rb._angularContactImpulse);
+	}
+
+	void addConstraintSolverToIsland(Island island, ConstraintSolver solver, int positionCorrectionAlgorithm) {
+		//expand capacity if needed
+		if(this._solversInIslands.length == this._numSolversInIslands) {
+			ConstraintSolver[] newArray = new ConstraintSolver[this._numSolversInIslands << 1];
+			for(int i=0;i<this._numSolversInIslands;i++) {
+				newArray[i] = this._solversInIslands[i];
+				this._solversInIslands[i] = null;
 			}
-			
+			this._solversInIslands = newArray;
+		}
+		// add to constraint array (to clear island flag later)
+		this._solversInIslands[this._numSolversInIslands++] = solver;
+		island._addConstraintSolver(solver, positionCorrectionAlgorithm);
+	}
 
-			// searching joints
-			JointLink jl = rb._jointLinkList;
-			while(jl != null) {
-				JointLink n = jl._next;
-				Joint j = jl._joint;
-				ConstraintSolver js = j._solver;
-				if (!js._addedToIsland) {
-					//expand capacity if needed
-					if(this._solversInIslands.length == this._numSolversInIslands) {
-						ConstraintSolver[] newArray = new ConstraintSolver[this._numSolversInIslands << 1];
-						for(int  i=0;i<this._numSolversInIslands;i++) {
-							newArray[i] = this._solversInIslands[i];
-							this._solversInIslands[i] = null;
-						}
-						this._solversInIslands = newArray;
-					}
-					
-					// add to constraint array (to clear island flag later)
-					_solversInIslands[_numSolversInIslands++] = js;
-
-					// add to island
-					_island._addConstraintSolver(js, j._positionCorrectionAlgorithm);
-
-					// push the other rigid body if not added
-					RigidBody other = jl._other;
-					if (!other._addedToIsland) {
-						_island._addRigidBody(other);
-						_rigidBodyStack[stackCount++] = other;
-					}
-				}
-				
-				jl = n;
+	public void _updateRigidBodyType(RigidBody rb) {
+		IslandGraph._updateRigidBodyType(rb);
+		boolean isStatic = rb._type == RigidBodyType._STATIC;
+		Shape s = rb._shapeList;
+		while (s != null) {
+			if (s._proxy != null) {
+				_broadPhase.setProxyStatic(s._proxy, isStatic);
 			}
-			
+			s = s._next;
+		}
+	}
+
+	public void _activateRigidBody(RigidBody rb) {
+		if (rb._activeIndex != -1) return;
+		//expand capacity if needed
+		if(this._activeRigidBodies.length == this._numActiveRigidBodies) {
+			RigidBody[] newArray = new RigidBody[this._numActiveRigidBodies << 1];
+			for(int i=0;i<this._numActiveRigidBodies;i++) {
+				newArray[i] = this._activeRigidBodies[i];
+			}
+			this._activeRigidBodies = newArray;
 		}
+		rb._activeIndex = this._numActiveRigidBodies;
+		this._activeRigidBodies[this._numActiveRigidBodies++] = rb;
 	}
 
 	public void _addShape(Shape shape) {
-		shape._proxy = _broadPhase.createProxy(shape, shape._aabb);
+		if (shape._geom._type == GeometryType.PLANE) {
+			// half-spaces bypass the broad-phase, the contact manager tests them by itself
+			_contactManager._addPlaneShape(shape);
+		} else {
+			shape._proxy = _broadPhase.createProxy(shape, shape._aabb, shape._rigidBody._type == RigidBodyType._STATIC);
+		}
 		shape._id = _shapeIdCount++;
 
 		_numShapes++;
 	}
 
 	public void _removeShape(Shape shape) {
-		_broadPhase.destroyProxy(shape._proxy);
+		if (shape._proxy != null) {
+			_broadPhase.destroyProxy(shape._proxy);
+		} else {
+			_contactManager._removePlaneShape(shape);
+		}
 	
 		// destroy linked contacts
 		ContactLink cl = shape._rigidBody._contactLinkList;
 		while(cl != null) {
+			ContactLink n = cl._next;
 			Contact c = cl._contact;
 			if (c._s1 == shape || c._s2 == shape) {
 				cl._other.wakeUp();
 				_contactManager._destroyContact(c);
 			}
-			cl=cl._next;
+			cl = n;
 		}
 		shape._proxy = null;
 		shape._id = -1;
@@ -299,23 +381,25 @@ public class World {
 
 	void _drawBvh(DebugDraw d,BvhTree tree) {
 		if (d.drawBvh) {
-			_drawBvhNode(d, tree._root, 0, d.style.bvhNodeColor);
+			_drawBvhNode(d, tree._store, tree._root, 0, d.style.bvhNodeColor);
 		}
 	}
 
-	void _drawBvhNode(DebugDraw d, BvhNode node, int level, Vec3 color) {
-		if (node == null) return;
+	void _drawBvhNode(DebugDraw d, BvhNodeStore store, int node, int level, Vec3 color) {
+		if (node == BvhNodeStore.NULL) return;
 		if (level >= d.drawBvhMinLevel && level <= d.drawBvhMaxLevel) {
 			Vec3 min = _pool.vec3();
 			Vec3 max = _pool.vec3();
-			M.vec3_toVec3(min, node._aabbMin);
-			M.vec3_toVec3(max, node._aabbMax);
+			double[] b = store._bounds;
+			int o = node * BvhNodeStore.BOUNDS_SIZE;
+			min.set(b[o], b[o + 1], b[o + 2]);
+			max.set(b[o + 3], b[o + 4], b[o + 5]);
 			d.aabb(min, max, color);
 			_pool.disposeVec3(min);
 			_pool.disposeVec3(max);
 		}
-		_drawBvhNode(d, node._children[0], level + 1, color);
-		_drawBvhNode(d, node._children[1], level + 1, color);
+		_drawBvhNode(d, store, store._children[node << 1], level + 1, color);
+		_drawBvhNode(d, store, store._children[(node << 1) + 1], level + 1, color);
 	}
 
 	void _drawRigidBodies(DebugDraw d) {
@@ -345,7 +429,7 @@ public class World {
 				if (d.drawShapes) {
 					_drawShape(d, s._geom, s._transform, shapeColor);
 				}
-				if (d.drawAabbs) {
+				if (d.drawAabbs && s._proxy != null) {
 					_drawAabb(d, s._aabb, style.aabbColor);
 				}
 				s=ns;
@@ -380,6 +464,15 @@ public class World {
 		case GeometryType.CONVEX_HULL:
 			_drawConvexHull(d,  (ConvexHullGeometry) geom, tf, color);
 			break;
+		case GeometryType.TRIANGLE_MESH:
+			_drawTriangleMesh(d,  (TriangleMeshGeometry) geom, tf, color);
+			break;
+		case GeometryType.HEIGHTFIELD:
+			_drawHeightfield(d,  (HeightfieldGeometry) geom, tf, color);
+			break;
+		case GeometryType.PLANE:
+			_drawPlane(d, tf, color);
+			break;
 		}
 	}
 
@@ -423,7 +516,24 @@ public class World {
 			g._tmpVertices[i].copyFrom(g._vertices[i]).mulMat3Eq(m).addEq(o);
 		}
 
-		if (n > 30) {
+		if (g._faces != null) {
+			// the triangles of the hull
+			for (int t=0;t<g._numFaces;t++) {
+				v1.copyFrom(g._tmpVertices[g._faces[t * 3]]);
+				v2.copyFrom(g._tmpVertices[g._faces[t * 3 + 1]]);
+				v3.copyFrom(g._tmpVertices[g._faces[t * 3 + 2]]);
+				if (_debugDraw.wireframe) {
+					d.line(v1, v2, color);
+					d.line(v2, v3, color);
+					d.line(v3, v1, color);
+				} else {
+					v12.copyFrom(v2).subEq(v1);
+					v13.copyFrom(v3).subEq(v1);
+					normal.copyFrom(v12).crossEq(v13).normalize();
+					d.triangle(v1, v2, v3, normal, normal, normal, color);
+				}
+			}
+		} else if (n > 30) {
 			// O(n)
 			for (int i=0;i<n;i++)  {
 				v1.copyFrom(g._tmpVertices[i]);
@@ -467,6 +577,136 @@ public class World {
 		_pool.disposeVec3(o);
 	}
 
+	void _drawTriangleMesh(DebugDraw d, TriangleMeshGeometry g, Transform tf, Vec3 color) {
+		TriangleMesh mesh = g._mesh;
+		int n = mesh._numTriangles;
+		Vec3 v1 = _pool.vec3();
+		Vec3 v2 = _pool.vec3();
+		Vec3 v3 = _pool.vec3();
+		Vec3 v12 = _pool.vec3();
+		Vec3 v13 = _pool.vec3();
+		Vec3 normal = _pool.vec3();
+		Mat3 m = _pool.mat3();
+		Vec3 o = _pool.vec3();
+		tf.getRotationTo(m);
+		tf.getPositionTo(o);
+
+		for (int i=0;i<n;i++) {
+			mesh.getVertexTo(i, 0, v1);
+			mesh.getVertexTo(i, 1, v2);
+			mesh.getVertexTo(i, 2, v3);
+			v1.mulMat3Eq(m).addEq(o);
+			v2.mulMat3Eq(m).addEq(o);
+			v3.mulMat3Eq(m).addEq(o);
+			if (_debugDraw.wireframe) {
+				d.line(v1, v2, color);
+				d.line(v2, v3, color);
+				d.line(v3, v1, color);
+			} else {
+				v12.copyFrom(v2).subEq(v1);
+				v13.copyFrom(v3).subEq(v1);
+				normal.copyFrom(v12).crossEq(v13).normalize();
+				d.triangle(v1, v2, v3, normal, normal, normal, color);
+				normal.negateEq();
+				d.triangle(v1, v3, v2, normal, normal, normal, color);
+			}
+		}
+		_pool.disposeVec3(v1);
+		_pool.disposeVec3(v2);
+		_pool.disposeVec3(v3);
+		_pool.disposeVec3(v12);
+		_pool.disposeVec3(v13);
+		_pool.disposeVec3(normal);
+		_pool.disposeMat3(m);
+		_pool.disposeVec3(o);
+	}
+
+	void _drawHeightfield(DebugDraw d, HeightfieldGeometry g, Transform tf, Vec3 color) {
+		TriangleGeometry triangle = _drawTriangle;
+		Vec3 v1 = _pool.vec3();
+		Vec3 v2 = _pool.vec3();
+		Vec3 v3 = _pool.vec3();
+		Vec3 e = _pool.vec3();
+		Vec3 normal = _pool.vec3();
+		Mat3 m = _pool.mat3();
+		Vec3 o = _pool.vec3();
+		tf.getRotationTo(m);
+		tf.getPositionTo(o);
+
+		for (int j=0;j<g._numZ - 1;j++) {
+			for (int i=0;i<g._numX - 1;i++) {
+				for (int index=0;index<2;index++) {
+					g._setCellTriangle(i, j, index, triangle);
+					v1.copyFrom(triangle._vertex1).mulMat3Eq(m).addEq(o);
+					v2.copyFrom(triangle._vertex2).mulMat3Eq(m).addEq(o);
+					v3.copyFrom(triangle._vertex3).mulMat3Eq(m).addEq(o);
+					if (_debugDraw.wireframe) {
+						d.line(v1, v2, color);
+						d.line(v2, v3, color);
+						d.line(v3, v1, color);
+					} else {
+						e.copyFrom(v3).subEq(v1);
+						normal.copyFrom(v2).subEq(v1).crossEq(e).normalize();
+						d.triangle(v1, v2, v3, normal, normal, normal, color);
+					}
+				}
+			}
+		}
+		_pool.disposeVec3(v1);
+		_pool.disposeVec3(v2);
+		_pool.disposeVec3(v3);
+		_pool.disposeVec3(e);
+		_pool.disposeVec3(normal);
+		_pool.disposeMat3(m);
+		_pool.disposeVec3(o);
+	}
+
+	void _drawPlane(DebugDraw d, Transform tf, Vec3 color) {
+		double size = d.style.planeHalfSize;
+		Vec3 ex = _pool.vec3();
+		Vec3 ez = _pool.vec3();
+		Vec3 normal = _pool.vec3();
+		Vec3 o = _pool.vec3();
+		Vec3 v1 = _pool.vec3();
+		Vec3 v2 = _pool.vec3();
+		Vec3 v3 = _pool.vec3();
+		Vec3 v4 = _pool.vec3();
+		Mat3 m = _pool.mat3();
+		tf.getRotationTo(m);
+		tf.getPositionTo(o);
+		m.getColTo(0, ex);
+		m.getColTo(1, normal);
+		m.getColTo(2, ez);
+
+		if (_debugDraw.wireframe) {
+			// a grid of unit cells around the origin of the shape
+			int n = (int) size;
+			for (int i=-n;i<=n;i++) {
+				v1.copyFrom(o).addScaledEq(ex, i).addScaledEq(ez, -size);
+				v2.copyFrom(o).addScaledEq(ex, i).addScaledEq(ez, size);
+				d.line(v1, v2, color);
+				v1.copyFrom(o).addScaledEq(ez, i).addScaledEq(ex, -size);
+				v2.copyFrom(o).addScaledEq(ez, i).addScaledEq(ex, size);
+				d.line(v1, v2, color);
+			}
+		} else {
+			v1.copyFrom(o).addScaledEq(ex, -size).addScaledEq(ez, -size);
+			v2.copyFrom(o).addScaledEq(ex, -size).addScaledEq(ez, size);
+			v3.copyFrom(o).addScaledEq(ex, size).addScaledEq(ez, size);
+			v4.copyFrom(o).addScaledEq(ex, size).addScaledEq(ez, -size);
+			d.rect(v1, v2, v3, v4, normal, normal, normal, normal, color);
+		}
+		_pool.disposeVec3(ex);
+		_pool.disposeVec3(ez);
+		_pool.disposeVec3(normal);
+		_pool.disposeVec3(o);
+		_pool.disposeVec3(v1);
+		_pool.disposeVec3(v2);
+		_pool.disposeVec3(v3);
+		_pool.disposeVec3(v4);
+		_pool.disposeMat3(m);
+	}
+
 	void _drawAabb(DebugDraw d, Aabb aabb,Vec3 color) {
 		Vec3 min = _pool.vec3();
 		Vec3 max = _pool.vec3();
@@ -829,11 +1069,17 @@ public class World {
 		}
 		_timeStep.dt = timeStep;
 		_timeStep.invDt = 1 / timeStep;
-		long st =System.currentTimeMillis() ;
+		if (!performance._enabled) {
+			this._updateContacts();
+			this._solveIslands();
+			return;
+		}
+		performance._beginStep();
+		long time = System.nanoTime();
 		this._updateContacts();
 		this._solveIslands();
-		performance.totalTime =System.currentTimeMillis()-st;
-	
+		performance._addTime(Performance.STEP, System.nanoTime() - time);
+		performance._endStep();
 	}
 
 	/**
@@ -856,6 +1102,18 @@ public class World {
 			this._rigidBodyListLast = rigidBody;
 		}
 		rigidBody._world = this;
+		rigidBody._id = _rigidBodyIdCount++;
+		IslandGraph._addRigidBody(rigidBody);
+		JointLink jl = rigidBody._jointLinkList;
+		while (jl != null) {
+			if (jl._joint._world == this) {
+				_contactManager._addJointedPair(jl._joint);
+			}
+			jl = jl._next;
+		}
+		if (!rigidBody._sleeping && rigidBody._type != RigidBodyType._STATIC) {
+			_activateRigidBody(rigidBody);
+		}
 
 		// then add the shapes to the world
 		//		M.list_foreach(s, _next, {
@@ -895,7 +1153,20 @@ public class World {
 		}
 		rigidBody._next = null;
 		rigidBody._prev = null;
+		JointLink jl = rigidBody._jointLinkList;
+		while (jl != null) {
+			if (jl._joint._world == this) {
+				_contactManager._removeJointedPair(jl._joint);
+			}
+			jl = jl._next;
+		}
 		rigidBody._world = null;
+		rigidBody._id = -1;
+		if (rigidBody._activeIndex != -1) {
+			// the slot is compacted by the next sweep of the awake rigid bodies
+			_activeRigidBodies[rigidBody._activeIndex] = null;
+			rigidBody._activeIndex = -1;
+		}
 
 		// then remove the shapes from the world
 		//Shape s = rigidBody._shapeList;
@@ -908,6 +1179,7 @@ public class World {
 			_removeShape(s);
 			s=s._next;
 		}
+		IslandGraph._removeRigidBody(rigidBody);
 		_numRigidBodies--;
 	}
 
@@ -932,6 +1204,8 @@ public class World {
 		joint._world = this;
 		joint._attachLinks();
 		joint._syncAnchors();
+		IslandGraph._linkJoint(joint);
+		_contactManager._addJointedPair(joint);
 
 		_numJoints++;
 	}
@@ -959,7 +1233,9 @@ public class World {
 		if(joint == this._jointListLast) {
 			this._jointListLast = this._jointListLast._prev;
 		}
+		_contactManager._removeJointedPair(joint);
 		joint._world = null;
+		IslandGraph._unlinkJoint(joint);
 		joint._detachLinks();
 
 		_numJoints--;
@@ -987,6 +1263,7 @@ public class World {
 			if (_broadPhase._type == BroadPhaseType.BVH) {
 				BvhBroadPhase bvhBroadPhase =  (BvhBroadPhase) _broadPhase;
 				_drawBvh(_debugDraw, bvhBroadPhase._tree);
+				_drawBvh(_debugDraw, bvhBroadPhase._staticTree);
 			}
 			_drawRigidBodies(_debugDraw);
 			_drawConstraints(_debugDraw);
@@ -1003,6 +1280,41 @@ public class World {
 		_rayCastWrapper.callback = callback;
 
 		_broadPhase.rayCast(begin, end, _rayCastWrapper);
+
+		// half-spaces are not in the broad-phase
+		for (int i = 0; i < _contactManager._numPlaneShapes; i++) {
+			_rayCastWrapper.processShape(_contactManager._planeShapes[i]);
+		}
+	}
+
+	/**
+	 * Performs ray castings for all the rays of `batch`, and stores the closest hit of each
+	 * ray in `batch`. The rays are sorted for coherence and cast in packets, spread over the
+	 * threads of the world if it has several (see `setNumThreads`). The world must not be
+	 * modified during the call.
+	 */
+	public void rayCastBatch(RayCastBatch batch) {
+		batch._prepare();
+		int numRays = batch.numRays;
+		if (numRays == 0) return;
+
+		// chunks of whole packets, a few per worker to balance the cost of different rays
+		int numPackets = (numRays + BvhBroadPhase.PACKET_SIZE - 1) / BvhBroadPhase.PACKET_SIZE;
+		int numChunks = _workerPool == null ? 1 : _workerPool.getParallelism() * 4;
+		if (numChunks > numPackets) numChunks = numPackets;
+		if (_rayCastBatchWrappers.length < numChunks) {
+			RayCastBatchWrapper[] newArray = new RayCastBatchWrapper[numChunks];
+			for (int i = 0; i < numChunks; i++) {
+				newArray[i] = i < _rayCastBatchWrappers.length ? _rayCastBatchWrappers[i] : new RayCastBatchWrapper();
+			}
+			_rayCastBatchWrappers = newArray;
+		}
+		RayCastBatchTask task = new RayCastBatchTask(batch, 0, numChunks, numChunks, numPackets);
+		if (numChunks == 1) {
+			task.compute();
+		} else {
+			_workerPool.invoke(task);
+		}
 	}
 
 	/**
@@ -1028,6 +1340,14 @@ public class World {
 		_aabbTestWrapper._callback = callback;
 
 		_broadPhase.aabbTest(aabb, _aabbTestWrapper);
+
+		// half-spaces are not in the broad-phase
+		for (int i = 0; i < _contactManager._numPlaneShapes; i++) {
+			Shape shape = _contactManager._planeShapes[i];
+			if (((PlaneGeometry) shape._geom)._overlapsAabb(shape._transform, aabb)) {
+				callback.process(shape);
+			}
+		}
 	}
 
 	/**
@@ -1114,6 +1434,53 @@ public class World {
 		_numPositionIterations = numPositionIterations;
 	}
 
+	/**
+	 * Returns the number of threads used to update contact manifolds and solve simulation islands.
+	 */
+	public int getNumThreads() {
+		return _numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to update contact manifolds and solve simulation
+	 * islands to `numThreads`.
+	 *
+	 * If `numThreads` is greater than `1`, narrow-phase collision detection and the
+	 * collected islands run concurrently on a fork-join pool of `numThreads` workers.
+	 * Otherwise everything runs on the calling thread, which is the default. Contact
+	 * callbacks are always called on the calling thread in the same order, but in
+	 * parallel mode they are called after all the manifolds have been updated. Both modes
+	 * give the same results unless the callbacks modify the world.
+	 */
+	public void setNumThreads(int numThreads) {
+		if (numThreads < 1) numThreads = 1;
+		if (numThreads == _numThreads) return;
+		if (_workerPool != null) {
+			_workerPool.shutdown();
+			_workerPool = null;
+		}
+		_numThreads = numThreads;
+		if (numThreads > 1) {
+			_workerPool = new ForkJoinPool(numThreads);
+		}
+	}
+
+	/**
+	 * Returns whether the phases of the steps are timed into `performance`.
+	 */
+	public boolean isProfilingEnabled() {
+		return performance._enabled;
+	}
+
+	/**
+	 * Sets whether the phases of the steps are timed into `performance`. Profiling is
+	 * disabled by default, and then the steps do not read the clock, the histograms of
+	 * `performance` are left unchanged and its callbacks are not called.
+	 */
+	public void setProfilingEnabled(boolean profilingEnabled) {
+		performance._enabled = profilingEnabled;
+	}
+
 	/**
 	 * Returns the gravitational acceleration of the simulation world.
 	 */
@@ -1128,6 +1495,94 @@ public class World {
 		_gravity.copyFrom(gravity);
 	}
 
+	// casts the rays of the chunks in [from, until), the chunk `i` always uses `_rayCastBatchWrappers[i]`
+	@SuppressWarnings("serial")
+	class RayCastBatchTask extends RecursiveAction {
+		RayCastBatch batch;
+		int from;
+		int until;
+		int numChunks;
+		int numPackets;
+
+		RayCastBatchTask(RayCastBatch batch, int from, int until, int numChunks, int numPackets) {
+			this.batch = batch;
+			this.from = from;
+			this.until = until;
+			this.numChunks = numChunks;
+			this.numPackets = numPackets;
+		}
+
+		@Override
+		protected void compute() {
+			if (until - from > 1) {
+				int mid = (from + until) >>> 1;
+				invokeAll(new RayCastBatchTask(batch, from, mid, numChunks, numPackets), new RayCastBatchTask(batch, mid, until, numChunks, numPackets));
+				return;
+			}
+			RayCastBatchWrapper wrapper = _rayCastBatchWrappers[from];
+			int begin = (int) ((long) numPackets * from / numChunks) * BvhBroadPhase.PACKET_SIZE;
+			int end = (int) ((long) numPackets * until / numChunks) * BvhBroadPhase.PACKET_SIZE;
+			if (end > batch.numRays) end = batch.numRays;
+			wrapper.batch = batch;
+			_broadPhase.rayCastPacket(batch.begins, batch.ends, batch._order, begin, end, wrapper);
+
+			// half-spaces are not in the broad-phase
+			for (int i = 0; i < _contactManager._numPlaneShapes; i++) {
+				Shape shape = _contactManager._planeShapes[i];
+				for (int j = begin; j < end; j++) {
+					wrapper.processShape(shape, batch._order[j]);
+				}
+			}
+			wrapper.batch = null;
+		}
+	}
+
+	// batched ray cast wrapper (broadphase -> world), keeps the closest hit of each ray
+	protected static class RayCastBatchWrapper extends BroadPhaseRayCastCallback {
+		public RayCastBatch batch;
+
+		RayCastHit rayCastHit;
+		Vec3 begin;
+		Vec3 end;
+
+		public RayCastBatchWrapper() {
+			super();
+			rayCastHit = new RayCastHit();
+			begin = new Vec3();
+			end = new Vec3();
+			batch = null;
+		}
+
+		@Override
+		public void process(Proxy proxy, int ray) {
+			processShape((Shape) proxy.userData, ray);
+		}
+
+		void processShape(Shape shape, int ray) {
+			RayCastBatch batch = this.batch;
+			int o = ray * 3;
+			begin.set(batch.begins[o], batch.begins[o + 1], batch.begins[o + 2]);
+			end.set(batch.ends[o], batch.ends[o + 1], batch.ends[o + 2]);
+
+			RayCastHit hit = rayCastHit;
+			if (shape._geom.rayCast(begin, end, shape._transform, hit) && hit.fraction < batch.fractions[ray]) {
+				batch.shapes[ray] = shape;
+				batch.fractions[ray] = hit.fraction;
+				batch.positions[o] = hit.position.x;
+				batch.positions[o + 1] = hit.position.y;
+				batch.positions[o + 2] = hit.position.z;
+				batch.normals[o] = hit.normal.x;
+				batch.normals[o + 1] = hit.normal.y;
+				batch.normals[o + 2] = hit.normal.z;
+			}
+		}
+
+		@Override
+		public double getMaxFraction(int ray) {
+			return batch.fractions[ray];
+		}
+	}
+
 	// ray cast wrapper (broadphase -> world)
 	protected static class RayCastWrapper extends BroadPhaseProxyCallback {
 		public RayCastCallback callback;
@@ -1147,13 +1602,20 @@ public class World {
 
 		@Override
 		public void process(Proxy proxy) {
-			Shape shape = (Shape) proxy.userData;
+			processShape((Shape) proxy.userData);
+		}
 
+		void processShape(Shape shape) {
 			if (shape._geom.rayCast(begin, end, shape._transform, rayCastHit)) {
 				callback.process(shape, rayCastHit);
 			}
 		}
 
+		@Override
+		public double getMaxFraction() {
+			return callback.getMaxFraction();
+		}
+
 		// convex cast wrapper (broadphase -> world)
 		protected static class ConvexCastWrapper extends BroadPhaseProxyCallback {
 			public RayCastCallback callback;
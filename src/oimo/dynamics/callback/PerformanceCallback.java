@@ -0,0 +1,16 @@
+package oimo.dynamics.callback;
+
+import oimo.common.Performance;
+
+/**
+ * A callback interface to receive the timings of each step of a world. Register it
+ * with `Performance.addCallback`, and enable profiling with `World.setProfilingEnabled`.
+ */
+public interface PerformanceCallback {
+
+	/**
+	 * This is called at the end of every profiled `World.step`, after the histograms of
+	 * `performance` have been updated with the timings of the step.
+	 */
+	public abstract void stepProfiled(Performance performance);
+}
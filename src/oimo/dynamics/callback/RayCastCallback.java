@@ -14,4 +14,13 @@ public interface RayCastCallback {
 	 */
 	public abstract void process(Shape shape, RayCastHit hit);
 
+	/**
+	 * Returns the fraction of the ray beyond which hits are of no more interest, so
+	 * that the world can skip the shapes entirely beyond it. Returns `1` by default,
+	 * so that every hit is reported.
+	 */
+	public default double getMaxFraction() {
+		return 1;
+	}
+
 }
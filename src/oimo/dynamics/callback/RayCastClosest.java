@@ -66,4 +66,9 @@ public  class RayCastClosest implements RayCastCallback {
 		}
 	}
 
+	@Override
+	public double getMaxFraction() {
+		return fraction;
+	}
+
 }
\ No newline at end of file
@@ -73,12 +73,10 @@ public class ContactConstraint {
 		info.b1 = _b1;
 		info.b2 = _b2;
 
-		Vec3 normal=new Vec3();
-		Vec3 tangent=new Vec3();
-		Vec3 binormal=new Vec3();
-		M.vec3_assign(normal, _manifold._normal);
-		M.vec3_assign(tangent, _manifold._tangent);
-		M.vec3_assign(binormal, _manifold._binormal);
+		// the basis is only read here, no need to copy it
+		Vec3 normal = _manifold._normal;
+		Vec3 tangent = _manifold._tangent;
+		Vec3 binormal = _manifold._binormal;
 
 		double friction = MathUtil.sqrt(_s1._friction * _s2._friction);
 		double restitution = MathUtil.sqrt(_s1._restitution * _s2._restitution);
@@ -164,8 +162,7 @@ public class ContactConstraint {
 	public void _getPositionSolverInfo(ContactSolverInfo info) {
 		info.b1 = _b1;
 		info.b2 = _b2;
-		Vec3 normal=new Vec3();
-		M.vec3_assign(normal, _manifold._normal);
+		Vec3 normal = _manifold._normal;
 
 		int num = _manifold._numPoints;
 		info.numRows = 0;
@@ -15,6 +15,12 @@ public class ManifoldUpdater {
 	int numOldPoints;
 	ManifoldPoint[] oldPoints;
 
+	// scratch vectors, a manifold is updated by one thread at a time
+	Vec3 tmp1;
+	Vec3 tmp2;
+	Vec3 tmp3;
+	Vec3 tmp4;
+
 	public ManifoldUpdater(Manifold manifold) {
 		_manifold = manifold;
 
@@ -23,6 +29,10 @@ public class ManifoldUpdater {
 		for (int i=0;i<Setting.maxManifoldPoints;i++) {
 			oldPoints[i] = new ManifoldPoint();
 		}
+		tmp1 = new Vec3();
+		tmp2 = new Vec3();
+		tmp3 = new Vec3();
+		tmp4 = new Vec3();
 	}
 
 	// --- private ---
@@ -33,7 +43,7 @@ public class ManifoldUpdater {
 		while (--index >= 0) {
 			ManifoldPoint p = _manifold._points[index];
 
-			Vec3 diff=new Vec3();
+			Vec3 diff = tmp1;
 			M.vec3_sub(diff, p._pos1, p._pos2);
 			double dotN = M.vec3_dot(_manifold._normal, diff);
 
@@ -96,7 +106,7 @@ public class ManifoldUpdater {
 			maxDepthIndex = 3;
 		}
 
-		Vec3 rp1=new Vec3();
+		Vec3 rp1 = tmp4;
 		M.vec3_fromVec3(rp1, newPoint.position1);
 		M.vec3_sub(rp1, rp1, tf1._position);
 
@@ -123,27 +133,21 @@ public class ManifoldUpdater {
 
 	private double quadAreaFast(Vec3 p1, Vec3 p2, Vec3 p3, Vec3 p4) {
 		// possible diagonals (12-34, 13-24, 14-23)
-		Vec3 v12=new Vec3();
-		Vec3 v34=new Vec3();
-		Vec3 v13=new Vec3();
-		Vec3 v24=new Vec3();
-		Vec3 v14=new Vec3();
-		Vec3 v23=new Vec3();
-		M.vec3_sub(v12, p2, p1);
-		M.vec3_sub(v34, p4, p3);
-		M.vec3_sub(v13, p3, p1);
-		M.vec3_sub(v24, p4, p2);
-		M.vec3_sub(v14, p4, p1);
-		M.vec3_sub(v23, p3, p2);
-		Vec3 cross1=new Vec3();
-		Vec3 cross2=new Vec3();
-		Vec3 cross3=new Vec3();
-		M.vec3_cross(cross1, v12, v34);
-		M.vec3_cross(cross2, v13, v24);
-		M.vec3_cross(cross3, v14, v23);
-		double a1 = M.vec3_dot(cross1, cross1);
-		double a2 = M.vec3_dot(cross2, cross2);
-		double a3 = M.vec3_dot(cross3, cross3);
+		Vec3 va = tmp1;
+		Vec3 vb = tmp2;
+		Vec3 cross = tmp3;
+		M.vec3_sub(va, p2, p1);
+		M.vec3_sub(vb, p4, p3);
+		M.vec3_cross(cross, va, vb);
+		double a1 = M.vec3_dot(cross, cross);
+		M.vec3_sub(va, p3, p1);
+		M.vec3_sub(vb, p4, p2);
+		M.vec3_cross(cross, va, vb);
+		double a2 = M.vec3_dot(cross, cross);
+		M.vec3_sub(va, p4, p1);
+		M.vec3_sub(vb, p3, p2);
+		M.vec3_cross(cross, va, vb);
+		double a3 = M.vec3_dot(cross, cross);
 		if (a1 > a2) {
 			if (a1 > a3) {
 				return a1;
@@ -186,16 +190,17 @@ public class ManifoldUpdater {
 	}
 
 	private double distSq(ManifoldPoint mp, DetectorResultPoint result, Transform tf1, Transform tf2) {
-		Vec3 rp1=new Vec3();
-		Vec3 rp2=new Vec3();
+		Vec3 rp1 = tmp1;
+		Vec3 rp2 = tmp2;
 		
 		M.vec3_fromVec3(rp1, result.position1);
 		M.vec3_fromVec3(rp2, result.position2);
 		M.vec3_sub(rp1, rp1, tf1._position);
 		M.vec3_sub(rp2, rp2, tf2._position);
 
-		Vec3 diff1=new Vec3();
-		Vec3 diff2=new Vec3();
+		// the relative positions are no longer needed, reuse them for the differences
+		Vec3 diff1 = rp1;
+		Vec3 diff2 = rp2;
 		
 		M.vec3_sub(diff1, mp._relPos1, rp1);
 		M.vec3_sub(diff2, mp._relPos2, rp2);
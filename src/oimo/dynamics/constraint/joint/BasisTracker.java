@@ -13,11 +13,31 @@ public class BasisTracker {
 	public Vec3 y;
 	public Vec3 z;
 
+	// scratch of `trackByAxis`
+	Quat q;
+	Quat idQ;
+	Quat slerpQ;
+	Mat3 slerpM;
+	Vec3 newX;
+	Vec3 newY;
+	Vec3 newZ;
+	Vec3 prevX;
+	Vec3 prevY;
+
 	public BasisTracker(Joint joint) {
 		this.joint = joint;
 		x=new Vec3();
 		y=new Vec3();
 		z=new Vec3();
+		q = new Quat();
+		idQ = new Quat();
+		slerpQ = new Quat();
+		slerpM = new Mat3();
+		newX = new Vec3();
+		newY = new Vec3();
+		newZ = new Vec3();
+		prevX = new Vec3();
+		prevY = new Vec3();
 	}
 
 	public void trackByX() {
@@ -35,17 +55,17 @@ public class BasisTracker {
 	public void trackByAxis(int axis) {
 		double invM1 = joint._b1._invMass;
 		double invM2 = joint._b2._invMass;
-		Quat q=new Quat();
-		Quat idQ=new Quat();
-		Quat slerpQ=new Quat();
-		Mat3 slerpM=new Mat3();
+		Quat q = this.q;
+		Quat idQ = this.idQ;
+		Quat slerpQ = this.slerpQ;
+		Mat3 slerpM = this.slerpM;
 
-		Vec3 newX=new Vec3();
-		Vec3 newY=new Vec3();
-		Vec3 newZ=new Vec3();
+		Vec3 newX = this.newX;
+		Vec3 newY = this.newY;
+		Vec3 newZ = this.newZ;
 
-		Vec3 prevX=new Vec3();
-		Vec3 prevY=new Vec3();
+		Vec3 prevX = this.prevX;
+		Vec3 prevY = this.prevY;
 
 		if (axis == 0) {
 			// compute X'
@@ -26,6 +26,11 @@ public class Joint {
 	public Joint _next;
 	public World _world;
 
+	// the list of the joints of an island, and the rigid body whose island holds this
+	public Joint _islandPrev;
+	public Joint _islandNext;
+	public RigidBody _islandBody;
+
 	public Vec3 _localAnchor1;
 	public Vec3 _localAnchor2;
 	public Vec3 _relativeAnchor1;
@@ -65,12 +70,21 @@ public class Joint {
 	 */
 	public Object userData;
 
+	// scratch of the solver info, a joint is solved by one thread at a time
+	protected Vec3 tmpVec1;
+	protected Vec3 tmpVec2;
+	protected Mat3 tmpCrossR1;
+	protected Mat3 tmpCrossR2;
+
 	public Joint(JointConfig config, int type) {
 		_link1 = new JointLink(this);
 		_link2 = new JointLink(this);
 		_positionCorrectionAlgorithm = Setting.defaultJointPositionCorrectionAlgorithm;
 		_type = type;
 		_world = null;
+		_islandPrev = null;
+		_islandNext = null;
+		_islandBody = null;
 		_b1 = config.rigidBody1;
 		_b2 = config.rigidBody2;
 		_allowCollision = config.allowCollision;
@@ -112,6 +126,11 @@ public class Joint {
 		_appliedForce=new Vec3();
 		_appliedTorque=new Vec3();
 
+		tmpVec1 = new Vec3();
+		tmpVec2 = new Vec3();
+		tmpCrossR1 = new Mat3();
+		tmpCrossR2 = new Mat3();
+
 		
 		_impulses = new JointImpulse[Setting.maxJacobianRows];
 		for (int i=0;i<Setting.maxJacobianRows;i++) {
@@ -482,8 +501,8 @@ public class Joint {
 	}
 
 	protected double computeEffectiveInertiaMoment(Vec3 axis) {
-		Vec3 ia1=new Vec3();
-		Vec3 ia2=new Vec3();
+		Vec3 ia1 = tmpVec1;
+		Vec3 ia2 = tmpVec2;
 		M.vec3_mulMat3(ia1, axis, _b1._invInertia);
 		M.vec3_mulMat3(ia2, axis, _b2._invInertia);
 		double invI1 = M.vec3_dot(ia1, axis);
@@ -516,8 +535,8 @@ public class Joint {
 	}
 
 	protected double computeEffectiveInertiaMoment2(Vec3 axis1, Vec3 axis2) {
-		Vec3 ia1=new Vec3();
-		Vec3 ia2=new Vec3();
+		Vec3 ia1 = tmpVec1;
+		Vec3 ia2 = tmpVec2;
 		M.vec3_mulMat3(ia1, axis1, _b1._invInertia);
 		M.vec3_mulMat3(ia2, axis2, _b2._invInertia);
 		double invI1 = M.vec3_dot(ia1, axis1);
@@ -837,7 +856,13 @@ public class Joint {
 	 * Sets whether to allow the connected rigid bodies to collide each other.
 	 */
 	public void setAllowCollision(boolean allowCollision) {
+		if (_world != null) {
+			_world._contactManager._removeJointedPair(this);
+		}
 		_allowCollision = allowCollision;
+		if (_world != null) {
+			_world._contactManager._addJointedPair(this);
+		}
 	}
 
 	/**
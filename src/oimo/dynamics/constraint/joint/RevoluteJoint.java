@@ -61,8 +61,8 @@ public class RevoluteJoint extends Joint {
 		double angRhsY = angularErrorY * erp;
 		double angRhsZ = angularErrorZ * erp;
 
-		Mat3 crossR1=new Mat3();
-		Mat3 crossR2=new Mat3();
+		Mat3 crossR1 = tmpCrossR1;
+		Mat3 crossR2 = tmpCrossR2;
 		M.vec3_toCrossMatrix(crossR1, _relativeAnchor1);
 		M.vec3_toCrossMatrix(crossR2, _relativeAnchor2);
 		crossR1.scaleEq(-1);
@@ -133,7 +133,7 @@ public class RevoluteJoint extends Joint {
 		
 
 		// compute angular error along Y and Z
-		Vec3 angError =new Vec3();
+		Vec3 angError = tmpVec1;
 		M.vec3_cross(angError, _basisX1, _basisX2);
 		double cos = M.vec3_dot(_basisX1, _basisX2);
 		double theta = MathUtil.safeAcos(cos);
@@ -143,8 +143,8 @@ public class RevoluteJoint extends Joint {
 		angularErrorZ = M.vec3_dot(angError, _basis.z);
 
 		// measure the rotation angle along X
-		Vec3 perpCross=_basisY1.cross(_basisY2);
-		//M.vec3_cross(perpCross, _basisY1, _basisY2);
+		Vec3 perpCross = tmpVec2;
+		M.vec3_cross(perpCross, _basisY1, _basisY2);
 		cos = M.vec3_dot(_basisY1, _basisY2);
 		angle = MathUtil.safeAcos(cos);
 		if (M.vec3_dot(perpCross, _basis.x) < 0) {
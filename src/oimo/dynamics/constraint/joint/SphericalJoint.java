@@ -33,7 +33,7 @@ public class SphericalJoint extends Joint {
 		if (_sd.frequency > 0 && isPositionPart) return;
 
 		// compute positional error
-		Vec3 error=new Vec3();;
+		Vec3 error = tmpVec1;
 		M.vec3_sub(error, _anchor2, _anchor1);
 
 		// compute CFM and ERP
@@ -67,8 +67,8 @@ public class SphericalJoint extends Joint {
 		double linRhsY = error.y*erp;
 		double linRhsZ = error.z*erp;
 
-		Mat3 crossR1=new Mat3();
-		Mat3 crossR2=new Mat3();
+		Mat3 crossR1 = tmpCrossR1;
+		Mat3 crossR2 = tmpCrossR2;
 		M.vec3_toCrossMatrix(crossR1, _relativeAnchor1);
 		M.vec3_toCrossMatrix(crossR2, _relativeAnchor2);
 		crossR1.scaleEq(-1);
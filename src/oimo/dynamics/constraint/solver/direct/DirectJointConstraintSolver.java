@@ -34,6 +34,14 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	BoundarySelector velBoundarySelector;
 	BoundarySelector posBoundarySelector;
 
+	// scratch of the solver loops, a solver is only run by one thread at a time
+	Vec3 lv1;
+	Vec3 lv2;
+	Vec3 av1;
+	Vec3 av2;
+	Vec3 lin;
+	Vec3 ang;
+
 	public DirectJointConstraintSolver(Joint joint) {
 		super();
 		this.joint = joint;
@@ -63,15 +71,22 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 			dImpulses[i] = 0;
 			dTotalImpulses[i] = 0;
 		}
+
+		lv1 = new Vec3();
+		lv2 = new Vec3();
+		av1 = new Vec3();
+		av2 = new Vec3();
+		lin = new Vec3();
+		ang = new Vec3();
 	}
 
 	public void applyImpulses(double[] impulses) {
 		boolean linearSet = false;
 		boolean angularSet = false;
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -106,10 +121,10 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	public void applySplitImpulses(double[] impulses) {
 		boolean linearSet = false;
 		boolean angularSet = false;
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._pseudoVel);
 		M.vec3_assign(lv2, _b2._pseudoVel);
 		M.vec3_assign(av1, _b1._angPseudoVel);
@@ -144,10 +159,14 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	public void applyPositionImpulses(double[] impulses) {
 		boolean linearSet = false;
 		boolean angularSet = false;
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
+		M.vec3_zero(lv1);
+		M.vec3_zero(lv2);
+		M.vec3_zero(av1);
+		M.vec3_zero(av2);
 
 		for (int i = 0; i < info.numRows; i++) {
 			JointSolverInfoRow row = info.rows[i];
@@ -240,10 +259,10 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	@Override
 	public void solveVelocity() {
 		int numRows = info.numRows;
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -341,8 +360,10 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	@Override
 	public void postSolveVelocity(TimeStep timeStep) {
 		// compute total linear and angular impulse
-		Vec3 lin = new Vec3();
-		Vec3 ang = new Vec3();
+		Vec3 lin = this.lin;
+		Vec3 ang = this.ang;
+		M.vec3_zero(lin);
+		M.vec3_zero(ang);
 
 		for (int i = 0; i < info.numRows; i++) {
 			JointSolverInfoRow row = info.rows[i];
@@ -391,10 +412,10 @@ public class DirectJointConstraintSolver extends ConstraintSolver {
 	@Override
 	public void solvePositionSplitImpulse() {
 		int numRows = info.numRows;
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._pseudoVel);
 		M.vec3_assign(lv2, _b2._pseudoVel);
 		M.vec3_assign(av1, _b1._angPseudoVel);
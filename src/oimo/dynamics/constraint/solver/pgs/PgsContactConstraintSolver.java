@@ -21,6 +21,16 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 
 	ContactSolverMassDataRow[] massData;
 
+	// scratch of the solver loops, a solver is only run by one thread at a time
+	Vec3 lv1;
+	Vec3 lv2;
+	Vec3 av1;
+	Vec3 av2;
+	Vec3 lin1;
+	Vec3 ang1;
+	Vec3 ang2;
+	Vec3 impulseL;
+
 	public PgsContactConstraintSolver(ContactConstraint constraint) {
 		super();
 		this.constraint = constraint;
@@ -32,6 +42,15 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 		for (int i=0;i<massData.length;i++) {
 			massData[i] = new ContactSolverMassDataRow();
 		}
+
+		lv1 = new Vec3();
+		lv2 = new Vec3();
+		av1 = new Vec3();
+		av2 = new Vec3();
+		lin1 = new Vec3();
+		ang1 = new Vec3();
+		ang2 = new Vec3();
+		impulseL = new Vec3();
 	}
 
 	@Override 
@@ -95,10 +114,10 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 
 	@Override 
 	public void warmStart(TimeStep timeStep) {
-		Vec3 lv1=new Vec3();
-		Vec3 lv2=new Vec3();
-		Vec3 av1=new Vec3();
-		Vec3 av2=new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -144,10 +163,10 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 
 	@Override 
 	public void solveVelocity() {
-		Vec3 lv1=new Vec3();
-		Vec3 lv2=new Vec3();
-		Vec3 av1=new Vec3();
-		Vec3 av2=new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -287,10 +306,10 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 
 	@Override 
 	public void solvePositionSplitImpulse() {
-		Vec3 lv1=new Vec3();
-		Vec3 lv2=new Vec3();
-		Vec3 av1=new Vec3();
-		Vec3 av2=new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._pseudoVel);
 		M.vec3_assign(lv2, _b2._pseudoVel);
 		M.vec3_assign(av1, _b1._angPseudoVel);
@@ -335,10 +354,14 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 	public void solvePositionNgs(TimeStep timeStep) {
 		updatePositionData();
 
-		Vec3 lv1=new Vec3();
-		Vec3 lv2=new Vec3();
-		Vec3 av1=new Vec3();
-		Vec3 av2=new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
+		M.vec3_zero(lv1);
+		M.vec3_zero(lv2);
+		M.vec3_zero(av1);
+		M.vec3_zero(av2);
 
 		for (int i=0;i<info.numRows;i++) {
 			ContactSolverInfoRow row = info.rows[i];
@@ -382,10 +405,13 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 	@Override 
 	public void postSolve() {
 		// contact impulses
-		Vec3 lin1=new Vec3();
+		Vec3 lin1 = this.lin1;
 		// lin2 == lin1
-		Vec3 ang1=new Vec3();
-		Vec3 ang2=new Vec3();
+		Vec3 ang1 = this.ang1;
+		Vec3 ang2 = this.ang2;
+		M.vec3_zero(lin1);
+		M.vec3_zero(ang1);
+		M.vec3_zero(ang2);
 
 		for (int i=0;i<info.numRows;i++) {
 			ContactSolverInfoRow row = info.rows[i];
@@ -396,7 +422,7 @@ public class PgsContactConstraintSolver extends ConstraintSolver {
 			double impN = imp.impulseN;
 			double impT = imp.impulseT;
 			double impB = imp.impulseB;
-			Vec3 impulseL = new Vec3();
+			Vec3 impulseL = this.impulseL;
 
 			// store lateral impulse
 			M.vec3_zero(impulseL);
@@ -18,6 +18,14 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 	JointSolverInfo info;
 	JointSolverMassDataRow[] massData;
 
+	// scratch of the solver loops, a solver is only run by one thread at a time
+	Vec3 lv1;
+	Vec3 lv2;
+	Vec3 av1;
+	Vec3 av2;
+	Vec3 lin;
+	Vec3 ang;
+
 	public PgsJointConstraintSolver(Joint joint) {
 		super();
 		this.joint = joint;
@@ -28,6 +36,13 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 		for (int i=0;i<massData.length;i++) {
 			massData[i] = new JointSolverMassDataRow();
 		}
+
+		lv1 = new Vec3();
+		lv2 = new Vec3();
+		av1 = new Vec3();
+		av2 = new Vec3();
+		lin = new Vec3();
+		ang = new Vec3();
 	}
 
 	@Override 
@@ -100,10 +115,10 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 			return;
 		}
 
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -135,10 +150,10 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 
 	@Override 
 	public void solveVelocity() {
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._vel);
 		M.vec3_assign(lv2, _b2._vel);
 		M.vec3_assign(av1, _b1._angVel);
@@ -229,8 +244,10 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 	@Override 
 	public void postSolveVelocity(TimeStep timeStep) {
 		// compute total linear and angular impulse
-		Vec3 lin =new Vec3();
-		Vec3 ang=new Vec3();
+		Vec3 lin = this.lin;
+		Vec3 ang = this.ang;
+		M.vec3_zero(lin);
+		M.vec3_zero(ang);
 
 		for (int i=0;i<info.numRows;i++) {
 			JointSolverInfoRow row = info.rows[i];
@@ -299,10 +316,10 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 
 	@Override 
 	public void solvePositionSplitImpulse() {
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
 		M.vec3_assign(lv1, _b1._pseudoVel);
 		M.vec3_assign(lv2, _b2._pseudoVel);
 		M.vec3_assign(av1, _b1._angPseudoVel);
@@ -351,10 +368,14 @@ public class PgsJointConstraintSolver extends ConstraintSolver {
 	public void solvePositionNgs(TimeStep timeStep) {
 		updatePositionData();
 
-		Vec3 lv1 = new Vec3();
-		Vec3 lv2 = new Vec3();
-		Vec3 av1 = new Vec3();
-		Vec3 av2 = new Vec3();
+		Vec3 lv1 = this.lv1;
+		Vec3 lv2 = this.lv2;
+		Vec3 av1 = this.av1;
+		Vec3 av2 = this.av2;
+		M.vec3_zero(lv1);
+		M.vec3_zero(lv2);
+		M.vec3_zero(av1);
+		M.vec3_zero(av2);
 
 		for (int i=0;i<info.numRows;i++) {
 			JointSolverInfoRow row = info.rows[i];
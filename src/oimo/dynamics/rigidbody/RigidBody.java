@@ -54,6 +54,8 @@ public class RigidBody {
 	public Vec3 _angularContactImpulse;
 
 	public World _world;
+	// unique in the world, or -1 if not in a world
+	public int _id;
 
 	public ContactLink _contactLinkList;
 	public ContactLink _contactLinkListLast;
@@ -64,8 +66,29 @@ public class RigidBody {
 	public int _numJointLinks;
 
 	public boolean _addedToIsland;
+	// the index in the awake rigid bodies of the world, or -1 if not in them
+	public int _activeIndex;
+
+	// the persistent island, see `IslandGraph`. the parent is null for static rigid bodies,
+	// and the other fields are valid only for the root of the island
+	public RigidBody _islandParent;
+	public RigidBody _islandNext;
+	public RigidBody _islandLast;
+	public int _islandSize;
+	public Contact _islandContactList;
+	public Contact _islandContactListLast;
+	public Joint _islandJointList;
+	public Joint _islandJointListLast;
+	public boolean _islandSplit;
 	public double _gravityScale;
 
+	// scratch of the integration, a rigid body is integrated by one thread at a time
+	Vec3 tmpTranslation;
+	Vec3 tmpRotation;
+	Vec3 tmpSinAxis;
+	Quat tmpDeltaQuat;
+	Quat tmpQuat;
+
 	/**
 	 * Extra field that users can use for their own purposes.
 	 */
@@ -133,8 +156,26 @@ public class RigidBody {
 		_rotFactor = new Vec3(1, 1, 1);
 
 		_addedToIsland = false;
+		_activeIndex = -1;
+		_id = -1;
+
+		_islandParent = null;
+		_islandNext = null;
+		_islandLast = null;
+		_islandSize = 0;
+		_islandContactList = null;
+		_islandContactListLast = null;
+		_islandJointList = null;
+		_islandJointListLast = null;
+		_islandSplit = false;
 		_gravityScale = 1;
 
+		tmpTranslation = new Vec3();
+		tmpRotation = new Vec3();
+		tmpSinAxis = new Vec3();
+		tmpDeltaQuat = new Quat();
+		tmpQuat = new Quat();
+
 		_world = null;
 	}
 
@@ -144,8 +185,8 @@ public class RigidBody {
 		switch (_type) {
 			case RigidBodyType._DYNAMIC:
 			case RigidBodyType._KINEMATIC:
-				Vec3 translation=new Vec3();
-				Vec3 rotation=new Vec3();
+				Vec3 translation = tmpTranslation;
+				Vec3 rotation = tmpRotation;
 				M.vec3_scale(translation, _vel, dt);
 				M.vec3_scale(rotation, _angVel, dt);
 
@@ -194,8 +235,10 @@ public class RigidBody {
 		switch (_type) {
 			case RigidBodyType._DYNAMIC:
 			case RigidBodyType._KINEMATIC:
-				Vec3 translation=_pseudoVel.clone();
-				Vec3 rotation=_angPseudoVel.clone();
+				Vec3 translation = tmpTranslation;
+				Vec3 rotation = tmpRotation;
+				M.vec3_assign(translation, _pseudoVel);
+				M.vec3_assign(rotation, _angPseudoVel);
 				
 				// clear pseudo velocity
 				M.vec3_zero(_pseudoVel);
@@ -224,10 +267,14 @@ public class RigidBody {
 	}
 
 	 public void _applyTranslation(Vec3 translation) {
+		// static rigid bodies can be shared by multiple islands, never touch them
+		if (_type == RigidBodyType._STATIC) return;
 		M.vec3_add(_transform._position, _transform._position, translation);
 	}
 
 	 public void _applyRotation(Vec3 rotation) {
+		if (_type == RigidBodyType._STATIC) return;
+
 		// compute derivative of the quaternion
 		double theta = M.vec3_length(rotation);
 		double halfTheta = theta * 0.5f;
@@ -242,12 +289,12 @@ public class RigidBody {
 			rotationToSinAxisFactor = MathUtil.sin(halfTheta) / theta;
 			cosHalfTheta = MathUtil.cos(halfTheta);
 		}
-		Vec3 sinAxis=new Vec3();
+		Vec3 sinAxis = tmpSinAxis;
 		M.vec3_scale(sinAxis, rotation, rotationToSinAxisFactor);
-		Quat dq=new Quat();
+		Quat dq = tmpDeltaQuat;
 		M.quat_fromVec3AndFloat(dq, sinAxis, cosHalfTheta);
 		// integrate quaternion
-		Quat q=new Quat();
+		Quat q = tmpQuat;
 		M.quat_fromMat3(q, _transform._rotation);
 		M.quat_mul(q, dq, q);
 		q.normalize();
@@ -281,13 +328,13 @@ public class RigidBody {
 	}
 
 	 public void _applyLinearPositionImpulse(Vec3 imp) {
-		Vec3 translation=new Vec3();
+		Vec3 translation = tmpTranslation;
 		M.vec3_scale(translation, imp, _invMass);
 		_applyTranslation(translation);
 	}
 
 	 public void _applyAngularPositionImpulse(Vec3 imp) {
-		Vec3 rotation=new Vec3();
+		Vec3 rotation = tmpRotation;
 		M.vec3_mulMat3(rotation, imp, _invInertia);
 		_applyRotation(rotation);
 	}
@@ -359,6 +406,10 @@ public class RigidBody {
 			}
 		}
 		updateInvInertia();
+		if (_world != null) {
+			// static rigid bodies don't join islands
+			_world._updateRigidBodyType(this);
+		}
 	}
 
 	public void updateInvInertia() {
@@ -1086,6 +1137,9 @@ public class RigidBody {
 	public void wakeUp() {
 		_sleeping = false;
 		_sleepTime = 0;
+		if (_world != null && _type != RigidBodyType._STATIC) {
+			_world._activateRigidBody(this);
+		}
 	}
 
 	/**
@@ -1,5 +1,4 @@
 package oimo.dynamics.rigidbody;
-import oimo.collision.*;
 import oimo.collision.broadphase.*;
 import oimo.collision.geometry.*;
 import oimo.common.M;
@@ -38,6 +37,8 @@ public class Shape {
 	public ContactCallback _contactCallback;
 
 	Vec3 displacement;
+	// AABB at the previous transform, only used in `_sync`
+	Aabb prevAabb;
 
 	/**
 	 * Extra field that users can use for their own purposes.
@@ -70,6 +71,7 @@ public class Shape {
 
 		_proxy = null;
 		displacement = new Vec3();
+		prevAabb = new Aabb();
 	}
 
 	// --- internal ---
@@ -79,18 +81,14 @@ public class Shape {
 		M.transform_mul(_transform, _localTransform, currentTransform);
 
 		
-		_geom._computeAabb(_aabb, _ptransform);
-		Vec3 min=_aabb._min.clone();
-		Vec3 max=_aabb._max.clone();
+		_geom._computeAabb(prevAabb, _ptransform);
 		_geom._computeAabb(_aabb, _transform);
-		M.vec3_min(_aabb._min, min, _aabb._min);
-		M.vec3_max(_aabb._max, max, _aabb._max);
+		M.vec3_min(_aabb._min, prevAabb._min, _aabb._min);
+		M.vec3_max(_aabb._max, prevAabb._max, _aabb._max);
 
 		
 		if (_proxy != null) {
-			Vec3 d=new Vec3();
-			M.vec3_sub(d, _transform._position, _ptransform._position);
-			M.vec3_toVec3(displacement, d);
+			M.vec3_sub(displacement, _transform._position, _ptransform._position);
 			_rigidBody._world._broadPhase.moveProxy(_proxy, this._aabb, displacement);
 		}
 	}
@@ -0,0 +1,42 @@
+package oimo.dynamics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import oimo.collision.geometry.BoxGeometry;
+import oimo.common.Vec3;
+import oimo.dynamics.rigidbody.RigidBody;
+import oimo.dynamics.rigidbody.RigidBodyType;
+
+/**
+ * Checks that the contact impulses of static rigid bodies are those of the last step.
+ */
+class StaticContactImpulseTest {
+	static final double DT = 1.0 / 60;
+	static final double GRAVITY = 9.80665;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 3 })
+	void groundImpulseOfRestingBoxesStaysBounded(int numBoxes) {
+		World world = new World(2, new Vec3(0, -GRAVITY, 0));
+		RigidBody ground = WorldStepAllocationTest.addRigidBody(world, new Vec3(0, -0.5, 0),
+				new BoxGeometry(new Vec3(10, 0.5, 10)), RigidBodyType.STATIC);
+		double mass = 0;
+		for (int i = 0; i < numBoxes; i++) {
+			// separate islands resting on the same ground
+			RigidBody box = WorldStepAllocationTest.addRigidBody(world, new Vec3(i * 3, 0.5, 0),
+					new BoxGeometry(new Vec3(0.5, 0.5, 0.5)), RigidBodyType.DYNAMIC);
+			mass += box.getMass();
+		}
+		for (int i = 0; i < 300; i++) {
+			world.step(DT);
+			if (i >= 100) {
+				// at rest, the ground pushes the boxes up with their weight over a step
+				assertEquals(-mass * GRAVITY * DT, ground.getLinearContactImpulse().y, mass * GRAVITY * DT * 0.1,
+						"ground impulse at step " + i);
+			}
+		}
+	}
+}
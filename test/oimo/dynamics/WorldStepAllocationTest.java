@@ -0,0 +1,112 @@
+package oimo.dynamics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import oimo.collision.broadphase.BroadPhaseType;
+import oimo.collision.geometry.BoxGeometry;
+import oimo.collision.geometry.Geometry;
+import oimo.collision.geometry.SphereGeometry;
+import oimo.common.Vec3;
+import oimo.dynamics.constraint.joint.RevoluteJoint;
+import oimo.dynamics.constraint.joint.RevoluteJointConfig;
+import oimo.dynamics.constraint.joint.SphericalJoint;
+import oimo.dynamics.constraint.joint.SphericalJointConfig;
+import oimo.dynamics.rigidbody.RigidBody;
+import oimo.dynamics.rigidbody.RigidBodyConfig;
+import oimo.dynamics.rigidbody.RigidBodyType;
+import oimo.dynamics.rigidbody.Shape;
+import oimo.dynamics.rigidbody.ShapeConfig;
+
+/**
+ * Checks that a world in a steady state steps without allocating on the calling thread.
+ */
+class WorldStepAllocationTest {
+	static final double DT = 1.0 / 60;
+
+	static RigidBody addRigidBody(World world, Vec3 position, Geometry geom, int type) {
+		ShapeConfig shapeConfig = new ShapeConfig();
+		shapeConfig.geometry = geom;
+		RigidBodyConfig bodyConfig = new RigidBodyConfig();
+		bodyConfig.type = type;
+		bodyConfig.position = position;
+		RigidBody body = new RigidBody(bodyConfig);
+		body.addShape(new Shape(shapeConfig));
+		// keep the bodies awake so that every step runs the whole pipeline
+		body.setAutoSleep(false);
+		world.addRigidBody(body);
+		return body;
+	}
+
+	static World createWorld(int broadPhaseType) {
+		World world = new World(broadPhaseType, new Vec3(0, -9.80665, 0));
+		addRigidBody(world, new Vec3(0, -0.5, 0), new BoxGeometry(new Vec3(5, 0.5, 5)), RigidBodyType.STATIC);
+		for (int i = 0; i < 4; i++) {
+			for (int j = -1; j <= 1; j++) {
+				for (int k = -1; k <= 1; k++) {
+					Vec3 pos = new Vec3(j * 1.2, 0.5 + i * 1.01, k * 1.2);
+					if ((i + j + k & 1) == 0) {
+						addRigidBody(world, pos, new BoxGeometry(new Vec3(0.5, 0.5, 0.5)), RigidBodyType.DYNAMIC);
+					} else {
+						addRigidBody(world, pos, new SphereGeometry(0.5), RigidBodyType.DYNAMIC);
+					}
+				}
+			}
+		}
+
+		// a chain hanging from a static body, alternating spherical and revolute joints
+		RigidBody prev = addRigidBody(world, new Vec3(0, 8, 0), new BoxGeometry(new Vec3(0.2, 0.2, 0.2)), RigidBodyType.STATIC);
+		for (int i = 1; i <= 4; i++) {
+			RigidBody body = addRigidBody(world, new Vec3(i * 0.5, 8, 0), new SphereGeometry(0.2), RigidBodyType.DYNAMIC);
+			Vec3 anchor = new Vec3(i * 0.5 - 0.25, 8, 0);
+			if ((i & 1) == 0) {
+				SphericalJointConfig config = new SphericalJointConfig();
+				config.init(prev, body, anchor);
+				world.addJoint(new SphericalJoint(config));
+			} else {
+				RevoluteJointConfig config = new RevoluteJointConfig();
+				config.init(prev, body, anchor, new Vec3(0, 0, 1));
+				world.addJoint(new RevoluteJoint(config));
+			}
+			prev = body;
+		}
+		return world;
+	}
+
+	static long allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	static long stepAllocations(World world, int steps) {
+		// the overhead of the measurement itself
+		long overhead = -allocatedBytes();
+		overhead += allocatedBytes();
+		long before = allocatedBytes();
+		for (int i = 0; i < steps; i++) {
+			world.step(DT);
+		}
+		return allocatedBytes() - before - overhead;
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { BroadPhaseType.BVH, BroadPhaseType.SAP, BroadPhaseType.BRUTE_FORCE })
+	void warmStepDoesNotAllocate(int broadPhaseType) {
+		World world = createWorld(broadPhaseType);
+		for (int i = 0; i < 600; i++) {
+			world.step(DT);
+		}
+		// the JIT may still deoptimize a method and materialize the objects it had eliminated,
+		// so allow a few windows, an allocating step would show in all of them
+		long allocated = 0;
+		for (int i = 0; i < 3; i++) {
+			allocated = stepAllocations(world, 200);
+			if (allocated == 0) break;
+		}
+		assertEquals(0, allocated, "bytes allocated by warm steps");
+	}
+}